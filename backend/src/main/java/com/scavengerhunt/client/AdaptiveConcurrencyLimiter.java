@@ -0,0 +1,114 @@
+package com.scavengerhunt.client;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bulkhead whose size follows the latency of the protected service (AIMD).
+ * A call that completes within the latency threshold grows the limit by 1/limit (about +1 per round
+ * of limit calls); a slow or failed call cuts it by the backoff ratio. Callers over the limit are
+ * rejected immediately instead of queueing, so a slow dependency holds at most limit threads.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+
+    private final Counter rejectedCounter;
+
+    public AdaptiveConcurrencyLimiter(String name, MeterRegistry meterRegistry, int initialLimit, int minLimit,
+                                      int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid limits for " + name + ": min=" + minLimit + ", max=" + maxLimit
+                + ", backoff=" + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        this.rejectedCounter = meterRegistry.counter(name + ".rejected");
+        Gauge.builder(name + ".limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder(name + ".in.flight", this, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+    }
+
+    /**
+     * A permit for one call, or null if the limit is reached. Every permit must be completed; only the first
+     * completion counts, so callers can call failure() in a finally after success().
+     */
+    public Permit tryAcquire() {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                rejectedCounter.increment();
+                return null;
+            }
+            inFlight++;
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private synchronized void complete(long latencyNanos, boolean failed) {
+        inFlight--;
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight + 1 >= (int) limit) {
+            // only grow while the limit is actually used, otherwise it drifts up during quiet periods
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private boolean done;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void success() {
+            finish(false);
+        }
+
+        /**
+         * Success of a call that did the work of several (a batch); its latency is judged per unit of work.
+         */
+        public void success(int units) {
+            if (done) {
+                return;
+            }
+            done = true;
+            complete((System.nanoTime() - startNanos) / Math.max(1, units), false);
+        }
+
+        public void failure() {
+            finish(true);
+        }
+
+        private void finish(boolean failed) {
+            if (done) {
+                return;
+            }
+            done = true;
+            complete(System.nanoTime() - startNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.scavengerhunt.client;
+
+/**
+ * Thrown when an AdaptiveConcurrencyLimiter has no permit left. The call was never sent,
+ * so circuit breakers ignore it (see resilience4j ignore-exceptions).
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,210 @@
+package com.scavengerhunt.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * One pooled, keep-alive HTTP transport for every outbound call (puzzle agent, landmark processor).
+ * All clients share a single JDK HttpClient, so connections to a service are reused across clients and
+ * requests instead of paying a TCP (and TLS) handshake and an ephemeral port per call.
+ *
+ * At most max-connections-per-route requests run against one host:port at a time (HTTP/1.1, so one
+ * connection each), further callers wait up to acquire-timeout-ms for a slot. Per-route in-flight gauges
+ * and wait timers complement the http.client.requests metrics of the Boot RestClient builder used here.
+ *
+ * The JDK client has no builder setting for its idle pool: its size and keep-alive are JVM-wide system
+ * properties (jdk.httpclient.connectionPoolSize, jdk.httpclient.keepalive.timeout), passed with
+ * JAVA_TOOL_OPTIONS in the compose files rather than set from here.
+ */
+@Component
+public class HttpTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+    private final HttpClient httpClient;
+    private final RestClient.Builder restClientBuilder;
+    private final MeterRegistry meterRegistry;
+    private final Duration defaultReadTimeout;
+    private final int maxPerRoute;
+    private final long acquireTimeoutMs;
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Counter rejectedCounter;
+    private final ClientHttpRequestInterceptor routeLimiter = this::limitRoute;
+
+    public HttpTransport(
+        RestClient.Builder restClientBuilder,
+        MeterRegistry meterRegistry,
+        @Value("${app.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+        @Value("${app.http.read-timeout-ms:10000}") long readTimeoutMs,
+        @Value("${app.http.max-connections-per-route:20}") int maxPerRoute,
+        @Value("${app.http.acquire-timeout-ms:2000}") long acquireTimeoutMs
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1) // the Python services speak HTTP/1.1 only, skip the h2c upgrade
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+        this.restClientBuilder = restClientBuilder;
+        this.meterRegistry = meterRegistry;
+        this.defaultReadTimeout = Duration.ofMillis(readTimeoutMs);
+        this.maxPerRoute = maxPerRoute;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.rejectedCounter = meterRegistry.counter("http.client.route.rejected");
+    }
+
+    /**
+     * RestClient builder for baseUrl on the shared transport, with the default read timeout.
+     */
+    public RestClient.Builder restClient(String baseUrl) {
+        return restClient(baseUrl, defaultReadTimeout);
+    }
+
+    public RestClient.Builder restClient(String baseUrl, Duration readTimeout) {
+        return restClientBuilder.clone()
+            .baseUrl(baseUrl)
+            .requestFactory(requestFactory(readTimeout))
+            .requestInterceptor(routeLimiter);
+    }
+
+    /**
+     * RestTemplate on the shared transport, for code that still uses the template API.
+     */
+    public RestTemplate restTemplate() {
+        RestTemplate template = new RestTemplate(requestFactory(defaultReadTimeout));
+        template.getInterceptors().add(routeLimiter);
+        return template;
+    }
+
+    public ClientHttpRequestFactory requestFactory(Duration readTimeout) {
+        // the factory is a thin adapter; every one created here shares the same client and pool
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+
+    public int inFlight(String route) {
+        Route r = routes.get(route);
+        return r != null ? maxPerRoute - r.permits.availablePermits() : 0;
+    }
+
+    /**
+     * Requests that can run against one host:port at a time; callers' own concurrency limits should not exceed it.
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxPerRoute;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private ClientHttpResponse limitRoute(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String route = routeOf(request.getURI());
+        Route r = routes.computeIfAbsent(route, this::newRoute);
+        Semaphore permits = r.permits;
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejectedCounter.increment();
+                throw new IOException("No connection to " + route + " became free within " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to " + route, e);
+        } finally {
+            r.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        // the body is streamed; the connection goes back to the pool once the caller has read and closed it
+        return new RouteResponse(response, permits);
+    }
+
+    // meters are registered once per route, not looked up on every request
+    private Route newRoute(String route) {
+        Semaphore permits = new Semaphore(maxPerRoute, true);
+        Gauge.builder("http.client.route.in.flight", permits, p -> maxPerRoute - p.availablePermits())
+            .tag("route", route)
+            .description("Requests currently using a connection to the route")
+            .register(meterRegistry);
+        Timer waitTimer = Timer.builder("http.client.route.wait")
+            .tag("route", route)
+            .description("Time spent waiting for a connection slot to the route")
+            .register(meterRegistry);
+        log.debug("New HTTP route {} (max {} connections)", route, maxPerRoute);
+        return new Route(permits, waitTimer);
+    }
+
+    private static String routeOf(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        return uri.getHost() + ":" + port;
+    }
+
+    private record Route(Semaphore permits, Timer waitTimer) {}
+
+    private static final class RouteResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        RouteResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException { return delegate.getStatusCode(); }
+
+        @Override
+        public String getStatusText() throws IOException { return delegate.getStatusText(); }
+
+        @Override
+        public HttpHeaders getHeaders() { return delegate.getHeaders(); }
+
+        @Override
+        public InputStream getBody() throws IOException { return delegate.getBody(); }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.scavengerhunt.client;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -9,6 +13,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
@@ -25,8 +31,8 @@ public class LandmarkProcessorClient {
     private final RestClient restClient;
 
     @Autowired
-    public LandmarkProcessorClient(@Value("${landmark.processor.url}") String baseUrl) {
-        this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+    public LandmarkProcessorClient(@Value("${landmark.processor.url}") String baseUrl, HttpTransport httpTransport) {
+        this.restClient = httpTransport.restClient(baseUrl).build();
     }
 
     LandmarkProcessorClient(RestClient restClient) {
@@ -50,6 +56,28 @@ public class LandmarkProcessorClient {
         return null;
     }
 
+    /**
+     * Boundary polygons of a resolved city (the place of that name around lat/lng), or null if the processor
+     * has none or the call failed.
+     */
+    public List<GeoJsonPolygon> fetchCityBoundary(String city, double lat, double lng) {
+        try {
+            Map<String, Object> body = restClient.post()
+                .uri("/city-boundary")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("city", city, "latitude", lat, "longitude", lng))
+                .retrieve()
+                .body(new ParameterizedTypeReference<Map<String, Object>>() {});
+
+            if (body != null && "ok".equals(body.get("status")) && body.get("boundary") instanceof Map<?, ?> boundary) {
+                return toPolygons(boundary);
+            }
+        } catch (Exception e) {
+            log.debug("city-boundary call failed for {}: {}", city, e.getMessage());
+        }
+        return null;
+    }
+
     public void ensureLandmarkMeta(List<Landmark> landmarks) {
         if (landmarks == null || landmarks.isEmpty())
             return;
@@ -62,10 +90,14 @@ public class LandmarkProcessorClient {
         if (ids.isEmpty())
             return;
 
-        generateMetaBatch(ids);
+        generateLandmarkMeta(ids);
     }
 
-    private void generateMetaBatch(List<String> landmarkIds) {
+    /**
+     * Generate metadata for the landmarks that have none yet. Returns the ids that have metadata afterwards,
+     * or null if the call failed.
+     */
+    public Set<String> generateLandmarkMeta(Collection<String> landmarkIds) {
         try {
             Map<String, Object> body = restClient.post()
                 .uri("/generate-landmark-meta")
@@ -81,9 +113,49 @@ public class LandmarkProcessorClient {
                 log.debug("Batch size={} -> generated={}, skipped={}, failed={}",
                     landmarkIds.size(), generated, skipped, failed);
 
+                Set<String> ready = new HashSet<>();
+                if (body.get("ready_ids") instanceof List<?> readyIds) {
+                    readyIds.forEach(id -> ready.add(String.valueOf(id)));
+                }
+                return ready;
             }
         } catch (Exception e) {
             log.debug("Batch error: {}", e.getMessage());
         }
+        return null;
+    }
+
+    // ==================== Helper Functions ====================
+
+    // GeoJSON Polygon or MultiPolygon; rings are lists of [lng, lat]
+    private static List<GeoJsonPolygon> toPolygons(Map<?, ?> geometry) {
+        Object coordinates = geometry.get("coordinates");
+        if (!(coordinates instanceof List<?> list) || list.isEmpty()) {
+            return null;
+        }
+        List<GeoJsonPolygon> polygons = new ArrayList<>();
+        if ("Polygon".equals(geometry.get("type"))) {
+            polygons.add(toPolygon((List<?>) list));
+        } else if ("MultiPolygon".equals(geometry.get("type"))) {
+            list.forEach(polygon -> polygons.add(toPolygon((List<?>) polygon)));
+        } else {
+            return null;
+        }
+        return polygons;
+    }
+
+    private static GeoJsonPolygon toPolygon(List<?> rings) {
+        GeoJsonPolygon polygon = new GeoJsonPolygon(toPoints((List<?>) rings.get(0)));
+        for (int i = 1; i < rings.size(); i++) {
+            polygon = polygon.withInnerRing(toPoints((List<?>) rings.get(i)));
+        }
+        return polygon;
+    }
+
+    private static List<Point> toPoints(List<?> ring) {
+        return ring.stream()
+            .map(position -> (List<?>) position)
+            .map(position -> new Point(((Number) position.get(0)).doubleValue(), ((Number) position.get(1)).doubleValue()))
+            .toList();
     }
 }
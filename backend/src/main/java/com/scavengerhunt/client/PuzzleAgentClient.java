@@ -1,58 +1,180 @@
 package com.scavengerhunt.client;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scavengerhunt.client.dto.GenerateRiddleRequest;
 import com.scavengerhunt.client.dto.GenerateRiddleResponse;
+import com.scavengerhunt.client.dto.GenerateRiddlesRequest;
+import com.scavengerhunt.client.dto.GenerateRiddlesResponse;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Component
 public class PuzzleAgentClient {
 
     private static final Logger log = LoggerFactory.getLogger(PuzzleAgentClient.class);
 
+    // returned while the agent is unavailable; callers can tell it apart from a generated riddle
+    public static final String FALLBACK_RIDDLE = "Find the landmark that matches your target. Look carefully at the surroundings.";
+
     private final RestClient restClient;
+    private final RestClient batchRestClient; // same pool, read timeout sized for a whole batch
+    // bulkhead: caps concurrent riddle generations, sized from the agent's latency
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
 
 
     public PuzzleAgentClient(
         @Value("${app.puzzle-agent.url}") String baseUrl,
-        @Value("${app.puzzle-agent.timeout-seconds}") int timeoutSeconds
+        @Value("${app.puzzle-agent.timeout-seconds}") int timeoutSeconds,
+        @Value("${app.puzzle-agent.batch-timeout-seconds:30}") int batchTimeoutSeconds,
+        HttpTransport httpTransport,
+        MeterRegistry meterRegistry,
+        ObjectMapper objectMapper,
+        @Value("${app.puzzle-agent.limit.initial:8}") int initialLimit,
+        @Value("${app.puzzle-agent.limit.min:2}") int minLimit,
+        @Value("${app.puzzle-agent.limit.max:20}") int maxLimit,
+        @Value("${app.puzzle-agent.limit.latency-threshold-ms:4000}") long latencyThresholdMs,
+        @Value("${app.puzzle-agent.limit.backoff-ratio:0.7}") double backoffRatio
     ){
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(timeoutSeconds * 1000);
-        factory.setReadTimeout(timeoutSeconds * 1000);
-
-        this.restClient = RestClient.builder()
-            .baseUrl(baseUrl)
-            .requestFactory(factory)
-            .build();
+        // shared keep-alive pool; riddle generation gets its own (longer) read timeout
+        this.restClient = httpTransport.restClient(baseUrl, Duration.ofSeconds(timeoutSeconds)).build();
+        this.batchRestClient = httpTransport.restClient(baseUrl, Duration.ofSeconds(batchTimeoutSeconds)).build();
+        // calls beyond the transport's per-route connections would only wait for a slot, not run
+        int routeLimit = httpTransport.getMaxConnectionsPerRoute();
+        if (maxLimit > routeLimit) {
+            log.warn("app.puzzle-agent.limit.max={} exceeds app.http.max-connections-per-route={}, capping it", maxLimit, routeLimit);
+        }
+        this.limiter = new AdaptiveConcurrencyLimiter("puzzle.agent.concurrency", meterRegistry,
+            Math.min(initialLimit, routeLimit), Math.min(minLimit, routeLimit), Math.min(maxLimit, routeLimit),
+            Duration.ofMillis(latencyThresholdMs), backoffRatio);
+        this.objectMapper = objectMapper;
     }
 
     @CircuitBreaker(name = "puzzleAgent", fallbackMethod = "riddleFallback")
     public String generateRiddle(GenerateRiddleRequest req)  {
-        var resp = restClient.post()
-            .uri("/generate-riddle")
-            .body(req)
-            .retrieve()
-            .body(GenerateRiddleResponse.class);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            throw new ConcurrencyLimitExceededException("Puzzle Agent limit of " + limiter.getLimit() + " concurrent calls reached");
+        }
+        try {
+            var resp = restClient.post()
+                .uri("/generate-riddle")
+                .body(req)
+                .retrieve()
+                .body(GenerateRiddleResponse.class);
 
-        if (resp == null || resp.riddle() == null){
-            throw new RuntimeException("Empty riddle response from Puzzle Agent");
+            if (resp == null || resp.riddle() == null){
+                throw new RuntimeException("Empty riddle response from Puzzle Agent");
+            }
+            permit.success();
+            return resp.riddle();
+        } finally {
+            permit.failure(); // no-op after success(); also releases the permit on an Error
         }
-        return resp.riddle();
+    }
+
+    /**
+     * Same as generateRiddle, but hands the riddle text to onChunk piece by piece while the agent writes it
+     * (server-sent events from /generate-riddle/stream). Returns the whole riddle.
+     */
+    @CircuitBreaker(name = "puzzleAgent", fallbackMethod = "streamFallback")
+    public String streamRiddle(GenerateRiddleRequest req, Consumer<String> onChunk) {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            throw new ConcurrencyLimitExceededException("Puzzle Agent limit of " + limiter.getLimit() + " concurrent calls reached");
+        }
+        try {
+            String riddle = restClient.post()
+                .uri("/generate-riddle/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(req)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RuntimeException("Puzzle Agent stream failed with " + response.getStatusCode());
+                    }
+                    return readRiddleEvents(response.getBody(), onChunk);
+                });
+            permit.success();
+            return riddle;
+        } finally {
+            permit.failure(); // no-op after success(); also releases the permit on an Error
+        }
+    }
+
+    /**
+     * Riddles for several targets in one round-trip, by landmark id. Targets the agent could not serve are
+     * missing from the map (all of them while the agent is unavailable); callers fall back per landmark.
+     */
+    @CircuitBreaker(name = "puzzleAgent", fallbackMethod = "riddlesFallback")
+    public Map<String, String> generateRiddles(GenerateRiddlesRequest req) {
+        if (req.targets() == null || req.targets().isEmpty()) {
+            return Map.of();
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            throw new ConcurrencyLimitExceededException("Puzzle Agent limit of " + limiter.getLimit() + " concurrent calls reached");
+        }
+        try {
+            var resp = batchRestClient.post()
+                .uri("/generate-riddles")
+                .body(req)
+                .retrieve()
+                .body(GenerateRiddlesResponse.class);
+
+            if (resp == null || resp.riddles() == null) {
+                throw new RuntimeException("Empty riddles response from Puzzle Agent");
+            }
+            if (resp.errors() != null && !resp.errors().isEmpty()) {
+                log.warn("Puzzle Agent could not generate riddles for {}", resp.errors().keySet());
+            }
+            permit.success(req.targets().size());
+            return resp.riddles();
+        } finally {
+            permit.failure(); // no-op after success(); also releases the permit on an Error
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
     }
 
     private String riddleFallback(GenerateRiddleRequest req, Throwable t) {
-        log.warn("Puzzle Agent unavailable for landmark {}, using fallback. Cause: {}", req.landmarkId(), t.getMessage());
-        return "Find the landmark that matches your target. Look carefully at the surroundings.";
+        if (t instanceof ConcurrencyLimitExceededException) {
+            // fail fast; callers serve a cached variant of the riddle when they have one
+            log.debug("Puzzle Agent busy for landmark {}, using fallback", req.landmarkId());
+        } else {
+            log.warn("Puzzle Agent unavailable for landmark {}, using fallback. Cause: {}", req.landmarkId(), t.getMessage());
+        }
+        return FALLBACK_RIDDLE;
+    }
+
+    private String streamFallback(GenerateRiddleRequest req, Consumer<String> onChunk, Throwable t) {
+        return riddleFallback(req, t);
+    }
+
+    private Map<String, String> riddlesFallback(GenerateRiddlesRequest req, Throwable t) {
+        List<String> ids = req.targets().stream().map(GenerateRiddlesRequest.Target::landmarkId).toList();
+        log.warn("Puzzle Agent batch failed for landmarks {}. Cause: {}", ids, t.getMessage());
+        return Map.of();
     }
 
     public void resetSession(String sessionId) {
@@ -62,4 +184,36 @@ public class PuzzleAgentClient {
             .retrieve()
             .toBodilessEntity();
     }
+
+    // ==================== Helper Functions ====================
+
+    // "chunk" events carry text, "done" the whole riddle, "error" a failure on the agent side
+    private String readRiddleEvents(InputStream body, Consumer<String> onChunk) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String event = "message";
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    JsonNode payload = objectMapper.readTree(data.toString());
+                    switch (event) {
+                        case "chunk" -> onChunk.accept(payload.path("text").asText());
+                        case "done" -> {
+                            return payload.path("riddle").asText();
+                        }
+                        case "error" -> throw new RuntimeException("Puzzle Agent stream error: " + payload.path("message").asText());
+                        default -> log.debug("Ignoring riddle stream event {}", event);
+                    }
+                }
+                event = "message";
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                data.append(line.substring(5).trim());
+            }
+        }
+        throw new IOException("Riddle stream ended without a riddle");
+    }
 }
@@ -0,0 +1,21 @@
+package com.scavengerhunt.client.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Riddles for several targets of a round in one call; the agent serves the targets in list order.
+ */
+public record GenerateRiddlesRequest(
+    @JsonProperty("session_id") String sessionId,
+    @JsonProperty("language") String language,
+    @JsonProperty("style") String style,
+    @JsonProperty("puzzle_pool") List<String> puzzlePool,
+    @JsonProperty("targets") List<Target> targets
+) {
+    public record Target(
+        @JsonProperty("landmark_id") String landmarkId,
+        @JsonProperty("difficulty") double difficulty
+    ) {}
+}
@@ -0,0 +1,12 @@
+package com.scavengerhunt.client.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record GenerateRiddlesResponse(
+    @JsonProperty("status") String status,
+    @JsonProperty("session_id") String sessionId,
+    @JsonProperty("riddles") Map<String, String> riddles,
+    @JsonProperty("errors") Map<String, String> errors
+) {}
@@ -0,0 +1,34 @@
+package com.scavengerhunt.client.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * One line of the landmark processor's /landmark-feed (NDJSON). externalId is the OSM element
+ * ("osm:way/123") and stays the same across fetches; geometry is a closed ring of [lng, lat].
+ */
+public record LandmarkFeedItem(
+    String externalId,
+    String name,
+    String city,
+    double latitude,
+    double longitude,
+    List<List<Double>> geometry,
+    Map<String, Object> tags
+) {
+
+    /**
+     * Content hash, stored with the landmark so an unchanged re-fetch writes nothing.
+     */
+    public String version() {
+        return DigestUtils.md5DigestAsHex(toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isValid() {
+        return externalId != null && !externalId.isBlank() && name != null && !name.isBlank() && city != null
+            && geometry != null && geometry.size() >= 4;
+    }
+}
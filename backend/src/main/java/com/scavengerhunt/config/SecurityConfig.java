@@ -14,6 +14,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import com.scavengerhunt.security.JwtAuthenticationFilter;
 import com.scavengerhunt.security.JwtTokenProvider;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Configuration
@@ -34,6 +35,8 @@ public class SecurityConfig {
             .sessionManagement(sm -> sm
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // no more session, jwt instead
             .authorizeHttpRequests(auth -> auth
+                // the result of a long-poll or stream is written on an async dispatch of an already authorized request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // public endpoints
                 .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
@@ -4,16 +4,21 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.User;
 import com.scavengerhunt.repository.LandmarkRepository;
 import com.scavengerhunt.repository.UserRepository;
+import com.scavengerhunt.service.CityPack;
+import com.scavengerhunt.service.CityPackStore;
+import com.scavengerhunt.service.LandmarksChangedEvent;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -23,10 +28,15 @@ public class AdminController {
 
     private final LandmarkRepository landmarkRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CityPackStore cityPackStore;
 
-    public AdminController(LandmarkRepository landmarkRepository, UserRepository userRepository){
+    public AdminController(LandmarkRepository landmarkRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher,
+                           CityPackStore cityPackStore){
         this.landmarkRepository = landmarkRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.cityPackStore = cityPackStore;
     }
 
     @PostMapping("/insert-landmarks")
@@ -38,10 +48,27 @@ public class AdminController {
         );
 
         landmarkRepository.saveAll(landmarks);
+        landmarks.stream().map(Landmark::getCity).distinct()
+            .forEach(city -> eventPublisher.publishEvent(new LandmarksChangedEvent(city)));
         log.info("Inserted {} seed landmarks", landmarks.size());
         return ResponseEntity.ok("[Admin] Landmarks inserted.");
     }
 
+    /**
+     * Writes the city's pack now, e.g. to copy it to a node that serves the city from files.
+     */
+    @PostMapping("/export-city-pack")
+    public ResponseEntity<String> exportCityPack(@RequestParam String city) {
+        if (!cityPackStore.isEnabled()) {
+            return ResponseEntity.badRequest().body("[Admin] City packs are disabled (app.city-pack.dir).");
+        }
+        CityPack pack = cityPackStore.export(city);
+        if (pack == null) {
+            return ResponseEntity.badRequest().body("[Admin] No city pack written for " + city + ".");
+        }
+        return ResponseEntity.ok("[Admin] City pack for " + city + " written with " + pack.size() + " landmarks.");
+    }
+
     @PostMapping("/insert-users")
     public ResponseEntity<String> insertUsers() {
         List<User> users = List.of(
@@ -55,6 +82,7 @@ public class AdminController {
     @DeleteMapping("/clear-landmarks")
     public ResponseEntity<String> clearLandmarks() {
         landmarkRepository.deleteAll();
+        eventPublisher.publishEvent(LandmarksChangedEvent.allCities());
         log.info("Cleared all landmarks");
         return ResponseEntity.ok("[Admin] All landmarks cleared.");
     }
@@ -1,38 +1,43 @@
 package com.scavengerhunt.controller;
 
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
-import org.locationtech.jts.geom.Coordinate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.scavengerhunt.client.LandmarkProcessorClient;
-import com.scavengerhunt.client.PuzzleAgentClient;
-import com.scavengerhunt.dto.LandmarkDTO;
 import com.scavengerhunt.dto.PlayerPositionRequest;
 import com.scavengerhunt.dto.StartRoundRequest;
 import com.scavengerhunt.dto.SubmitAnswerRequest;
 import com.scavengerhunt.game.GameLogicManager;
-import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.game.PuzzleManager.PendingRiddle;
+import com.scavengerhunt.model.BackgroundJob;
 import com.scavengerhunt.model.PersistedGameSession;
-import com.scavengerhunt.repository.AnswerTransactionRecordRepository;
-import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.CityPayloadCache;
+import com.scavengerhunt.service.CityPayloadCache.CityPayload;
+import com.scavengerhunt.service.CityResolver;
+import com.scavengerhunt.service.GameSessionRegistry;
 import com.scavengerhunt.service.GameSessionService;
+import com.scavengerhunt.service.JobCompletionNotifier;
 import com.scavengerhunt.service.JobCoordinator;
-import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.service.PositionCoalescer;
+import com.scavengerhunt.service.RiddleStreamer;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -51,19 +56,28 @@ public class GameRestController {
     private GameSessionService gameSessionService;
 
     @Autowired
-    private GameDataRepository gameDataRepo;
+    private GameSessionRegistry gameSessionRegistry;
 
     @Autowired
-    private AnswerTransactionRecordRepository answerTransactionRecordRepo;
+    private PositionCoalescer positionCoalescer;
 
     @Autowired
-    private PuzzleAgentClient puzzleAgentClient;
+    private CityResolver cityResolver;
 
     @Autowired
-    private LandmarkProcessorClient landmarkProcessorClient;
+    private JobCoordinator jobCoordinator;
 
     @Autowired
-    private JobCoordinator jobCoordinator;
+    private CityPayloadCache cityPayloadCache;
+
+    @Autowired
+    private RiddleStreamer riddleStreamer;
+
+    @Autowired
+    private JobCompletionNotifier jobCompletionNotifier;
+
+    // below this many landmarks a city is (re)ingested before a game can start
+    private static final int MIN_CITY_LANDMARKS = 10;
 
     // EloCalculator is created dynamically in GameSession, not as a Spring bean
     @Operation(
@@ -71,7 +85,9 @@ public class GameRestController {
         description = "Update a player's geological location."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Player position updated")
+        @ApiResponse(responseCode = "200", description = "Player position updated"),
+        @ApiResponse(responseCode = "404", description = "Session not found"),
+        @ApiResponse(responseCode = "409", description = "Session was removed or replaced by another request")
     })
     @PostMapping("/update-position")
     public ResponseEntity<String> updatePlayerPosition(@Valid @RequestBody PlayerPositionRequest request) {
@@ -82,18 +98,18 @@ public class GameRestController {
         double lng = request.getLongitude();
         double angle = request.getAngle();
 
-        // session Game Session Management
-        PersistedGameSession session = gameSessionService.findByUserId(userId).orElse(null);
-        if (session == null) {
+        // same session check as the other endpoints; the buffered fixes below would not notice a missing session
+        if (gameSessionRegistry.get(userId) == null) {
             log.debug("No session for player {} on update-position", userId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body("[Backend][updatePlayerPosition] No Session for player: " + userId);
-        } else {
-            session.setPlayerLat(lat);
-            session.setPlayerLng(lng);
-            session.setPlayerAngle(angle);
-            session.setLastUpdated(Instant.now());
-            gameSessionService.save(session);
+        }
+
+        // noise is dropped, the rest reaches the live game at once and Mongo at a bounded rate
+        if (!positionCoalescer.submit(userId, lat, lng, angle)) {
+            // the live game outlived its stored session; answered like any other concurrent change
+            gameSessionRegistry.evict(userId);
+            throw new OptimisticLockingFailureException("Session of user " + userId + " was removed");
         }
         // user based response
         return ResponseEntity.ok("[Backend][updatePlayerPosition] Player Position Updated.");
@@ -104,10 +120,16 @@ public class GameRestController {
         description = "Initialize a new game session or update existing session with landmarks for the player's location."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Game initialized successfully, landmarks returned")
+        @ApiResponse(responseCode = "200", description = "Game initialized successfully, landmarks returned"),
+        @ApiResponse(responseCode = "202", description = "Landmarks for the city are still being prepared"),
+        @ApiResponse(responseCode = "304", description = "Game initialized, client already holds this landmark version")
     })
     @PostMapping("/init-game")
-    public ResponseEntity<?> initGame(@Valid @RequestBody PlayerPositionRequest request) {
+    public ResponseEntity<?> initGame(
+        @Valid @RequestBody PlayerPositionRequest request,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         String userId = currentUserId();
         log.debug("init-game request from user {}", userId);
 
@@ -115,14 +137,7 @@ public class GameRestController {
         double lng = request.getLongitude();
         double angle = request.getAngle();
 
-        String city = landmarkProcessorClient.resolveCity(lat, lng);
-        // try{
-        //     city = landmarkProcessorClient.resolveCity(lat, lng);
-        // } catch (NullPointerException e) {
-        //     return ResponseEntity.status(400).body(
-        //         Map.of("status", "error", "message", "Could not resolve city from coordinates")
-        //     );
-        // }
+        String city = cityResolver.resolve(lat, lng);
 
         if (city == null) {
             return ResponseEntity.status(400).body(
@@ -130,8 +145,8 @@ public class GameRestController {
             );
         }
 
-        List<Landmark> existing = gameDataRepo.findByCity(city);
-        if (existing.size() < 10) {
+        CityPayload payload = cityPayloadCache.get(city, MIN_CITY_LANDMARKS);
+        if (payload == null) {
             jobCoordinator.enqueueFetchLandmarks(city, lat, lng);
             return ResponseEntity.accepted().body(
                 Map.of(
@@ -142,21 +157,9 @@ public class GameRestController {
             );
         }
 
-        List<LandmarkDTO> frontendLandmarks = new ArrayList<>();
-
-        for (Landmark lm : existing) {
-            // polygon
-            List<List<Double>> coords = new ArrayList<>();
-            Coordinate[] polygon = GeoUtils.convertToJtsPolygon(lm.getGeometry()).getCoordinates();
-            for (Coordinate coord : polygon) {
-                coords.add(Arrays.asList(coord.getY(), coord.getX()));  // [lat, lng]
-            }
-            LandmarkDTO dto = new LandmarkDTO(lm.getId(), lm.getName(), lm.getLatitude(), lm.getLongitude(), coords);
-            frontendLandmarks.add(dto);
-        }
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("landmarks", frontendLandmarks);
+        // the stored session is about to be replaced or moved, drop any live copy of it
+        positionCoalescer.forget(userId);
+        gameSessionRegistry.evict(userId);
 
         // Check if there's already an active session for this user
         PersistedGameSession session = gameSessionService.findByUserId(userId).orElse(null);
@@ -170,7 +173,33 @@ public class GameRestController {
         session.updatePlayerPosition(lat, lng, angle);
         gameSessionService.save(session);
 
-        return ResponseEntity.ok(response);
+        // the landmark list is prebuilt per city; a client that already holds this version gets a 304
+        if (payload.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(payload.etag()).build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+            .eTag(payload.etag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ok.body(gzip ? payload.gzip() : payload.json());
+    }
+
+    @Operation(
+        summary = "Wait until a city's landmarks are prepared",
+        description = "Long-poll after init-game returned 202 PREPARING. Answers once the city's landmark job is DONE "
+            + "or FAILED, or with PREPARING after the timeout; on DONE the client calls init-game again."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "status DONE, FAILED or PREPARING (timed out, ask again)"),
+        @ApiResponse(responseCode = "404", description = "No landmark preparation for this city")
+    })
+    @GetMapping("/landmarks-ready")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitLandmarks(@RequestParam String city) {
+        return jobCompletionNotifier.await(BackgroundJob.fetchLandmarksKey(city));
     }
 
     @Operation(
@@ -188,26 +217,40 @@ public class GameRestController {
 
         String userId = currentUserId();
 
-        PersistedGameSession session = gameSessionService.findByUserId(userId).orElse(null);
-        if (session == null) return ResponseEntity.status(404).body("[Backend][startNewRound] Session Not Found!");
+        GameLogicManager game = gameSessionRegistry.get(userId);
+        if (game == null) return ResponseEntity.status(404).body("[Backend][startNewRound] Session Not Found!");
 
-        // Check if game is already finished to prevent starting new round on finished session
-        if (session.isFinished()) {
-            log.debug("Cannot start round, game already finished for user {}", userId);
-            return ResponseEntity.status(400).body("[Backend][startNewRound] Game already finished. Please initialize a new game.");
-        }
+        Map<String, Object> currentTarget;
+        PendingRiddle pending;
+        synchronized (game) {
+            // Check if game is already finished to prevent starting new round on finished session
+            if (game.getSession().isFinished()) {
+                log.debug("Cannot start round, game already finished for user {}", userId);
+                return ResponseEntity.status(400).body("[Backend][startNewRound] Game already finished. Please initialize a new game.");
+            }
 
-        // Run round logic
-        GameLogicManager game = new GameLogicManager(session, gameDataRepo, landmarkProcessorClient, puzzleAgentClient, answerTransactionRecordRepo, 30);
-        game.startNewRound(request.getRadiusMeters());
+            // the round is built around the freshest fix, which may not have been flushed to the session yet
+            double[] fix = positionCoalescer.latest(userId);
+            if (fix != null) {
+                game.movePlayer(fix[0], fix[1], fix[2]);
+            }
 
-        Map<String, Object> currentTarget = game.getCurrentTarget();
-        if (currentTarget == null) return ResponseEntity.status(404).body("[Backend][startNewRound] No target available.");
+            // Run round logic
+            game.setRiddleDelivery(riddleDelivery(request.getStreamRiddle()));
+            game.startNewRound(request.getRadiusMeters());
 
-        // Session Update
-        gameSessionService.save(session);
+            currentTarget = game.getCurrentTarget();
+            if (currentTarget == null) {
+                // nothing was stored for this attempt; drop the in-memory state so a retry starts clean
+                gameSessionRegistry.evict(userId);
+                return ResponseEntity.status(404).body("[Backend][startNewRound] No target available.");
+            }
 
-        return ResponseEntity.ok(currentTarget);
+            // Session Update
+            gameSessionRegistry.persist(game);
+            pending = game.takePendingRiddle();
+        }
+        return ResponseEntity.ok(withRiddle(game, pending, currentTarget));
     }
 
     @Operation(
@@ -223,49 +266,86 @@ public class GameRestController {
 
         String userId = currentUserId();
 
-        PersistedGameSession session = gameSessionService.findByUserId(userId).orElse(null);
-        if (session == null) {
+        GameLogicManager game = gameSessionRegistry.get(userId);
+        if (game == null) {
             return ResponseEntity.status(404).body(Map.of(
                 "status", "error", "message", "Session not found"
             ));
         }
 
-        // Recounstruct GameSession
-        double lat = request.getLatitude() != null ? request.getLatitude() : session.getPlayerLat();
-        double lng = request.getLongitude() != null ? request.getLongitude() : session.getPlayerLng();
-        double angle = request.getCurrentAngle() != null ? request.getCurrentAngle() : session.getPlayerAngle();
-        GameLogicManager game = new GameLogicManager(session, gameDataRepo, landmarkProcessorClient, puzzleAgentClient, answerTransactionRecordRepo, 30);
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> target = null;
+        PendingRiddle pending = null;
+        synchronized (game) {
+            // Update player position with current angle if provided
+            if (request.getCurrentAngle() != null && request.getLatitude() != null && request.getLongitude() != null) {
+                game.updatePlayerPosition(request.getLatitude(), request.getLongitude(), request.getCurrentAngle());
+            } else {
+                // the stored position may trail the last update-position by up to one flush interval
+                double[] fix = positionCoalescer.latest(userId);
+                if (fix != null) {
+                    game.movePlayer(fix[0], fix[1], fix[2]);
+                }
+            }
 
-        // Update player position with current angle if provided
-        if (request.getCurrentAngle() != null && request.getLatitude() != null && request.getLongitude() != null) {
-            game.updatePlayerPosition(lat, lng, angle);
-        }
+            if (request.getStreamRiddle() != null) {
+                game.setRiddleDelivery(riddleDelivery(request.getStreamRiddle()));
+            }
+            boolean isCorrect = game.submitCurrentAnswer(request.getSecondsUsed());
+            boolean gameFinished = game.isGameFinished();
+
+            // Write results back to session
+            gameSessionRegistry.persist(game);
+
+            response.put("isCorrect", isCorrect);
+            response.put("gameFinished", gameFinished);
+
+            if (gameFinished && isCorrect) {
+                response.put("message", "Congratulations! You've completed all targets in this round.");
+            } else if (gameFinished) {
+                response.put("message", "Game over. You've exhausted all attempts for the available targets.");
+            } else if (isCorrect) {
+                response.put("message", "Correct! Next target selected.");
+            } else {
+                response.put("message", "Incorrect. Try again or check your position.");
+            }
 
-        boolean isCorrect = game.submitCurrentAnswer(request.getSecondsUsed());
-        boolean gameFinished = game.isGameFinished();
+            if (!gameFinished) {
+                target = game.getCurrentTarget();
+                pending = game.takePendingRiddle();
+            }
+        }
+        if (target != null) {
+            response.put("target", withRiddle(game, pending, target));
+        }
+        return ResponseEntity.ok(response);
+    }
 
-        // Write results back to session
-        gameSessionService.save(session);
+    @Operation(
+        summary = "Stream the current target's riddle",
+        description = "Server-sent events: \"chunk\" events with riddle text as it is generated, then \"done\" with the whole riddle "
+            + "(also stored on the session). Used when start-round or submit-answer returned riddlePending."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "No active session or current target")
+    })
+    @GetMapping(value = "/riddle-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRiddle() {
+        String userId = currentUserId();
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("isCorrect", isCorrect);
-        response.put("gameFinished", gameFinished);
-
-        if (gameFinished && isCorrect) {
-            response.put("message", "Congratulations! You've completed all targets in this round.");
-        } else if (gameFinished) {
-            response.put("message", "Game over. You've exhausted all attempts for the available targets.");
-        } else if (isCorrect) {
-            response.put("message", "Correct! Next target selected.");
-        } else {
-            response.put("message", "Incorrect. Try again or check your position.");
+        GameLogicManager game = gameSessionRegistry.get(userId);
+        if (game == null) {
+            return ResponseEntity.status(404).build();
         }
-
-        if (!gameFinished) {
-            Map<String, Object> target = game.getCurrentTarget();
-            if (target != null) response.put("target", target);
+        SseEmitter emitter = riddleStreamer.stream(game);
+        if (emitter == null) {
+            return ResponseEntity.status(404).build();
         }
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .header("X-Accel-Buffering", "no") // keep reverse proxies from buffering the events
+            .body(emitter);
     }
 
     @Operation(
@@ -283,6 +363,8 @@ public class GameRestController {
             return ResponseEntity.badRequest().body("Missing userId.");
         }
 
+        positionCoalescer.forget(userId);
+        gameSessionRegistry.evict(userId);
         gameSessionService.removeSession(userId);
         Map<String, Object> res = new HashMap<>();
         res.put("message", "Game session ended.");
@@ -290,6 +372,26 @@ public class GameRestController {
         return ResponseEntity.ok(res);
     }
 
+    // the riddle is generated or awaited without the game's lock, so the player's other requests are not
+    // held up by the agent; it is stored under the lock again, like the riddle stream does
+    private Map<String, Object> withRiddle(GameLogicManager game, PendingRiddle pending, Map<String, Object> target) {
+        if (pending == null) {
+            return target;
+        }
+        String riddle = game.getPuzzleManager().resolveRiddle(pending);
+        synchronized (game) {
+            if (game.applyStreamedRiddle(pending.landmarkId(), riddle)) {
+                gameSessionRegistry.persist(game);
+            }
+            Map<String, Object> current = game.getCurrentTarget();
+            return current != null ? current : target;
+        }
+    }
+
+    private static GameLogicManager.RiddleDelivery riddleDelivery(Boolean streamRiddle) {
+        return Boolean.TRUE.equals(streamRiddle) ? GameLogicManager.RiddleDelivery.STREAMED : GameLogicManager.RiddleDelivery.DEFERRED;
+    }
+
     private String currentUserId() {
         return (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
@@ -62,6 +62,12 @@ public class StartRoundRequest {
     @NonNull
     private String style = "medieval";
 
+    @Schema(
+        description = "Deliver riddles that are not ready yet over GET /api/game/riddle-stream instead of waiting for them",
+        defaultValue = "false"
+    )
+    private Boolean streamRiddle;
+
 
     public String getLanguage() {
         return language;
@@ -79,6 +85,14 @@ public class StartRoundRequest {
         this.style = style;
     }
 
+    public Boolean getStreamRiddle() {
+        return streamRiddle;
+    }
+
+    public void setStreamRiddle(Boolean streamRiddle) {
+        this.streamRiddle = streamRiddle;
+    }
+
     public double getAngle() {
         return angle;
     }
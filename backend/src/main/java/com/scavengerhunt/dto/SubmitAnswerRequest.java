@@ -32,6 +32,11 @@ public class SubmitAnswerRequest {
     )
     private Double longitude;
 
+    @Schema(
+        description = "Deliver the next riddle over GET /api/game/riddle-stream if it is not ready yet; defaults to the round's setting."
+    )
+    private Boolean streamRiddle;
+
     public Long getSecondsUsed() {
         return secondsUsed;
     }
@@ -63,5 +68,12 @@ public class SubmitAnswerRequest {
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
     }
-}
 
+    public Boolean getStreamRiddle() {
+        return streamRiddle;
+    }
+
+    public void setStreamRiddle(Boolean streamRiddle) {
+        this.streamRiddle = streamRiddle;
+    }
+}
@@ -2,9 +2,12 @@ package com.scavengerhunt.game;
 
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,8 +18,14 @@ import com.scavengerhunt.model.AnswerTransactionRecord;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.PersistedGameSession;
 import com.scavengerhunt.model.Player;
-import com.scavengerhunt.repository.AnswerTransactionRecordRepository;
+import com.scavengerhunt.model.RoundSnapshot;
+import com.scavengerhunt.model.RoundState;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.AnswerRecordWriter;
+import com.scavengerhunt.service.LandmarkIndexService;
+import com.scavengerhunt.service.LandmarkMetaDispatcher;
+import com.scavengerhunt.service.RiddleCache;
+import com.scavengerhunt.service.RiddlePrefetcher;
 import com.scavengerhunt.utils.EloCalculator;
 import com.scavengerhunt.utils.GeoUtils;
 
@@ -34,21 +43,37 @@ public class GameLogicManager {
     private PuzzleManager puzzleManager;
 
     private EloCalculator eloCalculator;
-    private AnswerTransactionRecordRepository answerTransactionRecordRepo;
+    private AnswerRecordWriter answerRecordWriter; // write-behind, keeps the insert off the request path
 
     private Landmark currentTarget;
-    private Map<String, Integer> attemptsByLandmarkId;
-    private Map<String, Boolean> solvedLandmarks = new HashMap<>(); // only for frontend rendering
+    private RoundSnapshot roundSnapshot; // null for sessions started before snapshots existed
+    private RoundState roundState; // attempts left and correct answers per round landmark
 
     private int maxWrongAnswer = 3;
     private int maxRiddleDurationMinutes = 30;
+    private RiddleDelivery riddleDelivery = RiddleDelivery.DEFERRED;
+
+    /**
+     * Who supplies the target's riddle when neither a prefetch nor the session has it at selection time.
+     * Selection itself never calls the agent: it runs under the game's lock.
+     */
+    public enum RiddleDelivery {
+        // the controller takes it with takePendingRiddle, resolves it after releasing the lock, then applies it
+        DEFERRED,
+        // the client opened /riddle/stream; RiddleStreamer generates it as it is sent and applies it
+        STREAMED
+    }
 
     public GameLogicManager(
         PersistedGameSession session,
         GameDataRepository gameDataRepo,
         LandmarkProcessorClient landmarkProcessorClient,
+        LandmarkIndexService landmarkIndex,
+        LandmarkMetaDispatcher landmarkMetaDispatcher,
         PuzzleAgentClient puzzleAgentClient,
-        AnswerTransactionRecordRepository answerTransactionRecordRepo,
+        AnswerRecordWriter answerRecordWriter,
+        RiddlePrefetcher riddlePrefetcher,
+        RiddleCache riddleCache,
         int maxRiddleDurationMinutes
     ) {
         this.session = session;
@@ -62,20 +87,23 @@ public class GameLogicManager {
             session.getCity()
         );
 
-        this.landmarkManager = new LandmarkManager(gameDataRepo, landmarkProcessorClient, session.getCity());
+        this.roundSnapshot = session.getRoundSnapshot();
+        this.landmarkManager = new LandmarkManager(gameDataRepo, landmarkProcessorClient, landmarkIndex, landmarkMetaDispatcher, session.getCity());
+        this.landmarkManager.setRoundSnapshot(this.roundSnapshot);
 
         this.playerStateManager = new PlayerStateManager(this.player, this.landmarkManager, this.gameDataRepo);
 
-        this.puzzleManager = new PuzzleManager(gameDataRepo, puzzleAgentClient);
+        this.puzzleManager = new PuzzleManager(gameDataRepo, puzzleAgentClient, riddlePrefetcher, riddleCache);
 
-        this.attemptsByLandmarkId = session.getAttemptsByLandmarkId();
+        this.roundState = session.getRoundState();
         if (session.getCurrentTargetId() != null){
-            this.currentTarget = gameDataRepo.findLandmarkById(session.getCurrentTargetId());
+            this.currentTarget = findRoundLandmark(session.getCurrentTargetId());
         }
+        restoreRiddles();
 
         this.eloCalculator = new EloCalculator(this.userId, this.gameDataRepo, this.maxRiddleDurationMinutes);
 
-        this.answerTransactionRecordRepo = answerTransactionRecordRepo;
+        this.answerRecordWriter = answerRecordWriter;
     }
 
     // Package-private: only accessible from com.scavengerhunt.game — where tests live
@@ -84,7 +112,7 @@ public class GameLogicManager {
         GameDataRepository gameDataRepo,
         PlayerStateManager playerStateManager,
         PuzzleAgentClient puzzleAgentClient,
-        AnswerTransactionRecordRepository answerTransactionRecordRepo,
+        AnswerRecordWriter answerRecordWriter,
         int maxRiddleDurationMinutes
     ) {
         this.session = session;
@@ -99,12 +127,14 @@ public class GameLogicManager {
         this.landmarkManager = null;
         this.playerStateManager = playerStateManager;
         this.puzzleManager = new PuzzleManager(gameDataRepo, puzzleAgentClient);
-        this.attemptsByLandmarkId = session.getAttemptsByLandmarkId();
+        this.roundSnapshot = session.getRoundSnapshot();
+        this.roundState = session.getRoundState();
         if (session.getCurrentTargetId() != null) {
-            this.currentTarget = gameDataRepo.findLandmarkById(session.getCurrentTargetId());
+            this.currentTarget = findRoundLandmark(session.getCurrentTargetId());
         }
+        restoreRiddles();
         this.eloCalculator = new EloCalculator(this.userId, this.gameDataRepo, maxRiddleDurationMinutes);
-        this.answerTransactionRecordRepo = answerTransactionRecordRepo;
+        this.answerRecordWriter = answerRecordWriter;
         this.maxRiddleDurationMinutes = maxRiddleDurationMinutes;
     }
 
@@ -114,6 +144,17 @@ public class GameLogicManager {
         log.debug("Updated position: {}, {} @ {}", lat, lng, angle);
     }
 
+    /**
+     * Position update without detection; detection runs when an answer is submitted.
+     */
+    public void movePlayer(double lat, double lng, double angle) {
+        this.player.setLatitude(lat);
+        this.player.setLongitude(lng);
+        this.player.setAngle(angle);
+        this.player.updatePlayerCone();
+        this.session.updatePlayerPosition(lat, lng, angle);
+    }
+
     public void startNewRound(double radiusMeters) {
 
         double lat = this.playerStateManager.getPlayer().getLatitude();
@@ -127,6 +168,10 @@ public class GameLogicManager {
         this.landmarkManager.getRoundLandmarksIdWithinRadius(lat, lng, radiusMeters);
         List<Landmark> candidateLandmarks = this.landmarkManager.getAllRouLandmark();
 
+        // one read for the whole round; later requests select targets and rate riddles from this copy
+        this.roundSnapshot = RoundSnapshot.of(this.session.getCity(), candidateLandmarks);
+        this.landmarkManager.setRoundSnapshot(this.roundSnapshot);
+
         this.puzzleManager.initialize(this.userId, candidateLandmarks, null, null);
 
         // Reset PuzzleAgent session to start fresh
@@ -142,13 +187,13 @@ public class GameLogicManager {
         }
 
         // map the current answer counter (starts from 3, decreases to 0)
-        this.attemptsByLandmarkId = candidateLandmarks.stream()
-            .collect(Collectors.toMap(landmark -> landmark.getId(), landmark -> maxWrongAnswer));
+        this.roundState = RoundState.start(
+            candidateLandmarks.stream().map(Landmark::getId).distinct().toList(), maxWrongAnswer);
 
         // select the first target & set round start time
         selectNextTarget();
         syncToSession();
-        log.info("New game round started for user {} with {} targets", this.userId, this.attemptsByLandmarkId.size());
+        log.info("New game round started for user {} with {} targets", this.userId, this.roundState.size());
     }
 
     public boolean submitCurrentAnswer(long riddleSeconds) {
@@ -156,7 +201,7 @@ public class GameLogicManager {
         if (this.currentTarget == null) {
             log.debug("submitCurrentAnswer called with no current target for user {}", this.userId);
             return false;
-        };
+        }
 
 
         // check finishing time
@@ -177,11 +222,11 @@ public class GameLogicManager {
             return singleTransaction(riddleSeconds,false);
         }
 
-        //if detected landmark is not within attemptsByLandmarkId
-        if (detectedLandmark != null && !this.attemptsByLandmarkId.containsKey(detectedLandmark.getId())) {
+        //if detected landmark is not in the pool
+        if (detectedLandmark != null && !this.roundState.isInPool(this.roundState.indexOf(detectedLandmark.getId()))) {
             return singleTransaction(riddleSeconds,false);
         } else {
-            //if it's within attemptsByLandmarkId
+            //if it's in the pool
             if (answerCorrect(detectedLandmark)){
                 //if correct
                 return singleTransaction(riddleSeconds,true);
@@ -195,8 +240,14 @@ public class GameLogicManager {
     // ==================== Helper Functions ====================
 
     private void syncToSession() {
-        session.setAttemptsByLandmarkId(this.attemptsByLandmarkId);
+        session.setRoundState(this.roundState);
         session.setCurrentTargetId(this.currentTarget != null ? this.currentTarget.getId() : null);
+        session.setRoundSnapshot(this.roundSnapshot);
+        Map<String, String> riddles = this.puzzleManager.getReadyRiddles();
+        if (this.currentTarget != null && this.currentTarget.getRiddle() != null) {
+            riddles.put(this.currentTarget.getId(), this.currentTarget.getRiddle());
+        }
+        session.setRiddlesByLandmarkId(riddles);
         session.setFinished(isGameFinished());
         session.setLastUpdated(Instant.now());
     }
@@ -205,7 +256,7 @@ public class GameLogicManager {
         // select Nearest for MVP
         if (!this.playerStateManager.isGameFinished()) {
             // Check if target pool is empty
-            if (getUnsolvedLandmarks().isEmpty()) {
+            if (this.roundState.isPoolEmpty()) {
                 log.info("Target pool empty, game finished for user {}", this.userId);
                 this.playerStateManager.setGameFinished();
                 this.currentTarget = null;
@@ -227,8 +278,9 @@ public class GameLogicManager {
             //Generate Riddle only if target is found
             if (this.currentTarget != null) {
 
-                String riddle = this.puzzleManager.getRiddleForLandmark(this.currentTarget.getId());
-                this.currentTarget.setRiddle(riddle);
+                // null until the riddle delivery supplies it
+                this.currentTarget.setRiddle(this.puzzleManager.pollRiddle(this.currentTarget.getId()));
+                prefetchUpcomingRiddles();
 
                 // Force update detected landmark when target changes
                 this.playerStateManager.updateDetectedLandmark();
@@ -250,69 +302,54 @@ public class GameLogicManager {
             return false;
         }
 
+        int target = this.roundState.indexOf(this.currentTarget.getId());
         if (isCorrect == false){
-            this.attemptsByLandmarkId.put(this.currentTarget.getId(), this.attemptsByLandmarkId.get(this.currentTarget.getId()) - 1);
-
-            // Check if current target has reached 0 attempts
-            if (this.attemptsByLandmarkId.get(this.currentTarget.getId()) <= 0) {
+            // Check if current target has reached 0 attempts (it then leaves the pool, marked as not solved)
+            if (this.roundState.wrongAnswer(target) <= 0) {
                 log.debug("Target {} exhausted attempts, removing from pool", this.currentTarget.getId());
 
-                //pool removal and update rating (User & currentTarget)
+                //update rating (User & currentTarget)
                 String lmid = this.currentTarget.getId();
-                this.attemptsByLandmarkId.remove(lmid);
                 eloCalculator.updateRating(lmid, riddleSeconds, isCorrect);
 
                 AnswerTransactionRecord record = AnswerTransactionRecord.forAttempt(
                     this.session.getSessionId(),
                     this.session.getUserId(),
                     lmid, isCorrect,
-                    maxWrongAnswer - this.attemptsByLandmarkId.getOrDefault(lmid, 0),
+                    maxWrongAnswer - this.roundState.getAttemptsLeft(target),
                     riddleSeconds
                 );
-                answerTransactionRecordRepo.save(record);
-
-                // add to solved landmark as wrong
-                this.solvedLandmarks.put(this.currentTarget.getId(), isCorrect);
+                answerRecordWriter.submit(record);
 
-                // Check if this was the last target
-                if (checkAndHandleGameEnd()) {
-                    return isCorrect; // Game finished
-                } else {
-                    return isCorrect; // Continue with next target
-                }
+                checkAndHandleGameEnd(); // finishes the game if this was the last target
+                return isCorrect;
             }
             syncToSession();
             return isCorrect;
         } else {
             log.debug("Answer correct for target {}", this.currentTarget.getId());
 
-            //pool removal and update rating (User & currentTarget)
+            //pool removal (marked as solved) and update rating (User & currentTarget)
             String lmid = this.currentTarget.getId();
-            this.attemptsByLandmarkId.remove(lmid);
+            this.roundState.correctAnswer(target);
             eloCalculator.updateRating(lmid, riddleSeconds, isCorrect);
             AnswerTransactionRecord record = AnswerTransactionRecord.forAttempt(
                     this.session.getSessionId(),
                     this.session.getUserId(),
                     lmid, isCorrect,
-                    maxWrongAnswer - this.attemptsByLandmarkId.getOrDefault(lmid, 0),
+                    maxWrongAnswer - this.roundState.getAttemptsLeft(target),
                     riddleSeconds
                 );
-                answerTransactionRecordRepo.save(record);
+                answerRecordWriter.submit(record);
 
-            this.solvedLandmarks.put(this.currentTarget.getId(), isCorrect);
-
-            // Check if this was the last target
-            if (checkAndHandleGameEnd()) {
-                return isCorrect; // Game completed successfully
-            } else {
-                return isCorrect; // Continue with next target
-            }
+            checkAndHandleGameEnd(); // finishes the game if this was the last target
+            return isCorrect;
         }
     }
 
     private boolean checkAndHandleGameEnd() {
         // Only handle game end if game is active (not already finished)
-        if (this.attemptsByLandmarkId.isEmpty()) {
+        if (this.roundState.isPoolEmpty()) {
             this.playerStateManager.setGameFinished();
             this.currentTarget = null;
             this.puzzleManager.storeUserGameRoundStatistics();
@@ -327,8 +364,16 @@ public class GameLogicManager {
     }
 
     private Landmark selectNearestTo(double refLat, double refLng) {
-        return getUnsolvedLandmarks().entrySet().stream()
-            .map(entry -> gameDataRepo.findLandmarkById(entry.getKey()))
+        if (this.roundSnapshot != null) {
+            int nearest = nearestUnsolvedInSnapshot(refLat, refLng, Set.of());
+            if (nearest >= 0) {
+                return this.roundSnapshot.toLandmark(nearest);
+            }
+            // pool entries not covered by the snapshot fall through to the lookup below
+        }
+        return IntStream.range(0, this.roundState.size())
+            .filter(this.roundState::isInPool)
+            .mapToObj(i -> gameDataRepo.findLandmarkById(this.roundState.getId(i)))
             .filter(landmark -> landmark != null)
             .min((l1, l2) -> {
                 double d1 = GeoUtils.distanceInMeters(refLat, refLng, l1.getLatitude(), l1.getLongitude());
@@ -338,6 +383,75 @@ public class GameLogicManager {
             .orElse(null);
     }
 
+    private int nearestUnsolvedInSnapshot(double refLat, double refLng, Set<String> excluded) {
+        int nearest = -1;
+        double minDistance = Double.MAX_VALUE;
+        for (int i = 0; i < this.roundSnapshot.size(); i++) {
+            String id = this.roundSnapshot.getId(i);
+            if (!this.roundState.isInPool(this.roundState.indexOf(id)) || excluded.contains(id)) {
+                continue;
+            }
+            double d = GeoUtils.distanceInMeters(refLat, refLng, this.roundSnapshot.getLatitude(i), this.roundSnapshot.getLongitude(i));
+            if (d < minDistance) {
+                minDistance = d;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Targets follow a nearest-neighbour chain from the current one, whatever the answers, so the next
+     * few are known now. Their riddles are generated in the background, in one batch, while the player walks.
+     */
+    private void prefetchUpcomingRiddles() {
+        int depth = this.puzzleManager.getPrefetchDepth();
+        if (this.roundSnapshot == null || depth <= 0) {
+            return;
+        }
+        Set<String> chain = new HashSet<>();
+        chain.add(this.currentTarget.getId());
+        Map<String, Double> upcoming = new LinkedHashMap<>();
+        double lat = this.currentTarget.getLatitude();
+        double lng = this.currentTarget.getLongitude();
+        for (int k = 0; k < depth; k++) {
+            int next = nearestUnsolvedInSnapshot(lat, lng, chain);
+            if (next < 0) {
+                break;
+            }
+            upcoming.put(this.roundSnapshot.getId(next), this.roundSnapshot.getRating(next));
+            chain.add(this.roundSnapshot.getId(next));
+            lat = this.roundSnapshot.getLatitude(next);
+            lng = this.roundSnapshot.getLongitude(next);
+        }
+        this.puzzleManager.prefetchRiddles(upcoming);
+    }
+
+    private void restoreRiddles() {
+        Map<String, String> riddles = this.session.getRiddlesByLandmarkId();
+        if (riddles == null) {
+            return;
+        }
+        Map<String, String> upcoming = new HashMap<>(riddles);
+        if (this.currentTarget != null) {
+            String current = upcoming.remove(this.currentTarget.getId());
+            if (current != null) {
+                this.currentTarget.setRiddle(current);
+            }
+        }
+        this.puzzleManager.restoreRiddles(upcoming);
+    }
+
+    private Landmark findRoundLandmark(String landmarkId) {
+        if (this.roundSnapshot != null) {
+            int i = this.roundSnapshot.indexOf(landmarkId);
+            if (i >= 0) {
+                return this.roundSnapshot.toLandmark(i);
+            }
+        }
+        return gameDataRepo.findLandmarkById(landmarkId);
+    }
+
     public boolean answerCorrect(Landmark detectedLandmark) {
         if (playerStateManager.getDetectedLandmark() == null || currentTarget == null) return false;
 
@@ -351,7 +465,7 @@ public class GameLogicManager {
         if (this.playerStateManager.isGameFinished()) {
             return true;
         }
-        return this.attemptsByLandmarkId != null && this.attemptsByLandmarkId.isEmpty();
+        return this.roundState != null && this.roundState.isPoolEmpty();
     }
 
     // ==================== Getters & Setters ====================
@@ -362,7 +476,7 @@ public class GameLogicManager {
             return null;
         }
 
-        if (this.attemptsByLandmarkId == null || this.attemptsByLandmarkId.isEmpty()) {
+        if (this.roundState == null || this.roundState.isPoolEmpty()) {
             return null;
         }
 
@@ -378,11 +492,53 @@ public class GameLogicManager {
         Map<String, Object> result = new HashMap<>();
         result.put("id", this.currentTarget.getId());
         result.put("name", this.currentTarget.getName());
-        result.put("attemptsLeft", this.attemptsByLandmarkId.get(this.currentTarget.getId()));
+        int target = this.roundState.indexOf(this.currentTarget.getId());
+        result.put("attemptsLeft", this.roundState.isInPool(target) ? this.roundState.getAttemptsLeft(target) : null);
         result.put("riddle", this.currentTarget.getRiddle());
+        if (this.currentTarget.getRiddle() == null) {
+            result.put("riddlePending", true);
+        }
         return result;
     }
 
+    /**
+     * The current target as selected, without selecting one; null between targets.
+     */
+    public Landmark getCurrentTargetLandmark() {
+        return this.currentTarget;
+    }
+
+    /**
+     * Store a riddle delivered by the riddle stream, if the landmark is still the target and has none yet.
+     */
+    public boolean applyStreamedRiddle(String landmarkId, String riddle) {
+        if (this.currentTarget == null || !this.currentTarget.getId().equals(landmarkId) || this.currentTarget.getRiddle() != null) {
+            return false;
+        }
+        this.currentTarget.setRiddle(riddle);
+        syncToSession();
+        return true;
+    }
+
+    /**
+     * With DEFERRED delivery, hands the current target's missing riddle over to be generated or awaited outside
+     * the game's lock and stored with applyStreamedRiddle. Null if it has one, or the riddle stream delivers it.
+     */
+    public PuzzleManager.PendingRiddle takePendingRiddle() {
+        if (this.riddleDelivery != RiddleDelivery.DEFERRED || this.currentTarget == null || this.currentTarget.getRiddle() != null) {
+            return null;
+        }
+        return this.puzzleManager.pendingRiddle(this.currentTarget.getId(), this.currentTarget.getRating());
+    }
+
+    public void setRiddleDelivery(RiddleDelivery riddleDelivery) {
+        this.riddleDelivery = riddleDelivery;
+    }
+
+    public RiddleDelivery getRiddleDelivery() {
+        return riddleDelivery;
+    }
+
     public PuzzleManager getPuzzleManager() {
         return puzzleManager;
     }
@@ -395,16 +551,30 @@ public class GameLogicManager {
         return userId;
     }
 
+    public PersistedGameSession getSession() {
+        return this.session;
+    }
+
     public PlayerStateManager getPlayerState() {
         return this.playerStateManager;
     }
 
+    /**
+     * Landmarks still in the pool -> attempts left, a read-only copy of the round state.
+     */
     public Map<String, Integer> getUnsolvedLandmarks() {
-        return this.attemptsByLandmarkId;
+        return this.roundState != null ? this.roundState.toAttemptsMap() : null;
+    }
+
+    /**
+     * Landmarks that left the pool -> answered correctly, for the frontend to colour them.
+     */
+    public Map<String, Boolean> getSolvedLandmarks() {
+        return this.roundState != null ? this.roundState.toSolvedMap() : Map.of();
     }
 
     public void setAttemptsByLandmarkId(Map<String, Integer> attempts) {
-        this.attemptsByLandmarkId = attempts;
+        this.roundState = attempts != null ? RoundState.of(attempts) : null;
     }
 
     public void setCurrentTarget(Landmark target) {
@@ -9,55 +9,130 @@ import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
 import com.scavengerhunt.client.LandmarkProcessorClient;
 import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.model.Player;
+import com.scavengerhunt.model.RoundSnapshot;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.LandmarkIndexService;
+import com.scavengerhunt.service.LandmarkMetaDispatcher;
+import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.utils.ViewConeKernel;
 
 /**
  * Manages all landmarks used during the game round.
  * - Load landmarks from data source
  * - Maintain solved/unsolved status
  * - Provide helpers to select next suitable target
+ * - Detect the landmark in the player's view, through the city spatial index when available
  */
 public class LandmarkManager {
 
     private final GameDataRepository gameDataRepo;
     private final LandmarkProcessorClient landmarkAgentClient;
+    private final LandmarkIndexService landmarkIndex; // null -> legacy per-id scan
+    private final LandmarkMetaDispatcher metaDispatcher; // null -> metadata generated synchronously
 
     private String currentCity;
 
     private List<Landmark> allRoundLandmarks; // within radius
-    private List<String> allLocalLandmarkIds; // all landmark-Ids of current city
+    private List<String> allLocalLandmarkIds; // all landmark-Ids of current city, loaded lazily
+    private RoundSnapshot roundSnapshot; // candidates of the running round, detection fallback without an index
 
     // public LandmarkManager() {
     //     this.allRoundLandmarks = new ArrayList<>();
     // }
 
     public LandmarkManager(GameDataRepository gameDataRepo, LandmarkProcessorClient landmarkAgentClient, String city) {
+        this(gameDataRepo, landmarkAgentClient, null, city);
+    }
+
+    public LandmarkManager(GameDataRepository gameDataRepo, LandmarkProcessorClient landmarkAgentClient, LandmarkIndexService landmarkIndex, String city) {
+        this(gameDataRepo, landmarkAgentClient, landmarkIndex, null, city);
+    }
+
+    public LandmarkManager(GameDataRepository gameDataRepo, LandmarkProcessorClient landmarkAgentClient, LandmarkIndexService landmarkIndex,
+                           LandmarkMetaDispatcher metaDispatcher, String city) {
         this.allRoundLandmarks = new ArrayList<>();
         this.gameDataRepo = gameDataRepo;
         this.landmarkAgentClient = landmarkAgentClient;
+        this.landmarkIndex = landmarkIndex;
+        this.metaDispatcher = metaDispatcher;
         this.currentCity = city;
-        this.allLocalLandmarkIds = this.gameDataRepo.loadLandmarkIdByCity(city); // mvp style, expandable
     }
 
     public void getRoundLandmarksIdWithinRadius(double lat, double lng, double radiusMeters) {
-        GeoJsonPoint point = new GeoJsonPoint(lng, lat);
-        Distance radius = new Distance(radiusMeters / 1000.0, Metrics.KILOMETERS);
-        List<Landmark> nearBy = gameDataRepo.findByLocationNear(point, radius);
-        this.landmarkAgentClient.ensureLandmarkMeta(nearBy);
+        // a city pack answers without Mongo; cities without one fall back to the geo query
+        List<Landmark> nearBy = this.landmarkIndex != null
+            ? this.landmarkIndex.withinRadius(this.currentCity, lat, lng, radiusMeters)
+            : null;
+        if (nearBy == null) {
+            GeoJsonPoint point = new GeoJsonPoint(lng, lat);
+            Distance radius = new Distance(radiusMeters / 1000.0, Metrics.KILOMETERS);
+            nearBy = gameDataRepo.findByLocationNear(point, radius);
+        }
+        if (this.metaDispatcher != null) {
+            // missing metadata is generated in the background; the round does not wait for it
+            this.metaDispatcher.request(nearBy);
+        } else {
+            this.landmarkAgentClient.ensureLandmarkMeta(nearBy);
+        }
         this.allRoundLandmarks = nearBy;
     }
 
+    public Landmark detectLandmark(Player player) {
+        if (this.landmarkIndex != null) {
+            return this.landmarkIndex.detect(this.currentCity, player);
+        }
+        if (this.roundSnapshot != null) {
+            return detectInSnapshot(player);
+        }
+        return GeoUtils.detectedLandmark(getAllLocalLandmarkIds(), player, this.gameDataRepo);
+    }
+
+    // same selection as GeoUtils.detectedLandmark, on the snapshot rings instead of per-id lookups
+    private Landmark detectInSnapshot(Player player) {
+        RoundSnapshot snap = this.roundSnapshot;
+        double lat = player.getLatitude();
+        double lng = player.getLongitude();
+        double angle = player.getAngle();
+
+        int selected = -1;
+        double minAngleDiff = Double.MAX_VALUE;
+        for (int i = 0; i < snap.size(); i++) {
+            int count = snap.getRingPointCount(i);
+            if (count == 0) {
+                continue;
+            }
+            if (ViewConeKernel.intersects(lat, lng, angle, player.getSpanDeg(), player.getRadiusMeters(),
+                    snap.getRingCoords(), snap.getRingStart(i), count)) {
+                double diff = GeoUtils.minimalAngleDiff(angle,
+                    GeoUtils.calculateTargetAngle(lat, lng, snap.getLatitude(i), snap.getLongitude(i)));
+                if (diff < minAngleDiff) {
+                    minAngleDiff = diff;
+                    selected = i;
+                }
+            }
+        }
+        return selected >= 0 ? snap.toLandmark(selected) : null;
+    }
+
     /**
      * Getter & Setter
      */
     public void setCurrentCity(String city) {
         this.currentCity = city;
-        this.allLocalLandmarkIds = this.gameDataRepo.loadLandmarkIdByCity(city);
+        this.allLocalLandmarkIds = null;
     }
 
     public String getCurrentCity() { return this.currentCity; }
 
+    public void setRoundSnapshot(RoundSnapshot roundSnapshot) { this.roundSnapshot = roundSnapshot; }
+
     public List<Landmark> getAllRouLandmark() { return this.allRoundLandmarks; }
 
-    public List<String> getAllLocalLandmarkIds() { return this.allLocalLandmarkIds; }
+    public List<String> getAllLocalLandmarkIds() {
+        if (this.allLocalLandmarkIds == null) {
+            this.allLocalLandmarkIds = this.gameDataRepo.loadLandmarkIdByCity(this.currentCity); // mvp style, expandable
+        }
+        return this.allLocalLandmarkIds;
+    }
 }
@@ -1,14 +1,11 @@
 package com.scavengerhunt.game;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.Player;
 import com.scavengerhunt.repository.GameDataRepository;
-import com.scavengerhunt.utils.GeoUtils;
 
 /**
  * Manages the state of a player in the scavenger hunt game.
@@ -41,18 +38,16 @@ public class PlayerStateManager {
         this.player.setLatitude(latitude);
         this.player.setLongitude(longitude);
         this.player.setAngle(angle);
-        this.player.setPlayerViewCone(latitude, longitude, angle, this.player.getSpanDeg(), this.player.getRadiusMeters(), this.player.getResolution());
+        this.player.updatePlayerCone();
         updateDetectedLandmark();
     }
 
     public void updateDetectedLandmark(){
-        List<String> candidateIds = landmarkManager.getAllLocalLandmarkIds();
-
-        // Use GeoUtils.detectedLandmark method to update detected landmark
+        // LandmarkManager narrows the candidates through the city spatial index before intersecting
         this.detectedLandmark = null;
-        this.detectedLandmark = GeoUtils.detectedLandmark(candidateIds, this.player, gameDataRepository);
+        this.detectedLandmark = landmarkManager.detectLandmark(this.player);
 
-        log.debug("Detected landmark from {} candidates: {}", candidateIds.size(),
+        log.debug("Detected landmark in {}: {}", landmarkManager.getCurrentCity(),
             this.detectedLandmark != null ? this.detectedLandmark.getId() : "none");
     }
 
@@ -1,78 +1,318 @@
 package com.scavengerhunt.game;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.scavengerhunt.client.PuzzleAgentClient;
 import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.client.dto.GenerateRiddlesRequest;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.RiddleCache;
+import com.scavengerhunt.service.RiddlePrefetcher;
 
 public class PuzzleManager {
 
     private static final Logger log = LoggerFactory.getLogger(PuzzleManager.class);
+    private static final String DEFAULT_RIDDLE = "Default Riddle";
 
     private final GameDataRepository gameDataRepo;
     private final PuzzleAgentClient puzzleAgentClient;
+    private final RiddlePrefetcher riddlePrefetcher; // null = riddles are only generated on demand
+    private final RiddleCache riddleCache; // null = every riddle comes from the agent
+
+    // riddles of upcoming targets, generated in the background; cleared when a round starts
+    private final Map<String, CompletableFuture<String>> prefetchedRiddles = new HashMap<>();
+    // the agent calls behind them (one batch serves several landmarks), cancelled when a round starts
+    private final List<CompletableFuture<?>> prefetchCalls = new ArrayList<>();
 
     private String sessionId;
     private String language;
     private String style;
     private List<Landmark> targetPool;
+    private List<String> poolIds; // ids of targetPool, sent with every riddle request
 
     public PuzzleManager(GameDataRepository gameDataRepo, PuzzleAgentClient puzzleAgentClient) {
+        this(gameDataRepo, puzzleAgentClient, null, null);
+    }
+
+    public PuzzleManager(GameDataRepository gameDataRepo, PuzzleAgentClient puzzleAgentClient,
+                         RiddlePrefetcher riddlePrefetcher, RiddleCache riddleCache) {
         this.gameDataRepo = gameDataRepo;
         this.puzzleAgentClient = puzzleAgentClient;
+        this.riddlePrefetcher = riddlePrefetcher;
+        this.riddleCache = riddleCache;
         this.language = "English";
         this.style = "Medieval";
     }
 
     public void initialize(String sessionId, List<Landmark> targetPool, String language, String style) {
         this.sessionId = sessionId;
-        this.targetPool = targetPool;
+        setTargetPool(targetPool);
         this.language = language != null ? language : "English";
         this.style = style != null ? style : "Medieval";
+        // the previous round's riddles are of no use any more, also those handed out and still awaited
+        this.prefetchCalls.forEach(call -> call.cancel(true));
+        this.prefetchCalls.clear();
+        this.prefetchedRiddles.clear();
     }
 
     public String getRiddleForLandmark(String landmarkId) {
-        List<String> poolIds = null;
-        if (this.targetPool != null) {
-            poolIds = this.targetPool.stream()
-                    .map(Landmark::getId)
-                    .toList();
+        return getRiddleForLandmark(landmarkId, gameDataRepo.getLandmarkRatingById(landmarkId));
+    }
+
+    /**
+     * Same as getRiddleForLandmark(String) with a rating the caller already holds (e.g. from the round snapshot).
+     */
+    public String getRiddleForLandmark(String landmarkId, Double landmarkRating) {
+        return generate(riddleRequest(landmarkId, landmarkRating));
+    }
+
+    /**
+     * Start generating the landmark's riddle in the background, unless it is already prefetched.
+     * The request is built here so the background call does not read this manager's state.
+     */
+    public void prefetchRiddle(String landmarkId, Double landmarkRating) {
+        if (riddlePrefetcher == null || prefetchedRiddles.containsKey(landmarkId)) {
+            return;
+        }
+        GenerateRiddleRequest req = riddleRequest(landmarkId, landmarkRating);
+        CompletableFuture<String> prefetch = riddlePrefetcher.submit(() -> generate(req));
+        if (prefetch != null) {
+            trackCall(prefetch);
+            prefetchedRiddles.put(landmarkId, prefetch);
+        }
+    }
+
+    /**
+     * Start generating the riddles of several upcoming targets (id -> rating, in the order they come up)
+     * with one batched agent call. Landmarks the batch returns no riddle for fall back to a single call each.
+     */
+    public void prefetchRiddles(Map<String, Double> ratingsByLandmarkId) {
+        if (riddlePrefetcher == null) {
+            return;
+        }
+        List<GenerateRiddleRequest> reqs = new ArrayList<>();
+        ratingsByLandmarkId.forEach((id, rating) -> {
+            if (!prefetchedRiddles.containsKey(id)) {
+                reqs.add(riddleRequest(id, rating));
+            }
+        });
+        if (reqs.isEmpty()) {
+            return;
+        }
+        if (reqs.size() == 1) {
+            String id = reqs.get(0).landmarkId();
+            prefetchRiddle(id, ratingsByLandmarkId.get(id));
+            return;
+        }
+        CompletableFuture<Map<String, String>> batch = riddlePrefetcher.submit(() -> generateBatch(reqs));
+        if (batch == null) {
+            return;
+        }
+        trackCall(batch);
+        for (GenerateRiddleRequest req : reqs) {
+            prefetchedRiddles.put(req.landmarkId(), batch.thenApply(riddles -> riddles.get(req.landmarkId())));
+        }
+    }
+
+    /**
+     * Riddle for the landmark that just became the target: the prefetched one if there is one (waiting only
+     * for that call if it is still running), otherwise generated now.
+     */
+    public String takeRiddle(String landmarkId, Double landmarkRating) {
+        return resolveRiddle(pendingRiddle(landmarkId, landmarkRating));
+    }
+
+    /**
+     * Takes what producing the landmark's riddle needs out of this manager: its prefetch, if one is running,
+     * and the request. resolveRiddle then works without this manager's state, outside the game's lock.
+     */
+    public PendingRiddle pendingRiddle(String landmarkId, Double landmarkRating) {
+        return new PendingRiddle(landmarkId, prefetchedRiddles.remove(landmarkId), riddleRequest(landmarkId, landmarkRating));
+    }
+
+    /**
+     * Riddle of a pendingRiddle: the prefetch's result, or generated now if nothing was prefetched.
+     */
+    public String resolveRiddle(PendingRiddle pending) {
+        if (pending.prefetch() == null) {
+            if (riddlePrefetcher != null) {
+                riddlePrefetcher.recordMiss();
+            }
+            return generate(pending.request());
+        }
+        String riddle = awaitPrefetch(pending.prefetch());
+        // the call already had its time; do not make the player wait for a second one
+        return riddle != null ? riddle : DEFAULT_RIDDLE;
+    }
+
+    /**
+     * The landmark's prefetched riddle if it is ready now, without waiting or generating; null otherwise.
+     */
+    public String pollRiddle(String landmarkId) {
+        CompletableFuture<String> prefetch = prefetchedRiddles.get(landmarkId);
+        if (prefetch == null || !prefetch.isDone() || prefetch.isCompletedExceptionally() || prefetch.join() == null) {
+            return null;
         }
+        prefetchedRiddles.remove(landmarkId);
+        return prefetch.join();
+    }
 
-        double difficulty = normalizeRating(gameDataRepo.getLandmarkRatingById(landmarkId), "sigmoid");
+    /**
+     * Hand a still running prefetch over to the caller (e.g. a riddle stream), or null if there is none.
+     */
+    public CompletableFuture<String> removePrefetch(String landmarkId) {
+        return prefetchedRiddles.remove(landmarkId);
+    }
 
-        var req = new GenerateRiddleRequest(
+    /**
+     * Result of a prefetch handed out by removePrefetch; null if it failed or took too long.
+     */
+    public String awaitPrefetch(CompletableFuture<String> prefetch) {
+        return riddlePrefetcher != null ? riddlePrefetcher.await(prefetch) : prefetch.getNow(null);
+    }
+
+    /**
+     * The request a riddle for the landmark is generated from, with this round's session, pool and preferences.
+     */
+    public GenerateRiddleRequest riddleRequestFor(String landmarkId, Double landmarkRating) {
+        return riddleRequest(landmarkId, landmarkRating);
+    }
+
+    /**
+     * Generate the riddle for req, passing its text to onChunk as the agent writes it. A cached riddle is
+     * passed on whole. Null if the agent failed after some text was passed on: a fallback would not match it.
+     * Reads no round state, so it can run outside the game's lock.
+     */
+    public String streamRiddle(GenerateRiddleRequest req, Consumer<String> onChunk) {
+        boolean[] streamed = {false};
+        boolean[] failed = {false};
+        Function<GenerateRiddleRequest, String> agent = r -> {
+            String riddle;
+            try {
+                riddle = puzzleAgentClient.streamRiddle(r, chunk -> {
+                    streamed[0] = true;
+                    onChunk.accept(chunk);
+                });
+            } catch (Exception e) {
+                log.warn("Puzzle-agent stream unavailable, falling back to default riddle: {}", e.getMessage());
+                riddle = null;
+            }
+            failed[0] = riddle == null || PuzzleAgentClient.FALLBACK_RIDDLE.equals(riddle);
+            return riddle;
+        };
+        String riddle = riddleCache != null ? riddleCache.get(req, agent) : agent.apply(req);
+        if (failed[0] && streamed[0]) {
+            return null;
+        }
+        return riddle != null ? riddle : DEFAULT_RIDDLE;
+    }
+
+    /**
+     * Prefetched riddles that are ready, to be kept with the session.
+     */
+    public Map<String, String> getReadyRiddles() {
+        Map<String, String> ready = new HashMap<>();
+        prefetchedRiddles.forEach((id, prefetch) -> {
+            if (prefetch.isDone() && !prefetch.isCompletedExceptionally()) {
+                ready.put(id, prefetch.join());
+            }
+        });
+        return ready;
+    }
+
+    /**
+     * Put riddles stored with the session back, e.g. after the game was rebuilt from it.
+     */
+    public void restoreRiddles(Map<String, String> riddlesByLandmarkId) {
+        if (riddlesByLandmarkId != null) {
+            riddlesByLandmarkId.forEach((id, riddle) -> prefetchedRiddles.put(id, CompletableFuture.completedFuture(riddle)));
+        }
+    }
+
+    public int getPrefetchDepth() {
+        return riddlePrefetcher != null ? riddlePrefetcher.getDepth() : 0;
+    }
+
+    public void resetPuzzleSession() {
+        try {
+            puzzleAgentClient.resetSession(this.sessionId);
+        } catch (Exception ignored) {
+        }
+    }
+
+
+    public void storeUserGameRoundStatistics(){
+
+    }
+
+    private GenerateRiddleRequest riddleRequest(String landmarkId, Double landmarkRating) {
+        double difficulty = normalizeRating(landmarkRating, "sigmoid");
+
+        return new GenerateRiddleRequest(
             this.sessionId,
             landmarkId,
             difficulty,
             this.language,
             this.style,
-            poolIds
+            this.poolIds
         );
+    }
 
-        try {
-            return puzzleAgentClient.generateRiddle(req);
-        } catch (Exception e) {
-            log.warn("Puzzle-agent backend unavailable, falling back to default riddle: {}", e.getMessage());
-            return "Default Riddle";
+    private void trackCall(CompletableFuture<?> call) {
+        prefetchCalls.removeIf(CompletableFuture::isDone);
+        prefetchCalls.add(call);
+    }
+
+    private Map<String, String> generateBatch(List<GenerateRiddleRequest> reqs) {
+        Map<String, String> riddles = new HashMap<>(riddleCache != null
+            ? riddleCache.getAll(reqs, this::callAgentBatch)
+            : callAgentBatch(reqs));
+        for (GenerateRiddleRequest req : reqs) {
+            if (!riddles.containsKey(req.landmarkId())) {
+                riddles.put(req.landmarkId(), generate(req));
+            }
         }
+        return riddles;
     }
 
-    public void resetPuzzleSession() {
+    private Map<String, String> callAgentBatch(List<GenerateRiddleRequest> reqs) {
+        // session, language, style and pool are the same for every request of a round
+        GenerateRiddleRequest first = reqs.get(0);
+        List<GenerateRiddlesRequest.Target> targets = reqs.stream()
+            .map(r -> new GenerateRiddlesRequest.Target(r.landmarkId(), r.difficulty()))
+            .toList();
         try {
-            puzzleAgentClient.resetSession(this.sessionId);
-        } catch (Exception ignored) {
+            Map<String, String> riddles = puzzleAgentClient.generateRiddles(new GenerateRiddlesRequest(
+                first.sessionId(), first.language(), first.style(), first.puzzlePool(), targets));
+            return riddles != null ? riddles : Map.of();
+        } catch (Exception e) {
+            log.warn("Puzzle-agent batch unavailable, falling back to single riddles: {}", e.getMessage());
+            return Map.of();
         }
     }
 
+    private String generate(GenerateRiddleRequest req) {
+        String riddle = riddleCache != null ? riddleCache.get(req, this::callAgent) : callAgent(req);
+        return riddle != null ? riddle : DEFAULT_RIDDLE;
+    }
 
-    public void storeUserGameRoundStatistics(){
-
+    private String callAgent(GenerateRiddleRequest req) {
+        try {
+            return puzzleAgentClient.generateRiddle(req);
+        } catch (Exception e) {
+            log.warn("Puzzle-agent backend unavailable, falling back to default riddle: {}", e.getMessage());
+            return null;
+        }
     }
 
     private double normalizeRating(Double rating, String mode){
@@ -97,10 +337,16 @@ public class PuzzleManager {
 
     public void setTargetPool(List<Landmark> targetPool) {
         this.targetPool = targetPool;
+        this.poolIds = targetPool != null ? targetPool.stream().map(Landmark::getId).toList() : null;
     }
 
     public String getSessionId() { return sessionId; }
 
+    /**
+     * A riddle taken out of the manager to be produced elsewhere; prefetch is null if none was running.
+     */
+    public record PendingRiddle(String landmarkId, CompletableFuture<String> prefetch, GenerateRiddleRequest request) {}
+
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
 
     public String getLanguage() {
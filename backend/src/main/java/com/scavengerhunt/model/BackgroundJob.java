@@ -22,9 +22,17 @@ public class BackgroundJob {
     private Status status;
 
     private int attemptCount;
+    // unique index created at startup, after duplicates from older versions are removed (ensureIdempotencyIndex)
     private String idempotencyKey;  // prevents duplicate jobs for the same city
     private String lastError;
 
+    // the worker running the job and until when; a job whose lease ran out is given back to the queue
+    private String leaseOwner;
+    private Instant leaseExpiresAt;
+
+    @Indexed
+    private Instant nextRunAt;  // not claimed before this, pushed out with backoff after a failure
+
     private Instant createdAt;
     private Instant startedAt;
     private Instant completedAt;
@@ -35,12 +43,17 @@ public class BackgroundJob {
         job.type = "FETCH_LANDMARKS";
         job.payload = Map.of("city", city, "latitude", lat, "longitude", lng);
         job.status = Status.PENDING;
-        job.idempotencyKey = "fetch-landmarks-" + city.toLowerCase().replaceAll("\\s+", "-");
+        job.idempotencyKey = fetchLandmarksKey(city);
         job.createdAt = Instant.now();
+        job.nextRunAt = job.createdAt;
         job.attemptCount = 0;
         return job;
     }
 
+    public static String fetchLandmarksKey(String city) {
+        return "fetch-landmarks-" + city.toLowerCase().replaceAll("\\s+", "-");
+    }
+
     // --- Getters and Setters ---
 
     public String getJobId() { return jobId; }
@@ -63,5 +76,11 @@ public class BackgroundJob {
     public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
     public Instant getCompletedAt() { return completedAt; }
     public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+    public Instant getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+    public Instant getNextRunAt() { return nextRunAt; }
+    public void setNextRunAt(Instant nextRunAt) { this.nextRunAt = nextRunAt; }
 
 }
@@ -0,0 +1,39 @@
+package com.scavengerhunt.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Administrative boundary of a city (one or more polygons, with holes), learned by CityResolver.
+ */
+@Document(collection = "city_boundaries")
+public class CityBoundary {
+
+    @Id
+    private String city;
+
+    private List<GeoJsonPolygon> polygons;
+    private Instant learnedAt;
+
+    public CityBoundary() {}
+
+    public CityBoundary(String city, List<GeoJsonPolygon> polygons) {
+        this.city = city;
+        this.polygons = polygons;
+        this.learnedAt = Instant.now();
+    }
+
+    // Getters & Setters
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public List<GeoJsonPolygon> getPolygons() { return polygons; }
+    public void setPolygons(List<GeoJsonPolygon> polygons) { this.polygons = polygons; }
+
+    public Instant getLearnedAt() { return learnedAt; }
+    public void setLearnedAt(Instant learnedAt) { this.learnedAt = learnedAt; }
+}
@@ -0,0 +1,37 @@
+package com.scavengerhunt.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * City a geohash cell resolved to, see CityResolver.
+ */
+@Document(collection = "city_cells")
+public class CityCell {
+
+    @Id
+    private String cell;
+
+    private String city;
+    private Instant resolvedAt;
+
+    public CityCell() {}
+
+    public CityCell(String cell, String city) {
+        this.cell = cell;
+        this.city = city;
+        this.resolvedAt = Instant.now();
+    }
+
+    // Getters & Setters
+    public String getCell() { return cell; }
+    public void setCell(String cell) { this.cell = cell; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public Instant getResolvedAt() { return resolvedAt; }
+    public void setResolvedAt(Instant resolvedAt) { this.resolvedAt = resolvedAt; }
+}
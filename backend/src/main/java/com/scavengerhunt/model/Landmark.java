@@ -1,12 +1,14 @@
 package com.scavengerhunt.model;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -22,12 +24,27 @@ public class Landmark {
     private String city;
     private GeoJsonPolygon geometry;
 
+    // set at ingestion (LandmarkShape): geometry is then closed and valid, simplifiedGeometry the
+    // Douglas-Peucker copy used for detection and the init-game payload, bbox [minLng, minLat, maxLng, maxLat]
+    private GeoJsonPolygon simplifiedGeometry;
+    private double[] bbox;
+    private Map<String, Object> tags;
+
     private Double rating;
     // private Double uncertainty;
     private LocalDateTime lastAnswered;
 
     private String riddle;
 
+    // landmark_metadata has an entry for this landmark (riddles can be generated); see LandmarkMetaDispatcher
+    private boolean metaReady;
+
+    // source id from the landmark processor feed (OSM element) and a hash of what was ingested, see
+    // LandmarkIngestionService; absent on landmarks created another way
+    @Indexed(unique = true, sparse = true)
+    private String externalId;
+    private String sourceVersion;
+
     @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
     private GeoJsonPoint location;
 
@@ -100,6 +117,37 @@ public class Landmark {
         this.geometry = geometry;
     }
 
+    public GeoJsonPolygon getSimplifiedGeometry() {
+        return simplifiedGeometry;
+    }
+
+    public void setSimplifiedGeometry(GeoJsonPolygon simplifiedGeometry) {
+        this.simplifiedGeometry = simplifiedGeometry;
+    }
+
+    /**
+     * The outline detection and rendering work on: the simplified copy if ingestion made one, else the raw one.
+     */
+    public GeoJsonPolygon getDetectionGeometry() {
+        return simplifiedGeometry != null ? simplifiedGeometry : geometry;
+    }
+
+    public double[] getBbox() {
+        return bbox;
+    }
+
+    public void setBbox(double[] bbox) {
+        this.bbox = bbox;
+    }
+
+    public Map<String, Object> getTags() {
+        return tags;
+    }
+
+    public void setTags(Map<String, Object> tags) {
+        this.tags = tags;
+    }
+
     public Double getRating() {
         return rating;
     }
@@ -127,4 +175,28 @@ public class Landmark {
     public void setRiddle(String riddle) {
         this.riddle = riddle;
     }
+
+    public boolean isMetaReady() {
+        return metaReady;
+    }
+
+    public void setMetaReady(boolean metaReady) {
+        this.metaReady = metaReady;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public String getSourceVersion() {
+        return sourceVersion;
+    }
+
+    public void setSourceVersion(String sourceVersion) {
+        this.sourceVersion = sourceVersion;
+    }
 }
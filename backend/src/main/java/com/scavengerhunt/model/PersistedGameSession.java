@@ -23,9 +23,12 @@ public class PersistedGameSession {
     private double playerLng;
     private double playerAngle;
 
-    private Map<String, Integer> attemptsByLandmarkId;
+    private RoundState roundState; // attempts and answers of the running round, see RoundState
+    private Map<String, Integer> attemptsByLandmarkId; // only in sessions stored before RoundState, converted on read
     private List<String> solvedLandmarkIds;
     private String currentTargetId;
+    private RoundSnapshot roundSnapshot; // candidate landmarks of the running round, see RoundSnapshot
+    private Map<String, String> riddlesByLandmarkId; // riddles already generated this round: current target and prefetched ones
 
     private boolean finished;
 
@@ -71,8 +74,30 @@ public class PersistedGameSession {
         this.playerAngle = angle;
     }
 
-    public Map<String, Integer> getAttemptsByLandmarkId() { return this.attemptsByLandmarkId; }
-    public void setAttemptsByLandmarkId(Map<String, Integer> m) { this.attemptsByLandmarkId = m; }
+    public RoundState getRoundState() {
+        if (this.roundState == null && this.attemptsByLandmarkId != null) {
+            this.roundState = RoundState.of(this.attemptsByLandmarkId);
+            this.attemptsByLandmarkId = null; // the next save stores the compact form only
+        }
+        return this.roundState;
+    }
+
+    public void setRoundState(RoundState roundState) {
+        this.roundState = roundState;
+        this.attemptsByLandmarkId = null;
+    }
+
+    /**
+     * Landmarks still in the pool -> attempts left; a read-only view of the round state.
+     */
+    public Map<String, Integer> getAttemptsByLandmarkId() {
+        RoundState state = getRoundState();
+        return state != null ? state.toAttemptsMap() : null;
+    }
+
+    public void setAttemptsByLandmarkId(Map<String, Integer> m) {
+        setRoundState(m != null ? RoundState.of(m) : null);
+    }
 
     public List<String> getSolvedLandmarkIds() { return solvedLandmarkIds; }
     public void setSolvedLandmarkIds(List<String> ids) { this.solvedLandmarkIds = ids; }
@@ -80,6 +105,12 @@ public class PersistedGameSession {
     public String getCurrentTargetId() { return currentTargetId; }
     public void setCurrentTargetId(String id) { this.currentTargetId = id; }
 
+    public RoundSnapshot getRoundSnapshot() { return roundSnapshot; }
+    public void setRoundSnapshot(RoundSnapshot roundSnapshot) { this.roundSnapshot = roundSnapshot; }
+
+    public Map<String, String> getRiddlesByLandmarkId() { return riddlesByLandmarkId; }
+    public void setRiddlesByLandmarkId(Map<String, String> riddles) { this.riddlesByLandmarkId = riddles; }
+
     public boolean isFinished() { return finished; }
     public void setFinished(boolean finished) { this.finished = finished; }
 
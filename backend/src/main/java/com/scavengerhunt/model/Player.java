@@ -42,7 +42,6 @@ public class Player {
         this.longitude = longitude;
         this.angle = angle;
         this.city = city;
-        this.playerCone = setPlayerViewCone(latitude, longitude, angle, this.spanDeg, this.radiusMeters, this.resolution);
         // acquireCity(); // MVP as "Cork"
     }
     
@@ -53,7 +52,6 @@ public class Player {
         this.city = city;
         this.spanDeg = spanDeg;
         this.radiusMeters = radiusMeters;
-        this.playerCone = setPlayerViewCone(latitude, longitude, angle, spanDeg, radiusMeters, this.resolution);
         // acquireCity(); // MVP as "Cork"
     }
 
@@ -81,10 +79,11 @@ public class Player {
     }
 
     /**
-     * Update player cone based on current position and angle
+     * Update player cone based on current position and angle.
+     * The polygon is rebuilt lazily by getPlayerCone(); the analytic detection kernel never needs it.
      */
     public void updatePlayerCone() {
-        this.playerCone = setPlayerViewCone(this.latitude, this.longitude, this.angle, this.spanDeg, this.radiusMeters, this.resolution);
+        this.playerCone = null;
     }
 
     /**
@@ -128,6 +127,9 @@ public class Player {
     }
 
     public Polygon getPlayerCone(){
+        if (this.playerCone == null) {
+            this.playerCone = setPlayerViewCone(this.latitude, this.longitude, this.angle, this.spanDeg, this.radiusMeters, this.resolution);
+        }
         return this.playerCone;
     }
 
@@ -1,6 +1,10 @@
 package com.scavengerhunt.model;
 
+import java.time.Instant;
+import java.util.UUID;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "riddles")
@@ -13,6 +17,32 @@ public class Riddle {
     private String source;
     private String content;
 
+    // riddle cache: landmark, difficulty bucket, language and style, see RiddleCache
+    @Indexed
+    private String cacheKey;
+    private String language;
+    private int difficultyBucket;
+    private int uses;
+
+    @Indexed(expireAfterSeconds = 604800)  // cached riddles expire after 7 days
+    private Instant createdAt;
+
+    public static Riddle cached(String cacheKey, String landmarkId, int difficultyBucket, String language,
+                                String style, String content) {
+        Riddle r = new Riddle();
+        r.id = UUID.randomUUID().toString();
+        r.cacheKey = cacheKey;
+        r.landmarkId = landmarkId;
+        r.difficultyBucket = difficultyBucket;
+        r.language = language;
+        r.style = style;
+        r.source = "puzzle-agent";
+        r.content = content;
+        r.uses = 1;
+        r.createdAt = Instant.now();
+        return r;
+    }
+
     // Getters & Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -28,4 +58,19 @@ public class Riddle {
 
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getLanguage() { return language; }
+    public void setLanguage(String language) { this.language = language; }
+
+    public int getDifficultyBucket() { return difficultyBucket; }
+    public void setDifficultyBucket(int difficultyBucket) { this.difficultyBucket = difficultyBucket; }
+
+    public int getUses() { return uses; }
+    public void setUses(int uses) { this.uses = uses; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
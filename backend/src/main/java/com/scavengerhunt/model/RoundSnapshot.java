@@ -0,0 +1,127 @@
+package com.scavengerhunt.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+/**
+ * Immutable copy of the round's candidate landmarks, taken once at start-round and stored on the session.
+ * Target selection, riddle difficulty and the current target are served from it, so later requests do not
+ * go back to Mongo once per unsolved landmark.
+ *
+ * Kept as parallel arrays to stay small inside the session document. Outer rings are packed into one
+ * lng/lat buffer; ring i spans points ringOffsets[i] until ringOffsets[i + 1].
+ * Ratings are the values at round start; rating updates themselves still read fresh documents.
+ */
+public class RoundSnapshot {
+
+    private final String city;
+    private final String[] ids;
+    private final String[] names;
+    private final double[] lats;
+    private final double[] lngs;
+    private final double[] ratings; // NaN = no rating yet
+    private final int[] ringOffsets;
+    private final double[] ringCoords;
+
+    public RoundSnapshot(String city, String[] ids, String[] names, double[] lats, double[] lngs,
+                         double[] ratings, int[] ringOffsets, double[] ringCoords) {
+        this.city = city;
+        this.ids = ids;
+        this.names = names;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.ratings = ratings;
+        this.ringOffsets = ringOffsets;
+        this.ringCoords = ringCoords;
+    }
+
+    public static RoundSnapshot of(String city, List<Landmark> landmarks) {
+        List<Landmark> usable = landmarks.stream()
+            .filter(lm -> lm != null && lm.getId() != null && lm.getLatitude() != null)
+            .toList();
+
+        int n = usable.size();
+        String[] ids = new String[n];
+        String[] names = new String[n];
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        double[] ratings = new double[n];
+        int[] ringOffsets = new int[n + 1];
+        List<Point> points = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            Landmark lm = usable.get(i);
+            ids[i] = lm.getId();
+            names[i] = lm.getName() != null && !lm.getName().isEmpty() ? lm.getName() : lm.getId();
+            lats[i] = lm.getLatitude();
+            lngs[i] = lm.getLongitude();
+            ratings[i] = lm.getRating() != null ? lm.getRating() : Double.NaN;
+            ringOffsets[i] = points.size();
+            GeoJsonPolygon outline = lm.getDetectionGeometry();
+            if (outline != null && !outline.getCoordinates().isEmpty()) {
+                points.addAll(outline.getCoordinates().get(0).getCoordinates());
+            }
+        }
+        ringOffsets[n] = points.size();
+
+        double[] ringCoords = new double[points.size() * 2];
+        for (int p = 0; p < points.size(); p++) {
+            ringCoords[2 * p] = points.get(p).getX(); // GeoJSON: lng, lat
+            ringCoords[2 * p + 1] = points.get(p).getY();
+        }
+        return new RoundSnapshot(city, ids, names, lats, lngs, ratings, ringOffsets, ringCoords);
+    }
+
+    public int size() { return ids.length; }
+
+    /**
+     * Position of the landmark in the snapshot, or -1. Linear, rounds hold a few dozen landmarks at most.
+     */
+    public int indexOf(String landmarkId) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(landmarkId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int i) { return ids[i]; }
+    public String getName(int i) { return names[i]; }
+    public double getLatitude(int i) { return lats[i]; }
+    public double getLongitude(int i) { return lngs[i]; }
+
+    public Double getRating(int i) {
+        return Double.isNaN(ratings[i]) ? null : ratings[i];
+    }
+
+    public List<String> getIds() { return Arrays.asList(ids.clone()); }
+
+    // packed ring access for ViewConeKernel, callers must not modify the buffer
+    public double[] getRingCoords() { return ringCoords; }
+    public int getRingStart(int i) { return ringOffsets[i]; }
+    public int getRingPointCount(int i) { return ringOffsets[i + 1] - ringOffsets[i]; }
+
+    /**
+     * Rebuilds a detached Landmark for the snapshot entry (no riddle, no lastAnswered).
+     */
+    public Landmark toLandmark(int i) {
+        Landmark lm = new Landmark(ids[i], names[i], city, lats[i], lngs[i]);
+        lm.setRating(getRating(i));
+        int count = getRingPointCount(i);
+        if (count >= 4) {
+            List<Point> shell = new ArrayList<>(count);
+            for (int p = ringOffsets[i]; p < ringOffsets[i + 1]; p++) {
+                shell.add(new Point(ringCoords[2 * p], ringCoords[2 * p + 1]));
+            }
+            lm.setGeometry(new GeoJsonPolygon(shell));
+        }
+        return lm;
+    }
+
+    public String getCity() { return city; }
+}
@@ -0,0 +1,139 @@
+package com.scavengerhunt.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Transient;
+
+/**
+ * Attempts and answers of the running round, dictionary-encoded: the round's landmark ids are numbered once
+ * at round start and everything else is kept per number, one byte of attempts left and one bit for a correct
+ * answer. A session sync writes an id array and two small binaries instead of a map of boxed counters.
+ *
+ * A landmark with 0 attempts left is out of the pool: answered correctly (its bit is set) or out of attempts.
+ */
+public class RoundState {
+
+    private final String[] ids;
+    private final byte[] attemptsLeft;
+    private final byte[] correct; // bitmask, bit i = landmark i answered correctly
+
+    @Transient
+    private Map<String, Integer> indexById; // built on first lookup, never stored
+
+    public RoundState(String[] ids, byte[] attemptsLeft, byte[] correct) {
+        this.ids = ids;
+        this.attemptsLeft = attemptsLeft;
+        this.correct = correct;
+    }
+
+    /**
+     * Every landmark in the pool with the same number of attempts.
+     */
+    public static RoundState start(List<String> landmarkIds, int attempts) {
+        byte[] left = new byte[landmarkIds.size()];
+        Arrays.fill(left, toByte(attempts));
+        return new RoundState(landmarkIds.toArray(String[]::new), left, new byte[(left.length + 7) / 8]);
+    }
+
+    /**
+     * State with the landmarks of the map in the pool, from an id -> attempts left map.
+     */
+    public static RoundState of(Map<String, Integer> attemptsByLandmarkId) {
+        String[] ids = new String[attemptsByLandmarkId.size()];
+        byte[] left = new byte[ids.length];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : attemptsByLandmarkId.entrySet()) {
+            ids[i] = entry.getKey();
+            left[i++] = toByte(entry.getValue() != null ? entry.getValue() : 0);
+        }
+        return new RoundState(ids, left, new byte[(ids.length + 7) / 8]);
+    }
+
+    public int size() { return ids.length; }
+    public String getId(int i) { return ids[i]; }
+
+    /**
+     * Number of the landmark in this round, or -1.
+     */
+    public int indexOf(String landmarkId) {
+        if (landmarkId == null) {
+            return -1;
+        }
+        if (indexById == null) {
+            Map<String, Integer> index = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                index.put(ids[i], i);
+            }
+            indexById = index;
+        }
+        Integer i = indexById.get(landmarkId);
+        return i != null ? i : -1;
+    }
+
+    public int getAttemptsLeft(int i) { return attemptsLeft[i]; }
+
+    public boolean isInPool(int i) { return i >= 0 && attemptsLeft[i] > 0; }
+
+    public boolean isCorrect(int i) { return (correct[i >> 3] & (1 << (i & 7))) != 0; }
+
+    public boolean isPoolEmpty() {
+        for (byte left : attemptsLeft) {
+            if (left > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One attempt less; returns the attempts left, 0 meaning the landmark has left the pool.
+     */
+    public int wrongAnswer(int i) {
+        if (attemptsLeft[i] > 0) {
+            attemptsLeft[i]--;
+        }
+        return attemptsLeft[i];
+    }
+
+    public void correctAnswer(int i) {
+        attemptsLeft[i] = 0;
+        correct[i >> 3] |= (byte) (1 << (i & 7));
+    }
+
+    /**
+     * Landmarks still in the pool -> attempts left, in round order. A read-only copy.
+     */
+    public Map<String, Integer> toAttemptsMap() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (attemptsLeft[i] > 0) {
+                map.put(ids[i], (int) attemptsLeft[i]);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Landmarks that left the pool -> answered correctly, for rendering solved and failed ones apart.
+     */
+    public Map<String, Boolean> toSolvedMap() {
+        Map<String, Boolean> map = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (attemptsLeft[i] <= 0) {
+                map.put(ids[i], isCorrect(i));
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    // ==================== Helper Functions ====================
+
+    private static byte toByte(int attempts) {
+        return (byte) Math.max(0, Math.min(attempts, Byte.MAX_VALUE));
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.scavengerhunt.model.BackgroundJob;
 
-public interface BackgroundJobRepository extends MongoRepository<BackgroundJob, String>{
+public interface BackgroundJobRepository extends MongoRepository<BackgroundJob, String>, BackgroundJobRepositoryCustom {
     Optional<BackgroundJob> findByIdempotencyKey(String key);
     List<BackgroundJob> findByStatus(BackgroundJob.Status status);
 }
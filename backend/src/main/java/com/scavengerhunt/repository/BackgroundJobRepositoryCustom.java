@@ -0,0 +1,54 @@
+package com.scavengerhunt.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.scavengerhunt.model.BackgroundJob;
+
+/**
+ * Atomic job queue operations; every state change of a claimed job is conditional on its lease owner,
+ * so a worker that lost its lease cannot overwrite the job's new run.
+ */
+public interface BackgroundJobRepositoryCustom {
+
+    /**
+     * Insert the job unless one with its idempotency key exists; returns the stored job either way.
+     */
+    BackgroundJob insertIfAbsent(BackgroundJob job);
+
+    /**
+     * Claim the pending job below maxAttempts that has been due longest (nextRunAt) for owner until leaseUntil,
+     * or null if no job is due.
+     */
+    BackgroundJob claimNext(String owner, Instant leaseUntil, int maxAttempts);
+
+    boolean renewLease(String jobId, String owner, Instant leaseUntil);
+
+    boolean complete(String jobId, String owner);
+
+    /**
+     * Give a failed run back to the queue, to be retried at nextRunAt while attempts remain.
+     */
+    boolean release(String jobId, String owner, String error, Instant nextRunAt);
+
+    /**
+     * Mark a job that failed its last attempt as failed for good.
+     */
+    boolean fail(String jobId, String owner, String error);
+
+    /**
+     * Return jobs whose worker stopped renewing its lease (crash, lost replica) to the queue.
+     */
+    long reapExpiredLeases(Instant now);
+
+    /**
+     * Mark pending jobs that used up their attempts as failed; returns the jobs this call failed.
+     */
+    List<BackgroundJob> failExhausted(int maxAttempts);
+
+    /**
+     * Remove jobs sharing an idempotency key (left by versions without the unique index), keeping the running
+     * or pending one, else the newest, then create the unique index. Returns the number of jobs removed.
+     */
+    long ensureIdempotencyIndex();
+}
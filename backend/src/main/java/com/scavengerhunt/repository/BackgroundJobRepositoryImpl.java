@@ -0,0 +1,163 @@
+package com.scavengerhunt.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.scavengerhunt.model.BackgroundJob;
+import com.scavengerhunt.model.BackgroundJob.Status;
+
+class BackgroundJobRepositoryImpl implements BackgroundJobRepositoryCustom {
+
+    private static final String IDEMPOTENCY_INDEX = "idempotencyKey";
+
+    // which job of a duplicated key survives: one that is running or due, then the newest
+    private static final Comparator<BackgroundJob> KEEP_FIRST = Comparator
+        .comparing((BackgroundJob job) -> job.getStatus() == Status.IN_PROGRESS ? 0 : job.getStatus() == Status.PENDING ? 1 : 2)
+        .thenComparing(BackgroundJob::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+
+    BackgroundJobRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public BackgroundJob insertIfAbsent(BackgroundJob job) {
+        Query byKey = Query.query(where("idempotencyKey").is(job.getIdempotencyKey()));
+        Document fields = new Document();
+        mongoTemplate.getConverter().write(job, fields);
+        Update insert = new Update();
+        fields.forEach(insert::setOnInsert);
+        try {
+            return mongoTemplate.findAndModify(byKey, insert,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), BackgroundJob.class);
+        } catch (DuplicateKeyException e) {
+            // a concurrent upsert of the same key won the unique index
+            return mongoTemplate.findOne(byKey, BackgroundJob.class);
+        }
+    }
+
+    @Override
+    public BackgroundJob claimNext(String owner, Instant leaseUntil, int maxAttempts) {
+        Instant now = Instant.now();
+        Query pending = Query.query(where("status").is(Status.PENDING).and("attemptCount").lt(maxAttempts)
+                .orOperator(where("nextRunAt").lte(now), where("nextRunAt").exists(false))) // jobs from before nextRunAt
+            .with(Sort.by("nextRunAt", "createdAt"));
+        Update claim = new Update()
+            .set("status", Status.IN_PROGRESS)
+            .set("leaseOwner", owner)
+            .set("leaseExpiresAt", leaseUntil)
+            .set("startedAt", now)
+            .inc("attemptCount", 1);
+        return mongoTemplate.findAndModify(pending, claim, FindAndModifyOptions.options().returnNew(true),
+            BackgroundJob.class);
+    }
+
+    @Override
+    public boolean renewLease(String jobId, String owner, Instant leaseUntil) {
+        return mongoTemplate.updateFirst(leasedBy(jobId, owner), new Update().set("leaseExpiresAt", leaseUntil),
+            BackgroundJob.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean complete(String jobId, String owner) {
+        Update done = new Update()
+            .set("status", Status.DONE)
+            .set("completedAt", Instant.now())
+            .unset("leaseOwner")
+            .unset("leaseExpiresAt");
+        return mongoTemplate.updateFirst(leasedBy(jobId, owner), done, BackgroundJob.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean release(String jobId, String owner, String error, Instant nextRunAt) {
+        Update retry = new Update()
+            .set("status", Status.PENDING)
+            .set("lastError", error)
+            .set("nextRunAt", nextRunAt)
+            .unset("leaseOwner")
+            .unset("leaseExpiresAt");
+        return mongoTemplate.updateFirst(leasedBy(jobId, owner), retry, BackgroundJob.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean fail(String jobId, String owner, String error) {
+        Update failed = new Update()
+            .set("status", Status.FAILED)
+            .set("lastError", error)
+            .set("completedAt", Instant.now())
+            .unset("leaseOwner")
+            .unset("leaseExpiresAt");
+        return mongoTemplate.updateFirst(leasedBy(jobId, owner), failed, BackgroundJob.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public long reapExpiredLeases(Instant now) {
+        Query expired = Query.query(where("status").is(Status.IN_PROGRESS).and("leaseExpiresAt").lt(now));
+        Update retry = new Update()
+            .set("status", Status.PENDING)
+            .set("lastError", "lease expired")
+            .set("nextRunAt", now)
+            .unset("leaseOwner")
+            .unset("leaseExpiresAt");
+        return mongoTemplate.updateMulti(expired, retry, BackgroundJob.class).getModifiedCount();
+    }
+
+    @Override
+    public List<BackgroundJob> failExhausted(int maxAttempts) {
+        List<BackgroundJob> failed = new ArrayList<>();
+        for (BackgroundJob job : mongoTemplate.find(exhausted(maxAttempts), BackgroundJob.class)) {
+            // per job, so a job another replica failed (or that changed meanwhile) is not reported twice
+            Query stillExhausted = exhausted(maxAttempts).addCriteria(where("_id").is(job.getJobId()));
+            Update fail = new Update().set("status", Status.FAILED).set("completedAt", Instant.now());
+            if (mongoTemplate.updateFirst(stillExhausted, fail, BackgroundJob.class).getModifiedCount() > 0) {
+                job.setStatus(Status.FAILED);
+                failed.add(job);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public long ensureIdempotencyIndex() {
+        Query keyed = Query.query(where("idempotencyKey").ne(null));
+        keyed.fields().include("idempotencyKey", "status", "createdAt");
+        Map<String, List<BackgroundJob>> byKey = mongoTemplate.find(keyed, BackgroundJob.class).stream()
+            .collect(Collectors.groupingBy(BackgroundJob::getIdempotencyKey));
+        List<String> duplicates = new ArrayList<>();
+        byKey.values().stream().filter(jobs -> jobs.size() > 1).forEach(jobs -> {
+            jobs.sort(KEEP_FIRST);
+            jobs.subList(1, jobs.size()).forEach(job -> duplicates.add(job.getJobId()));
+        });
+        long removed = duplicates.isEmpty() ? 0
+            : mongoTemplate.remove(Query.query(where("_id").in(duplicates)), BackgroundJob.class).getDeletedCount();
+        mongoTemplate.indexOps(BackgroundJob.class)
+            .createIndex(new Index("idempotencyKey", Sort.Direction.ASC).named(IDEMPOTENCY_INDEX).unique());
+        return removed;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private static Query exhausted(int maxAttempts) {
+        return Query.query(where("status").is(Status.PENDING).and("attemptCount").gte(maxAttempts));
+    }
+
+    private static Query leasedBy(String jobId, String owner) {
+        return Query.query(where("_id").is(jobId).and("status").is(Status.IN_PROGRESS).and("leaseOwner").is(owner));
+    }
+}
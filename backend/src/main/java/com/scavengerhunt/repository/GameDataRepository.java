@@ -1,6 +1,7 @@
 package com.scavengerhunt.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -9,7 +10,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -17,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.RestTemplate;
 
+import com.scavengerhunt.client.HttpTransport;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.User;
 
@@ -28,57 +34,47 @@ public class GameDataRepository {
     private static final String LANDMARK_PROCESSOR_URL =
         System.getProperty("landmark.processor.url", "http://landmark-processor:5000");
 
+    private static final double DEFAULT_RATING = 0.5;
+
     private final LandmarkRepository landmarkRepo;
     private final UserRepository userRepo;
+    private final MongoTemplate mongoTemplate;
     private final RestTemplate restTemplate;
 
-    public GameDataRepository(LandmarkRepository landmarkRepo, UserRepository userRepo) {
+    public GameDataRepository(LandmarkRepository landmarkRepo, UserRepository userRepo, MongoTemplate mongoTemplate,
+                              HttpTransport httpTransport) {
         this.landmarkRepo = landmarkRepo;
         this.userRepo = userRepo;
-        this.restTemplate = new RestTemplate();
+        this.mongoTemplate = mongoTemplate;
+        this.restTemplate = httpTransport.restTemplate();
     }
 
     // ==================== Landmark Operations ====================
 
-    public String initLandmarkDataFromPosition(double lat, double lng) {
-        String resolveCityUrl = LANDMARK_PROCESSOR_URL + "/resolve-city";
+    /**
+     * Make sure the city has landmarks, fetching them around the position if not. The city is resolved by the
+     * caller (CityResolver); null or "UnknownCity" falls back to Cork. Returns the city used.
+     */
+    public String initLandmarkDataFromPosition(String city, double lat, double lng) {
         String fetchLandmarkUrl = LANDMARK_PROCESSOR_URL + "/fetch-landmark";
 
-        Map<String, Object> payload = Map.of("latitude", lat, "longitude", lng);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(payload, headers);
-
-        String city = null;
-
-        // Step 1: try resolve city from Flask
-        try {
-            ResponseEntity<Map> resolveResp = restTemplate.postForEntity(resolveCityUrl, entity, Map.class);
-            if (resolveResp.getStatusCode().is2xxSuccessful() && resolveResp.getBody() != null) {
-                Object cityRaw = resolveResp.getBody().get("city");
-                if (cityRaw instanceof String resolvedCity && !resolvedCity.isEmpty()) {
-                    city = resolvedCity;
-                    log.debug("Resolved city: {}", city);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("resolve-city call to landmark-processor failed: {}", e.getMessage());
-        }
 
-        // Step 2: fallback if resolution failed
+        // Step 1: fallback if resolution failed
         if (city == null || city.equals("UnknownCity")) {
             log.warn("Could not resolve city for ({}, {}). Falling back to 'Cork'.", lat, lng);
             city = "Cork";
         }
 
-        // Step 3: try database first
+        // Step 2: try database first
         List<Landmark> landmarks = landmarkRepo.findByCity(city);
         if (landmarks.size() >= 10) {
             log.debug("Using cached landmarks for city: {} ({})", city, landmarks.size());
             return city;
         }
 
-        // Step 4: fetch if needed
+        // Step 3: fetch if needed
         try {
             log.debug("Landmark data insufficient for {} ({}), triggering fetch...", city, landmarks.size());
             Map<String, String> cityPayload = Map.of("latitude", String.valueOf(lat), "longitude", String.valueOf(lng));
@@ -117,6 +113,22 @@ public class GameDataRepository {
         return landmarkRepo.findByCity(city);
     }
 
+    public List<Landmark> findLandmarksByIds(Collection<String> landmarkIds) {
+        return landmarkIds.isEmpty() ? List.of() : landmarkRepo.findAllById(landmarkIds);
+    }
+
+    /**
+     * Rating and metadata flag of the landmarks, nothing else: the other fields of the returned landmarks are null.
+     */
+    public List<Landmark> findLandmarkStates(Collection<String> landmarkIds) {
+        if (landmarkIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(landmarkIds));
+        query.fields().include("rating", "metaReady");
+        return mongoTemplate.find(query, Landmark.class);
+    }
+
     public List<Landmark> findByLocationNear(GeoJsonPoint point, Distance radius){
         return landmarkRepo.findByLocationNear(point, radius)
             .getContent().stream()
@@ -130,16 +142,10 @@ public class GameDataRepository {
         return (rating != null) ? rating : 0.5;
     }
 
+    // single-field $set, no read-modify-save of the whole document
     public void updateLandmarkRating(String landmarkId, Double rating) {
-        Landmark landmark = findLandmarkById(landmarkId);
-        if (landmark != null) {
-            if (landmark.getRating() == null) {
-                landmark.setRating(0.5); // !!!! init default as 0.5
-            }
-            landmark.setRating(rating);
-            landmarkRepo.save(landmark);
-            log.debug("Landmark {} rating updated: {}", landmarkId, rating);
-        }
+        mongoTemplate.updateFirst(byId(landmarkId), new Update().set("rating", rating), Landmark.class);
+        log.debug("Landmark {} rating updated: {}", landmarkId, rating);
     }
 
     // public void updateLandmarkUncertainty(String landmarkId, Double uncertainty) {
@@ -154,11 +160,14 @@ public class GameDataRepository {
     // }
 
     public void updateLandmarkLastAnswered(String landmarkId, LocalDateTime time) {
-        Landmark landmark = findLandmarkById(landmarkId);
-        if (landmark != null) {
-            landmark.setLastAnswered(time);
-            landmarkRepo.save(landmark);
+        mongoTemplate.updateFirst(byId(landmarkId), new Update().set("lastAnswered", time), Landmark.class);
+    }
+
+    public void markLandmarksMetaReady(Collection<String> landmarkIds) {
+        if (landmarkIds.isEmpty()) {
+            return;
         }
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(landmarkIds)), new Update().set("metaReady", true), Landmark.class);
     }
 
     // ==================== User Operations ====================
@@ -168,15 +177,8 @@ public class GameDataRepository {
     }
 
     public void updateUserRating(String userId, Double rating) {
-        User user = getUserById(userId);
-        if (user != null) {
-            if (user.getRating() == null) {
-                user.setRating(0.5);
-            }
-            user.setRating(rating);
-            userRepo.save(user);
-            log.debug("User {} rating updated: {}", userId, rating);
-        }
+        mongoTemplate.updateFirst(byId(userId), new Update().set("rating", rating), User.class);
+        log.debug("User {} rating updated: {}", userId, rating);
     }
 
     // public void updateUserUncertainty(String userId, Double uncertainty) {
@@ -191,11 +193,48 @@ public class GameDataRepository {
     // }
 
     public void updateUserLastGameAt(String userId, LocalDateTime time) {
-        User user = getUserById(userId);
-        if (user != null) {
-            user.setLastGameAt(time);
-            userRepo.save(user);
+        mongoTemplate.updateFirst(byId(userId), new Update().set("lastGameAt", time), User.class);
+    }
+
+    // ==================== Rating Operations ====================
+
+    /**
+     * Applies one answer's Elo outcome as relative changes, so concurrent answers on the same landmark
+     * or by the same user add up instead of overwriting each other.
+     * Each document is touched by one atomic $inc (a second update only the first time a rating is set).
+     * lastGameAt / lastAnswered are left alone: stamping them here would turn the uncertainty model's
+     * default 30-day gap into 0 on the very next answer.
+     */
+    public void applyEloResult(String userId, double userDelta, String landmarkId, double landmarkDelta) {
+        applyRatingDelta(userId, userDelta, User.class);
+        applyRatingDelta(landmarkId, landmarkDelta, Landmark.class);
+        log.debug("Elo result applied: user {} {}{}, landmark {} {}{}",
+            userId, userDelta >= 0 ? "+" : "", userDelta, landmarkId, landmarkDelta >= 0 ? "+" : "", landmarkDelta);
+    }
+
+    private void applyRatingDelta(String id, double delta, Class<?> type) {
+        if (id == null) {
+            return;
+        }
+        double safeDelta = Double.isNaN(delta) ? 0.0 : delta;
+
+        // common case: the rating exists and is incremented in place
+        Query rated = new Query(Criteria.where("_id").is(id).and("rating").ne(null));
+        long matched = mongoTemplate.updateFirst(rated, new Update().inc("rating", safeDelta), type).getMatchedCount();
+        if (matched > 0) {
+            return;
         }
+        // first rating ever: start from the default; the null guard keeps a concurrent first answer from being overwritten
+        Query unrated = new Query(Criteria.where("_id").is(id).and("rating").is(null));
+        matched = mongoTemplate.updateFirst(unrated, new Update().set("rating", DEFAULT_RATING + safeDelta), type).getMatchedCount();
+        if (matched == 0) {
+            // lost the race to another first answer, which has set the rating by now
+            mongoTemplate.updateFirst(rated, new Update().inc("rating", safeDelta), type);
+        }
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
     }
 
     // ==================== Repositories ====================
@@ -12,7 +12,7 @@ import org.springframework.data.mongodb.repository.Query;
 
 import com.scavengerhunt.model.Landmark;
 
-public interface LandmarkRepository extends MongoRepository<Landmark, String> {
+public interface LandmarkRepository extends MongoRepository<Landmark, String>, LandmarkRepositoryCustom {
     @Query(value = "{}", fields = "{'_id': 1}")
     List<String> findAllId();
 
@@ -0,0 +1,20 @@
+package com.scavengerhunt.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.scavengerhunt.model.Landmark;
+
+/**
+ * Bulk writes for landmark ingestion.
+ */
+public interface LandmarkRepositoryCustom {
+
+    /**
+     * Upsert a batch of ingested landmarks keyed on externalId: one lookup and one unordered bulk write.
+     * A landmark stored earlier without externalId (same name and city) is adopted instead of duplicated;
+     * landmarks whose stored sourceVersion matches are not written. Returns the ids of the landmarks that
+     * were inserted or changed, by city.
+     */
+    Map<String, List<String>> upsertFromFeed(List<Landmark> batch);
+}
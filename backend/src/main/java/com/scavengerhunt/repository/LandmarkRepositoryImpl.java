@@ -0,0 +1,120 @@
+package com.scavengerhunt.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.scavengerhunt.model.Landmark;
+
+class LandmarkRepositoryImpl implements LandmarkRepositoryCustom {
+
+    private static final double DEFAULT_RATING = 0.5;
+
+    private final MongoTemplate mongoTemplate;
+
+    LandmarkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<String, List<String>> upsertFromFeed(List<Landmark> batch) {
+        // last one wins if the feed repeats an element; two upserts of one key would race on the unique index
+        Map<String, Landmark> byExternalId = new LinkedHashMap<>();
+        batch.forEach(landmark -> byExternalId.put(landmark.getExternalId(), landmark));
+        if (byExternalId.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Landmark> stored = new HashMap<>();
+        Map<String, Landmark> legacy = new HashMap<>();
+        for (Landmark lm : findStored(byExternalId.values())) {
+            if (lm.getExternalId() != null) {
+                stored.put(lm.getExternalId(), lm);
+            } else {
+                legacy.putIfAbsent(legacyKey(lm.getCity(), lm.getName()), lm);
+            }
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Landmark.class);
+        Map<String, List<String>> changed = new HashMap<>();
+        List<Landmark> written = new ArrayList<>(); // in bulk order, upserts report their index
+        for (Landmark landmark : byExternalId.values()) {
+            Landmark existing = stored.get(landmark.getExternalId());
+            if (existing == null) {
+                existing = legacy.remove(legacyKey(landmark.getCity(), landmark.getName()));
+            }
+            if (existing != null && landmark.getSourceVersion().equals(existing.getSourceVersion())) {
+                continue;
+            }
+            Update update = feedUpdate(landmark);
+            if (existing != null) {
+                ops.updateOne(Query.query(where("_id").is(existing.getId())), update);
+                changed.computeIfAbsent(landmark.getCity(), c -> new ArrayList<>()).add(existing.getId());
+            } else {
+                ops.upsert(Query.query(where("externalId").is(landmark.getExternalId())), update.setOnInsert("rating", DEFAULT_RATING));
+            }
+            written.add(landmark);
+        }
+        if (written.isEmpty()) {
+            return changed;
+        }
+
+        BulkWriteResult result = ops.execute();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            changed.computeIfAbsent(written.get(upsert.getIndex()).getCity(), c -> new ArrayList<>())
+                .add(upsert.getId().asObjectId().getValue().toHexString());
+        }
+        return changed;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private List<Landmark> findStored(Iterable<Landmark> landmarks) {
+        Set<String> externalIds = new HashSet<>();
+        Set<String> cities = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (Landmark landmark : landmarks) {
+            externalIds.add(landmark.getExternalId());
+            cities.add(landmark.getCity());
+            names.add(landmark.getName());
+        }
+        Query query = Query.query(new Criteria().orOperator(
+            where("externalId").in(externalIds),
+            where("externalId").exists(false).and("city").in(cities).and("name").in(names)));
+        query.fields().include("_id", "externalId", "sourceVersion", "name", "city");
+        return mongoTemplate.find(query, Landmark.class);
+    }
+
+    private static Update feedUpdate(Landmark landmark) {
+        return new Update()
+            .set("externalId", landmark.getExternalId())
+            .set("sourceVersion", landmark.getSourceVersion())
+            .set("name", landmark.getName())
+            .set("city", landmark.getCity())
+            .set("location", new GeoJsonPoint(landmark.getLongitude(), landmark.getLatitude()))
+            .set("geometry", landmark.getGeometry())
+            .set("simplifiedGeometry", landmark.getSimplifiedGeometry())
+            .set("bbox", landmark.getBbox())
+            .set("tags", landmark.getTags() != null ? landmark.getTags() : Map.of());
+    }
+
+    private static String legacyKey(String city, String name) {
+        return city + "\u0000" + name;
+    }
+}
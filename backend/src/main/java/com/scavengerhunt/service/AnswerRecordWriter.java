@@ -0,0 +1,207 @@
+package com.scavengerhunt.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.scavengerhunt.model.AnswerTransactionRecord;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind log for answer records.
+ * submit-answer only enqueues; a background flusher drains the queue into unordered bulk inserts once a
+ * batch is full or the flush interval has passed. When the queue is full the caller flushes a batch itself,
+ * which slows that request down instead of dropping records. Whatever is queued is flushed on shutdown.
+ */
+@Service
+public class AnswerRecordWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AnswerRecordWriter.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final BlockingQueue<AnswerTransactionRecord> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter backpressureCounter;
+
+    private final Object flushLock = new Object(); // one bulk write at a time, flusher or caller
+    private volatile boolean running;
+    private Thread flusher;
+
+    public AnswerRecordWriter(
+        MongoTemplate mongoTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${app.answer-log.queue-capacity:10000}") int queueCapacity,
+        @Value("${app.answer-log.batch-size:500}") int batchSize,
+        @Value("${app.answer-log.flush-interval-ms:200}") long flushIntervalMs
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+
+        Gauge.builder("answer.log.queue.depth", queue, BlockingQueue::size)
+            .description("Answer records waiting to be written")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("answer.log.flush")
+            .description("Latency of one bulk insert of answer records")
+            .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("answer.log.records.written");
+        this.droppedCounter = meterRegistry.counter("answer.log.records.dropped");
+        this.backpressureCounter = meterRegistry.counter("answer.log.backpressure");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "answer-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            // no interrupt: an interrupted Mongo write would fail; the flusher exits after its current poll
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+        log.info("Answer log writer stopped, {} records left unwritten", queue.size());
+    }
+
+    public void submit(AnswerTransactionRecord record) {
+        while (!queue.offer(record)) {
+            // queue full: the caller pays for one batch, Mongo sets the pace
+            backpressureCounter.increment();
+            if (flushBatch() == 0) {
+                writeBatch(List.of(record)); // a concurrent flush got there first, just write ours
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes everything queued so far on the calling thread. Used on shutdown and in tests.
+     */
+    public void flushAll() {
+        while (flushBatch() > 0) {
+            // keep draining
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // ==================== Helper Functions ====================
+
+    private void runFlusher() {
+        List<AnswerTransactionRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AnswerTransactionRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // give a burst up to one interval to fill the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AnswerTransactionRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                writeBatch(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Answer log flusher failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private int flushBatch() {
+        List<AnswerTransactionRecord> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+        return batch.size();
+    }
+
+    private void writeBatch(List<AnswerTransactionRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+                long start = System.nanoTime();
+                try {
+                    mongoTemplate.bulkOps(BulkMode.UNORDERED, AnswerTransactionRecord.class)
+                        .insert(batch)
+                        .execute();
+                    writtenCounter.increment(batch.size());
+                    return;
+                } catch (RuntimeException e) {
+                    if (isOnlyDuplicateKeys(e)) {
+                        // a previous attempt got part of the batch in; ids are client-side, the rest is written
+                        writtenCounter.increment(batch.size());
+                        return;
+                    }
+                    log.warn("Writing {} answer records failed (attempt {}/{}): {}",
+                        batch.size(), attempt, MAX_FLUSH_ATTEMPTS, e.getMessage());
+                } finally {
+                    flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+            droppedCounter.increment(batch.size());
+            log.error("Dropped {} answer records after {} attempts", batch.size(), MAX_FLUSH_ATTEMPTS);
+        }
+    }
+
+    private static boolean isOnlyDuplicateKeys(RuntimeException e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof MongoBulkWriteException)) {
+            cause = cause.getCause();
+        }
+        return cause instanceof MongoBulkWriteException bulk
+            && bulk.getWriteErrors().stream().allMatch(err -> err.getCode() == 11000);
+    }
+}
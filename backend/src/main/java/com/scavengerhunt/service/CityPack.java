@@ -0,0 +1,387 @@
+package com.scavengerhunt.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.utils.ViewConeKernel;
+
+/**
+ * Read-only, memory-mapped copy of one city's landmarks, so detection and round setup can run without
+ * mapping Landmark documents (and without Mongo at all on a node that only has the file).
+ *
+ * File layout, little endian:
+ * - header (HEADER_BYTES): magic, version, counts, export time, section positions
+ * - string table: stringCount + 1 int offsets into one UTF-8 blob; string 0 is the city
+ * - one RECORD_BYTES record per landmark, sorted by bbox minLng so a lng window is a binary search
+ * - ring coordinates: one flat {lng0, lat0, lng1, lat1, ...} double array, ring i at record i's ringStart
+ *
+ * Nothing is copied to the heap on open; strings are decoded and rings copied only for the entries a caller asks for.
+ * Ratings and the metadata flag are the values at export time and go stale with every answer;
+ * LandmarkIndexService reads the current ones from Mongo when a round starts from a pack.
+ */
+public final class CityPack {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x50434853; // "SHCP"
+    private static final int HEADER_BYTES = 80;
+    private static final int RECORD_BYTES = 80;
+    private static final int FLAG_META_READY = 1;
+
+    // record fields
+    private static final int R_ID = 0;
+    private static final int R_NAME = 4;
+    private static final int R_RING_START = 8;
+    private static final int R_RING_COUNT = 12;
+    private static final int R_FLAGS = 16;
+    private static final int R_LAT = 24;
+    private static final int R_LNG = 32;
+    private static final int R_RATING = 40; // NaN = no rating yet
+    private static final int R_MIN_LNG = 48;
+    private static final int R_MIN_LAT = 56;
+    private static final int R_MAX_LNG = 64;
+    private static final int R_MAX_LAT = 72;
+
+    private final ByteBuffer buf;
+    private final DoubleBuffer coords;
+    private final String city;
+    private final int size;
+    private final long exportedAt;
+    private final double maxLngSpan; // widest bbox, bounds how far left of a window a match can start
+    private final int stringOffsetsPos;
+    private final int stringDataPos;
+    private final int recordsPos;
+
+    private final ThreadLocal<double[]> ringScratch = ThreadLocal.withInitial(() -> new double[256]);
+
+    private CityPack(ByteBuffer buf) throws IOException {
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a city pack");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported city pack version " + buf.getInt(4));
+        }
+        this.buf = buf;
+        this.size = buf.getInt(8);
+        int pointCount = buf.getInt(12);
+        this.exportedAt = buf.getLong(16);
+        this.maxLngSpan = buf.getDouble(24);
+        this.stringOffsetsPos = (int) buf.getLong(40);
+        this.stringDataPos = (int) buf.getLong(48);
+        this.recordsPos = (int) buf.getLong(56);
+        int coordsPos = (int) buf.getLong(64);
+        this.coords = buf.slice(coordsPos, pointCount * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        this.city = string(0);
+    }
+
+    /**
+     * Maps the file read-only. The mapping outlives the channel and stays valid if the file is replaced.
+     */
+    public static CityPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("City pack too large: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CityPack(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Writes the landmarks of the city to file, through a temporary file and an atomic rename so readers
+     * of the old pack are never left with a half-written one. Landmarks without position are skipped.
+     */
+    public static void write(Path file, String city, List<Landmark> landmarks) throws IOException {
+        List<Entry> entries = landmarks.stream()
+            .filter(lm -> lm != null && lm.getId() != null && lm.getLatitude() != null && lm.getLongitude() != null)
+            .map(lm -> {
+                double[] ring = ringOf(lm);
+                return new Entry(lm, ring, bboxOf(lm, ring));
+            })
+            .sorted(Comparator.comparingDouble(e -> e.bbox()[0]))
+            .toList();
+        int n = entries.size();
+
+        List<byte[]> strings = new ArrayList<>(1 + 2 * n);
+        strings.add(city.getBytes(StandardCharsets.UTF_8));
+        int pointCount = 0;
+        int stringBytes = 0;
+        for (Entry e : entries) {
+            Landmark lm = e.landmark();
+            String name = lm.getName() != null && !lm.getName().isEmpty() ? lm.getName() : lm.getId();
+            strings.add(lm.getId().getBytes(StandardCharsets.UTF_8));
+            strings.add(name.getBytes(StandardCharsets.UTF_8));
+            pointCount += e.ring().length / 2;
+        }
+        for (byte[] s : strings) {
+            stringBytes += s.length;
+        }
+
+        int stringOffsetsPos = HEADER_BYTES;
+        int stringDataPos = stringOffsetsPos + (strings.size() + 1) * Integer.BYTES;
+        int recordsPos = align8(stringDataPos + stringBytes);
+        int coordsPos = recordsPos + n * RECORD_BYTES;
+        long total = (long) coordsPos + (long) pointCount * 2 * Double.BYTES;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("City pack for " + city + " would exceed 2 GB");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putInt(8, n);
+        out.putInt(12, pointCount);
+        out.putLong(16, System.currentTimeMillis());
+        out.putInt(32, strings.size());
+        out.putLong(40, stringOffsetsPos);
+        out.putLong(48, stringDataPos);
+        out.putLong(56, recordsPos);
+        out.putLong(64, coordsPos);
+
+        int offset = 0;
+        for (int s = 0; s < strings.size(); s++) {
+            out.putInt(stringOffsetsPos + s * Integer.BYTES, offset);
+            out.put(stringDataPos + offset, strings.get(s));
+            offset += strings.get(s).length;
+        }
+        out.putInt(stringOffsetsPos + strings.size() * Integer.BYTES, offset);
+
+        double maxLngSpan = 0;
+        int point = 0;
+        for (int i = 0; i < n; i++) {
+            Landmark lm = entries.get(i).landmark();
+            double[] bbox = entries.get(i).bbox();
+            double[] ring = entries.get(i).ring();
+            int rec = recordsPos + i * RECORD_BYTES;
+            out.putInt(rec + R_ID, 1 + 2 * i);
+            out.putInt(rec + R_NAME, 2 + 2 * i);
+            out.putInt(rec + R_RING_START, point);
+            out.putInt(rec + R_RING_COUNT, ring.length / 2);
+            out.putInt(rec + R_FLAGS, lm.isMetaReady() ? FLAG_META_READY : 0);
+            out.putDouble(rec + R_LAT, lm.getLatitude());
+            out.putDouble(rec + R_LNG, lm.getLongitude());
+            out.putDouble(rec + R_RATING, lm.getRating() != null ? lm.getRating() : Double.NaN);
+            out.putDouble(rec + R_MIN_LNG, bbox[0]);
+            out.putDouble(rec + R_MIN_LAT, bbox[1]);
+            out.putDouble(rec + R_MAX_LNG, bbox[2]);
+            out.putDouble(rec + R_MAX_LAT, bbox[3]);
+            out.slice(coordsPos + point * 2 * Double.BYTES, ring.length * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(ring);
+            point += ring.length / 2;
+            maxLngSpan = Math.max(maxLngSpan, bbox[2] - bbox[0]);
+        }
+        out.putDouble(24, maxLngSpan);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.rewind();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() { return size; }
+    public String getCity() { return city; }
+    public long getExportedAt() { return exportedAt; }
+
+    public String getId(int i) { return string(buf.getInt(record(i) + R_ID)); }
+    public String getName(int i) { return string(buf.getInt(record(i) + R_NAME)); }
+    public double getLatitude(int i) { return buf.getDouble(record(i) + R_LAT); }
+    public double getLongitude(int i) { return buf.getDouble(record(i) + R_LNG); }
+    public boolean isMetaReady(int i) { return (buf.getInt(record(i) + R_FLAGS) & FLAG_META_READY) != 0; }
+    public int getRingPointCount(int i) { return buf.getInt(record(i) + R_RING_COUNT); }
+
+    public Double getRating(int i) {
+        double rating = buf.getDouble(record(i) + R_RATING);
+        return Double.isNaN(rating) ? null : rating;
+    }
+
+    /**
+     * [minLng, minLat, maxLng, maxLat] of the landmark's detection outline.
+     */
+    public double[] getBbox(int i) {
+        int rec = record(i);
+        return new double[] {
+            buf.getDouble(rec + R_MIN_LNG), buf.getDouble(rec + R_MIN_LAT),
+            buf.getDouble(rec + R_MAX_LNG), buf.getDouble(rec + R_MAX_LAT)
+        };
+    }
+
+    /**
+     * The landmark's ring as flat lng/lat pairs, copied into into if it is large enough.
+     */
+    public double[] copyRing(int i, double[] into) {
+        int count = getRingPointCount(i);
+        double[] ring = into != null && into.length >= 2 * count ? into : new double[2 * count];
+        coords.get(2 * buf.getInt(record(i) + R_RING_START), ring, 0, 2 * count);
+        return ring;
+    }
+
+    /**
+     * Index of the landmark the view cone detects, or -1. Same selection as GeoUtils.detectedLandmark:
+     * among outlines the cone hits, the one whose centre is closest to the heading. Only entries whose
+     * bbox meets the cone's bounding square are read from the rings section.
+     */
+    public int detect(double lat, double lng, double heading, double spanDeg, double radiusMeters) {
+        double dLat = radiusMeters / 111320.0;
+        double dLng = radiusMeters / (111320.0 * Math.cos(Math.toRadians(lat)));
+        double[] scratch = ringScratch.get();
+
+        int selected = -1;
+        double minAngleDiff = Double.MAX_VALUE;
+        for (int i = firstCandidate(lng - dLng); i < size; i++) {
+            int rec = record(i);
+            if (buf.getDouble(rec + R_MIN_LNG) > lng + dLng) {
+                break; // sorted by minLng, nothing further can reach the window
+            }
+            int count = buf.getInt(rec + R_RING_COUNT);
+            if (count == 0 || buf.getDouble(rec + R_MAX_LNG) < lng - dLng
+                || buf.getDouble(rec + R_MIN_LAT) > lat + dLat || buf.getDouble(rec + R_MAX_LAT) < lat - dLat) {
+                continue;
+            }
+            if (scratch.length < 2 * count) {
+                scratch = new double[2 * count];
+                ringScratch.set(scratch);
+            }
+            coords.get(2 * buf.getInt(rec + R_RING_START), scratch, 0, 2 * count);
+            if (ViewConeKernel.intersects(lat, lng, heading, spanDeg, radiusMeters, scratch, 0, count)) {
+                double toTarget = GeoUtils.calculateTargetAngle(lat, lng, buf.getDouble(rec + R_LAT), buf.getDouble(rec + R_LNG));
+                double diff = GeoUtils.minimalAngleDiff(heading, toTarget);
+                if (diff < minAngleDiff) {
+                    minAngleDiff = diff;
+                    selected = i;
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Indexes of the landmarks whose centre lies within radiusMeters, nearest first.
+     */
+    public int[] withinRadius(double lat, double lng, double radiusMeters) {
+        double dLng = radiusMeters / (111320.0 * Math.cos(Math.toRadians(lat)));
+        List<double[]> hits = new ArrayList<>(); // {distance, index}
+        for (int i = firstCandidate(lng - dLng); i < size; i++) {
+            int rec = record(i);
+            if (buf.getDouble(rec + R_MIN_LNG) > lng + dLng) {
+                break;
+            }
+            double d = GeoUtils.distanceInMeters(lat, lng, buf.getDouble(rec + R_LAT), buf.getDouble(rec + R_LNG));
+            if (d <= radiusMeters) {
+                hits.add(new double[] { d, i });
+            }
+        }
+        hits.sort(Comparator.comparingDouble(h -> h[0]));
+        return hits.stream().mapToInt(h -> (int) h[1]).toArray();
+    }
+
+    /**
+     * Rebuilds a detached Landmark for the entry (no riddle, no lastAnswered), outline as the detection ring.
+     */
+    public Landmark toLandmark(int i) {
+        Landmark lm = new Landmark(getId(i), getName(i), city, getLatitude(i), getLongitude(i));
+        lm.setRating(getRating(i));
+        lm.setMetaReady(isMetaReady(i));
+        lm.setBbox(getBbox(i));
+        int count = getRingPointCount(i);
+        if (count >= 4) {
+            double[] ring = copyRing(i, null);
+            List<Point> shell = new ArrayList<>(count);
+            for (int p = 0; p < count; p++) {
+                shell.add(new Point(ring[2 * p], ring[2 * p + 1]));
+            }
+            lm.setGeometry(new GeoJsonPolygon(shell));
+        }
+        return lm;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private int record(int i) {
+        return recordsPos + i * RECORD_BYTES;
+    }
+
+    private String string(int s) {
+        int from = buf.getInt(stringOffsetsPos + s * Integer.BYTES);
+        int to = buf.getInt(stringOffsetsPos + (s + 1) * Integer.BYTES);
+        byte[] bytes = new byte[to - from];
+        buf.get(stringDataPos + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // first record whose bbox can reach minLng: records are sorted by minLng, none is wider than maxLngSpan
+    private int firstCandidate(double minLng) {
+        double from = minLng - maxLngSpan;
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (buf.getDouble(record(mid) + R_MIN_LNG) < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static double[] ringOf(Landmark lm) {
+        GeoJsonPolygon outline = lm.getDetectionGeometry();
+        if (outline == null || outline.getCoordinates().isEmpty()) {
+            return new double[0];
+        }
+        List<Point> points = outline.getCoordinates().get(0).getCoordinates();
+        double[] ring = new double[points.size() * 2];
+        for (int p = 0; p < points.size(); p++) {
+            ring[2 * p] = points.get(p).getX(); // GeoJSON: lng, lat
+            ring[2 * p + 1] = points.get(p).getY();
+        }
+        return ring;
+    }
+
+    // stored bbox when ingestion computed one, else the ring's, else the point itself
+    private static double[] bboxOf(Landmark lm, double[] ring) {
+        if (lm.getBbox() != null && lm.getBbox().length == 4) {
+            return lm.getBbox();
+        }
+        if (ring.length == 0) {
+            return new double[] { lm.getLongitude(), lm.getLatitude(), lm.getLongitude(), lm.getLatitude() };
+        }
+        double[] bbox = { Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+        for (int p = 0; p < ring.length; p += 2) {
+            bbox[0] = Math.min(bbox[0], ring[p]);
+            bbox[1] = Math.min(bbox[1], ring[p + 1]);
+            bbox[2] = Math.max(bbox[2], ring[p]);
+            bbox[3] = Math.max(bbox[3], ring[p + 1]);
+        }
+        return bbox;
+    }
+
+    private static int align8(int pos) {
+        return (pos + 7) & ~7;
+    }
+
+    private record Entry(Landmark landmark, double[] ring, double[] bbox) {}
+}
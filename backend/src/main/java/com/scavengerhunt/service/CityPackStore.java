@@ -0,0 +1,162 @@
+package com.scavengerhunt.service;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * City packs (see CityPack) kept in app.city-pack.dir, one file per city. Packs found there are mapped at
+ * startup, so a restarted node, or an edge node that was only given the files, detects and sets up rounds
+ * without reading landmarks from Mongo (a round start only reads their current ratings, when Mongo is there).
+ * A city is re-exported in the background whenever its landmarks change. With no directory configured the
+ * store is off and every read goes to Mongo as before.
+ */
+@Service
+public class CityPackStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CityPackStore.class);
+
+    private static final String SUFFIX = ".pack";
+
+    private final GameDataRepository gameDataRepo;
+    private final Path dir; // null -> disabled
+
+    private final Map<String, CityPack> packByCity = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor exporter;
+
+    public CityPackStore(
+        GameDataRepository gameDataRepo,
+        @Value("${app.city-pack.dir:}") String dir
+    ) {
+        this.gameDataRepo = gameDataRepo;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.exporter = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            r -> {
+                Thread t = new Thread(r, "city-pack-exporter");
+                t.setDaemon(true);
+                return t;
+            });
+        this.exporter.allowCoreThreadTimeOut(true);
+    }
+
+    @PostConstruct
+    public void loadPacks() {
+        if (dir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    try {
+                        CityPack pack = CityPack.open(file);
+                        packByCity.put(pack.getCity(), pack);
+                    } catch (IOException e) {
+                        log.warn("Skipping city pack {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+            log.info("Loaded {} city packs from {}", packByCity.size(), dir);
+        } catch (IOException e) {
+            log.warn("Could not read city packs from {}: {}", dir, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        exporter.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * The mapped pack of the city, or null if there is none (yet).
+     */
+    public CityPack get(String city) {
+        return city != null ? packByCity.get(city) : null;
+    }
+
+    /**
+     * Writes the city's landmarks from Mongo to its pack and maps the new file. Returns null if the store
+     * is off, the city has no landmarks (its pack is then dropped) or the file could not be written.
+     */
+    public CityPack export(String city) {
+        if (dir == null || city == null) {
+            return null;
+        }
+        List<Landmark> landmarks = gameDataRepo.findByCity(city);
+        if (landmarks.isEmpty()) {
+            remove(city);
+            return null;
+        }
+        Path file = dir.resolve(fileName(city));
+        try {
+            CityPack.write(file, city, landmarks);
+            CityPack pack = CityPack.open(file);
+            packByCity.put(city, pack);
+            log.info("Exported city pack for {} with {} landmarks", city, pack.size());
+            return pack;
+        } catch (IOException e) {
+            log.warn("Could not export city pack for {}: {}", city, e.getMessage());
+            return null;
+        }
+    }
+
+    @EventListener
+    public void onLandmarksChanged(LandmarksChangedEvent event) {
+        if (dir == null) {
+            return;
+        }
+        // all cities changed: every city with a pack is exported again (a city left without landmarks loses it)
+        List<String> cities = event.city() != null ? List.of(event.city()) : List.copyOf(packByCity.keySet());
+        for (String city : cities) {
+            try {
+                exporter.execute(() -> export(city));
+            } catch (RejectedExecutionException e) {
+                log.warn("City pack export queue full, {} keeps its current pack", city);
+            }
+        }
+    }
+
+    // ==================== Helper Functions ====================
+
+    // a mapping stays readable after its file is deleted, requests holding the pack finish on it
+    private void remove(String city) {
+        packByCity.remove(city);
+        try {
+            Files.deleteIfExists(dir.resolve(fileName(city)));
+        } catch (IOException e) {
+            log.warn("Could not delete city pack for {}: {}", city, e.getMessage());
+        }
+    }
+
+    // encoded rather than slugged, so no two city keys share a file
+    static String fileName(String city) {
+        return URLEncoder.encode(city, StandardCharsets.UTF_8) + SUFFIX;
+    }
+}
@@ -0,0 +1,200 @@
+package com.scavengerhunt.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scavengerhunt.dto.LandmarkDTO;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+
+/**
+ * The init-game landmark payload of a city, serialized once and kept as JSON and gzip bytes.
+ * Each payload carries a version (content hash of the landmark list) that doubles as its ETag, so a
+ * client that already has the list gets a 304. Payloads are dropped on LandmarksChangedEvent and after
+ * max-age, the same way the spatial index is. Concurrent misses on a city share one build.
+ */
+@Service
+public class CityPayloadCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CityPayloadCache.class);
+
+    private final GameDataRepository gameDataRepo;
+    private final LandmarkGeometryCache geometryCache;
+    private final ObjectMapper objectMapper;
+    private final Duration maxAge;
+
+    private final Map<String, CityPayload> payloadByCity = new ConcurrentHashMap<>();
+    // builds in progress; the first miss on a city builds, later ones wait for its result
+    private final Map<String, CompletableFuture<CityPayload>> buildsByCity = new ConcurrentHashMap<>();
+    // bumped on every invalidation so a build that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public CityPayloadCache(
+        GameDataRepository gameDataRepo,
+        LandmarkGeometryCache geometryCache,
+        ObjectMapper objectMapper,
+        @Value("${app.city-payload.max-age-minutes:10}") long maxAgeMinutes
+    ) {
+        this.gameDataRepo = gameDataRepo;
+        this.geometryCache = geometryCache;
+        this.objectMapper = objectMapper;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+    }
+
+    /**
+     * Serialized landmark payload of the city, or null if the city has fewer than minLandmarks landmarks.
+     * Cities below the threshold are not cached, they are still being ingested.
+     */
+    public CityPayload get(String city, int minLandmarks) {
+        CityPayload cached = payloadByCity.get(city);
+        if (cached != null && cached.builtAt().plus(maxAge).isAfter(Instant.now())) {
+            return cached;
+        }
+
+        CompletableFuture<CityPayload> mine = new CompletableFuture<>();
+        CompletableFuture<CityPayload> running = buildsByCity.computeIfAbsent(city, c -> mine);
+        if (running != mine) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            CityPayload built = load(city, minLandmarks);
+            mine.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            buildsByCity.remove(city, mine);
+        }
+    }
+
+    public void invalidateCity(String city) {
+        generation.incrementAndGet();
+        if (city == null) {
+            payloadByCity.clear();
+        } else {
+            payloadByCity.remove(city);
+        }
+    }
+
+    @EventListener
+    public void onLandmarksChanged(LandmarksChangedEvent event) {
+        invalidateCity(event.city());
+    }
+
+    /**
+     * One city's payload. json and gzip are shared, callers must not modify them.
+     */
+    public record CityPayload(String version, int landmarkCount, byte[] json, byte[] gzip, Instant builtAt) {
+
+        public String etag() {
+            return "\"" + version + "\"";
+        }
+
+        /**
+         * True if an If-None-Match header value names this payload (weak tags compare equal).
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.startsWith("W/")) {
+                    t = t.substring(2);
+                }
+                if (t.equals("*") || t.equals(etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ==================== Helper Functions ====================
+
+    private CityPayload load(String city, int minLandmarks) {
+        long gen = generation.get();
+        List<Landmark> landmarks = gameDataRepo.findByCity(city);
+        if (landmarks.size() < minLandmarks) {
+            return null;
+        }
+        CityPayload built = build(landmarks);
+        if (generation.get() == gen) {
+            payloadByCity.put(city, built);
+        }
+        log.debug("Built init-game payload for {}: {} landmarks, {} bytes, {} gzipped",
+            city, built.landmarkCount(), built.json().length, built.gzip().length);
+        return built;
+    }
+
+    private CityPayload build(List<Landmark> landmarks) {
+        List<LandmarkDTO> dtos = new ArrayList<>(landmarks.size());
+        for (Landmark lm : landmarks) {
+            Coordinate[] polygon = geometryCache.polygon(lm).getCoordinates();
+            List<List<Double>> coords = new ArrayList<>(polygon.length);
+            for (Coordinate coord : polygon) {
+                coords.add(List.of(coord.getY(), coord.getX()));  // [lat, lng]
+            }
+            dtos.add(new LandmarkDTO(lm.getId(), lm.getName(), lm.getLatitude(), lm.getLongitude(), coords));
+        }
+
+        try {
+            String version = contentHash(objectMapper.writeValueAsBytes(dtos));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("version", version);
+            body.put("landmarks", dtos);
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CityPayload(version, dtos.size(), json, gzip(json), Instant.now());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,260 @@
+package com.scavengerhunt.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.model.CityBoundary;
+import com.scavengerhunt.model.CityCell;
+import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.utils.LruCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * City of a position, resolved locally where possible instead of a /resolve-city round trip per init-game.
+ * Lookup order: the city of the position's geohash cell (memory LRU, then the city_cells collection), then
+ * the point-in-polygon index of city boundaries learned so far, and only then the landmark processor. A cell
+ * the processor resolved wins over a boundary, which may overlap a neighbouring town's. After a remote
+ * resolution the city's boundary is fetched once in the background; it is kept only if it contains the
+ * resolved position, so a namesake elsewhere never ends up in the index.
+ * Cache and index failures never fail the request; the city is then resolved remotely as before.
+ */
+@Service
+public class CityResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(CityResolver.class);
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private final LandmarkProcessorClient landmarkProcessorClient;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int cellPrecision;
+    private final LruCache<String, String> cityByCell;
+    private final Set<String> boundaryRequested = ConcurrentHashMap.newKeySet(); // learned or being learned
+    private final ThreadPoolExecutor boundaryLoader;
+
+    private volatile BoundaryIndex boundaries = new BoundaryIndex(Map.of());
+
+    public CityResolver(
+        LandmarkProcessorClient landmarkProcessorClient,
+        MongoTemplate mongoTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${app.city-resolver.cell-precision:7}") int cellPrecision,
+        @Value("${app.city-resolver.max-cells:50000}") int maxCells
+    ) {
+        this.landmarkProcessorClient = landmarkProcessorClient;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.cellPrecision = cellPrecision;
+        this.cityByCell = new LruCache<>(maxCells);
+        // one boundary at a time is plenty, cities are learned once
+        this.boundaryLoader = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(100),
+            r -> {
+                Thread t = new Thread(r, "city-boundary-loader");
+                t.setDaemon(true);
+                return t;
+            });
+        this.boundaryLoader.allowCoreThreadTimeOut(true);
+    }
+
+    @PostConstruct
+    public void loadBoundaries() {
+        try {
+            Map<String, Geometry> byCity = new HashMap<>();
+            for (CityBoundary boundary : mongoTemplate.findAll(CityBoundary.class)) {
+                byCity.put(boundary.getCity(), GeoUtils.convertToJtsMultiPolygon(boundary.getPolygons()));
+            }
+            boundaryRequested.addAll(byCity.keySet());
+            boundaries = new BoundaryIndex(byCity);
+            log.info("City boundary index loaded with {} cities", byCity.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not load city boundaries, cities resolve by cell and remotely: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        boundaryLoader.shutdownNow();
+    }
+
+    /**
+     * City of the position, or null if it cannot be resolved.
+     */
+    public String resolve(double lat, double lng) {
+        String cell = GeoUtils.geohash(lat, lng, cellPrecision);
+        String city = cityByCell.get(cell);
+        if (city != null) {
+            learnBoundary(city, lat, lng);
+            return resolved("cell", city);
+        }
+        city = storedCell(cell);
+        if (city != null) {
+            cityByCell.put(cell, city);
+            learnBoundary(city, lat, lng);
+            return resolved("stored-cell", city);
+        }
+
+        city = boundaries.locate(lat, lng);
+        if (city != null) {
+            cityByCell.put(cell, city); // memory only, the next position in this cell skips the stored-cell lookup
+            return resolved("boundary", city);
+        }
+
+        city = landmarkProcessorClient.resolveCity(lat, lng);
+        if (city == null) {
+            meterRegistry.counter("city.resolve.failed").increment();
+            return null;
+        }
+        cityByCell.put(cell, city);
+        storeCell(cell, city);
+        learnBoundary(city, lat, lng);
+        return resolved("remote", city);
+    }
+
+    public int boundaryCount() {
+        return boundaries.size();
+    }
+
+    /**
+     * Forget every learned cell and boundary, in memory and in Mongo.
+     */
+    public void reset() {
+        cityByCell.clear();
+        boundaryRequested.clear();
+        boundaries = new BoundaryIndex(Map.of());
+        mongoTemplate.dropCollection(CityCell.class);
+        mongoTemplate.dropCollection(CityBoundary.class);
+    }
+
+    // ==================== Helper Functions ====================
+
+    private String resolved(String source, String city) {
+        meterRegistry.counter("city.resolve", "source", source).increment();
+        return city;
+    }
+
+    private String storedCell(String cell) {
+        try {
+            CityCell stored = mongoTemplate.findById(cell, CityCell.class);
+            return stored != null ? stored.getCity() : null;
+        } catch (RuntimeException e) {
+            log.warn("City cell lookup failed for {}: {}", cell, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeCell(String cell, String city) {
+        try {
+            mongoTemplate.save(new CityCell(cell, city));
+        } catch (RuntimeException e) {
+            log.warn("Could not store city cell {}: {}", cell, e.getMessage());
+        }
+    }
+
+    // a city without a boundary (or with a rejected one) is not asked for again until restart
+    private void learnBoundary(String city, double lat, double lng) {
+        if (!boundaryRequested.add(city)) {
+            return;
+        }
+        try {
+            boundaryLoader.execute(() -> loadBoundary(city, lat, lng));
+        } catch (RejectedExecutionException e) {
+            boundaryRequested.remove(city);
+        }
+    }
+
+    private void loadBoundary(String city, double lat, double lng) {
+        List<GeoJsonPolygon> polygons = landmarkProcessorClient.fetchCityBoundary(city, lat, lng);
+        if (polygons == null || polygons.isEmpty()) {
+            log.debug("No boundary for {}, it keeps resolving by cell", city);
+            return;
+        }
+        try {
+            Geometry area = GeoUtils.convertToJtsMultiPolygon(polygons);
+            if (!area.contains(point(lat, lng))) {
+                log.warn("Boundary for {} does not contain ({}, {}), ignored", city, lat, lng);
+                return;
+            }
+            mongoTemplate.save(new CityBoundary(city, polygons));
+            synchronized (this) {
+                boundaries = boundaries.with(city, area);
+            }
+            log.info("Learned boundary of {} ({} polygons)", city, polygons.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not learn boundary of {}: {}", city, e.getMessage());
+        }
+    }
+
+    private static Point point(double lat, double lng) {
+        return GEOMETRY_FACTORY.createPoint(new Coordinate(lng, lat));
+    }
+
+    /**
+     * Immutable STR-tree of city boundaries; replaced as a whole when a city is learned, which is rare.
+     */
+    private static final class BoundaryIndex {
+        private final Map<String, Geometry> byCity;
+        private final STRtree tree = new STRtree();
+
+        BoundaryIndex(Map<String, Geometry> byCity) {
+            this.byCity = byCity;
+            byCity.forEach((city, area) ->
+                tree.insert(area.getEnvelopeInternal(), new Entry(city, PreparedGeometryFactory.prepare(area), area.getArea())));
+            tree.build();
+        }
+
+        BoundaryIndex with(String city, Geometry area) {
+            Map<String, Geometry> next = new HashMap<>(byCity);
+            next.put(city, area);
+            return new BoundaryIndex(next);
+        }
+
+        int size() {
+            return byCity.size();
+        }
+
+        // the smallest boundary containing the point, so a town inside a larger area wins
+        String locate(double lat, double lng) {
+            if (byCity.isEmpty()) {
+                return null;
+            }
+            Point point = point(lat, lng);
+            Entry best = null;
+            for (Object item : tree.query(point.getEnvelopeInternal())) {
+                Entry entry = (Entry) item;
+                if ((best == null || entry.area() < best.area()) && entry.prepared().contains(point)) {
+                    best = entry;
+                }
+            }
+            return best != null ? best.city() : null;
+        }
+
+        private record Entry(String city, PreparedGeometry prepared, double area) {}
+    }
+}
@@ -0,0 +1,184 @@
+package com.scavengerhunt.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.client.PuzzleAgentClient;
+import com.scavengerhunt.game.GameLogicManager;
+import com.scavengerhunt.model.PersistedGameSession;
+import com.scavengerhunt.repository.GameDataRepository;
+
+/**
+ * Keeps live GameLogicManager instances between requests, keyed by session id, so a request works on the
+ * game that is already in memory instead of rebuilding it from the persisted session.
+ * The persisted session stays the source of truth: every state change is saved through persist(), and
+ * an instance can be dropped at any time (idle, over capacity, version conflict) and rebuilt on next use.
+ *
+ * GameLogicManager is not thread-safe; callers synchronize on the instance for the duration of a request.
+ */
+@Service
+public class GameSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSessionRegistry.class);
+
+    private final GameSessionService gameSessionService;
+    private final GameDataRepository gameDataRepo;
+    private final LandmarkProcessorClient landmarkProcessorClient;
+    private final LandmarkIndexService landmarkIndex;
+    private final LandmarkMetaDispatcher landmarkMetaDispatcher;
+    private final PuzzleAgentClient puzzleAgentClient;
+    private final AnswerRecordWriter answerRecordWriter;
+    private final RiddlePrefetcher riddlePrefetcher;
+    private final RiddleCache riddleCache;
+
+    private final int maxEntries;
+    private final Duration maxIdle;
+    private final int maxRiddleDurationMinutes;
+
+    private final Map<String, LiveGame> gamesBySessionId = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionIdByUserId = new ConcurrentHashMap<>();
+
+    public GameSessionRegistry(
+        GameSessionService gameSessionService,
+        GameDataRepository gameDataRepo,
+        LandmarkProcessorClient landmarkProcessorClient,
+        LandmarkIndexService landmarkIndex,
+        LandmarkMetaDispatcher landmarkMetaDispatcher,
+        PuzzleAgentClient puzzleAgentClient,
+        AnswerRecordWriter answerRecordWriter,
+        RiddlePrefetcher riddlePrefetcher,
+        RiddleCache riddleCache,
+        @Value("${app.game-registry.max-entries:5000}") int maxEntries,
+        @Value("${app.game-registry.max-idle-minutes:30}") long maxIdleMinutes,
+        @Value("${app.game.max-riddle-duration-minutes:30}") int maxRiddleDurationMinutes
+    ) {
+        this.gameSessionService = gameSessionService;
+        this.gameDataRepo = gameDataRepo;
+        this.landmarkProcessorClient = landmarkProcessorClient;
+        this.landmarkIndex = landmarkIndex;
+        this.landmarkMetaDispatcher = landmarkMetaDispatcher;
+        this.puzzleAgentClient = puzzleAgentClient;
+        this.answerRecordWriter = answerRecordWriter;
+        this.riddlePrefetcher = riddlePrefetcher;
+        this.riddleCache = riddleCache;
+        this.maxEntries = maxEntries;
+        this.maxIdle = Duration.ofMinutes(maxIdleMinutes);
+        this.maxRiddleDurationMinutes = maxRiddleDurationMinutes;
+    }
+
+    /**
+     * The user's live game, built from the persisted session on first use. Null if the user has no session.
+     */
+    public GameLogicManager get(String userId) {
+        String sessionId = sessionIdByUserId.get(userId);
+        LiveGame live = sessionId != null ? gamesBySessionId.get(sessionId) : null;
+        if (live != null) {
+            live.touch();
+            return live.game;
+        }
+
+        PersistedGameSession session = gameSessionService.findByUserId(userId).orElse(null);
+        if (session == null) {
+            return null;
+        }
+        GameLogicManager game = new GameLogicManager(session, gameDataRepo, landmarkProcessorClient, landmarkIndex,
+            landmarkMetaDispatcher, puzzleAgentClient, answerRecordWriter, riddlePrefetcher, riddleCache, maxRiddleDurationMinutes);
+        LiveGame built = new LiveGame(game);
+        // two first requests of the same user may race here; keep whichever instance got in first
+        LiveGame existing = gamesBySessionId.putIfAbsent(session.getSessionId(), built);
+        sessionIdByUserId.put(userId, session.getSessionId());
+        if (existing == null) {
+            evictOverCapacity();
+            return built.game;
+        }
+        existing.touch();
+        return existing.game;
+    }
+
+    /**
+     * The user's live game if one is in memory; never loads.
+     */
+    public GameLogicManager peek(String userId) {
+        String sessionId = sessionIdByUserId.get(userId);
+        LiveGame live = sessionId != null ? gamesBySessionId.get(sessionId) : null;
+        return live != null ? live.game : null;
+    }
+
+    /**
+     * Saves the game's session after a state change. On a version conflict (the session was changed or
+     * removed elsewhere) the live instance is dropped so the next request starts from what is stored.
+     */
+    public void persist(GameLogicManager game) {
+        try {
+            gameSessionService.save(game.getSession());
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Session {} of user {} changed elsewhere, dropping live game", game.getSession().getSessionId(), game.getUserId());
+            evict(game.getUserId());
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the user's live game, e.g. before the persisted session is replaced or removed.
+     */
+    public void evict(String userId) {
+        String sessionId = sessionIdByUserId.remove(userId);
+        if (sessionId != null) {
+            gamesBySessionId.remove(sessionId);
+        }
+    }
+
+    public int size() {
+        return gamesBySessionId.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.game-registry.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - maxIdle.toNanos();
+        int before = gamesBySessionId.size();
+        gamesBySessionId.values().removeIf(live -> live.lastAccessNanos - cutoff < 0);
+        sessionIdByUserId.values().removeIf(sessionId -> !gamesBySessionId.containsKey(sessionId));
+        int evicted = before - gamesBySessionId.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle games, {} live", evicted, gamesBySessionId.size());
+        }
+    }
+
+    // ==================== Helper Functions ====================
+
+    // only runs when a new game is added beyond the bound, so the scan stays off the common path
+    private void evictOverCapacity() {
+        while (gamesBySessionId.size() > maxEntries) {
+            gamesBySessionId.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastAccessNanos))
+                .ifPresent(oldest -> {
+                    gamesBySessionId.remove(oldest.getKey());
+                    sessionIdByUserId.remove(oldest.getValue().game.getUserId(), oldest.getKey());
+                });
+        }
+    }
+
+    private static final class LiveGame {
+        private final GameLogicManager game;
+        private volatile long lastAccessNanos;
+
+        LiveGame(GameLogicManager game) {
+            this.game = game;
+            this.lastAccessNanos = System.nanoTime();
+        }
+
+        void touch() {
+            this.lastAccessNanos = System.nanoTime();
+        }
+    }
+}
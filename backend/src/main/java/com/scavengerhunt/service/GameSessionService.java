@@ -4,6 +4,10 @@ import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.scavengerhunt.model.PersistedGameSession;
@@ -13,9 +17,11 @@ import com.scavengerhunt.repository.GameSessionRepository;
 public class GameSessionService {
 
     private final GameSessionRepository repo;
+    private final MongoTemplate mongoTemplate;
 
-    public GameSessionService(GameSessionRepository repo) {
+    public GameSessionService(GameSessionRepository repo, MongoTemplate mongoTemplate) {
         this.repo = repo;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public PersistedGameSession createSession(String userId, String city) {
@@ -39,6 +45,22 @@ public class GameSessionService {
         return repo.save(session);
     }
 
+    /**
+     * Position-only update: one $set on the position fields, no read and no @Version bump, so it never
+     * conflicts with a concurrent full save from submit-answer. Returns false if the user has no session.
+     */
+    public boolean updatePlayerPosition(String userId, double lat, double lng, double angle) {
+        Update update = new Update()
+            .set("playerLat", lat)
+            .set("playerLng", lng)
+            .set("playerAngle", angle)
+            .set("lastUpdated", Instant.now());
+        // by collection name on purpose: the entity-class overload would add an $inc on @Version
+        String collection = mongoTemplate.getCollectionName(PersistedGameSession.class);
+        return mongoTemplate.updateFirst(new Query(Criteria.where("userId").is(userId)), update, collection)
+            .getMatchedCount() > 0;
+    }
+
     public void removeSession(String userId) {
         repo.deleteByUserId(userId);
     }
@@ -0,0 +1,115 @@
+package com.scavengerhunt.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.scavengerhunt.model.BackgroundJob;
+import com.scavengerhunt.repository.BackgroundJobRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Long-poll for the end of a background job, so a client waiting for a city's landmarks holds one idle
+ * request instead of calling init-game over and over. A request answers at once if the job has already
+ * finished, otherwise on the job's JobFinishedEvent, or with PREPARING after the timeout (the client then
+ * asks again). Jobs finished on another replica are seen by the status check of that next request.
+ */
+@Service
+public class JobCompletionNotifier {
+
+    private final BackgroundJobRepository jobRepo;
+    private final long timeoutMs;
+
+    private final Map<String, Set<DeferredResult<ResponseEntity<Map<String, Object>>>>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public JobCompletionNotifier(
+        BackgroundJobRepository jobRepo,
+        MeterRegistry meterRegistry,
+        @Value("${app.jobs.await-timeout-seconds:30}") long timeoutSeconds
+    ) {
+        this.jobRepo = jobRepo;
+        this.timeoutMs = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        Gauge.builder("jobs.await.waiting", waiting, AtomicInteger::get)
+            .description("Clients long-polling for a background job")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Status of the job with this idempotency key once it is DONE or FAILED; 404 if there is no such job.
+     */
+    public DeferredResult<ResponseEntity<Map<String, Object>>> await(String idempotencyKey) {
+        DeferredResult<ResponseEntity<Map<String, Object>>> result =
+            new DeferredResult<>(timeoutMs, status(BackgroundJob.Status.PENDING, "PREPARING"));
+        waiters.compute(idempotencyKey, (k, set) -> {
+            Set<DeferredResult<ResponseEntity<Map<String, Object>>>> forKey = set != null ? set : ConcurrentHashMap.newKeySet();
+            forKey.add(result);
+            return forKey;
+        });
+        waiting.incrementAndGet();
+        result.onCompletion(() -> remove(idempotencyKey, result)); // timeout, client gone
+
+        // checked after registering, so a job finishing in between is not missed
+        Optional<BackgroundJob> job = jobRepo.findByIdempotencyKey(idempotencyKey);
+        if (job.isEmpty()) {
+            finish(idempotencyKey, result, ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("status", "error", "message", "No background job " + idempotencyKey)));
+        } else if (isFinal(job.get().getStatus())) {
+            finish(idempotencyKey, result, status(job.get().getStatus(), job.get().getStatus().name()));
+        }
+        return result;
+    }
+
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    @EventListener
+    public void onJobFinished(JobFinishedEvent event) {
+        Set<DeferredResult<ResponseEntity<Map<String, Object>>>> forKey = waiters.get(event.idempotencyKey());
+        if (forKey == null) {
+            return;
+        }
+        for (DeferredResult<ResponseEntity<Map<String, Object>>> result : forKey) {
+            finish(event.idempotencyKey(), result, status(event.status(), event.status().name()));
+        }
+    }
+
+    // ==================== Helper Functions ====================
+
+    private void finish(String key, DeferredResult<ResponseEntity<Map<String, Object>>> result,
+                        ResponseEntity<Map<String, Object>> response) {
+        remove(key, result);
+        result.setResult(response);
+    }
+
+    // per-key compute, so a waiter is never added to a set that is being dropped
+    private void remove(String key, DeferredResult<ResponseEntity<Map<String, Object>>> result) {
+        waiters.computeIfPresent(key, (k, set) -> {
+            if (set.remove(result)) {
+                waiting.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static boolean isFinal(BackgroundJob.Status status) {
+        return status == BackgroundJob.Status.DONE || status == BackgroundJob.Status.FAILED;
+    }
+
+    private static ResponseEntity<Map<String, Object>> status(BackgroundJob.Status status, String label) {
+        return ResponseEntity.ok(Map.of("status", label, "ready", status == BackgroundJob.Status.DONE));
+    }
+}
@@ -1,16 +1,43 @@
 package com.scavengerhunt.service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.scavengerhunt.model.BackgroundJob;
 import com.scavengerhunt.repository.BackgroundJobRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background job queue in the background_jobs collection, safe to run on several replicas.
+ * Each poll reaps jobs whose lease ran out (their worker died), renews the leases of the jobs running here,
+ * and claims pending jobs atomically (findAndModify) while a worker of the pool is free. A claimed job carries
+ * this coordinator's owner id and a lease; it is finished or given back only while that lease is still ours.
+ * Throughput therefore grows with app.jobs.workers and with the number of replicas.
+ *
+ * A newly enqueued job, or a worker becoming free, wakes the dispatcher at once; the poll is only the safety
+ * net for other replicas' jobs and due retries. A failed job is retried after an exponential backoff with
+ * jitter (nextRunAt), so a struggling landmark processor is not hit again on every poll.
+ * Jobs reaching DONE or FAILED here are announced as JobFinishedEvent (see JobCompletionNotifier).
+ */
 @Service
 public class JobCoordinator {
 
@@ -19,51 +46,191 @@ public class JobCoordinator {
 
     private final BackgroundJobRepository jobRepo;
     private final LandmarkIngestionService landmarkIngestionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String ownerId;
+    private final Duration lease;
+    private final Semaphore freeWorkers;
+    private final ExecutorService workers;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+    private final Duration retryBase;
+    private final Duration retryMax;
 
-    public JobCoordinator(BackgroundJobRepository jobRepo, LandmarkIngestionService landmarkIngestionService){
+    public JobCoordinator(
+        BackgroundJobRepository jobRepo,
+        LandmarkIngestionService landmarkIngestionService,
+        ApplicationEventPublisher eventPublisher,
+        @Value("${app.jobs.workers:4}") int workerCount,
+        @Value("${app.jobs.lease-seconds:60}") long leaseSeconds,
+        @Value("${app.jobs.retry-base-seconds:10}") long retryBaseSeconds,
+        @Value("${app.jobs.retry-max-seconds:600}") long retryMaxSeconds
+    ){
         this.jobRepo = jobRepo;
         this.landmarkIngestionService = landmarkIngestionService;
+        this.eventPublisher = eventPublisher;
+        this.ownerId = "jobs-" + UUID.randomUUID();
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.freeWorkers = new Semaphore(workerCount);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "job-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "job-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.retryMax = Duration.ofSeconds(retryMaxSeconds);
+    }
+
+    /**
+     * Unique idempotency keys before the first job is enqueued or claimed. Duplicates left by older versions
+     * would otherwise fail the index; a concurrent enqueue on another replica gets one more pass.
+     */
+    @PostConstruct
+    public void prepareQueue() {
+        for (int pass = 1; ; pass++) {
+            try {
+                long removed = jobRepo.ensureIdempotencyIndex();
+                if (removed > 0) {
+                    log.warn("Removed {} background jobs with duplicate idempotency keys", removed);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (pass == 2) {
+                    log.error("Could not create the unique idempotency key index, enqueues may duplicate jobs: {}", e.getMessage());
+                    return;
+                }
+            }
+        }
     }
 
     public BackgroundJob enqueueFetchLandmarks(String city, double lat, double lng) {
-        String key = "fetch-landmarks-" + city.toLowerCase().replaceAll("\\s+", "-");
-        return jobRepo.findByIdempotencyKey(key)
-            .orElseGet(() -> jobRepo.save(BackgroundJob.fetchLandmarks(city, lat, lng)));
+        BackgroundJob job = BackgroundJob.fetchLandmarks(city, lat, lng);
+        BackgroundJob stored = jobRepo.insertIfAbsent(job);
+        if (stored != null && job.getJobId().equals(stored.getJobId())) {
+            wake(); // ours is new, the player is waiting on it
+        }
+        return stored;
     }
 
-    @Scheduled(fixedDelay = 5000)
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:5000}")
     public void processPendingJobs() {
-        List<BackgroundJob> jobs = jobRepo.findByStatus(BackgroundJob.Status.PENDING);
-        for(BackgroundJob job: jobs) {
-            if(job.getAttemptCount() >= MAX_ATTEMPTS) {
-                job.setStatus(BackgroundJob.Status.FAILED);
-                jobRepo.save(job);
-                continue;
+        Instant now = Instant.now();
+        long reaped = jobRepo.reapExpiredLeases(now);
+        if (reaped > 0) {
+            log.warn("Returned {} jobs with expired leases to the queue", reaped);
+        }
+        for (BackgroundJob failed : jobRepo.failExhausted(MAX_ATTEMPTS)) {
+            log.warn("Job {} failed for good after {} attempts: {}", failed.getJobId(), failed.getAttemptCount(), failed.getLastError());
+            finished(failed, BackgroundJob.Status.FAILED);
+        }
+        // the poll interval is well below the lease, so a live worker never loses its job
+        for (String jobId : running) {
+            jobRepo.renewLease(jobId, ownerId, now.plus(lease));
+        }
+        dispatch();
+    }
+
+    /**
+     * Claim due jobs now instead of at the next poll. Wakes while a dispatch is queued are merged into it.
+     */
+    public void wake() {
+        if (wakePending.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> {
+                    wakePending.set(false);
+                    try {
+                        dispatch();
+                    } catch (RuntimeException e) {
+                        log.warn("Job dispatch failed, the next poll retries: {}", e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                wakePending.set(false);
             }
-            processJob(job);
         }
     }
 
-    private void processJob(BackgroundJob job) {
-        job.setStatus(BackgroundJob.Status.IN_PROGRESS);
-        job.setStartedAt(Instant.now());
-        job.setAttemptCount(job.getAttemptCount() + 1);
-        jobRepo.save(job);
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // ==================== Helper Functions ====================
+
+    // safe to run on the poll and the dispatcher thread at once: claims are atomic, workers are counted
+    private void dispatch() {
+        while (freeWorkers.tryAcquire()) {
+            BackgroundJob job = jobRepo.claimNext(ownerId, Instant.now().plus(lease), MAX_ATTEMPTS);
+            if (job == null) {
+                freeWorkers.release();
+                return;
+            }
+            running.add(job.getJobId());
+            try {
+                workers.execute(() -> {
+                    try {
+                        processJob(job);
+                    } finally {
+                        running.remove(job.getJobId());
+                        freeWorkers.release();
+                        wake(); // a worker is free, the next due job need not wait for the poll
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down; the lease runs out and another replica picks the job up
+                running.remove(job.getJobId());
+                freeWorkers.release();
+                return;
+            }
+        }
+    }
 
+    private void processJob(BackgroundJob job) {
         try {
             if("FETCH_LANDMARKS".equals(job.getType())){
                 double lat = (double) job.getPayload().get("latitude");
                 double lng = (double) job.getPayload().get("longitude");
-                landmarkIngestionService.fetchForLocation(lat, lng);
+                landmarkIngestionService.fetchForLocation(lat, lng); // announces the landmarks it changed
+            }
+            if (jobRepo.complete(job.getJobId(), ownerId)) {
+                log.info("Job {} ({}) completed", job.getJobId(), job.getType());
+                finished(job, BackgroundJob.Status.DONE);
+            } else {
+                log.warn("Job {} finished after its lease was lost, result not recorded", job.getJobId());
             }
-            job.setStatus(BackgroundJob.Status.DONE);
-            job.setCompletedAt(Instant.now());
-            log.info("Job {} ({}) completed", job.getJobId(), job.getType());
         } catch (Exception e) {
-            job.setStatus(BackgroundJob.Status.PENDING); // attempts retry
-            job.setLastError(e.getMessage());
-            log.warn("Job {} failed: {}", job.getJobId(), e.getMessage());
+            if (job.getAttemptCount() >= MAX_ATTEMPTS) {
+                if (jobRepo.fail(job.getJobId(), ownerId, e.getMessage())) {
+                    finished(job, BackgroundJob.Status.FAILED);
+                }
+                log.warn("Job {} failed for good after {} attempts: {}", job.getJobId(), job.getAttemptCount(), e.getMessage());
+                return;
+            }
+            Instant retryAt = Instant.now().plus(backoff(job.getAttemptCount()));
+            jobRepo.release(job.getJobId(), ownerId, e.getMessage(), retryAt); // attempts retry
+            log.warn("Job {} failed (attempt {}), retry at {}: {}", job.getJobId(), job.getAttemptCount(), retryAt, e.getMessage());
         }
-        jobRepo.save(job);
+    }
+
+    private void finished(BackgroundJob job, BackgroundJob.Status status) {
+        eventPublisher.publishEvent(new JobFinishedEvent(job.getJobId(), job.getIdempotencyKey(), status));
+    }
+
+    // base * 2^(attempt-1), capped, then "equal jitter": half fixed, half random, so failed jobs spread out
+    Duration backoff(int attempt) {
+        long exp = retryBase.toMillis() << Math.min(Math.max(attempt - 1, 0), 20);
+        long capped = Math.min(retryMax.toMillis(), exp);
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
     }
 }
@@ -0,0 +1,8 @@
+package com.scavengerhunt.service;
+
+import com.scavengerhunt.model.BackgroundJob;
+
+/**
+ * Published by JobCoordinator when a job reaches DONE or FAILED on this instance.
+ */
+public record JobFinishedEvent(String jobId, String idempotencyKey, BackgroundJob.Status status) {}
@@ -0,0 +1,157 @@
+package com.scavengerhunt.service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.utils.ViewConeKernel;
+
+/**
+ * Bounded cache of prepared JTS polygons and flat rings for landmarks.
+ * Entries are keyed by landmark id and carry the landmark's stored sourceVersion: a re-ingested outline
+ * gets a new version and misses. Landmarks without a version (seeded, pre-ingestion) are dropped when
+ * LandmarksChangedEvent reports their city. Lookups are lock-free; when the cache overflows, one thread
+ * sweeps out the least recently used tenth.
+ */
+@Service
+public class LandmarkGeometryCache {
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    public LandmarkGeometryCache(@Value("${app.landmark-geometry-cache.max-entries:20000}") int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Prepared polygon of the landmark's detection outline (the simplified copy once ingested); throws like
+     * GeoUtils.convertToJtsPolygon on a missing or broken geometry, which ingested landmarks never have.
+     */
+    public PreparedGeometry prepared(Landmark landmark) {
+        GeoJsonPolygon geometry = detectionGeometry(landmark);
+        Entry entry = entry(landmark);
+        PreparedGeometry prepared = entry.prepared;
+        if (prepared == null) {
+            // two threads may prepare the same polygon, either result is fine
+            prepared = PreparedGeometryFactory.prepare(GeoUtils.convertToJtsPolygon(geometry));
+            entry.prepared = prepared;
+        }
+        return prepared;
+    }
+
+    public Polygon polygon(Landmark landmark) {
+        return (Polygon) prepared(landmark).getGeometry();
+    }
+
+    /**
+     * Outer ring as a flat lng/lat array for ViewConeKernel. Callers must not modify it.
+     */
+    public double[] ring(Landmark landmark) {
+        GeoJsonPolygon geometry = detectionGeometry(landmark);
+        Entry entry = entry(landmark);
+        double[] ring = entry.ring;
+        if (ring == null) {
+            ring = ViewConeKernel.flatten(geometry);
+            entry.ring = ring;
+        }
+        return ring;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @EventListener
+    public void onLandmarksChanged(LandmarksChangedEvent event) {
+        if (event.isIncremental()) {
+            event.landmarkIds().forEach(entries::remove);
+        } else if (event.city() == null) {
+            entries.clear();
+        } else {
+            entries.values().removeIf(entry -> event.city().equals(entry.city));
+        }
+    }
+
+    // ==================== Helper Functions ====================
+
+    private static GeoJsonPolygon detectionGeometry(Landmark landmark) {
+        GeoJsonPolygon geometry = landmark.getDetectionGeometry();
+        if (geometry == null) {
+            throw new IllegalArgumentException("Landmark " + landmark.getId() + " has no geometry");
+        }
+        return geometry;
+    }
+
+    private Entry entry(Landmark landmark) {
+        String version = landmark.getSourceVersion();
+        Entry entry = entries.get(landmark.getId());
+        if (entry == null || !Objects.equals(entry.version, version)) {
+            Entry fresh = new Entry(version, landmark.getCity());
+            entry = entry == null ? entries.putIfAbsent(landmark.getId(), fresh) : null;
+            if (entry == null || !Objects.equals(entry.version, version)) {
+                entries.put(landmark.getId(), fresh);
+                entry = fresh;
+            }
+            if (entries.size() > maxEntries) {
+                sweep();
+            }
+        }
+        entry.lastUsed = System.nanoTime();
+        return entry;
+    }
+
+    // one sweeper at a time; the others carry on, the cache may overshoot briefly
+    private void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            int keep = maxEntries - maxEntries / 10;
+            int excess = entries.size() - keep;
+            if (excess <= 0) {
+                return;
+            }
+            entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final String version; // Landmark.sourceVersion, null for landmarks that were never ingested
+        private final String city;
+        private volatile PreparedGeometry prepared;
+        private volatile double[] ring;
+        private volatile long lastUsed;
+
+        private Entry(String version, String city) {
+            this.version = version;
+            this.city = city;
+        }
+    }
+}
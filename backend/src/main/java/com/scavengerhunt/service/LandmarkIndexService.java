@@ -0,0 +1,282 @@
+package com.scavengerhunt.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.model.Player;
+import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.utils.GeoUtils;
+import com.scavengerhunt.utils.ViewConeKernel;
+
+/**
+ * In-memory, per-city STR-tree of landmark envelopes.
+ * Detection queries it with the player cone's envelope and only runs the exact
+ * intersection test on the handful of landmarks it returns, instead of loading
+ * every landmark of the city from Mongo on every position update.
+ * Cities with a mapped city pack are served from the pack instead and never build a tree.
+ */
+@Service
+public class LandmarkIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(LandmarkIndexService.class);
+
+    /**
+     * How a candidate is tested against the player's view cone.
+     * JTS intersects the prepared polygon with Player's cone polygon; ANALYTIC runs ViewConeKernel on the
+     * exact sector and never builds the cone polygon.
+     */
+    public enum DetectionKernel { JTS, ANALYTIC }
+
+    private final GameDataRepository gameDataRepo;
+    private final LandmarkGeometryCache geometryCache;
+    private final Duration maxAge;
+    private final DetectionKernel kernel;
+    private final CityPackStore cityPacks; // null -> Mongo only
+
+    private final Map<String, CityIndex> indexByCity = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LandmarkIndexService(
+        GameDataRepository gameDataRepo,
+        LandmarkGeometryCache geometryCache,
+        CityPackStore cityPacks,
+        @Value("${app.landmark-index.max-age-minutes:10}") long maxAgeMinutes,
+        @Value("${app.detection.kernel:jts}") String kernel
+    ) {
+        this.gameDataRepo = gameDataRepo;
+        this.geometryCache = geometryCache;
+        this.cityPacks = cityPacks;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.kernel = DetectionKernel.valueOf(kernel.trim().toUpperCase());
+        log.info("Landmark detection kernel: {}", this.kernel);
+    }
+
+    // Package-private: without city packs, for tests
+    LandmarkIndexService(GameDataRepository gameDataRepo, LandmarkGeometryCache geometryCache, long maxAgeMinutes, String kernel) {
+        this(gameDataRepo, geometryCache, null, maxAgeMinutes, kernel);
+    }
+
+    /**
+     * Landmarks of the city whose polygon envelope intersects the search envelope.
+     */
+    public List<Landmark> query(String city, Envelope searchEnv) {
+        if (city == null || searchEnv == null) {
+            return List.of();
+        }
+        return cityIndex(city).query(searchEnv);
+    }
+
+    public Landmark detect(String city, Player player) {
+        CityPack pack = pack(city);
+        if (pack != null) {
+            // packs hold flat rings only, so they always run the analytic kernel
+            int i = pack.detect(player.getLatitude(), player.getLongitude(), player.getAngle(),
+                player.getSpanDeg(), player.getRadiusMeters());
+            return i >= 0 ? pack.toLandmark(i) : null;
+        }
+        if (kernel == DetectionKernel.ANALYTIC) {
+            double lat = player.getLatitude();
+            double lng = player.getLongitude();
+            double angle = player.getAngle();
+            double span = player.getSpanDeg();
+            double radius = player.getRadiusMeters();
+            List<Landmark> candidates = query(city, sectorEnvelope(lat, lng, radius));
+            return GeoUtils.detectedLandmark(candidates, player,
+                lm -> ViewConeKernel.intersects(lat, lng, angle, span, radius, geometryCache.ring(lm)));
+        }
+        Polygon playerCone = player.getPlayerCone();
+        List<Landmark> candidates = query(city, playerCone.getEnvelopeInternal());
+        return GeoUtils.detectedLandmark(candidates, player,
+            lm -> geometryCache.prepared(lm).intersects(playerCone));
+    }
+
+    /**
+     * Landmarks of the city whose centre lies within the radius, nearest first, read from the city's pack.
+     * Null if the city has no pack; the caller then asks Mongo.
+     */
+    public List<Landmark> withinRadius(String city, double lat, double lng, double radiusMeters) {
+        CityPack pack = pack(city);
+        if (pack == null) {
+            return null;
+        }
+        List<Landmark> nearBy = new ArrayList<>();
+        for (int i : pack.withinRadius(lat, lng, radiusMeters)) {
+            nearBy.add(pack.toLandmark(i));
+        }
+        refreshStates(nearBy);
+        return nearBy;
+    }
+
+    public DetectionKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Patch an already built city index with new or changed landmarks.
+     * Cities that were never queried are left alone; they get built on first use.
+     */
+    public void upsertLandmarks(String city, Collection<Landmark> changed) {
+        indexByCity.computeIfPresent(city, (c, existing) -> {
+            Map<String, Landmark> byId = new HashMap<>(existing.byId);
+            for (Landmark lm : changed) {
+                byId.put(lm.getId(), lm);
+            }
+            return CityIndex.build(byId.values(), geometryCache);
+        });
+    }
+
+    public void removeLandmarks(String city, Collection<String> landmarkIds) {
+        indexByCity.computeIfPresent(city, (c, existing) -> {
+            Map<String, Landmark> byId = new HashMap<>(existing.byId);
+            landmarkIds.forEach(byId::remove);
+            return CityIndex.build(byId.values(), geometryCache);
+        });
+    }
+
+    public void invalidateCity(String city) {
+        if (city == null) {
+            indexByCity.clear();
+        } else {
+            indexByCity.remove(city);
+        }
+    }
+
+    @EventListener
+    public void onLandmarksChanged(LandmarksChangedEvent event) {
+        if (event.isIncremental()) {
+            // ingestion names what it wrote: patch a built index instead of reloading the whole city
+            if (!event.landmarkIds().isEmpty() && indexByCity.containsKey(event.city())) {
+                upsertLandmarks(event.city(), gameDataRepo.findLandmarksByIds(event.landmarkIds()));
+                log.debug("Patched spatial index of {} with {} landmarks", event.city(), event.landmarkIds().size());
+            }
+            return;
+        }
+        log.debug("Landmarks changed for {}, dropping spatial index", event.city() != null ? event.city() : "all cities");
+        invalidateCity(event.city());
+    }
+
+    public int indexedCount(String city) {
+        CityIndex idx = indexByCity.get(city);
+        return idx != null ? idx.byId.size() : 0;
+    }
+
+    // ==================== Helper Functions ====================
+
+    // a pack's ratings and metadata flags are from its export; the round starts from the current ones.
+    // One projected query by id; a node without Mongo keeps the pack's values
+    private void refreshStates(List<Landmark> landmarks) {
+        if (landmarks.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Landmark> current = new HashMap<>();
+            for (Landmark state : gameDataRepo.findLandmarkStates(landmarks.stream().map(Landmark::getId).toList())) {
+                current.put(state.getId(), state);
+            }
+            for (Landmark lm : landmarks) {
+                Landmark state = current.get(lm.getId());
+                if (state != null) {
+                    lm.setRating(state.getRating());
+                    lm.setMetaReady(state.isMetaReady());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read current ratings, round uses the city pack's: {}", e.getMessage());
+        }
+    }
+
+    // square around the apex that contains the whole sector, whatever the heading
+    private static Envelope sectorEnvelope(double lat, double lng, double radiusMeters) {
+        double dLat = radiusMeters / 111320.0;
+        double dLng = radiusMeters / (111320.0 * Math.cos(Math.toRadians(lat)));
+        return new Envelope(lng - dLng, lng + dLng, lat - dLat, lat + dLat);
+    }
+
+    private CityPack pack(String city) {
+        return cityPacks != null ? cityPacks.get(city) : null;
+    }
+
+    private CityIndex cityIndex(String city) {
+        CityIndex idx = indexByCity.get(city);
+        if (idx != null && !idx.isOlderThan(maxAge)) {
+            return idx;
+        }
+        // loaded outside the map: a Mongo query must not hold a bin lock of indexByCity
+        CityIndex built = CityIndex.build(gameDataRepo.findByCity(city), geometryCache);
+        log.debug("Built spatial index for {} with {} landmarks", city, built.byId.size());
+        if (idx == null) {
+            CityIndex raced = indexByCity.putIfAbsent(city, built);
+            return raced != null ? raced : built; // another request built it meanwhile
+        }
+        if (indexByCity.replace(city, idx, built)) {
+            return built;
+        }
+        CityIndex current = indexByCity.get(city); // patched or rebuilt meanwhile, or invalidated
+        return current != null ? current : built;
+    }
+
+    /**
+     * Immutable snapshot of one city; patches build a new instance so readers never see a half-built tree.
+     */
+    private static final class CityIndex {
+        private final Map<String, Landmark> byId;
+        private final STRtree tree;
+        private final Instant builtAt;
+
+        private CityIndex(Map<String, Landmark> byId, STRtree tree) {
+            this.byId = byId;
+            this.tree = tree;
+            this.builtAt = Instant.now();
+        }
+
+        static CityIndex build(Collection<Landmark> landmarks, LandmarkGeometryCache geometryCache) {
+            Map<String, Landmark> byId = new HashMap<>();
+            STRtree tree = new STRtree();
+            for (Landmark lm : landmarks) {
+                if (lm == null || lm.getId() == null || lm.getDetectionGeometry() == null) {
+                    continue; // nothing to intersect with
+                }
+                try {
+                    // ingested landmarks carry their bbox; older ones are converted, which also warms the
+                    // prepared-geometry cache for the detection that follows
+                    double[] bbox = lm.getBbox();
+                    Envelope env = bbox != null && bbox.length == 4
+                        ? new Envelope(bbox[0], bbox[2], bbox[1], bbox[3])
+                        : geometryCache.polygon(lm).getEnvelopeInternal();
+                    tree.insert(env, lm);
+                    byId.put(lm.getId(), lm);
+                } catch (Exception e) {
+                    log.debug("Skipping landmark {} in spatial index: {}", lm.getId(), e.getMessage());
+                }
+            }
+            tree.build(); // build eagerly, query() would otherwise build lazily on a reader thread
+            return new CityIndex(byId, tree);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Landmark> query(Envelope searchEnv) {
+            return tree.query(searchEnv);
+        }
+
+        boolean isOlderThan(Duration maxAge) {
+            return builtAt.plus(maxAge).isBefore(Instant.now());
+        }
+    }
+}
@@ -1,31 +1,147 @@
 package com.scavengerhunt.service;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.scavengerhunt.client.HttpTransport;
+import com.scavengerhunt.client.dto.LandmarkFeedItem;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.LandmarkRepository;
+import com.scavengerhunt.utils.LandmarkShape;
+
+/**
+ * Ingests the landmarks of a city from the landmark processor's /landmark-feed (NDJSON, one landmark per line).
+ * The response is parsed as a stream and upserted in batches of app.landmark-ingestion.batch-size
+ * (LandmarkRepository.upsertFromFeed), so memory holds one batch however large the city, and a city takes
+ * a couple of round trips per batch. Afterwards one LandmarksChangedEvent per city names the landmarks that
+ * were inserted or changed; an unchanged re-fetch publishes nothing.
+ *
+ * Each outline is cleaned up on the way in (LandmarkShape: closed, repaired, simplified, with bbox and
+ * centroid), so the detection loop and the init-game payload only ever see valid polygons. Lines whose
+ * outline cannot be repaired are dropped.
+ */
 @Service
 public class LandmarkIngestionService {
 
     private static final Logger log = LoggerFactory.getLogger(LandmarkIngestionService.class);
+
     private final RestClient restClient;
+    private final LandmarkRepository landmarkRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader feedReader;
+    private final int batchSize;
+    private final double simplifyToleranceMeters;
 
+    @Autowired
     public LandmarkIngestionService(
-        @Value("${app.landmark-processor.url:http://landmark-processor:5000}") String baseUrl
+        @Value("${app.landmark-processor.url:http://landmark-processor:5000}") String baseUrl,
+        HttpTransport httpTransport,
+        LandmarkRepository landmarkRepo,
+        ApplicationEventPublisher eventPublisher,
+        ObjectMapper objectMapper,
+        @Value("${app.landmark-ingestion.batch-size:500}") int batchSize,
+        @Value("${app.landmark-ingestion.read-timeout-seconds:120}") long readTimeoutSeconds,
+        @Value("${app.landmark-ingestion.simplify-tolerance-meters:1.0}") double simplifyToleranceMeters
     ) {
-        this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+        // the processor queries Overpass before the first line, well beyond the default read timeout
+        this(httpTransport.restClient(baseUrl, Duration.ofSeconds(readTimeoutSeconds)).build(),
+            landmarkRepo, eventPublisher, objectMapper, batchSize, simplifyToleranceMeters);
+    }
+
+    LandmarkIngestionService(RestClient restClient, LandmarkRepository landmarkRepo, ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper, int batchSize, double simplifyToleranceMeters) {
+        this.restClient = restClient;
+        this.landmarkRepo = landmarkRepo;
+        this.eventPublisher = eventPublisher;
+        this.feedReader = objectMapper.readerFor(LandmarkFeedItem.class);
+        this.batchSize = batchSize;
+        this.simplifyToleranceMeters = simplifyToleranceMeters;
     }
 
     public void fetchForLocation(double lat, double lng) {
-        restClient.post()
-            .uri("/fetch-landmark")
+        Map<String, Set<String>> changedByCity = restClient.post()
+            .uri("/landmark-feed")
             .body(Map.of("latitude", lat, "longitude", lng))
-            .retrieve()
-            .toBodilessEntity();
-        log.info("Landmark fetch triggered for {},{}", lat, lng);
+            .exchange((request, response) -> {
+                if (response.getStatusCode().isError()) {
+                    throw new IllegalStateException("landmark-feed returned " + response.getStatusCode());
+                }
+                return ingest(feedReader.readValues(response.getBody()));
+            });
+
+        changedByCity.forEach((city, ids) -> eventPublisher.publishEvent(LandmarksChangedEvent.landmarks(city, ids)));
+        log.info("Landmarks ingested for {},{}: {} changed", lat, lng,
+            changedByCity.values().stream().mapToInt(Set::size).sum());
+    }
+
+    // ==================== Helper Functions ====================
+
+    private Map<String, Set<String>> ingest(MappingIterator<LandmarkFeedItem> items) throws IOException {
+        Map<String, Set<String>> changedByCity = new HashMap<>();
+        List<Landmark> batch = new ArrayList<>(batchSize);
+        int received = 0;
+        int skipped = 0;
+        try (items) {
+            while (items.hasNextValue()) {
+                LandmarkFeedItem item = items.nextValue();
+                received++;
+                Landmark landmark = item.isValid() ? toLandmark(item) : null;
+                if (landmark == null) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(landmark);
+                if (batch.size() >= batchSize) {
+                    flush(batch, changedByCity);
+                }
+            }
+        }
+        flush(batch, changedByCity);
+        if (skipped > 0) {
+            log.warn("Skipped {} of {} feed landmarks without id, name, city or a usable polygon", skipped, received);
+        }
+        return changedByCity;
+    }
+
+    private void flush(List<Landmark> batch, Map<String, Set<String>> changedByCity) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        landmarkRepo.upsertFromFeed(batch)
+            .forEach((city, ids) -> changedByCity.computeIfAbsent(city, c -> new HashSet<>()).addAll(ids));
+        batch.clear();
+    }
+
+    private Landmark toLandmark(LandmarkFeedItem item) {
+        LandmarkShape shape = LandmarkShape.of(item.geometry(), simplifyToleranceMeters);
+        if (shape == null) {
+            return null;
+        }
+        Landmark landmark = new Landmark(item.name(), item.city(), shape.centroid().getY(), shape.centroid().getX());
+        landmark.setExternalId(item.externalId());
+        // a new shape pipeline or tolerance rewrites landmarks whose source did not change
+        landmark.setSourceVersion(item.version() + "-s" + LandmarkShape.VERSION + "@" + simplifyToleranceMeters);
+        landmark.setGeometry(shape.geometry());
+        landmark.setSimplifiedGeometry(shape.simplifiedGeometry());
+        landmark.setBbox(shape.bbox());
+        landmark.setTags(item.tags());
+        return landmark;
     }
 }
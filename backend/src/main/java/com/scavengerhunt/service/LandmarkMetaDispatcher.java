@@ -0,0 +1,194 @@
+package com.scavengerhunt.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.utils.LruCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background generation of landmark metadata (the input of riddle generation).
+ * start-round only hands its nearby landmarks over; landmarks flagged metaReady, already known to have
+ * metadata, queued, or failed recently are skipped. A single dispatcher thread merges the ids of all
+ * players into batches for /generate-landmark-meta (on batch size or after the linger time) and flags the
+ * landmarks the processor reports as ready, so they are not sent again.
+ */
+@Service
+public class LandmarkMetaDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LandmarkMetaDispatcher.class);
+
+    private final LandmarkProcessorClient landmarkProcessorClient;
+    private final GameDataRepository gameDataRepo;
+    private final BlockingQueue<String> queue;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet(); // queued or in flight
+    private final LruCache<String, Boolean> known; // ready, even where a cached Landmark still says otherwise
+    private final LruCache<String, Long> failedAt;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long retryAfterMs;
+
+    private final Counter requestedCounter;
+    private final Counter skippedCounter;
+    private final Counter droppedCounter;
+    private final Counter batchCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public LandmarkMetaDispatcher(
+        LandmarkProcessorClient landmarkProcessorClient,
+        GameDataRepository gameDataRepo,
+        MeterRegistry meterRegistry,
+        @Value("${app.landmark-meta.batch-size:50}") int batchSize,
+        @Value("${app.landmark-meta.linger-ms:200}") long lingerMs,
+        @Value("${app.landmark-meta.queue-capacity:10000}") int queueCapacity,
+        @Value("${app.landmark-meta.retry-after-minutes:10}") long retryAfterMinutes
+    ) {
+        this.landmarkProcessorClient = landmarkProcessorClient;
+        this.gameDataRepo = gameDataRepo;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.known = new LruCache<>(100_000);
+        this.failedAt = new LruCache<>(10_000);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.retryAfterMs = TimeUnit.MINUTES.toMillis(retryAfterMinutes);
+
+        Gauge.builder("landmark.meta.pending", pending, Set::size)
+            .description("Landmarks queued or in flight for metadata generation")
+            .register(meterRegistry);
+        this.requestedCounter = meterRegistry.counter("landmark.meta.requested");
+        this.skippedCounter = meterRegistry.counter("landmark.meta.skipped");
+        this.droppedCounter = meterRegistry.counter("landmark.meta.dropped");
+        this.batchCounter = meterRegistry.counter("landmark.meta.batches");
+        this.failedCounter = meterRegistry.counter("landmark.meta.batches.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "landmark-meta-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Queue the landmarks that may still lack metadata. Never blocks; a full queue drops the rest,
+     * they come up again with the next round nearby.
+     */
+    public void request(Collection<Landmark> landmarks) {
+        if (landmarks == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Landmark landmark : landmarks) {
+            String id = landmark.getId();
+            if (id == null || landmark.isMetaReady() || known.get(id) != null || recentlyFailed(id, now)) {
+                skippedCounter.increment();
+                continue;
+            }
+            if (!pending.add(id)) {
+                skippedCounter.increment();
+                continue;
+            }
+            if (!queue.offer(id)) {
+                pending.remove(id);
+                droppedCounter.increment();
+                continue;
+            }
+            requestedCounter.increment();
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // ==================== Helper Functions ====================
+
+    private boolean recentlyFailed(String id, long now) {
+        Long failed = failedAt.get(id);
+        return failed != null && now - failed < retryAfterMs;
+    }
+
+    private void runDispatcher() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // let concurrent start-rounds add their landmarks to the same batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    String next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Landmark meta dispatcher failed: {}", e.getMessage(), e);
+            } finally {
+                pending.removeAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<String> batch) {
+        batchCounter.increment();
+        Set<String> ready = landmarkProcessorClient.generateLandmarkMeta(List.copyOf(batch));
+        long now = System.currentTimeMillis();
+        if (ready == null) {
+            failedCounter.increment();
+            batch.forEach(id -> failedAt.put(id, now));
+            log.warn("Metadata generation failed for {} landmarks, retrying in {} min", batch.size(),
+                TimeUnit.MILLISECONDS.toMinutes(retryAfterMs));
+            return;
+        }
+        gameDataRepo.markLandmarksMetaReady(ready);
+        ready.forEach(id -> known.put(id, Boolean.TRUE));
+        for (String id : batch) {
+            if (!ready.contains(id)) {
+                failedAt.put(id, now);
+            }
+        }
+        log.debug("Metadata batch of {} landmarks, {} ready", batch.size(), ready.size());
+    }
+}
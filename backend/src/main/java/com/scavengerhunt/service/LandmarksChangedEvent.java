@@ -0,0 +1,32 @@
+package com.scavengerhunt.service;
+
+import java.util.Set;
+
+/**
+ * Published whenever the landmark set of a city may have changed (ingestion, admin seeding).
+ * A null city means "any city" and forces listeners to drop everything they hold.
+ * Ingestion names the landmarks it inserted or changed, so listeners can patch instead of rebuilding;
+ * null landmarkIds means the changes are unknown.
+ */
+public record LandmarksChangedEvent(String city, Set<String> landmarkIds) {
+
+    public LandmarksChangedEvent(String city) {
+        this(city, null);
+    }
+
+    public static LandmarksChangedEvent allCities() {
+        return new LandmarksChangedEvent(null);
+    }
+
+    public static LandmarksChangedEvent landmarks(String city, Set<String> landmarkIds) {
+        return new LandmarksChangedEvent(city, Set.copyOf(landmarkIds));
+    }
+
+    public boolean affects(String otherCity) {
+        return this.city == null || this.city.equals(otherCity);
+    }
+
+    public boolean isIncremental() {
+        return city != null && landmarkIds != null;
+    }
+}
@@ -0,0 +1,203 @@
+package com.scavengerhunt.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.game.GameLogicManager;
+import com.scavengerhunt.utils.GeoUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coalesces the raw GPS fixes posted to update-position, per user.
+ * A fix that moves less than the distance threshold and turns less than the heading threshold relative to
+ * the last accepted one is GPS noise and is dropped. Accepted fixes go to the live game straight away (so
+ * submit-answer sees them) but reach Mongo at most once per flush interval; the scheduled flush writes the
+ * latest pending one. The first fix of a user is written through, which is also how a missing session shows.
+ */
+@Service
+public class PositionCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionCoalescer.class);
+
+    private final GameSessionService gameSessionService;
+    private final GameSessionRegistry gameSessionRegistry;
+
+    private final double minDistanceMeters;
+    private final double minHeadingChangeDeg;
+    private final long flushIntervalNanos;
+    private final long maxIdleNanos;
+
+    private final Counter receivedCounter;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+
+    public PositionCoalescer(
+        GameSessionService gameSessionService,
+        GameSessionRegistry gameSessionRegistry,
+        MeterRegistry meterRegistry,
+        @Value("${app.position.min-distance-meters:3}") double minDistanceMeters,
+        @Value("${app.position.min-heading-change-deg:10}") double minHeadingChangeDeg,
+        @Value("${app.position.flush-interval-ms:2000}") long flushIntervalMs,
+        @Value("${app.position.max-idle-minutes:10}") long maxIdleMinutes
+    ) {
+        this.gameSessionService = gameSessionService;
+        this.gameSessionRegistry = gameSessionRegistry;
+        this.minDistanceMeters = minDistanceMeters;
+        this.minHeadingChangeDeg = minHeadingChangeDeg;
+        this.flushIntervalNanos = Duration.ofMillis(flushIntervalMs).toNanos();
+        this.maxIdleNanos = Duration.ofMinutes(maxIdleMinutes).toNanos();
+        this.receivedCounter = meterRegistry.counter("position.updates.received");
+        this.droppedCounter = meterRegistry.counter("position.updates.dropped");
+        this.writtenCounter = meterRegistry.counter("position.updates.written");
+    }
+
+    /**
+     * Returns false if the user has no session.
+     */
+    public boolean submit(String userId, double lat, double lng, double angle) {
+        receivedCounter.increment();
+        Track track = tracks.get(userId);
+        if (track == null) {
+            // first fix: write through, also tells us whether there is a session at all
+            if (!write(userId, lat, lng, angle)) {
+                return false;
+            }
+            tracks.put(userId, new Track(lat, lng, angle));
+            moveLiveGame(userId, lat, lng, angle);
+            return true;
+        }
+
+        boolean flushNow;
+        synchronized (track) {
+            track.lastSeenNanos = System.nanoTime();
+            if (isNoise(track, lat, lng, angle)) {
+                droppedCounter.increment();
+                return true;
+            }
+            track.accept(lat, lng, angle);
+            flushNow = track.lastWriteNanos + flushIntervalNanos - System.nanoTime() <= 0;
+        }
+        moveLiveGame(userId, lat, lng, angle);
+        if (flushNow) {
+            flush(userId, track);
+        }
+        return true;
+    }
+
+    /**
+     * Freshest accepted fix as {lat, lng, angle}, or null if nothing is buffered for the user.
+     */
+    public double[] latest(String userId) {
+        Track track = tracks.get(userId);
+        if (track == null) {
+            return null;
+        }
+        synchronized (track) {
+            return new double[] { track.lat, track.lng, track.angle };
+        }
+    }
+
+    /**
+     * Drop the user's buffered fix without writing it, e.g. when the session is replaced or removed.
+     */
+    public void forget(String userId) {
+        tracks.remove(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.position.flush-interval-ms:2000}")
+    public void flushPending() {
+        long now = System.nanoTime();
+        tracks.forEach((userId, track) -> {
+            flush(userId, track);
+            if (now - track.lastSeenNanos > maxIdleNanos) {
+                tracks.remove(userId, track);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        tracks.forEach(this::flush);
+    }
+
+    // ==================== Helper Functions ====================
+
+    private boolean isNoise(Track track, double lat, double lng, double angle) {
+        double moved = GeoUtils.distanceInMeters(track.lat, track.lng, lat, lng);
+        double turned = Math.abs(track.angle - angle) % 360;
+        turned = turned > 180 ? 360 - turned : turned;
+        return moved < minDistanceMeters && turned < minHeadingChangeDeg;
+    }
+
+    private void flush(String userId, Track track) {
+        double lat, lng, angle;
+        synchronized (track) {
+            if (!track.dirty) {
+                return;
+            }
+            lat = track.lat;
+            lng = track.lng;
+            angle = track.angle;
+            track.dirty = false;
+            track.lastWriteNanos = System.nanoTime();
+        }
+        if (!write(userId, lat, lng, angle)) {
+            log.debug("Session of user {} is gone, dropping buffered position and live game", userId);
+            tracks.remove(userId, track);
+            gameSessionRegistry.evict(userId); // so the user's next request gets the 404 as well
+        }
+    }
+
+    private boolean write(String userId, double lat, double lng, double angle) {
+        boolean found = gameSessionService.updatePlayerPosition(userId, lat, lng, angle);
+        if (found) {
+            writtenCounter.increment();
+        }
+        return found;
+    }
+
+    private void moveLiveGame(String userId, double lat, double lng, double angle) {
+        GameLogicManager game = gameSessionRegistry.peek(userId);
+        if (game != null) {
+            synchronized (game) {
+                game.movePlayer(lat, lng, angle);
+            }
+        }
+    }
+
+    private static final class Track {
+        private double lat;
+        private double lng;
+        private double angle;
+        private boolean dirty;
+        private long lastWriteNanos;
+        private volatile long lastSeenNanos;
+
+        Track(double lat, double lng, double angle) {
+            this.lat = lat;
+            this.lng = lng;
+            this.angle = angle;
+            this.lastWriteNanos = System.nanoTime();
+            this.lastSeenNanos = this.lastWriteNanos;
+        }
+
+        void accept(double lat, double lng, double angle) {
+            this.lat = lat;
+            this.lng = lng;
+            this.angle = angle;
+            this.dirty = true;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.scavengerhunt.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.scavengerhunt.client.PuzzleAgentClient;
+import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.model.Riddle;
+import com.scavengerhunt.utils.LruCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Two-tier cache of generated riddles: an in-memory LRU in front of the riddles collection (TTL-indexed).
+ * Riddles are keyed by landmark, difficulty bucket, language and style. A key first collects
+ * variants-per-key different riddles from the puzzle agent; after that the variants are served in turn,
+ * each at most max-uses times before it is replaced by a fresh one.
+ * If the agent cannot deliver (error, circuit open) any stored variant of the key is served instead.
+ * Cache failures never fail the request; the riddle is then generated as without the cache.
+ */
+@Service
+public class RiddleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RiddleCache.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final LruCache<String, Variants> memory;
+    private final int difficultyBuckets;
+    private final int variantsPerKey;
+    private final int maxUses;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter outageCounter;
+
+    public RiddleCache(
+        MongoTemplate mongoTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${app.riddle-cache.max-entries:5000}") int maxEntries,
+        @Value("${app.riddle-cache.difficulty-buckets:10}") int difficultyBuckets,
+        @Value("${app.riddle-cache.variants-per-key:3}") int variantsPerKey,
+        @Value("${app.riddle-cache.max-uses:20}") int maxUses
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.memory = new LruCache<>(maxEntries);
+        this.difficultyBuckets = difficultyBuckets;
+        this.variantsPerKey = variantsPerKey;
+        this.maxUses = maxUses;
+        this.hitCounter = meterRegistry.counter("riddle.cache.hits");
+        this.missCounter = meterRegistry.counter("riddle.cache.misses");
+        this.outageCounter = meterRegistry.counter("riddle.cache.served.during.outage");
+    }
+
+    /**
+     * A riddle for the request, cached or from generator. The generator returns null when it has no riddle;
+     * the result is null only if neither the generator nor the cache has one.
+     */
+    public String get(GenerateRiddleRequest req, Function<GenerateRiddleRequest, String> generator) {
+        String reused = reuse(req);
+        return reused != null ? reused : accept(req, generator.apply(req));
+    }
+
+    /**
+     * Batch form of get: riddles by landmark id, with one generator call for all requests the cache cannot
+     * serve. Landmarks that neither the generator nor the cache has a riddle for are missing from the result.
+     */
+    public Map<String, String> getAll(List<GenerateRiddleRequest> reqs,
+                                      Function<List<GenerateRiddleRequest>, Map<String, String>> batchGenerator) {
+        Map<String, String> riddles = new LinkedHashMap<>();
+        List<GenerateRiddleRequest> misses = new ArrayList<>();
+        for (GenerateRiddleRequest req : reqs) {
+            String reused = reuse(req);
+            if (reused != null) {
+                riddles.put(req.landmarkId(), reused);
+            } else {
+                misses.add(req);
+            }
+        }
+        if (misses.isEmpty()) {
+            return riddles;
+        }
+        Map<String, String> generated = batchGenerator.apply(misses);
+        for (GenerateRiddleRequest req : misses) {
+            String riddle = accept(req, generated != null ? generated.get(req.landmarkId()) : null);
+            if (riddle != null) {
+                riddles.put(req.landmarkId(), riddle);
+            }
+        }
+        return riddles;
+    }
+
+    public int bucketOf(double difficulty) {
+        int bucket = (int) (difficulty / 100.0 * difficultyBuckets);
+        return Math.max(0, Math.min(difficultyBuckets - 1, bucket));
+    }
+
+    public void clear() {
+        memory.clear();
+    }
+
+    // ==================== Helper Functions ====================
+
+    // a stored variant to serve instead of generating, or null
+    private String reuse(GenerateRiddleRequest req) {
+        Variants variants = variants(cacheKey(req));
+        Riddle reused = variants != null ? variants.take() : null;
+        if (reused == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        countUse(reused);
+        return reused.getContent();
+    }
+
+    // store a freshly generated riddle; when there is none (agent down) serve any stored variant instead
+    private String accept(GenerateRiddleRequest req, String fresh) {
+        String key = cacheKey(req);
+        Variants variants = variants(key);
+        if (fresh == null || PuzzleAgentClient.FALLBACK_RIDDLE.equals(fresh)) {
+            Riddle any = variants != null ? variants.any() : null;
+            if (any != null) {
+                outageCounter.increment();
+                return any.getContent();
+            }
+            return fresh;
+        }
+
+        Riddle stored = Riddle.cached(key, req.landmarkId(), bucketOf(req.difficulty()), req.language(), req.style(), fresh);
+        if (variants != null) {
+            variants.add(stored);
+        }
+        try {
+            mongoTemplate.insert(stored);
+        } catch (RuntimeException e) {
+            log.warn("Could not store riddle for {}: {}", key, e.getMessage());
+        }
+        return fresh;
+    }
+
+    private String cacheKey(GenerateRiddleRequest req) {
+        return cacheKey(req.landmarkId(), bucketOf(req.difficulty()), req.language(), req.style());
+    }
+
+    private static String cacheKey(String landmarkId, int bucket, String language, String style) {
+        return landmarkId + "|" + bucket + "|" + language + "|" + style;
+    }
+
+    private Variants variants(String key) {
+        try {
+            return memory.computeIfAbsent(key, this::load);
+        } catch (RuntimeException e) {
+            log.warn("Riddle cache unavailable for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private Variants load(String key) {
+        Query query = Query.query(Criteria.where("cacheKey").is(key).and("uses").lt(maxUses)).limit(variantsPerKey);
+        return new Variants(mongoTemplate.find(query, Riddle.class));
+    }
+
+    private void countUse(Riddle riddle) {
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(riddle.getId())),
+                new Update().inc("uses", 1), Riddle.class);
+        } catch (RuntimeException e) {
+            log.debug("Could not count use of riddle {}: {}", riddle.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Riddles of one key. Uses are counted here as well, so the limit holds without reading Mongo.
+     */
+    private final class Variants {
+        private final List<Riddle> riddles;
+
+        Variants(List<Riddle> riddles) {
+            this.riddles = new ArrayList<>(riddles);
+        }
+
+        // a variant to reuse, or null while the key still collects variants or all are used up
+        synchronized Riddle take() {
+            riddles.removeIf(r -> r.getUses() >= maxUses);
+            if (riddles.size() < variantsPerKey) {
+                return null;
+            }
+            // least used first, so the variants rotate and wear out evenly
+            Riddle r = riddles.stream().min(Comparator.comparingInt(Riddle::getUses)).orElseThrow();
+            r.setUses(r.getUses() + 1);
+            return r;
+        }
+
+        synchronized Riddle any() {
+            return riddles.isEmpty() ? null : riddles.get(ThreadLocalRandom.current().nextInt(riddles.size()));
+        }
+
+        synchronized void add(Riddle r) {
+            if (riddles.size() < variantsPerKey) {
+                riddles.add(r);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.scavengerhunt.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded pool that generates riddles for upcoming targets ahead of time.
+ * PuzzleManager submits the next few targets of a round here and keeps the futures; moving on to a
+ * target then costs a lookup, or a wait on that single future if it is still running. When the queue
+ * is full the prefetch is skipped and the target's riddle is generated on the request as before.
+ */
+@Service
+public class RiddlePrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RiddlePrefetcher.class);
+
+    private final ThreadPoolExecutor executor;
+    private final int depth;
+    private final long maxWaitMs;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter rejectedCounter;
+
+    public RiddlePrefetcher(
+        MeterRegistry meterRegistry,
+        @Value("${app.riddle-prefetch.threads:4}") int threads,
+        @Value("${app.riddle-prefetch.queue-capacity:200}") int queueCapacity,
+        @Value("${app.riddle-prefetch.depth:2}") int depth,
+        @Value("${app.riddle-prefetch.max-wait-seconds:12}") long maxWaitSeconds
+    ) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "riddle-prefetch-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.depth = depth;
+        this.maxWaitMs = TimeUnit.SECONDS.toMillis(maxWaitSeconds);
+
+        Gauge.builder("riddle.prefetch.queue.depth", executor, e -> e.getQueue().size())
+            .description("Riddle prefetches waiting for a worker")
+            .register(meterRegistry);
+        this.hitCounter = meterRegistry.counter("riddle.prefetch.hits");
+        this.missCounter = meterRegistry.counter("riddle.prefetch.misses");
+        this.rejectedCounter = meterRegistry.counter("riddle.prefetch.rejected");
+    }
+
+    /**
+     * Runs the generation in the background. Null if the pool is saturated.
+     * Cancelling the returned future drops the generation if it is still queued and interrupts its call otherwise.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> generation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(generation.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            return null;
+        }
+        result.whenComplete((riddle, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Result of a prefetch, waiting for it if needed. Null if it failed or did not finish in time.
+     */
+    public String await(CompletableFuture<String> prefetch) {
+        try {
+            String riddle = prefetch.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            hitCounter.increment();
+            return riddle;
+        } catch (TimeoutException e) {
+            log.warn("Riddle prefetch did not finish within {} ms", maxWaitMs);
+        } catch (ExecutionException e) {
+            log.warn("Riddle prefetch failed: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (CancellationException e) {
+            log.debug("Riddle prefetch was cancelled, its round is over");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    public void recordMiss() {
+        missCounter.increment();
+    }
+
+    /**
+     * How many targets after the current one get their riddle prefetched.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,242 @@
+package com.scavengerhunt.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.game.GameLogicManager;
+import com.scavengerhunt.game.PuzzleManager;
+import com.scavengerhunt.model.Landmark;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers the current target's riddle as server-sent events while it is generated.
+ * Events: "chunk" ({text}) as the agent writes, then "done" ({landmarkId, riddle}) with the whole riddle,
+ * which is also stored on the session. A riddle that is already there (or cached) comes as a single "done".
+ * If the agent fails after some text was sent, the stream ends with "error" instead and nothing is stored.
+ * Generation runs on a bounded pool, outside the game's lock, so the game stays usable meanwhile. There is one
+ * generation per game and target: a stream opened while it runs (a reconnect) gets the text so far and follows it.
+ */
+@Service
+public class RiddleStreamer {
+
+    private static final Logger log = LoggerFactory.getLogger(RiddleStreamer.class);
+
+    private final GameSessionRegistry gameSessionRegistry;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Map<InFlightKey, Generation> inFlight = new ConcurrentHashMap<>();
+
+    private final Timer firstChunkTimer;
+    private final Counter rejectedCounter;
+
+    public RiddleStreamer(
+        GameSessionRegistry gameSessionRegistry,
+        MeterRegistry meterRegistry,
+        @Value("${app.riddle-stream.threads:8}") int threads,
+        @Value("${app.riddle-stream.queue-capacity:100}") int queueCapacity,
+        @Value("${app.riddle-stream.timeout-seconds:60}") long timeoutSeconds
+    ) {
+        this.gameSessionRegistry = gameSessionRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "riddle-stream-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMs = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.firstChunkTimer = Timer.builder("riddle.stream.first.chunk")
+            .description("Time from opening a riddle stream to its first text")
+            .register(meterRegistry);
+        this.rejectedCounter = meterRegistry.counter("riddle.stream.rejected");
+    }
+
+    /**
+     * Stream the riddle of the game's current target; null if the game has no target.
+     */
+    public SseEmitter stream(GameLogicManager game) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        long start = System.nanoTime();
+        Landmark target;
+        String ready;
+        InFlightKey key;
+        Generation generation;
+        CompletableFuture<String> prefetch = null;
+        GenerateRiddleRequest req = null;
+        synchronized (game) {
+            target = game.getCurrentTargetLandmark();
+            if (target == null) {
+                return null;
+            }
+            ready = target.getRiddle();
+            key = new InFlightKey(game, target.getId());
+            // generations register and leave under the game's lock, so a stream either joins one or sees its riddle
+            Generation joined = ready == null ? inFlight.get(key) : null;
+            if (joined != null) {
+                joined.attach(emitter);
+                return emitter;
+            }
+            if (ready == null) {
+                prefetch = game.getPuzzleManager().removePrefetch(target.getId());
+                req = game.getPuzzleManager().riddleRequestFor(target.getId(), target.getRating());
+                generation = new Generation(emitter);
+                inFlight.put(key, generation);
+            } else {
+                generation = null;
+            }
+        }
+
+        if (ready != null) {
+            firstChunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            finish(emitter, target.getId(), ready);
+            return emitter;
+        }
+
+        CompletableFuture<String> running = prefetch;
+        GenerateRiddleRequest request = req;
+        try {
+            executor.execute(() -> generate(game, key, running, request, generation, start));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Riddle stream pool saturated, no riddle stream for landmark {}", target.getId());
+            List<SseEmitter> emitters;
+            synchronized (game) {
+                inFlight.remove(key, generation);
+                emitters = generation.emitters();
+            }
+            emitters.forEach(waiting -> fail(waiting, "Riddle stream busy, please retry"));
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // ==================== Helper Functions ====================
+
+    private void generate(GameLogicManager game, InFlightKey key, CompletableFuture<String> prefetch,
+                          GenerateRiddleRequest req, Generation generation, long start) {
+        String landmarkId = key.landmarkId();
+        String riddle;
+        List<SseEmitter> emitters;
+        try {
+            PuzzleManager puzzleManager = game.getPuzzleManager();
+            riddle = prefetch != null ? puzzleManager.awaitPrefetch(prefetch) : null;
+            if (riddle == null) {
+                boolean[] first = {true};
+                riddle = puzzleManager.streamRiddle(req, chunk -> {
+                    if (first[0]) {
+                        first[0] = false;
+                        firstChunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                    generation.chunk(chunk);
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Riddle generation for landmark {} failed: {}", landmarkId, e.getMessage());
+            riddle = null;
+        }
+
+        synchronized (game) {
+            if (riddle != null) {
+                riddle = store(game, landmarkId, riddle);
+            }
+            inFlight.remove(key, generation);
+            emitters = generation.emitters();
+        }
+
+        if (riddle == null) {
+            log.warn("Riddle stream for landmark {} broke off, nothing stored", landmarkId);
+            emitters.forEach(emitter -> fail(emitter, "Riddle generation failed, please retry"));
+        } else {
+            String whole = riddle;
+            emitters.forEach(emitter -> finish(emitter, landmarkId, whole));
+        }
+    }
+
+    // the riddle the session ends up with: the streamed one, or the one stored meanwhile (e.g. by start-round)
+    private String store(GameLogicManager game, String landmarkId, String riddle) {
+        try {
+            if (game.applyStreamedRiddle(landmarkId, riddle)) {
+                gameSessionRegistry.persist(game);
+                return riddle;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not store streamed riddle for landmark {}: {}", landmarkId, e.getMessage());
+        }
+        Landmark target = game.getCurrentTargetLandmark();
+        boolean stored = target != null && landmarkId.equals(target.getId()) && target.getRiddle() != null;
+        return stored ? target.getRiddle() : riddle;
+    }
+
+    private static void finish(SseEmitter emitter, String landmarkId, String riddle) {
+        send(emitter, "done", Map.of("landmarkId", landmarkId, "riddle", riddle));
+        emitter.complete();
+    }
+
+    private static void fail(SseEmitter emitter, String message) {
+        send(emitter, "error", Map.of("message", message));
+        emitter.complete();
+    }
+
+    // the client may have gone away; the riddle is still generated and stored
+    private static void send(SseEmitter emitter, String event, Map<String, String> data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Riddle stream closed by client: {}", e.getMessage());
+        }
+    }
+
+    private record InFlightKey(GameLogicManager game, String landmarkId) {}
+
+    // the streams following one generation and the text sent so far, for streams that join late
+    private static final class Generation {
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private Generation(SseEmitter emitter) {
+            emitters.add(emitter);
+        }
+
+        private synchronized void attach(SseEmitter emitter) {
+            if (text.length() > 0) {
+                send(emitter, "chunk", Map.of("text", text.toString()));
+            }
+            emitters.add(emitter);
+        }
+
+        private synchronized void chunk(String chunk) {
+            text.append(chunk);
+            emitters.forEach(emitter -> send(emitter, "chunk", Map.of("text", chunk)));
+        }
+
+        private synchronized List<SseEmitter> emitters() {
+            return List.copyOf(emitters);
+        }
+    }
+}
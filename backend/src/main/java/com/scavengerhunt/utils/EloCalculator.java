@@ -13,6 +13,7 @@ public class EloCalculator {
 
     private static final Logger log = LoggerFactory.getLogger(EloCalculator.class);
 
+    private String userId;
     private User user;
     private GameDataRepository gameDataRepo;
 
@@ -20,14 +21,14 @@ public class EloCalculator {
     
     public EloCalculator(String userId, GameDataRepository gameDataRepo, int maxRiddleDurationMinutes) {
         this.gameDataRepo = gameDataRepo;
-        this.user = this.gameDataRepo.getUserById(userId);
+        this.userId = userId; // user is loaded when a rating is actually updated, not per request
         this.maxRiddleDurationMinutes = maxRiddleDurationMinutes;
     }
 
 
     public void updateRating(String landmarkId, long riddleSeconds, boolean isCorrect) {
         // Refresh user and landmark from DB
-        this.user = this.gameDataRepo.getUserById(this.user.getUserId());
+        this.user = this.gameDataRepo.getUserById(this.userId);
         Landmark landmark = gameDataRepo.findLandmarkById(landmarkId);
     
         // ======= Fallback rating defaults =======
@@ -59,8 +60,11 @@ public class EloCalculator {
             landmarkRating, landmarkNewRating, landmarkK,
             delta, hshs, expectation);
 
-        gameDataRepo.updateUserRating(this.user.getUserId(), userNewRating);
-        gameDataRepo.updateLandmarkRating(landmark.getId(), landmarkNewRating);
+        // written as deltas so that answers landing concurrently on the same landmark both count
+        gameDataRepo.applyEloResult(
+            this.user.getUserId(), userNewRating - userRating,
+            landmark.getId(), landmarkNewRating - landmarkRating
+        );
     }
     
     private double[] dynamicK(User user, Landmark landmark){
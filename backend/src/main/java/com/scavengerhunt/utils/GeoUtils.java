@@ -2,12 +2,17 @@ package com.scavengerhunt.utils;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
 
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Polygon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.geo.GeoJsonLineString;
 import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 
 import com.scavengerhunt.model.Landmark;
@@ -20,6 +25,11 @@ public class GeoUtils {
 
     private static final double EARTH_RADIUS = 6371000; // meters
 
+    // GeometryFactory is immutable and thread-safe, no need for one per conversion
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private static final String GEOHASH_BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
     /**
      * Calculate distance in meters between two lat/lng coordinates using Haversine formula.
      */
@@ -40,6 +50,18 @@ public class GeoUtils {
 
     public static Landmark detectedLandmark(List<String> candidatesId, Player player, GameDataRepository gameDataRepo){
         Polygon playerCone = player.getPlayerCone();
+        List<Landmark> candidates = candidatesId.stream()
+            .map(gameDataRepo::findLandmarkById)
+            .filter(Objects::nonNull)
+            .toList();
+        return detectedLandmark(candidates, player, lm -> convertToJtsPolygon(lm.getDetectionGeometry()).intersects(playerCone));
+    }
+
+    /**
+     * Among the candidates whose geometry hits the player's cone, pick the one closest to the player's heading.
+     * The intersection test is supplied by the caller so that it can come from an index or a geometry cache.
+     */
+    public static Landmark detectedLandmark(List<Landmark> candidates, Player player, Predicate<Landmark> hitsCone){
         double playerLat = player.getLatitude();
         double playerLng = player.getLongitude();
         double playerAngle = player.getAngle();
@@ -47,24 +69,22 @@ public class GeoUtils {
         Landmark selectedLandmark = null;
         double minAngleDiff = Double.MAX_VALUE;
 
-        for (String lmid : candidatesId) {
-            Landmark lm = gameDataRepo.findLandmarkById(lmid);
+        for (Landmark lm : candidates) {
             if (lm == null) {
                 continue;
             }
 
-            if (lm.getGeometry() == null) {
+            if (lm.getDetectionGeometry() == null) {
                 continue;
             }
 
+            // only landmarks stored before ingestion repaired outlines (LandmarkShape) can throw here
             try {
-                Polygon lmPolygon = convertToJtsPolygon(lm.getGeometry());
-
                 // Calculate distance to landmark
                 double targetLat = lm.getLatitude();
                 double targetLng = lm.getLongitude();
 
-                if (lmPolygon.intersects(playerCone)){
+                if (hitsCone.test(lm)){
                     double angleToTarget = calculateTargetAngle(playerLat, playerLng, targetLat, targetLng);
                     double angleDiff = minimalAngleDiff(playerAngle, angleToTarget);
 
@@ -88,7 +108,60 @@ public class GeoUtils {
     public static Polygon convertToJtsPolygon(GeoJsonPolygon geo) {
         // GeoJsonPolygon coordination：first element is outer-parameter（shell），then inner（holes）
         var shell = geo.getCoordinates().get(0); // GeoJsonLineString
-        Coordinate[] coords = shell.getCoordinates().stream()
+        return GEOMETRY_FACTORY.createPolygon(closedRing(shell));
+    }
+
+    /**
+     * Polygons with their holes (e.g. a city boundary with enclaves) as one JTS MultiPolygon.
+     */
+    public static MultiPolygon convertToJtsMultiPolygon(List<GeoJsonPolygon> polygons) {
+        Polygon[] parts = polygons.stream()
+            .map(geo -> {
+                List<GeoJsonLineString> rings = geo.getCoordinates();
+                LinearRing shell = GEOMETRY_FACTORY.createLinearRing(closedRing(rings.get(0)));
+                LinearRing[] holes = rings.subList(1, rings.size()).stream()
+                    .map(ring -> GEOMETRY_FACTORY.createLinearRing(closedRing(ring)))
+                    .toArray(LinearRing[]::new);
+                return GEOMETRY_FACTORY.createPolygon(shell, holes);
+            })
+            .toArray(Polygon[]::new);
+        return GEOMETRY_FACTORY.createMultiPolygon(parts);
+    }
+
+    /**
+     * Geohash of the position (base32, precision characters). Neighbouring positions share a prefix;
+     * precision 6 is a cell of about 1.2 x 0.6 km, 7 about 150 x 150 m.
+     */
+    public static String geohash(double lat, double lng, int precision) {
+        double[] latRange = {-90.0, 90.0};
+        double[] lngRange = {-180.0, 180.0};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true; // bits alternate lng, lat, starting with lng
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            double[] range = evenBit ? lngRange : latRange;
+            double value = evenBit ? lng : lat;
+            double mid = (range[0] + range[1]) / 2;
+            ch <<= 1;
+            if (value >= mid) {
+                ch |= 1;
+                range[0] = mid;
+            } else {
+                range[1] = mid;
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(GEOHASH_BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    private static Coordinate[] closedRing(GeoJsonLineString ring) {
+        Coordinate[] coords = ring.getCoordinates().stream()
             .map(p -> new Coordinate(p.getX(), p.getY())) // GeoJSON: lng, lat
             .toArray(Coordinate[]::new);
         // ensure closed polygon
@@ -96,18 +169,23 @@ public class GeoUtils {
             coords = Arrays.copyOf(coords, coords.length + 1);
             coords[coords.length - 1] = coords[0];
         }
-        return new GeometryFactory().createPolygon(coords);
+        return coords;
     }
 
-
-    private static double calculateTargetAngle(double lat1, double lng1, double lat2, double lng2){
+    /**
+     * Heading in degrees [0, 360) from the first point to the second, on the flat lat/lng plane.
+     */
+    public static double calculateTargetAngle(double lat1, double lng1, double lat2, double lng2){
         double dLat = lat2 - lat1;
         double dLng = lng2 - lng1;
         double angle = Math.toDegrees(Math.atan2(dLng, dLat));
         return angle < 0 ? angle + 360 : angle;
     }
 
-    private static double minimalAngleDiff(double angle1, double angle2) {
+    /**
+     * Smallest difference in degrees [0, 180] between two headings.
+     */
+    public static double minimalAngleDiff(double angle1, double angle2) {
         double diff = Math.abs(angle1 - angle2);
         return diff > 180 ? 360 - diff : diff;
     }
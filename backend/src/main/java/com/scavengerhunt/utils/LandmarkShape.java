@@ -0,0 +1,110 @@
+package com.scavengerhunt.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.GeometryFixer;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+/**
+ * A landmark outline cleaned up once at ingestion, so detection and init-game never meet a broken polygon:
+ * the ring is closed, an invalid polygon (self-intersecting, bow-tie) is repaired and reduced to its
+ * largest part, and a Douglas-Peucker simplified copy is kept for detection and rendering.
+ * Bounding box and centroid come from the repaired polygon.
+ */
+public record LandmarkShape(Polygon polygon, Polygon simplified) {
+
+    /**
+     * Bumped whenever the cleanup below changes, so ingestion rewrites shapes made by an older one.
+     */
+    public static final int VERSION = 1;
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    /**
+     * Shape of a [lng, lat] ring, or null if nothing usable is left after repair (too few points, zero area).
+     */
+    public static LandmarkShape of(List<List<Double>> ring, double toleranceMeters) {
+        Coordinate[] coords = closedRing(ring);
+        if (coords.length < 4) {
+            return null;
+        }
+        Polygon polygon = largestPart(GeometryFixer.fix(GEOMETRY_FACTORY.createPolygon(coords)));
+        if (polygon == null) {
+            return null;
+        }
+        // DP keeps polygons valid; a shape it collapses keeps the full outline
+        Polygon simplified = largestPart(DouglasPeuckerSimplifier.simplify(polygon, toleranceMeters / METERS_PER_DEGREE));
+        return new LandmarkShape(polygon, simplified != null ? simplified : polygon);
+    }
+
+    public GeoJsonPolygon geometry() {
+        return toGeoJson(polygon);
+    }
+
+    public GeoJsonPolygon simplifiedGeometry() {
+        return toGeoJson(simplified);
+    }
+
+    /**
+     * [minLng, minLat, maxLng, maxLat], the GeoJSON bbox order.
+     */
+    public double[] bbox() {
+        Envelope env = polygon.getEnvelopeInternal();
+        return new double[] { env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY() };
+    }
+
+    public GeoJsonPoint centroid() {
+        org.locationtech.jts.geom.Point centroid = polygon.getCentroid();
+        return new GeoJsonPoint(centroid.getX(), centroid.getY());
+    }
+
+    // ==================== Helper Functions ====================
+
+    // [lng, lat] positions without repeated points, closed
+    private static Coordinate[] closedRing(List<List<Double>> ring) {
+        List<Coordinate> coords = new ArrayList<>(ring.size() + 1);
+        for (List<Double> position : ring) {
+            if (position == null || position.size() < 2 || position.get(0) == null || position.get(1) == null) {
+                continue;
+            }
+            Coordinate c = new Coordinate(position.get(0), position.get(1));
+            if (coords.isEmpty() || !coords.get(coords.size() - 1).equals2D(c)) {
+                coords.add(c);
+            }
+        }
+        if (!coords.isEmpty() && !coords.get(0).equals2D(coords.get(coords.size() - 1))) {
+            coords.add(coords.get(0).copy());
+        }
+        return coords.toArray(Coordinate[]::new);
+    }
+
+    // outer ring of the largest polygon in the geometry, or null if it has no area
+    private static Polygon largestPart(Geometry geometry) {
+        Polygon largest = null;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon part && !part.isEmpty() && part.getArea() > 0
+                && (largest == null || part.getArea() > largest.getArea())) {
+                largest = part;
+            }
+        }
+        return largest != null ? GEOMETRY_FACTORY.createPolygon(largest.getExteriorRing().getCoordinates()) : null;
+    }
+
+    private static GeoJsonPolygon toGeoJson(Polygon polygon) {
+        List<Point> points = new ArrayList<>(polygon.getNumPoints());
+        for (Coordinate c : polygon.getExteriorRing().getCoordinates()) {
+            points.add(new Point(c.getX(), c.getY()));
+        }
+        return new GeoJsonPolygon(points);
+    }
+}
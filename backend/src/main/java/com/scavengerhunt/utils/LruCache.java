@@ -0,0 +1,71 @@
+package com.scavengerhunt.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe LRU map with a fixed number of entries.
+ * Good enough for hot-path caches that hold a few thousand objects; not meant for heavy contention.
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> map;
+
+    public LruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    /**
+     * Returns the cached value or computes it outside the lock, so a slow loader does not block other readers.
+     * Two threads may compute the same key concurrently; the first one stored wins.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        synchronized (this) {
+            V raced = map.putIfAbsent(key, loaded);
+            return raced != null ? raced : loaded;
+        }
+    }
+
+    public synchronized V remove(K key) {
+        return map.remove(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
@@ -0,0 +1,187 @@
+package com.scavengerhunt.utils;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+/**
+ * Analytic polygon-vs-view-cone intersection on primitive arrays.
+ * The cone is the exact circular sector that Player.setPlayerViewCone approximates with a polygon
+ * (apex at the player, compass heading, full opening angle spanDeg, radius in metres), projected with
+ * the same local equirectangular constants so both paths agree. Nothing is allocated per call.
+ *
+ * Rings are flat {lng0, lat0, lng1, lat1, ...} arrays; a closing point is allowed but not required.
+ */
+public final class ViewConeKernel {
+
+    // same metres-per-degree constant Player uses to build the JTS cone
+    static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    private static final double EPS = 1e-9;
+
+    private ViewConeKernel() {}
+
+    public static boolean intersects(double apexLat, double apexLng, double headingDeg, double spanDeg,
+                                     double radiusMeters, double[] ring) {
+        return intersects(apexLat, apexLng, headingDeg, spanDeg, radiusMeters, ring, 0, ring.length / 2);
+    }
+
+    /**
+     * Same test on the ring stored in coords starting at point index fromPoint (so coords[2 * fromPoint] is its
+     * first lng), for packed multi-ring buffers.
+     */
+    public static boolean intersects(double apexLat, double apexLng, double headingDeg, double spanDeg,
+                                     double radiusMeters, double[] coords, int fromPoint, int pointCount) {
+        int n = pointCount;
+        int base = 2 * fromPoint;
+        if (n == 0 || radiusMeters <= 0) {
+            return false;
+        }
+
+        double mPerDegLng = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(apexLat));
+        double heading = Math.toRadians(headingDeg);
+        double hx = Math.sin(heading); // compass heading: x east, y north
+        double hy = Math.cos(heading);
+        double halfSpan = Math.toRadians(Math.min(spanDeg, 360.0) / 2);
+        double cosHalfSpan = Math.cos(halfSpan);
+        double r2 = radiusMeters * radiusMeters;
+
+        // end points of the two radial edges
+        double ax = radiusMeters * Math.sin(heading - halfSpan);
+        double ay = radiusMeters * Math.cos(heading - halfSpan);
+        double bx = radiusMeters * Math.sin(heading + halfSpan);
+        double by = radiusMeters * Math.cos(heading + halfSpan);
+
+        boolean apexInside = false;
+
+        double px = (coords[base + 2 * (n - 1)] - apexLng) * mPerDegLng;
+        double py = (coords[base + 2 * (n - 1) + 1] - apexLat) * METERS_PER_DEGREE_LAT;
+        for (int i = 0; i < n; i++) {
+            double qx = (coords[base + 2 * i] - apexLng) * mPerDegLng;
+            double qy = (coords[base + 2 * i + 1] - apexLat) * METERS_PER_DEGREE_LAT;
+
+            // 1. polygon vertex inside the sector
+            if (inSector(qx, qy, hx, hy, cosHalfSpan, r2)) {
+                return true;
+            }
+            // 2. polygon edge crosses one of the radial edges
+            if (segmentsIntersect(px, py, qx, qy, 0, 0, ax, ay)
+                || segmentsIntersect(px, py, qx, qy, 0, 0, bx, by)) {
+                return true;
+            }
+            // 3. polygon edge crosses the arc
+            if (edgeHitsArc(px, py, qx, qy, hx, hy, cosHalfSpan, r2)) {
+                return true;
+            }
+            // ray casting for the apex (origin), folded into the same pass
+            if ((py > 0) != (qy > 0) && 0 < px + (0 - py) * (qx - px) / (qy - py)) {
+                apexInside = !apexInside;
+            }
+            px = qx;
+            py = qy;
+        }
+        // 4. no boundary contact: either the sector lies inside the polygon or they are disjoint
+        return apexInside;
+    }
+
+    public static boolean intersects(double apexLat, double apexLng, double headingDeg, double spanDeg,
+                                     double radiusMeters, Polygon polygon) {
+        return intersects(apexLat, apexLng, headingDeg, spanDeg, radiusMeters, flatten(polygon));
+    }
+
+    /**
+     * Outer ring of a JTS polygon as a flat lng/lat array.
+     */
+    public static double[] flatten(Polygon polygon) {
+        Coordinate[] coords = polygon.getExteriorRing().getCoordinates();
+        double[] ring = new double[coords.length * 2];
+        for (int i = 0; i < coords.length; i++) {
+            ring[2 * i] = coords[i].x;
+            ring[2 * i + 1] = coords[i].y;
+        }
+        return ring;
+    }
+
+    /**
+     * Outer ring of a stored GeoJSON polygon as a flat lng/lat array, without going through JTS.
+     */
+    public static double[] flatten(GeoJsonPolygon geo) {
+        var shell = geo.getCoordinates().get(0).getCoordinates();
+        double[] ring = new double[shell.size() * 2];
+        int i = 0;
+        for (Point p : shell) {
+            ring[i++] = p.getX(); // GeoJSON: lng, lat
+            ring[i++] = p.getY();
+        }
+        return ring;
+    }
+
+    // ==================== Helper Functions ====================
+
+    private static boolean inSector(double x, double y, double hx, double hy, double cosHalfSpan, double r2) {
+        double d2 = x * x + y * y;
+        if (d2 > r2) {
+            return false;
+        }
+        if (d2 < EPS) {
+            return true; // the apex itself
+        }
+        // angle to heading <= halfSpan  <=>  dot(p, h) >= |p| cos(halfSpan); valid for any span up to 360
+        return x * hx + y * hy >= Math.sqrt(d2) * cosHalfSpan - EPS;
+    }
+
+    private static boolean edgeHitsArc(double px, double py, double qx, double qy,
+                                       double hx, double hy, double cosHalfSpan, double r2) {
+        // |p + t(q - p)|^2 = r^2, t in [0, 1]
+        double dx = qx - px;
+        double dy = qy - py;
+        double a = dx * dx + dy * dy;
+        if (a < EPS) {
+            return false;
+        }
+        double b = 2 * (px * dx + py * dy);
+        double c = px * px + py * py - r2;
+        double disc = b * b - 4 * a * c;
+        if (disc < 0) {
+            return false;
+        }
+        double sqrtDisc = Math.sqrt(disc);
+        double t1 = (-b - sqrtDisc) / (2 * a);
+        double t2 = (-b + sqrtDisc) / (2 * a);
+        return onArc(px + t1 * dx, py + t1 * dy, t1, hx, hy, cosHalfSpan, r2)
+            || onArc(px + t2 * dx, py + t2 * dy, t2, hx, hy, cosHalfSpan, r2);
+    }
+
+    private static boolean onArc(double x, double y, double t, double hx, double hy, double cosHalfSpan, double r2) {
+        if (t < -EPS || t > 1 + EPS) {
+            return false;
+        }
+        return x * hx + y * hy >= Math.sqrt(r2) * cosHalfSpan - EPS;
+    }
+
+    private static boolean segmentsIntersect(double p1x, double p1y, double p2x, double p2y,
+                                             double p3x, double p3y, double p4x, double p4y) {
+        double d1 = cross(p3x, p3y, p4x, p4y, p1x, p1y);
+        double d2 = cross(p3x, p3y, p4x, p4y, p2x, p2y);
+        double d3 = cross(p1x, p1y, p2x, p2y, p3x, p3y);
+        double d4 = cross(p1x, p1y, p2x, p2y, p4x, p4y);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        // touching or collinear cases
+        return (d1 == 0 && onSegment(p3x, p3y, p4x, p4y, p1x, p1y))
+            || (d2 == 0 && onSegment(p3x, p3y, p4x, p4y, p2x, p2y))
+            || (d3 == 0 && onSegment(p1x, p1y, p2x, p2y, p3x, p3y))
+            || (d4 == 0 && onSegment(p1x, p1y, p2x, p2y, p4x, p4y));
+    }
+
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    private static boolean onSegment(double ax, double ay, double bx, double by, double cx, double cy) {
+        return Math.min(ax, bx) <= cx && cx <= Math.max(ax, bx)
+            && Math.min(ay, by) <= cy && cy <= Math.max(ay, by);
+    }
+}
@@ -0,0 +1,118 @@
+package com.scavengerhunt.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, Duration threshold) {
+        return new AdaptiveConcurrencyLimiter("test.limit", meterRegistry, initial, min, max, threshold, 0.5);
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquireAll(AdaptiveConcurrencyLimiter limiter) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit p;
+        while ((p = limiter.tryAcquire()) != null) {
+            permits.add(p);
+        }
+        return permits;
+    }
+
+    @Test
+    void tryAcquire_rejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3, 1, 10, Duration.ofSeconds(10));
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquireAll(limiter);
+
+        assertEquals(3, permits.size());
+        assertEquals(3, limiter.getInFlight());
+        assertNull(limiter.tryAcquire());
+        assertEquals(2.0, meterRegistry.counter("test.limit.rejected").count());
+
+        permits.get(0).success();
+        assertNotNull(limiter.tryAcquire(), "A completed call frees its slot");
+    }
+
+    @Test
+    void failures_shrinkLimitDownToMin() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 2, 10, Duration.ofSeconds(10));
+
+        limiter.tryAcquire().failure();
+        assertEquals(4, limiter.getLimit());
+        limiter.tryAcquire().failure();
+        limiter.tryAcquire().failure();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void slowCalls_countAsOverload() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 10, Duration.ofMillis(1));
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        Thread.sleep(20);
+        permit.success();
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void fastCallsAtLimit_growLimitUpToMax() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 4, Duration.ofSeconds(10));
+
+        for (int round = 0; round < 20; round++) {
+            acquireAll(limiter).forEach(AdaptiveConcurrencyLimiter.Permit::success);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void fastCallsBelowLimit_leaveLimitAlone() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire().success();
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void permit_completesOnlyOnce() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10, Duration.ofSeconds(10));
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        permit.success();
+        permit.failure();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void constructor_rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(4, 0, 10, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> limiter(4, 5, 3, Duration.ofSeconds(1)));
+        assertTrue(limiter(100, 1, 10, Duration.ofSeconds(1)).getLimit() <= 10);
+    }
+}
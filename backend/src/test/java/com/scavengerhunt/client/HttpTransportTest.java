@@ -0,0 +1,106 @@
+package com.scavengerhunt.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class HttpTransportTest {
+
+    private MockWebServer mockServer;
+    private SimpleMeterRegistry meterRegistry;
+    private String route;
+
+    @BeforeEach
+    void setup() throws IOException {
+        mockServer = new MockWebServer();
+        mockServer.start();
+        meterRegistry = new SimpleMeterRegistry();
+        route = mockServer.getHostName() + ":" + mockServer.getPort();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        mockServer.shutdown();
+    }
+
+    private HttpTransport transport(int maxPerRoute, long acquireTimeoutMs) {
+        return new HttpTransport(RestClient.builder(), meterRegistry, 1000, 5000, maxPerRoute, acquireTimeoutMs);
+    }
+
+    private static MockResponse ok(String body) {
+        return new MockResponse().setBody(body).setHeader("Content-Type", "text/plain");
+    }
+
+    @Test
+    void restClients_shareKeepAliveConnections() throws InterruptedException {
+        HttpTransport transport = transport(4, 1000);
+        RestClient first = transport.restClient(mockServer.url("/").toString()).build();
+        RestClient second = transport.restClient(mockServer.url("/").toString()).build();
+        mockServer.enqueue(ok("one"));
+        mockServer.enqueue(ok("two"));
+
+        assertEquals("one", first.get().uri("/a").retrieve().body(String.class));
+        assertEquals("two", second.get().uri("/b").retrieve().body(String.class));
+
+        assertEquals(0, mockServer.takeRequest().getSequenceNumber());
+        assertEquals(1, mockServer.takeRequest().getSequenceNumber(), "Second request should reuse the first connection");
+    }
+
+    @Test
+    void restTemplate_usesSamePool() throws InterruptedException {
+        HttpTransport transport = transport(4, 1000);
+        mockServer.enqueue(ok("one"));
+        mockServer.enqueue(ok("two"));
+
+        transport.restClient(mockServer.url("/").toString()).build().get().uri("/a").retrieve().body(String.class);
+        transport.restTemplate().getForObject(mockServer.url("/b").toString(), String.class);
+
+        mockServer.takeRequest();
+        assertEquals(1, mockServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void routeMeters_registeredOncePerRoute() {
+        HttpTransport transport = transport(4, 1000);
+        RestClient client = transport.restClient(mockServer.url("/").toString()).build();
+        mockServer.enqueue(ok("one"));
+        mockServer.enqueue(ok("two"));
+
+        client.get().uri("/a").retrieve().body(String.class);
+        client.get().uri("/b").retrieve().body(String.class);
+
+        assertEquals(1, meterRegistry.find("http.client.route.wait").timers().size());
+        assertEquals(2, meterRegistry.get("http.client.route.wait").tag("route", route).timer().count());
+    }
+
+    @Test
+    void routeLimit_waitsThenRejects() throws Exception {
+        HttpTransport transport = transport(1, 100);
+        RestClient client = transport.restClient(mockServer.url("/").toString()).build();
+        mockServer.enqueue(ok("slow").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> client.get().uri("/slow").retrieve().body(String.class));
+        while (transport.inFlight(route) == 0) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(ResourceAccessException.class, () -> client.get().uri("/fast").retrieve().body(String.class));
+        assertEquals(1.0, meterRegistry.counter("http.client.route.rejected").count());
+
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+        assertEquals(0, transport.inFlight(route), "The slot should be free once the response is read");
+    }
+}
@@ -7,10 +7,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 import org.springframework.web.client.RestClient;
 
 import com.scavengerhunt.model.Landmark;
@@ -121,4 +123,47 @@ public class LandmarkProcessorClientTest {
 
         assertEquals(0, mockServer.getRequestCount(), "Empty list should not call the server");
     }
+
+    @Test
+    void generateLandmarkMeta_returnsReadyIds() {
+        mockServer.enqueue(new MockResponse()
+            .setBody("{\"status\":\"ok\",\"generated\":1,\"skipped\":1,\"failed\":0,\"ready_ids\":[\"lm-001\",\"lm-002\"]}")
+            .addHeader("Content-Type", "application/json"));
+
+        assertEquals(Set.of("lm-001", "lm-002"), client.generateLandmarkMeta(List.of("lm-001", "lm-002", "lm-003")));
+    }
+
+    @Test
+    void generateLandmarkMeta_500Response_returnsNull() {
+        mockServer.enqueue(new MockResponse().setResponseCode(500));
+
+        assertNull(client.generateLandmarkMeta(List.of("lm-001")));
+    }
+
+    @Test
+    void fetchCityBoundary_multiPolygon_returnsPolygonsWithHoles() throws InterruptedException {
+        mockServer.enqueue(new MockResponse()
+            .setBody("{\"status\":\"ok\",\"city\":\"Cork\",\"boundary\":{\"type\":\"MultiPolygon\",\"coordinates\":["
+                + "[[[-8.6,51.8],[-8.3,51.8],[-8.3,52.0],[-8.6,52.0],[-8.6,51.8]],[[-8.5,51.85],[-8.45,51.85],[-8.45,51.9],[-8.5,51.85]]],"
+                + "[[[-8.2,51.8],[-8.1,51.8],[-8.1,51.9],[-8.2,51.8]]]]}}")
+            .addHeader("Content-Type", "application/json"));
+
+        List<GeoJsonPolygon> polygons = client.fetchCityBoundary("Cork", 51.8936, -8.4920);
+
+        assertEquals(2, polygons.size());
+        assertEquals(2, polygons.get(0).getCoordinates().size(), "Shell and one hole");
+        assertEquals(-8.6, polygons.get(0).getCoordinates().get(0).getCoordinates().get(0).getX());
+        String body = mockServer.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("\"city\":\"Cork\""), "Must send the city, got: " + body);
+    }
+
+    @Test
+    void fetchCityBoundary_notFound_returnsNull() {
+        mockServer.enqueue(new MockResponse()
+            .setResponseCode(404)
+            .setBody("{\"code\":\"BOUNDARY_NOT_FOUND\",\"message\":\"No boundary polygon for Cork\"}")
+            .addHeader("Content-Type", "application/json"));
+
+        assertNull(client.fetchCityBoundary("Cork", 51.8936, -8.4920));
+    }
 }
@@ -2,8 +2,12 @@ package com.scavengerhunt.client;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +16,7 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
 import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.client.dto.GenerateRiddlesRequest;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -53,4 +58,63 @@ class PuzzleAgentClientTest {
         assertNotNull(riddle);
         assertEquals("Find the landmark that matches your target. Look carefully at the surroundings.", riddle);
     }
+
+    @Test
+    void generateRiddles_returnsRiddlesByLandmark() throws InterruptedException {
+        server.enqueue(new MockResponse()
+            .setBody("""
+                {"status":"partial","session_id":"s1","riddles":{"lm1":"First riddle"},"errors":{"lm2":"no metadata"}}
+                """)
+            .addHeader("Content-Type", "application/json"));
+
+        var req = new GenerateRiddlesRequest("s1", "English", "Medieval", List.of("lm1", "lm2"), List.of(
+            new GenerateRiddlesRequest.Target("lm1", 40.0),
+            new GenerateRiddlesRequest.Target("lm2", 60.0)));
+        Map<String, String> riddles = client.generateRiddles(req);
+
+        assertEquals(Map.of("lm1", "First riddle"), riddles);
+        var recorded = server.takeRequest();
+        while (!"/generate-riddles".equals(recorded.getPath())) {
+            recorded = server.takeRequest();
+        }
+        assertTrue(recorded.getBody().readUtf8().contains("\"targets\":[{\"landmark_id\":\"lm1\""));
+    }
+
+    @Test
+    void streamRiddle_passesChunksThenReturnsWholeRiddle() {
+        server.enqueue(new MockResponse()
+            .setBody("""
+                event: chunk
+                data: {"text": "Where stone "}
+
+                event: chunk
+                data: {"text": "meets sky"}
+
+                event: done
+                data: {"session_id": "s1", "landmark_id": "lm1", "riddle": "Where stone meets sky"}
+
+                """)
+            .addHeader("Content-Type", "text/event-stream"));
+
+        List<String> chunks = new ArrayList<>();
+        var req = new GenerateRiddleRequest("s1", "lm1", 50.0, "English", "Medieval", null);
+        String riddle = client.streamRiddle(req, chunks::add);
+
+        assertEquals("Where stone meets sky", riddle);
+        assertEquals(List.of("Where stone ", "meets sky"), chunks);
+    }
+
+    @Test
+    void streamRiddle_errorEvent_returnsFallback() {
+        server.enqueue(new MockResponse()
+            .setBody("""
+                event: error
+                data: {"code": "RIDDLE_GENERATION_ERROR", "message": "model down"}
+
+                """)
+            .addHeader("Content-Type", "text/event-stream"));
+
+        var req = new GenerateRiddleRequest("s1", "lm1", 50.0, "English", "Medieval", null);
+        assertEquals(PuzzleAgentClient.FALLBACK_RIDDLE, client.streamRiddle(req, chunk -> {}));
+    }
 }
@@ -1,36 +1,55 @@
 package com.scavengerhunt.controller;
 
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.model.BackgroundJob;
 import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.BackgroundJobRepository;
 import com.scavengerhunt.repository.LandmarkRepository;
 import com.scavengerhunt.security.JwtTokenProvider;
+import com.scavengerhunt.service.CityPayloadCache;
+import com.scavengerhunt.service.CityResolver;
 import com.scavengerhunt.service.GameSessionService;
 import com.scavengerhunt.service.JobCoordinator;
+import com.scavengerhunt.service.LandmarksChangedEvent;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -41,6 +60,10 @@ public class GameRestControllerInitGameTest {
     @Autowired JwtTokenProvider tokenProvider;
     @Autowired GameSessionService gameSessionService;
     @Autowired LandmarkRepository landmarkRepo;
+    @Autowired CityPayloadCache cityPayloadCache;
+    @Autowired ApplicationEventPublisher eventPublisher;
+    @Autowired CityResolver cityResolver;
+    @Autowired BackgroundJobRepository backgroundJobRepo;
 
     @MockitoBean LandmarkProcessorClient landmarkProcessorClient;
     @MockitoBean JobCoordinator jobCoordinator;
@@ -56,6 +79,21 @@ public class GameRestControllerInitGameTest {
         token = tokenProvider.generateToken(userId, "PLAYER");
         gameSessionService.removeSession(userId);
         landmarkRepo.deleteAll();
+        cityPayloadCache.invalidateCity(null); // landmarks are changed behind ingestion's back here
+        cityResolver.reset(); // each test mocks its own city for the same position
+    }
+
+    @AfterEach
+    void teardown() {
+        cityResolver.reset();
+    }
+
+    private void seedCork(int count) {
+        for (int i = 0; i < count; i++) {
+            Landmark lm = new Landmark("lm-" + i, "Landmark " + i, "Cork", 0.5, 0.5);
+            lm.setGeometry(new GeoJsonPolygon(new Point(0, 0), new Point(1, 0), new Point(1, 1), new Point(0, 0)));
+            landmarkRepo.save(lm);
+        }
     }
 
     @Test
@@ -173,6 +211,94 @@ public class GameRestControllerInitGameTest {
             assertTrue(gameSessionService.findByUserId(userId).isPresent());
     }
 
+    @Test
+    void initGame_sameVersion_returns304WithEtag() throws Exception {
+        when(landmarkProcessorClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        seedCork(10);
+
+        MvcResult first = mockMvc.perform(post("/api/game/init-game")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(CORK_POSITION))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.version").isString())
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/game/init-game")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(CORK_POSITION))
+                .header("Authorization", "Bearer " + token)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        // the session is still set up on a 304
+        assertTrue(gameSessionService.findByUserId(userId).isPresent());
+    }
+
+    @Test
+    void initGame_samePositionTwice_resolvesCityOnce() throws Exception {
+        when(landmarkProcessorClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        seedCork(10);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/game/init-game")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(CORK_POSITION))
+                    .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        }
+
+        // the second call is answered from the geo-cell cache
+        verify(landmarkProcessorClient, times(1)).resolveCity(anyDouble(), anyDouble());
+    }
+
+    @Test
+    void initGame_landmarksChanged_newEtag() throws Exception {
+        when(landmarkProcessorClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        seedCork(10);
+
+        String before = mockMvc.perform(post("/api/game/init-game")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(CORK_POSITION))
+                .header("Authorization", "Bearer " + token))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        seedCork(11);
+        eventPublisher.publishEvent(new LandmarksChangedEvent("Cork"));
+
+        mockMvc.perform(post("/api/game/init-game")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(CORK_POSITION))
+                .header("Authorization", "Bearer " + token)
+                .header(HttpHeaders.IF_NONE_MATCH, before))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.landmarks.length()").value(11))
+            .andExpect(header().string(HttpHeaders.ETAG, not(before)));
+    }
+
+    @Test
+    void initGame_acceptsGzip_returnsCompressedBody() throws Exception {
+        when(landmarkProcessorClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        seedCork(10);
+
+        byte[] body = mockMvc.perform(post("/api/game/init-game")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(CORK_POSITION))
+                .header("Authorization", "Bearer " + token)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            Map<?, ?> json = objectMapper.readValue(in, Map.class);
+            assertEquals(10, ((List<?>) json.get("landmarks")).size());
+        }
+    }
+
     //========== Auth Guard ==========
     @Test
     void initGame_withoutToken_returns401() throws Exception {
@@ -181,4 +307,36 @@ public class GameRestControllerInitGameTest {
                 .content(objectMapper.writeValueAsString(CORK_POSITION)))
             .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    void landmarksReady_jobDone_returnsDone() throws Exception {
+        backgroundJobRepo.deleteAll();
+        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        job.setStatus(BackgroundJob.Status.DONE);
+        backgroundJobRepo.save(job);
+
+        MvcResult pending = mockMvc.perform(get("/api/game/landmarks-ready")
+                .param("city", "Cork")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("DONE"))
+            .andExpect(jsonPath("$.ready").value(true));
+    }
+
+    @Test
+    void landmarksReady_noJob_returns404() throws Exception {
+        backgroundJobRepo.deleteAll();
+
+        MvcResult pending = mockMvc.perform(get("/api/game/landmarks-ready")
+                .param("city", "Atlantis")
+                .header("Authorization", "Bearer " + token))
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isNotFound());
+    }
 }
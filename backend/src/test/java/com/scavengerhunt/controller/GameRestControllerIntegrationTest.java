@@ -1,6 +1,7 @@
 package com.scavengerhunt.controller;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -18,6 +19,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.scavengerhunt.model.PersistedGameSession;
 import com.scavengerhunt.security.JwtTokenProvider;
 import com.scavengerhunt.service.GameSessionService;
+import com.scavengerhunt.service.PositionCoalescer;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -27,6 +29,7 @@ public class GameRestControllerIntegrationTest {
     @Autowired ObjectMapper objectMapper;
     @Autowired JwtTokenProvider tokenProvider;
     @Autowired GameSessionService gameSessionService;
+    @Autowired PositionCoalescer positionCoalescer;
 
     private String token;
     private String userId;
@@ -100,6 +103,14 @@ public class GameRestControllerIntegrationTest {
             ).andExpect(status().isNotFound());
     }
 
+    @Test
+    void riddleStream_noSession_returns404() throws Exception {
+        mockMvc.perform(get("/api/game/riddle-stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Authorization", "Bearer " + token)
+            ).andExpect(status().isNotFound());
+    }
+
     // ========= Session state =========
 
     @Test
@@ -128,6 +139,29 @@ public class GameRestControllerIntegrationTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    void updatePosition_sessionRemovedBehindLiveGame_returns409() throws Exception {
+        gameSessionService.createSession(userId, "Cork");
+        String body = objectMapper.writeValueAsString(Map.of("latitude", 51.894, "longitude", -8.490, "angle", 45.0));
+        mockMvc.perform(post("/api/game/update-position")
+                .contentType(MediaType.APPLICATION_JSON).content(body)
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk());
+
+        // removed without going through finish-round, e.g. by another node
+        gameSessionService.removeSession(userId);
+        positionCoalescer.forget(userId);
+
+        mockMvc.perform(post("/api/game/update-position")
+                .contentType(MediaType.APPLICATION_JSON).content(body)
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/game/update-position")
+                .contentType(MediaType.APPLICATION_JSON).content(body)
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     void finishRound_withSession_returns200AndRemovesSession() throws Exception {
         gameSessionService.createSession(userId, "Cork");
@@ -6,9 +6,16 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -18,12 +25,17 @@ import org.mockito.MockitoAnnotations;
 
 import com.scavengerhunt.client.LandmarkProcessorClient;
 import com.scavengerhunt.client.PuzzleAgentClient;
+import com.scavengerhunt.client.dto.GenerateRiddleRequest;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.PersistedGameSession;
 import com.scavengerhunt.model.Player;
+import com.scavengerhunt.model.RoundSnapshot;
 import com.scavengerhunt.model.User;
-import com.scavengerhunt.repository.AnswerTransactionRecordRepository;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.AnswerRecordWriter;
+import com.scavengerhunt.service.RiddlePrefetcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class GameLogicManagerTest {
 
@@ -32,7 +44,7 @@ public class GameLogicManagerTest {
     @Mock PuzzleAgentClient mockPuzzleAgentClient;
     @Mock PlayerStateManager mockPlayerStateManager;
 
-    @Mock AnswerTransactionRecordRepository mockAnswerTransactionRecordRepo;
+    @Mock AnswerRecordWriter mockAnswerRecordWriter;
 
     private PersistedGameSession mockSession;
     private User mockUser;
@@ -84,7 +96,7 @@ public class GameLogicManagerTest {
         mockSession.setAttemptsByLandmarkId(pool);
         mockSession.setCurrentTargetId(currentTargetId);
         when(mockPlayerStateManager.getDetectedLandmark()).thenReturn(detectedLandmark);
-        return new GameLogicManager(mockSession, mockGameDataRepo, mockPlayerStateManager, mockPuzzleAgentClient, mockAnswerTransactionRecordRepo, 20);
+        return new GameLogicManager(mockSession, mockGameDataRepo, mockPlayerStateManager, mockPuzzleAgentClient, mockAnswerRecordWriter, 20);
     }
 
     // ============ Correct Answer ============
@@ -148,6 +160,19 @@ public class GameLogicManagerTest {
         assertEquals(mockSession.getCurrentTargetId(), "id-quad", "Next target after last attempt failed should be quad");
     }
 
+    @Test
+    void answeredLandmarks_reportedAsSolvedOrFailed(){
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 1, "id-quad", 3));
+        GameLogicManager game = buildGame(pool, "id-glucksman", null);
+
+        game.submitCurrentAnswer(60); // last attempt on the gallery fails, the quad becomes the target
+        when(mockPlayerStateManager.getDetectedLandmark()).thenReturn(quad);
+        game.submitCurrentAnswer(60);
+
+        assertEquals(Map.of("id-glucksman", false, "id-quad", true), game.getSolvedLandmarks());
+        assertTrue(game.getUnsolvedLandmarks().isEmpty());
+    }
+
     @Test
     void wrongAnswer_lastLandmark_zeroAttempts_gameFinished(){
         Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 1));
@@ -182,7 +207,7 @@ public class GameLogicManagerTest {
 
         GameLogicManager game = new GameLogicManager(
             mockSession, mockGameDataRepo, mockPlayerStateManager,
-            mockPuzzleAgentClient, mockAnswerTransactionRecordRepo, 30
+            mockPuzzleAgentClient, mockAnswerRecordWriter, 30
         );
 
         boolean result = game.submitCurrentAnswer(60);
@@ -258,4 +283,99 @@ public class GameLogicManagerTest {
 
         assertFalse(game.answerCorrect(quad));
     }
+
+    // ============ Round snapshot ============
+    @Test
+    void roundSnapshot_servesTargetsWithoutLandmarkLookups() {
+        mockSession.setRoundSnapshot(RoundSnapshot.of("Cork", List.of(glucksman, quad, boole)));
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 3, "id-quad", 3, "id-boole", 3));
+        GameLogicManager game = buildGame(pool, "id-glucksman", glucksman);
+
+        game.submitCurrentAnswer(60);
+
+        // the quad is closer to the gallery than boole
+        assertEquals("id-quad", mockSession.getCurrentTargetId());
+        assertEquals("The Quad", game.getCurrentTarget().get("name"));
+        // only the rating update of the solved landmark still reads the document
+        verify(mockGameDataRepo, never()).findLandmarkById("id-quad");
+        verify(mockGameDataRepo, never()).findLandmarkById("id-boole");
+        verify(mockGameDataRepo, never()).getLandmarkRatingById(anyString());
+    }
+
+    @Test
+    void roundSnapshot_isKeptOnSession() {
+        RoundSnapshot snapshot = RoundSnapshot.of("Cork", List.of(glucksman, quad));
+        mockSession.setRoundSnapshot(snapshot);
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 3, "id-quad", 3));
+        GameLogicManager game = buildGame(pool, "id-glucksman", quad);
+
+        game.submitCurrentAnswer(60);
+
+        assertEquals(snapshot, mockSession.getRoundSnapshot());
+    }
+
+    // ============ Riddle prefetch ============
+
+    // what the controller does after selection, outside the game's lock
+    private static void deliverRiddle(GameLogicManager game) {
+        PuzzleManager.PendingRiddle pending = game.takePendingRiddle();
+        if (pending != null) {
+            game.applyStreamedRiddle(pending.landmarkId(), game.getPuzzleManager().resolveRiddle(pending));
+        }
+    }
+
+    @Test
+    void riddlePrefetch_nextTargetInChainIsReadyWhenAdvancing() {
+        mockSession.setRoundSnapshot(RoundSnapshot.of("Cork", List.of(glucksman, quad, boole)));
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 3, "id-quad", 3, "id-boole", 3));
+        GameLogicManager game = buildGame(pool, "id-glucksman", glucksman);
+        game.setPuzzleManager(new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient,
+            new RiddlePrefetcher(new SimpleMeterRegistry(), 1, 10, 1, 5), null));
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class)))
+            .thenAnswer(inv -> "Riddle for " + inv.getArgument(0, GenerateRiddleRequest.class).landmarkId());
+
+        game.submitCurrentAnswer(60); // glucksman solved -> quad now, boole prefetched
+        deliverRiddle(game);
+        assertEquals("Riddle for id-quad", game.getCurrentTarget().get("riddle"));
+
+        when(mockPlayerStateManager.getDetectedLandmark()).thenReturn(quad);
+        game.submitCurrentAnswer(60); // quad solved -> boole from the prefetch
+        deliverRiddle(game); // awaits the running prefetch, no second call
+
+        assertEquals("id-boole", mockSession.getCurrentTargetId());
+        assertEquals("Riddle for id-boole", game.getCurrentTarget().get("riddle"));
+        verify(mockPuzzleAgentClient, times(1)).generateRiddle(argThat(req -> "id-boole".equals(req.landmarkId())));
+        assertEquals("Riddle for id-boole", mockSession.getRiddlesByLandmarkId().get("id-boole"));
+    }
+
+    @Test
+    void deferredRiddle_generatedOutsideSelectionThenApplied() {
+        mockSession.setRoundSnapshot(RoundSnapshot.of("Cork", List.of(glucksman, quad)));
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 3, "id-quad", 3));
+        GameLogicManager game = buildGame(pool, "id-glucksman", glucksman);
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Riddle for the quad");
+
+        game.submitCurrentAnswer(60);
+        verify(mockPuzzleAgentClient, never()).generateRiddle(any(GenerateRiddleRequest.class));
+        assertEquals(true, game.getCurrentTarget().get("riddlePending"));
+
+        PuzzleManager.PendingRiddle pending = game.takePendingRiddle();
+        assertEquals("id-quad", pending.landmarkId());
+        assertTrue(game.applyStreamedRiddle("id-quad", game.getPuzzleManager().resolveRiddle(pending)));
+
+        assertEquals("Riddle for the quad", game.getCurrentTarget().get("riddle"));
+        assertNull(game.takePendingRiddle());
+    }
+
+    @Test
+    void riddlesOnSession_restoredWhenGameIsRebuilt() {
+        mockSession.setRoundSnapshot(RoundSnapshot.of("Cork", List.of(glucksman, quad)));
+        mockSession.setRiddlesByLandmarkId(Map.of("id-glucksman", "Stored riddle"));
+        Map<String, Integer> pool = new HashMap<>(Map.of("id-glucksman", 3, "id-quad", 3));
+
+        GameLogicManager game = buildGame(pool, "id-glucksman", null);
+
+        assertEquals("Stored riddle", game.getCurrentTarget().get("riddle"));
+        verify(mockPuzzleAgentClient, never()).generateRiddle(any(GenerateRiddleRequest.class));
+    }
 }
@@ -3,6 +3,8 @@ package com.scavengerhunt.game;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -18,11 +20,13 @@ import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import com.scavengerhunt.client.LandmarkProcessorClient;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.LandmarkMetaDispatcher;
 
 public class LandmarkManagerTest {
 
     @Mock private GameDataRepository mockGameDataRepo;
     @Mock private LandmarkProcessorClient mockLandmarkProcessorClient;
+    @Mock private LandmarkMetaDispatcher mockMetaDispatcher;
 
     private LandmarkManager testLandmarkManager;
 
@@ -106,4 +110,16 @@ public class LandmarkManagerTest {
         assertTrue(res.contains(quad.getId()));
         assertTrue(res.contains(boole.getId()));
     }
+
+    @Test
+    void getRoundLandmarksIdWithinRadius_withDispatcher_doesNotWaitForMeta() {
+        List<Landmark> nearBy = List.of(glucksman, quad);
+        when(mockGameDataRepo.findByLocationNear(any(GeoJsonPoint.class), any(Distance.class))).thenReturn(nearBy);
+        LandmarkManager manager = new LandmarkManager(mockGameDataRepo, mockLandmarkProcessorClient, null, mockMetaDispatcher, "Cork");
+
+        manager.getRoundLandmarksIdWithinRadius(51.8947, -8.4903, 500);
+
+        verify(mockMetaDispatcher).request(nearBy);
+        verify(mockLandmarkProcessorClient, never()).ensureLandmarkMeta(any());
+    }
 }
@@ -1,13 +1,23 @@
 package com.scavengerhunt.game;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,8 +26,12 @@ import org.mockito.MockitoAnnotations;
 
 import com.scavengerhunt.client.PuzzleAgentClient;
 import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.client.dto.GenerateRiddlesRequest;
 import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.RiddlePrefetcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class PuzzleManagerTest {
 
@@ -141,6 +155,26 @@ public class PuzzleManagerTest {
         assertEquals("Default Riddle", res, "Should fall back to default riddle on API failure");
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamRiddle_agentFailsAfterChunks_returnsNull(){
+        GenerateRiddleRequest req = new GenerateRiddleRequest("s1", "lm-1", 50.0, "English", "Medieval", List.of("lm-1"));
+        when(mockPuzzleAgentClient.streamRiddle(any(GenerateRiddleRequest.class), any())).thenAnswer(inv -> {
+            inv.getArgument(1, Consumer.class).accept("Where stone ");
+            return PuzzleAgentClient.FALLBACK_RIDDLE;
+        });
+
+        assertNull(testPuzzleManager.streamRiddle(req, chunk -> {}));
+    }
+
+    @Test
+    void streamRiddle_agentFailsBeforeChunks_returnsFallback(){
+        GenerateRiddleRequest req = new GenerateRiddleRequest("s1", "lm-1", 50.0, "English", "Medieval", List.of("lm-1"));
+        when(mockPuzzleAgentClient.streamRiddle(any(GenerateRiddleRequest.class), any())).thenThrow(new RuntimeException("down"));
+
+        assertEquals("Default Riddle", testPuzzleManager.streamRiddle(req, chunk -> {}));
+    }
+
     @Test
     void getRiddleForLandmark_calledTwice(){
         String landmarkId = "lm-001";
@@ -152,4 +186,162 @@ public class PuzzleManagerTest {
 
         verify(mockPuzzleAgentClient, times(2)).generateRiddle(any(GenerateRiddleRequest.class));
     }
+
+    // ======= prefetch =======
+
+    private RiddlePrefetcher prefetcher(int threads) {
+        return new RiddlePrefetcher(new SimpleMeterRegistry(), threads, 10, 2, 5);
+    }
+
+    @Test
+    void takeRiddle_prefetched_usesBackgroundResult() {
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Prefetched riddle");
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.initialize("session-123", List.of(glucksman, quad), null, null);
+
+        manager.prefetchRiddle(quad.getId(), 0.5);
+        manager.prefetchRiddle(quad.getId(), 0.5); // already in flight, not submitted twice
+
+        assertEquals("Prefetched riddle", manager.takeRiddle(quad.getId(), 0.5));
+        verify(mockPuzzleAgentClient, times(1)).generateRiddle(any(GenerateRiddleRequest.class));
+    }
+
+    @Test
+    void takeRiddle_stillRunning_waitsForThatCallOnly() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "Slow riddle";
+        });
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.initialize("session-123", List.of(glucksman, quad), null, null);
+        manager.prefetchRiddle(quad.getId(), 0.5);
+
+        new Thread(() -> {
+            sleepQuietly(50);
+            release.countDown();
+        }).start();
+
+        assertEquals("Slow riddle", manager.takeRiddle(quad.getId(), 0.5));
+        verify(mockPuzzleAgentClient, times(1)).generateRiddle(any(GenerateRiddleRequest.class));
+    }
+
+    @Test
+    void takeRiddle_notPrefetched_generatesNow() {
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Fresh riddle");
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+
+        assertEquals("Fresh riddle", manager.takeRiddle(boole.getId(), 0.5));
+    }
+
+    @Test
+    void initialize_dropsPrefetchesOfPreviousRound() {
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Some riddle");
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.restoreRiddles(Map.of(quad.getId(), "Old riddle"));
+
+        manager.initialize("session-123", List.of(quad), null, null);
+
+        assertTrue(manager.getReadyRiddles().isEmpty());
+        assertEquals("Some riddle", manager.takeRiddle(quad.getId(), 0.5));
+    }
+
+    @Test
+    void initialize_cancelsRunningPrefetchCalls() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenAnswer(inv -> {
+            started.countDown();
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "Stale riddle";
+        });
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.prefetchRiddle(quad.getId(), 0.5);
+        CompletableFuture<String> handedOut = manager.removePrefetch(quad.getId());
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        manager.initialize("session-456", List.of(boole), null, null);
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "The previous round's call should be interrupted");
+        assertTrue(handedOut.isCancelled());
+        assertNull(manager.awaitPrefetch(handedOut));
+    }
+
+    @Test
+    void restoreRiddles_servedWithoutCall() {
+        testPuzzleManager.restoreRiddles(Map.of(quad.getId(), "Stored riddle"));
+
+        assertEquals(Map.of(quad.getId(), "Stored riddle"), testPuzzleManager.getReadyRiddles());
+        assertEquals("Stored riddle", testPuzzleManager.takeRiddle(quad.getId(), 0.5));
+        verify(mockPuzzleAgentClient, times(0)).generateRiddle(any(GenerateRiddleRequest.class));
+    }
+
+    // ======= batch prefetch =======
+
+    private static Map<String, Double> upcoming(Landmark... landmarks) {
+        Map<String, Double> ratings = new LinkedHashMap<>();
+        for (Landmark l : landmarks) {
+            ratings.put(l.getId(), 0.5);
+        }
+        return ratings;
+    }
+
+    @Test
+    void prefetchRiddles_oneBatchedCallForAllTargets() {
+        when(mockPuzzleAgentClient.generateRiddles(any(GenerateRiddlesRequest.class)))
+            .thenReturn(Map.of(quad.getId(), "Quad riddle", boole.getId(), "Boole riddle"));
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.initialize("session-123", List.of(glucksman, quad, boole), null, null);
+
+        manager.prefetchRiddles(upcoming(quad, boole));
+
+        assertEquals("Quad riddle", manager.takeRiddle(quad.getId(), 0.5));
+        assertEquals("Boole riddle", manager.takeRiddle(boole.getId(), 0.5));
+        verify(mockPuzzleAgentClient, times(1)).generateRiddles(argThat(req ->
+            req.targets().size() == 2
+                && quad.getId().equals(req.targets().get(0).landmarkId())
+                && req.puzzlePool().size() == 3));
+        verify(mockPuzzleAgentClient, never()).generateRiddle(any(GenerateRiddleRequest.class));
+    }
+
+    @Test
+    void prefetchRiddles_missingFromBatch_fallsBackPerLandmark() {
+        when(mockPuzzleAgentClient.generateRiddles(any(GenerateRiddlesRequest.class)))
+            .thenReturn(Map.of(quad.getId(), "Quad riddle"));
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Single riddle");
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.initialize("session-123", List.of(glucksman, quad, boole), null, null);
+
+        manager.prefetchRiddles(upcoming(quad, boole));
+
+        assertEquals("Quad riddle", manager.takeRiddle(quad.getId(), 0.5));
+        assertEquals("Single riddle", manager.takeRiddle(boole.getId(), 0.5));
+        verify(mockPuzzleAgentClient, times(1)).generateRiddle(argThat(req ->
+            boole.getId().equals(req.landmarkId())));
+    }
+
+    @Test
+    void prefetchRiddles_skipsAlreadyPrefetched() {
+        when(mockPuzzleAgentClient.generateRiddle(any(GenerateRiddleRequest.class))).thenReturn("Single riddle");
+        PuzzleManager manager = new PuzzleManager(mockGameDataRepo, mockPuzzleAgentClient, prefetcher(1), null);
+        manager.initialize("session-123", List.of(glucksman, quad, boole), null, null);
+        manager.restoreRiddles(Map.of(quad.getId(), "Stored riddle"));
+
+        manager.prefetchRiddles(upcoming(quad, boole));
+
+        assertEquals("Single riddle", manager.takeRiddle(boole.getId(), 0.5));
+        verify(mockPuzzleAgentClient, never()).generateRiddles(any(GenerateRiddlesRequest.class));
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.scavengerhunt.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class RoundStateTest {
+
+    @Test
+    void start_everyLandmarkInPoolWithSameAttempts() {
+        RoundState state = RoundState.start(List.of("a", "b", "c"), 3);
+
+        assertEquals(3, state.size());
+        assertEquals(1, state.indexOf("b"));
+        assertEquals(-1, state.indexOf("unknown"));
+        assertEquals(Map.of("a", 3, "b", 3, "c", 3), state.toAttemptsMap());
+        assertTrue(state.toSolvedMap().isEmpty());
+    }
+
+    @Test
+    void answers_removeFromPoolAndKeepOutcome() {
+        RoundState state = RoundState.start(List.of("a", "b", "c"), 2);
+
+        state.correctAnswer(0);
+        assertEquals(1, state.wrongAnswer(1));
+        assertEquals(0, state.wrongAnswer(1));
+
+        assertFalse(state.isInPool(0));
+        assertFalse(state.isInPool(1));
+        assertTrue(state.isInPool(2));
+        assertFalse(state.isInPool(-1));
+        assertEquals(Map.of("c", 2), state.toAttemptsMap());
+        assertEquals(Map.of("a", true, "b", false), state.toSolvedMap());
+        assertFalse(state.isPoolEmpty());
+
+        state.wrongAnswer(2);
+        state.wrongAnswer(2);
+        assertTrue(state.isPoolEmpty());
+    }
+
+    @Test
+    void correctBits_spanSeveralBytes() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add("lm-" + i);
+        }
+        RoundState state = RoundState.start(ids, 3);
+
+        state.correctAnswer(7);
+        state.correctAnswer(8);
+        state.correctAnswer(19);
+
+        assertTrue(state.isCorrect(7));
+        assertTrue(state.isCorrect(8));
+        assertTrue(state.isCorrect(19));
+        assertFalse(state.isCorrect(9));
+        assertEquals(17, state.toAttemptsMap().size());
+    }
+
+    @Test
+    void of_keepsMapOrderAndAttempts() {
+        Map<String, Integer> attempts = new LinkedHashMap<>();
+        attempts.put("x", 1);
+        attempts.put("y", 3);
+
+        RoundState state = RoundState.of(attempts);
+
+        assertEquals("x", state.getId(0));
+        assertEquals(3, state.getAttemptsLeft(1));
+        assertEquals(attempts, state.toAttemptsMap());
+    }
+
+    @Test
+    void persistedSession_legacyAttemptsMap_convertedOnRead() {
+        PersistedGameSession session = new PersistedGameSession("s-1", "u-1", "Cork");
+        session.setAttemptsByLandmarkId(Map.of("a", 2));
+
+        RoundState state = session.getRoundState();
+
+        assertEquals(2, state.getAttemptsLeft(state.indexOf("a")));
+        assertEquals(Map.of("a", 2), session.getAttemptsByLandmarkId());
+
+        session.setRoundState(null);
+        assertNull(session.getAttemptsByLandmarkId());
+    }
+}
@@ -1,15 +1,28 @@
 package com.scavengerhunt.repository;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
 import com.scavengerhunt.model.BackgroundJob;
 
@@ -17,6 +30,7 @@ import com.scavengerhunt.model.BackgroundJob;
 public class BackgroundJobRepositoryIntegrationTest {
 
     @Autowired private BackgroundJobRepository repo;
+    @Autowired private MongoTemplate mongoTemplate;
 
     @BeforeEach
     void cleanup() {
@@ -88,4 +102,112 @@ public class BackgroundJobRepositoryIntegrationTest {
         assertTrue(res.isPresent());
         assertEquals("Dublin", res.get().getPayload().get("city"));
     }
+
+    @Test
+    void insertIfAbsent_concurrentEnqueues_storeOneJob() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BackgroundJob>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> repo.insertIfAbsent(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49))));
+            }
+            Set<String> ids = new HashSet<>();
+            for (Future<BackgroundJob> result : results) {
+                ids.add(result.get(5, TimeUnit.SECONDS).getJobId());
+            }
+
+            assertEquals(1, ids.size());
+            assertEquals(1, repo.count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void claimNext_jobClaimedOnce() {
+        repo.insertIfAbsent(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49));
+        Instant leaseUntil = Instant.now().plusSeconds(60);
+
+        BackgroundJob first = repo.claimNext("worker-a", leaseUntil, 3);
+        BackgroundJob second = repo.claimNext("worker-b", leaseUntil, 3);
+
+        assertEquals(BackgroundJob.Status.IN_PROGRESS, first.getStatus());
+        assertEquals("worker-a", first.getLeaseOwner());
+        assertEquals(1, first.getAttemptCount());
+        assertNull(second);
+    }
+
+    @Test
+    void complete_onlyByLeaseOwner() {
+        repo.insertIfAbsent(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49));
+        BackgroundJob job = repo.claimNext("worker-a", Instant.now().plusSeconds(60), 3);
+
+        assertFalse(repo.complete(job.getJobId(), "worker-b"));
+        assertTrue(repo.complete(job.getJobId(), "worker-a"));
+
+        BackgroundJob stored = repo.findById(job.getJobId()).orElseThrow();
+        assertEquals(BackgroundJob.Status.DONE, stored.getStatus());
+        assertNull(stored.getLeaseOwner());
+    }
+
+    @Test
+    void reapExpiredLeases_returnsJobToQueue() {
+        repo.insertIfAbsent(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49));
+        BackgroundJob job = repo.claimNext("worker-a", Instant.now().minusSeconds(1), 3);
+
+        assertEquals(1, repo.reapExpiredLeases(Instant.now()));
+
+        BackgroundJob retried = repo.claimNext("worker-b", Instant.now().plusSeconds(60), 3);
+        assertEquals(job.getJobId(), retried.getJobId());
+        assertEquals(2, retried.getAttemptCount());
+        // the crashed worker's late result is discarded
+        assertFalse(repo.complete(job.getJobId(), "worker-a"));
+    }
+
+    @Test
+    void failExhausted_marksJobsOutOfAttemptsFailed() {
+        BackgroundJob exhausted = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        exhausted.setAttemptCount(3);
+        repo.save(exhausted);
+        repo.save(BackgroundJob.fetchLandmarks("Dublin", 53.33, -6.24));
+
+        List<BackgroundJob> failed = repo.failExhausted(3);
+
+        assertEquals(1, failed.size());
+        assertEquals(exhausted.getJobId(), failed.get(0).getJobId());
+        assertTrue(repo.failExhausted(3).isEmpty());
+        assertEquals("Dublin", repo.claimNext("worker-a", Instant.now().plusSeconds(60), 3).getPayload().get("city"));
+        assertEquals(BackgroundJob.Status.FAILED, repo.findById(exhausted.getJobId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void claimNext_skipsJobsNotYetDue() {
+        repo.insertIfAbsent(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49));
+        BackgroundJob job = repo.claimNext("worker-a", Instant.now().plusSeconds(60), 3);
+        repo.release(job.getJobId(), "worker-a", "timeout", Instant.now().plusSeconds(30));
+
+        assertNull(repo.claimNext("worker-b", Instant.now().plusSeconds(60), 3));
+
+        repo.release(job.getJobId(), "worker-a", "timeout", Instant.now()); // no longer leased, no effect
+        assertNull(repo.claimNext("worker-b", Instant.now().plusSeconds(60), 3));
+        assertEquals("timeout", repo.findById(job.getJobId()).orElseThrow().getLastError());
+    }
+
+    @Test
+    void ensureIdempotencyIndex_removesDuplicatesKeepingPendingJob() {
+        mongoTemplate.dropCollection(BackgroundJob.class); // as before the unique index existed
+        BackgroundJob done = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        done.setStatus(BackgroundJob.Status.DONE);
+        BackgroundJob pending = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        pending.setCreatedAt(done.getCreatedAt().minusSeconds(60));
+        repo.save(done);
+        repo.save(pending);
+        repo.save(BackgroundJob.fetchLandmarks("Dublin", 53.33, -6.24));
+
+        assertEquals(1, repo.ensureIdempotencyIndex());
+
+        assertEquals(pending.getJobId(), repo.findByIdempotencyKey("fetch-landmarks-cork").orElseThrow().getJobId());
+        assertEquals(2, repo.count());
+        assertThrows(DuplicateKeyException.class, () -> repo.insert(BackgroundJob.fetchLandmarks("Dublin", 53.33, -6.24)));
+    }
 }
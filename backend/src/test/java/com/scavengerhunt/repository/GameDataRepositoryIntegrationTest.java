@@ -0,0 +1,76 @@
+package com.scavengerhunt.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.model.User;
+
+@SpringBootTest
+public class GameDataRepositoryIntegrationTest {
+
+    @Autowired private GameDataRepository gameDataRepo;
+    @Autowired private LandmarkRepository landmarkRepo;
+    @Autowired private UserRepository userRepo;
+
+    private String userId;
+    private String landmarkId;
+
+    @BeforeEach
+    void setup() {
+        userRepo.findByUsername("elo-test-user").ifPresent(userRepo::delete);
+        User user = new User("elo-test-user", "pw");
+        user.setRating(0.6);
+        userId = userRepo.save(user).getUserId();
+
+        Landmark lm = new Landmark("Elo Test Landmark", "EloTown", 51.8947, -8.4903);
+        landmarkId = landmarkRepo.save(lm).getId(); // no rating yet
+    }
+
+    @AfterEach
+    void cleanup() {
+        userRepo.deleteById(userId);
+        landmarkRepo.deleteById(landmarkId);
+    }
+
+    @Test
+    void applyEloResult_incrementsExistingRating_leavesTimesAlone() {
+        gameDataRepo.applyEloResult(userId, 0.1, landmarkId, -0.1);
+
+        User user = gameDataRepo.getUserById(userId);
+        assertEquals(0.7, user.getRating(), 1e-9);
+        assertNull(user.getLastGameAt());
+        assertNull(gameDataRepo.findLandmarkById(landmarkId).getLastAnswered());
+    }
+
+    @Test
+    void applyEloResult_missingRating_startsFromDefault() {
+        gameDataRepo.applyEloResult(userId, 0.0, landmarkId, 0.2);
+
+        assertEquals(0.7, gameDataRepo.findLandmarkById(landmarkId).getRating(), 1e-9);
+    }
+
+    @Test
+    void applyEloResult_consecutiveAnswers_accumulate() {
+        gameDataRepo.applyEloResult(userId, 0.05, landmarkId, -0.05);
+        gameDataRepo.applyEloResult(userId, 0.05, landmarkId, -0.05);
+
+        assertEquals(0.7, gameDataRepo.getUserById(userId).getRating(), 1e-9);
+        assertEquals(0.4, gameDataRepo.findLandmarkById(landmarkId).getRating(), 1e-9);
+    }
+
+    @Test
+    void updateLandmarkRating_setsOnlyRating() {
+        gameDataRepo.updateLandmarkRating(landmarkId, 0.9);
+
+        Landmark reloaded = gameDataRepo.findLandmarkById(landmarkId);
+        assertEquals(0.9, reloaded.getRating(), 1e-9);
+        assertEquals("Elo Test Landmark", reloaded.getName());
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +18,7 @@ import org.springframework.data.geo.Metrics;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
 import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.utils.LandmarkShape;
 
 @SpringBootTest
 public class LandmarkRepositoryIntegrationTest {
@@ -77,4 +79,68 @@ public class LandmarkRepositoryIntegrationTest {
 
         assertTrue("No landmarks within 10m of this position", names.isEmpty());
     }
+
+    // ingested ~20m square around (lat, lng)
+    private static Landmark feedItem(String externalId, String name, double lat, double lng) {
+        double d = 0.0002;
+        LandmarkShape shape = LandmarkShape.of(List.of(
+            List.of(lng - d, lat - d), List.of(lng + d, lat - d), List.of(lng + d, lat + d),
+            List.of(lng - d, lat + d), List.of(lng - d, lat - d)), 1.0);
+        Landmark lm = new Landmark(name, "Cork", lat, lng);
+        lm.setExternalId(externalId);
+        lm.setSourceVersion(externalId + "@" + lat);
+        lm.setGeometry(shape.geometry());
+        lm.setSimplifiedGeometry(shape.simplifiedGeometry());
+        lm.setBbox(shape.bbox());
+        lm.setTags(Map.of("building", "yes"));
+        return lm;
+    }
+
+    @Test
+    void upsertFromFeed_newLandmark_insertedWithExternalId() {
+        Map<String, List<String>> changed = landmarkRepo.upsertFromFeed(
+            List.of(feedItem("osm:way/1", "Shandon Bells", 51.9037, -8.4767)));
+
+        assertEquals(1, changed.get("Cork").size());
+        Landmark stored = landmarkRepo.findById(changed.get("Cork").get(0)).orElseThrow();
+        assertEquals("osm:way/1", stored.getExternalId());
+        assertEquals("Shandon Bells", stored.getName());
+        assertEquals(0.5, stored.getRating(), 1e-9);
+        assertEquals(5, stored.getGeometry().getCoordinates().get(0).getCoordinates().size());
+        assertEquals(4, stored.getBbox().length);
+        assertEquals(stored.getGeometry(), stored.getDetectionGeometry());
+        assertEquals(4, landmarkRepo.count());
+    }
+
+    @Test
+    void upsertFromFeed_unchangedRefetch_writesNothing() {
+        List<Landmark> feed = List.of(feedItem("osm:way/1", "Shandon Bells", 51.9037, -8.4767));
+        landmarkRepo.upsertFromFeed(feed);
+
+        assertTrue(landmarkRepo.upsertFromFeed(feed).isEmpty());
+        assertEquals(4, landmarkRepo.count());
+    }
+
+    @Test
+    void upsertFromFeed_movedLandmark_reportsStoredId() {
+        String id = landmarkRepo.upsertFromFeed(
+            List.of(feedItem("osm:way/1", "Shandon Bells", 51.9037, -8.4767))).get("Cork").get(0);
+
+        Map<String, List<String>> changed = landmarkRepo.upsertFromFeed(
+            List.of(feedItem("osm:way/1", "Shandon Bells", 51.9038, -8.4767)));
+
+        assertEquals(List.of(id), changed.get("Cork"));
+        assertEquals(51.9038, landmarkRepo.findById(id).orElseThrow().getLatitude(), 1e-9);
+        assertEquals(4, landmarkRepo.count());
+    }
+
+    @Test
+    void upsertFromFeed_landmarkStoredWithoutExternalId_isAdopted() {
+        Map<String, List<String>> changed = landmarkRepo.upsertFromFeed(
+            List.of(feedItem("osm:way/2", "Boole Library", 51.89286, -8.49124)));
+
+        assertEquals(List.of(boole.getId()), changed.get("Cork"));
+        assertEquals("osm:way/2", landmarkRepo.findById(boole.getId()).orElseThrow().getExternalId());
+        assertEquals(3, landmarkRepo.count());
+    }
 }
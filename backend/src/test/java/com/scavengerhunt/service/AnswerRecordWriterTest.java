@@ -0,0 +1,129 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.scavengerhunt.model.AnswerTransactionRecord;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AnswerRecordWriterTest {
+
+    @Mock private MongoTemplate mockMongoTemplate;
+    @Mock private BulkOperations mockBulkOps;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnswerRecordWriter writer;
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mockMongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(AnswerTransactionRecord.class))).thenReturn(mockBulkOps);
+        when(mockBulkOps.insert(anyList())).thenAnswer(inv -> {
+            batchSizes.add(((List<?>) inv.getArgument(0)).size());
+            return mockBulkOps;
+        });
+    }
+
+    @AfterEach
+    void teardown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private static AnswerTransactionRecord record(int i) {
+        return AnswerTransactionRecord.forAttempt("session-A", "user-1", "lm-" + i, true, 1, 60L);
+    }
+
+    @Test
+    void submit_doesNotWriteOnCallerThread() {
+        // no flusher started: records stay queued
+        writer = new AnswerRecordWriter(mockMongoTemplate, meterRegistry, 100, 10, 50);
+
+        writer.submit(record(1));
+        writer.submit(record(2));
+
+        assertEquals(2, writer.queueDepth());
+        assertEquals(2.0, meterRegistry.get("answer.log.queue.depth").gauge().value());
+        verify(mockMongoTemplate, never()).bulkOps(any(BulkMode.class), eq(AnswerTransactionRecord.class));
+    }
+
+    @Test
+    void flushAll_writesInBatches() {
+        writer = new AnswerRecordWriter(mockMongoTemplate, meterRegistry, 100, 10, 50);
+        for (int i = 0; i < 25; i++) {
+            writer.submit(record(i));
+        }
+
+        writer.flushAll();
+
+        assertEquals(List.of(10, 10, 5), batchSizes);
+        assertEquals(0, writer.queueDepth());
+        assertEquals(25.0, meterRegistry.get("answer.log.records.written").counter().count());
+        assertEquals(3, meterRegistry.get("answer.log.flush").timer().count());
+    }
+
+    @Test
+    void fullQueue_callerFlushesBatch() {
+        writer = new AnswerRecordWriter(mockMongoTemplate, meterRegistry, 5, 5, 50);
+        for (int i = 0; i < 6; i++) {
+            writer.submit(record(i));
+        }
+
+        assertEquals(List.of(5), batchSizes, "the sixth submit should flush the full queue itself");
+        assertEquals(1, writer.queueDepth());
+        assertEquals(1.0, meterRegistry.get("answer.log.backpressure").counter().count());
+    }
+
+    @Test
+    void flusher_drainsInBackground() throws InterruptedException {
+        writer = new AnswerRecordWriter(mockMongoTemplate, meterRegistry, 100, 10, 20);
+        writer.start();
+
+        writer.submit(record(1));
+        writer.submit(record(2));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (writer.queueDepth() > 0 || batchSizes.isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "flusher did not drain the queue");
+            Thread.sleep(10);
+        }
+        verify(mockBulkOps, atLeastOnce()).execute();
+    }
+
+    @Test
+    void failingWrite_isRetriedThenDropped() {
+        when(mockBulkOps.execute()).thenThrow(new RuntimeException("mongo down"));
+        writer = new AnswerRecordWriter(mockMongoTemplate, meterRegistry, 100, 10, 50);
+        writer.submit(record(1));
+
+        writer.flushAll();
+
+        verify(mockBulkOps, times(3)).execute();
+        assertEquals(1.0, meterRegistry.get("answer.log.records.dropped").counter().count());
+    }
+}
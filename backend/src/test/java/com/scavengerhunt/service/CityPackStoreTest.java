@@ -0,0 +1,116 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+
+public class CityPackStoreTest {
+
+    @Mock private GameDataRepository mockGameDataRepo;
+
+    @TempDir Path dir;
+
+    private CityPackStore store;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(List.of(
+            new Landmark("id-glucksman", "Glucksman Gallery", "Cork", 51.8947, -8.4903),
+            new Landmark("id-honan", "Honan Chapel", "Cork", 51.8936, -8.4900)));
+        store = new CityPackStore(mockGameDataRepo, dir.toString());
+        store.loadPacks();
+    }
+
+    @AfterEach
+    void teardown() {
+        store.stop();
+    }
+
+    @Test
+    void export_writesAndMapsPack() {
+        CityPack pack = store.export("Cork");
+
+        assertEquals(2, pack.size());
+        assertEquals(pack, store.get("Cork"));
+        assertTrue(Files.exists(dir.resolve(CityPackStore.fileName("Cork"))));
+    }
+
+    @Test
+    void loadPacks_warmStartFromFilesWithoutMongo() {
+        store.export("Cork");
+
+        CityPackStore restarted = new CityPackStore(mockGameDataRepo, dir.toString());
+        restarted.loadPacks();
+
+        assertEquals(2, restarted.get("Cork").size());
+        verify(mockGameDataRepo, times(1)).findByCity("Cork"); // only the first node's export
+        restarted.stop();
+    }
+
+    @Test
+    void landmarksChanged_reexportsCityInBackground() {
+        store.onLandmarksChanged(new LandmarksChangedEvent("Cork"));
+
+        verify(mockGameDataRepo, timeout(1000)).findByCity("Cork");
+    }
+
+    @Test
+    void landmarksChanged_allCities_reexportsEveryPack() {
+        store.export("Cork");
+
+        store.onLandmarksChanged(LandmarksChangedEvent.allCities());
+
+        verify(mockGameDataRepo, timeout(1000).times(2)).findByCity("Cork");
+        assertTrue(Files.exists(dir.resolve(CityPackStore.fileName("Cork"))));
+    }
+
+    @Test
+    void export_cityWithoutLandmarks_dropsItsPack() {
+        store.export("Cork");
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(List.of());
+
+        assertNull(store.export("Cork"));
+        assertNull(store.get("Cork"));
+    }
+
+    @Test
+    void disabled_neverTouchesMongo() {
+        CityPackStore off = new CityPackStore(mockGameDataRepo, "");
+        off.loadPacks();
+        off.onLandmarksChanged(new LandmarksChangedEvent("Cork"));
+
+        assertFalse(off.isEnabled());
+        assertNull(off.export("Cork"));
+        assertNull(off.get("Cork"));
+        verifyNoInteractions(mockGameDataRepo);
+        off.stop();
+    }
+
+    @Test
+    void fileName_distinctPerCity() {
+        assertNotNull(CityPackStore.fileName("New York"));
+        assertFalse(CityPackStore.fileName("Москва").equals(CityPackStore.fileName("Киев")));
+    }
+}
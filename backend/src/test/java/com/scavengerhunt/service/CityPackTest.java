@@ -0,0 +1,144 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.scavengerhunt.model.Landmark;
+
+public class CityPackTest {
+
+    @TempDir Path dir;
+
+    // ~20m square around (lat, lng)
+    private static Landmark square(String id, String name, double lat, double lng) {
+        Landmark lm = new Landmark(id, name, "Cork", lat, lng);
+        double d = 0.0002;
+        lm.setGeometry(new GeoJsonPolygon(
+            new Point(lng - d, lat - d),
+            new Point(lng + d, lat - d),
+            new Point(lng + d, lat + d),
+            new Point(lng - d, lat + d),
+            new Point(lng - d, lat - d)
+        ));
+        return lm;
+    }
+
+    private CityPack pack(List<Landmark> landmarks) throws IOException {
+        Path file = dir.resolve("cork.pack");
+        CityPack.write(file, "Cork", landmarks);
+        return CityPack.open(file);
+    }
+
+    @Test
+    void writeThenOpen_roundTripsMetadataAndRing() throws IOException {
+        Landmark gallery = square("id-glucksman", "Glucksman Gallery", 51.8947, -8.4903);
+        gallery.setRating(0.7);
+        gallery.setMetaReady(true);
+        Landmark chapel = square("id-honan", "Séipéal Onáin", 51.8936, -8.4900);
+
+        CityPack pack = pack(List.of(gallery, chapel));
+
+        assertEquals("Cork", pack.getCity());
+        assertEquals(2, pack.size());
+        Landmark restored = pack.toLandmark(0); // sorted by west edge: the gallery comes first
+        assertEquals("id-glucksman", restored.getId());
+        assertEquals("Glucksman Gallery", restored.getName());
+        assertEquals(0.7, restored.getRating());
+        assertTrue(restored.isMetaReady());
+        assertEquals(gallery.getGeometry(), restored.getGeometry());
+        assertArrayEquals(new double[] { -8.4905, 51.8945, -8.4901, 51.8949 }, pack.getBbox(0), 1e-12);
+        assertEquals("Séipéal Onáin", pack.getName(1));
+        assertNull(pack.getRating(1));
+        assertFalse(pack.isMetaReady(1));
+    }
+
+    @Test
+    void detect_picksLandmarkClosestToHeading() throws IOException {
+        CityPack pack = pack(List.of(
+            square("id-north", "North", 51.8947, -8.4903),
+            square("id-northeast", "North East", 51.8946, -8.4898),
+            square("id-far", "Far Away", 51.9000, -8.4700)));
+
+        int facingNorth = pack.detect(51.8943, -8.4903, 0.0, 90, 100);
+        int facingEast = pack.detect(51.8943, -8.4903, 60.0, 90, 100);
+
+        assertEquals("id-north", pack.getId(facingNorth));
+        assertEquals("id-northeast", pack.getId(facingEast));
+        assertEquals(-1, pack.detect(51.8943, -8.4903, 180.0, 90, 100));
+    }
+
+    @Test
+    void detect_largeOutlineReachingWindowFromTheWest_found() throws IOException {
+        // a long building whose west edge is far outside the cone's window, and many small ones in between
+        Landmark quay = new Landmark("id-quay", "Long Quay", "Cork", 51.8943, -8.4950);
+        quay.setGeometry(new GeoJsonPolygon(
+            new Point(-8.5000, 51.8945), new Point(-8.4900, 51.8945), new Point(-8.4900, 51.8946),
+            new Point(-8.5000, 51.8946), new Point(-8.5000, 51.8945)));
+        List<Landmark> landmarks = new ArrayList<>(List.of(quay));
+        for (int i = 0; i < 50; i++) {
+            landmarks.add(square("id-" + i, "Small " + i, 51.8800, -8.4990 + i * 0.0001));
+        }
+
+        CityPack pack = pack(landmarks);
+
+        assertEquals("id-quay", pack.getId(pack.detect(51.8943, -8.4901, 0.0, 90, 50)));
+    }
+
+    @Test
+    void withinRadius_nearestFirst() throws IOException {
+        CityPack pack = pack(List.of(
+            square("id-far", "Far Away", 51.9000, -8.4700),
+            square("id-near", "Near", 51.8944, -8.4903),
+            square("id-mid", "Mid", 51.8960, -8.4903)));
+
+        int[] hits = pack.withinRadius(51.8943, -8.4903, 500);
+
+        assertEquals(2, hits.length);
+        assertEquals("id-near", pack.getId(hits[0]));
+        assertEquals("id-mid", pack.getId(hits[1]));
+    }
+
+    @Test
+    void landmarkWithoutOutline_keptForRoundsButNeverDetected() throws IOException {
+        CityPack pack = pack(List.of(new Landmark("id-point", "Point Only", "Cork", 51.8947, -8.4903)));
+
+        assertEquals(0, pack.getRingPointCount(0));
+        assertNull(pack.toLandmark(0).getGeometry());
+        assertEquals(-1, pack.detect(51.8943, -8.4903, 0.0, 90, 100));
+        assertEquals(1, pack.withinRadius(51.8943, -8.4903, 100).length);
+    }
+
+    @Test
+    void open_notAPack_throws() throws IOException {
+        Path file = dir.resolve("junk.pack");
+        Files.write(file, new byte[128]);
+
+        assertThrows(IOException.class, () -> CityPack.open(file));
+    }
+
+    @Test
+    void write_replacesPackAtomically_openedPackStillReadable() throws IOException {
+        CityPack before = pack(List.of(square("id-old", "Old", 51.8947, -8.4903)));
+
+        CityPack after = pack(List.of(square("id-new", "New", 51.8947, -8.4903)));
+
+        assertEquals("id-old", before.getId(0));
+        assertEquals("id-new", after.getId(0));
+        assertFalse(Files.exists(dir.resolve("cork.pack.tmp")));
+    }
+}
@@ -0,0 +1,143 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+import com.scavengerhunt.service.CityPayloadCache.CityPayload;
+
+public class CityPayloadCacheTest {
+
+    @Mock private GameDataRepository mockGameDataRepo;
+
+    private CityPayloadCache cache;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cache = new CityPayloadCache(mockGameDataRepo, new LandmarkGeometryCache(100), new ObjectMapper(), 10);
+    }
+
+    private static List<Landmark> landmarks(int count) {
+        List<Landmark> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Landmark lm = new Landmark("lm-" + i, "Landmark " + i, "Cork", 51.89 + i * 0.001, -8.49);
+            double lat = lm.getLatitude();
+            lm.setGeometry(new GeoJsonPolygon(
+                new Point(-8.4901, lat - 0.0001),
+                new Point(-8.4899, lat - 0.0001),
+                new Point(-8.4899, lat + 0.0001),
+                new Point(-8.4901, lat - 0.0001)
+            ));
+            list.add(lm);
+        }
+        return list;
+    }
+
+    @Test
+    void get_buildsOnceAndReusesBytes() {
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(10));
+
+        CityPayload first = cache.get("Cork", 10);
+        CityPayload second = cache.get("Cork", 10);
+
+        assertSame(first, second);
+        assertEquals(10, first.landmarkCount());
+        assertTrue(first.gzip().length < first.json().length);
+        verify(mockGameDataRepo, times(1)).findByCity("Cork");
+    }
+
+    @Test
+    void get_belowThreshold_returnsNullAndDoesNotCache() {
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(5));
+
+        assertNull(cache.get("Cork", 10));
+        assertNull(cache.get("Cork", 10));
+
+        verify(mockGameDataRepo, times(2)).findByCity("Cork");
+    }
+
+    @Test
+    void landmarksChanged_rebuildsWithNewVersion() {
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(10));
+        CityPayload before = cache.get("Cork", 10);
+
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(12));
+        cache.onLandmarksChanged(new LandmarksChangedEvent("Cork"));
+        CityPayload after = cache.get("Cork", 10);
+
+        assertNotEquals(before.version(), after.version());
+        assertEquals(12, after.landmarkCount());
+    }
+
+    @Test
+    void sameLandmarks_sameVersion() {
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(10));
+        CityPayload before = cache.get("Cork", 10);
+
+        cache.invalidateCity(null);
+        CityPayload after = cache.get("Cork", 10);
+
+        assertEquals(before.version(), after.version(), "Version is a content hash, not a build counter");
+    }
+
+    @Test
+    void matches_ifNoneMatchForms() {
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(landmarks(10));
+        CityPayload payload = cache.get("Cork", 10);
+
+        assertTrue(payload.matches(payload.etag()));
+        assertTrue(payload.matches("\"other\", W/" + payload.etag()));
+        assertTrue(payload.matches("*"));
+        assertFalse(payload.matches("\"other\""));
+        assertFalse(payload.matches(null));
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneBuild() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockGameDataRepo.findByCity("Cork")).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return landmarks(10);
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<CityPayload> first = pool.submit(() -> cache.get("Cork", 10));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<CityPayload> second = pool.submit(() -> cache.get("Cork", 10));
+            Thread.sleep(50); // let the second miss reach the running build
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            verify(mockGameDataRepo, times(1)).findByCity("Cork");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
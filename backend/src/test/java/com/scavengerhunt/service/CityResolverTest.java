@@ -0,0 +1,140 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.model.CityBoundary;
+import com.scavengerhunt.model.CityCell;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CityResolverTest {
+
+    @Mock private LandmarkProcessorClient mockClient;
+    @Mock private MongoTemplate mockMongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CityResolver resolver;
+
+    // roughly Cork city
+    private static final List<GeoJsonPolygon> CORK = List.of(new GeoJsonPolygon(
+        new Point(-8.55, 51.87), new Point(-8.40, 51.87), new Point(-8.40, 51.93), new Point(-8.55, 51.93), new Point(-8.55, 51.87)));
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new CityResolver(mockClient, mockMongoTemplate, meterRegistry, 7, 1000);
+    }
+
+    @AfterEach
+    void teardown() {
+        resolver.stop();
+    }
+
+    private void awaitBoundaries(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && resolver.boundaryCount() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, resolver.boundaryCount());
+    }
+
+    @Test
+    void resolve_samePositionTwice_callsProcessorOnce() {
+        when(mockClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+
+        assertEquals("Cork", resolver.resolve(51.8943, -8.4922));
+        assertEquals("Cork", resolver.resolve(51.8943, -8.4922));
+
+        verify(mockClient, times(1)).resolveCity(anyDouble(), anyDouble());
+        verify(mockMongoTemplate).save(any(CityCell.class));
+        assertEquals(1.0, meterRegistry.counter("city.resolve", "source", "cell").count());
+    }
+
+    @Test
+    void resolve_storedCell_skipsProcessor() {
+        when(mockMongoTemplate.findById(anyString(), eq(CityCell.class))).thenReturn(new CityCell("gc7x3r4", "Cork"));
+
+        assertEquals("Cork", resolver.resolve(51.8943, -8.4922));
+
+        verify(mockClient, never()).resolveCity(anyDouble(), anyDouble());
+    }
+
+    @Test
+    void resolve_unresolvable_returnsNullAndCachesNothing() {
+        when(mockClient.resolveCity(anyDouble(), anyDouble())).thenReturn(null);
+
+        assertNull(resolver.resolve(51.8943, -8.4922));
+        assertNull(resolver.resolve(51.8943, -8.4922));
+
+        verify(mockClient, times(2)).resolveCity(anyDouble(), anyDouble());
+        verify(mockMongoTemplate, never()).save(any(CityCell.class));
+    }
+
+    @Test
+    void resolve_learnedBoundary_resolvesOtherCellsLocally() throws InterruptedException {
+        when(mockClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        when(mockClient.fetchCityBoundary(eq("Cork"), anyDouble(), anyDouble())).thenReturn(CORK);
+
+        resolver.resolve(51.8943, -8.4922);
+        awaitBoundaries(1);
+
+        // a few km away, a different cell but inside the boundary
+        assertEquals("Cork", resolver.resolve(51.9200, -8.4200));
+        verify(mockClient, times(1)).resolveCity(anyDouble(), anyDouble());
+        verify(mockMongoTemplate).save(any(CityBoundary.class));
+    }
+
+    @Test
+    void resolve_boundaryNotContainingPosition_isIgnored() throws InterruptedException {
+        when(mockClient.resolveCity(anyDouble(), anyDouble())).thenReturn("Cork");
+        when(mockClient.fetchCityBoundary(eq("Cork"), anyDouble(), anyDouble())).thenReturn(CORK);
+
+        resolver.resolve(40.7128, -74.0060); // a namesake somewhere else
+        Thread.sleep(200);
+
+        assertEquals(0, resolver.boundaryCount());
+        verify(mockMongoTemplate, never()).save(any(CityBoundary.class));
+    }
+
+    @Test
+    void loadBoundaries_storedBoundaryServesWithoutProcessor() {
+        when(mockMongoTemplate.findAll(CityBoundary.class)).thenReturn(List.of(new CityBoundary("Cork", CORK)));
+        resolver.loadBoundaries();
+
+        assertEquals("Cork", resolver.resolve(51.8943, -8.4922));
+
+        verify(mockClient, never()).resolveCity(anyDouble(), anyDouble());
+        verify(mockClient, never()).fetchCityBoundary(anyString(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void resolve_storedCellInsideLearnedBoundary_cellWins() {
+        when(mockMongoTemplate.findAll(CityBoundary.class)).thenReturn(List.of(new CityBoundary("Cork", CORK)));
+        when(mockMongoTemplate.findById(anyString(), eq(CityCell.class))).thenReturn(new CityCell("gc7x3r4", "Ballincollig"));
+        resolver.loadBoundaries();
+
+        assertEquals("Ballincollig", resolver.resolve(51.8943, -8.4922));
+        assertEquals(0.0, meterRegistry.counter("city.resolve", "source", "boundary").count());
+    }
+}
@@ -0,0 +1,122 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.client.PuzzleAgentClient;
+import com.scavengerhunt.game.GameLogicManager;
+import com.scavengerhunt.model.PersistedGameSession;
+import com.scavengerhunt.repository.GameDataRepository;
+
+public class GameSessionRegistryTest {
+
+    @Mock private GameSessionService mockGameSessionService;
+    @Mock private GameDataRepository mockGameDataRepo;
+    @Mock private LandmarkProcessorClient mockLandmarkProcessorClient;
+    @Mock private LandmarkIndexService mockLandmarkIndex;
+    @Mock private LandmarkMetaDispatcher mockLandmarkMetaDispatcher;
+    @Mock private PuzzleAgentClient mockPuzzleAgentClient;
+    @Mock private AnswerRecordWriter mockAnswerRecordWriter;
+    @Mock private RiddlePrefetcher mockRiddlePrefetcher;
+    @Mock private RiddleCache mockRiddleCache;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        session("user-a", "session-a");
+        session("user-b", "session-b");
+        session("user-c", "session-c");
+    }
+
+    private void session(String userId, String sessionId) {
+        PersistedGameSession s = new PersistedGameSession(sessionId, userId, "Cork");
+        when(mockGameSessionService.findByUserId(userId)).thenReturn(Optional.of(s));
+    }
+
+    private GameSessionRegistry registry(int maxEntries, long maxIdleMinutes) {
+        return new GameSessionRegistry(mockGameSessionService, mockGameDataRepo, mockLandmarkProcessorClient,
+            mockLandmarkIndex, mockLandmarkMetaDispatcher, mockPuzzleAgentClient, mockAnswerRecordWriter, mockRiddlePrefetcher, mockRiddleCache, maxEntries, maxIdleMinutes, 30);
+    }
+
+    @Test
+    void get_reusesLiveGame() {
+        GameSessionRegistry registry = registry(10, 30);
+
+        GameLogicManager first = registry.get("user-a");
+        GameLogicManager second = registry.get("user-a");
+
+        assertSame(first, second);
+        verify(mockGameSessionService, times(1)).findByUserId("user-a");
+    }
+
+    @Test
+    void get_noSession_returnsNull() {
+        when(mockGameSessionService.findByUserId("nobody")).thenReturn(Optional.empty());
+
+        assertNull(registry(10, 30).get("nobody"));
+    }
+
+    @Test
+    void get_overCapacity_evictsLeastRecentlyUsed() throws InterruptedException {
+        GameSessionRegistry registry = registry(2, 30);
+        GameLogicManager a = registry.get("user-a");
+        Thread.sleep(2);
+        registry.get("user-b");
+        Thread.sleep(2);
+        registry.get("user-a"); // a is now more recent than b
+        Thread.sleep(2);
+        registry.get("user-c");
+
+        assertEquals(2, registry.size());
+        assertSame(a, registry.get("user-a"));
+        verify(mockGameSessionService, times(1)).findByUserId("user-b");
+        registry.get("user-b");
+        verify(mockGameSessionService, times(2)).findByUserId("user-b");
+    }
+
+    @Test
+    void evictIdle_dropsIdleGames() {
+        GameSessionRegistry registry = registry(10, 0);
+        registry.get("user-a");
+
+        registry.evictIdle();
+
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void persist_versionConflict_dropsLiveGame() {
+        GameSessionRegistry registry = registry(10, 30);
+        GameLogicManager game = registry.get("user-a");
+        when(mockGameSessionService.save(any())).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> registry.persist(game));
+        assertNotSame(game, registry.get("user-a"));
+    }
+
+    @Test
+    void evict_forcesRebuild() {
+        GameSessionRegistry registry = registry(10, 30);
+        GameLogicManager game = registry.get("user-a");
+
+        registry.evict("user-a");
+
+        assertNotSame(game, registry.get("user-a"));
+    }
+}
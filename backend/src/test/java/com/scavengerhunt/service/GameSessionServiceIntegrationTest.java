@@ -5,18 +5,29 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
+import com.scavengerhunt.model.Landmark;
 import com.scavengerhunt.model.PersistedGameSession;
+import com.scavengerhunt.model.RoundSnapshot;
+import com.scavengerhunt.model.RoundState;
 import com.scavengerhunt.service.GameSessionService;
 
 @SpringBootTest
 public class GameSessionServiceIntegrationTest {
 
     @Autowired private GameSessionService gameSessionService;
+    @Autowired private MongoTemplate mongoTemplate;
 
     private final String userId = "integration-test-user";
 
@@ -77,4 +88,61 @@ public class GameSessionServiceIntegrationTest {
         gameSessionService.removeSession(userId);
         assertFalse(gameSessionService.hasSession(userId));
     }
+
+    @Test
+    void save_persistsRoundSnapshot() {
+        Landmark quad = new Landmark("id-quad", "The Quad", "Cork", 51.8937, -8.4922);
+        quad.setRating(0.7);
+        PersistedGameSession session = gameSessionService.createSession(userId, "Cork");
+        session.setRoundSnapshot(RoundSnapshot.of("Cork", List.of(quad)));
+        gameSessionService.save(session);
+
+        RoundSnapshot reloaded = gameSessionService.findByUserId(userId).get().getRoundSnapshot();
+
+        assertNotNull(reloaded);
+        assertEquals(1, reloaded.size());
+        assertEquals("The Quad", reloaded.getName(0));
+        assertEquals(0.7, reloaded.getRating(0), 1e-9);
+        assertEquals(51.8937, reloaded.getLatitude(0), 1e-9);
+    }
+
+    @Test
+    void save_persistsRoundStateAsCompactArrays() {
+        PersistedGameSession session = gameSessionService.createSession(userId, "Cork");
+        RoundState state = RoundState.start(List.of("id-quad", "id-boole"), 3);
+        state.correctAnswer(0);
+        state.wrongAnswer(1);
+        session.setRoundState(state);
+        gameSessionService.save(session);
+
+        PersistedGameSession reloaded = gameSessionService.findByUserId(userId).get();
+        Document raw = mongoTemplate.findById(session.getSessionId(), Document.class, "game_sessions");
+
+        assertEquals(Map.of("id-boole", 2), reloaded.getAttemptsByLandmarkId());
+        assertEquals(Map.of("id-quad", true), reloaded.getRoundState().toSolvedMap());
+        assertFalse(raw.containsKey("attemptsByLandmarkId"));
+        assertTrue(raw.get("roundState", Document.class).get("attemptsLeft") instanceof Binary);
+    }
+
+    @Test
+    void updatePlayerPosition_setsOnlyPosition_withoutVersionBump() {
+        PersistedGameSession held = gameSessionService.createSession(userId, "Cork");
+        Long version = held.getVersion();
+
+        assertTrue(gameSessionService.updatePlayerPosition(userId, 51.89, -8.49, 90.0));
+
+        PersistedGameSession reloaded = gameSessionService.findByUserId(userId).get();
+        assertEquals(51.89, reloaded.getPlayerLat(), 1e-9);
+        assertEquals(90.0, reloaded.getPlayerAngle(), 1e-9);
+        assertEquals(version, reloaded.getVersion());
+
+        // a full save of the copy held before the position update must not hit an optimistic-lock conflict
+        held.setFinished(true);
+        gameSessionService.save(held);
+    }
+
+    @Test
+    void updatePlayerPosition_noSession_returnsFalse() {
+        assertFalse(gameSessionService.updatePlayerPosition("nobody", 51.89, -8.49, 90.0));
+    }
 }
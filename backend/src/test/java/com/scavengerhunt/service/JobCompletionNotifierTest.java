@@ -0,0 +1,87 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.scavengerhunt.model.BackgroundJob;
+import com.scavengerhunt.repository.BackgroundJobRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JobCompletionNotifierTest {
+
+    private static final String KEY = "fetch-landmarks-cork";
+
+    @Mock private BackgroundJobRepository jobRepo;
+
+    private JobCompletionNotifier notifier;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        notifier = new JobCompletionNotifier(jobRepo, new SimpleMeterRegistry(), 30);
+    }
+
+    private static BackgroundJob job(BackgroundJob.Status status) {
+        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        job.setStatus(status);
+        return job;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(DeferredResult<ResponseEntity<Map<String, Object>>> result) {
+        return ((ResponseEntity<Map<String, Object>>) result.getResult()).getBody();
+    }
+
+    @Test
+    void await_jobAlreadyDone_answersAtOnce() {
+        when(jobRepo.findByIdempotencyKey(KEY)).thenReturn(Optional.of(job(BackgroundJob.Status.DONE)));
+
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = notifier.await(KEY);
+
+        assertTrue(result.hasResult());
+        assertEquals("DONE", body(result).get("status"));
+        assertEquals(true, body(result).get("ready"));
+        assertEquals(0, notifier.waitingCount());
+    }
+
+    @Test
+    void await_pendingJob_answersOnFinishedEvent() {
+        when(jobRepo.findByIdempotencyKey(KEY)).thenReturn(Optional.of(job(BackgroundJob.Status.IN_PROGRESS)));
+
+        DeferredResult<ResponseEntity<Map<String, Object>>> first = notifier.await(KEY);
+        DeferredResult<ResponseEntity<Map<String, Object>>> second = notifier.await(KEY);
+        assertFalse(first.hasResult());
+        assertEquals(2, notifier.waitingCount());
+
+        notifier.onJobFinished(new JobFinishedEvent("job-1", "fetch-landmarks-dublin", BackgroundJob.Status.DONE));
+        assertFalse(first.hasResult(), "Another city's job must not answer");
+
+        notifier.onJobFinished(new JobFinishedEvent("job-1", KEY, BackgroundJob.Status.FAILED));
+
+        assertEquals("FAILED", body(first).get("status"));
+        assertEquals(false, body(second).get("ready"));
+        assertEquals(0, notifier.waitingCount());
+    }
+
+    @Test
+    void await_unknownJob_returns404() {
+        when(jobRepo.findByIdempotencyKey(KEY)).thenReturn(Optional.empty());
+
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = notifier.await(KEY);
+
+        assertEquals(404, ((ResponseEntity<?>) result.getResult()).getStatusCode().value());
+    }
+}
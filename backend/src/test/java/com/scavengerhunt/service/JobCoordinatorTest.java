@@ -1,137 +1,212 @@
 package com.scavengerhunt.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.scavengerhunt.model.BackgroundJob;
 import com.scavengerhunt.repository.BackgroundJobRepository;
-import com.scavengerhunt.service.JobCoordinator;
-import com.scavengerhunt.service.LandmarkIngestionService;
 
 public class JobCoordinatorTest {
 
     @Mock private BackgroundJobRepository jobRepo;
     @Mock private LandmarkIngestionService landmarkIngestionService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     private JobCoordinator coordinator;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        coordinator = new JobCoordinator(jobRepo, landmarkIngestionService);
-        when(jobRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        coordinator = new JobCoordinator(jobRepo, landmarkIngestionService, eventPublisher, 2, 60, 10, 600);
+        when(jobRepo.complete(anyString(), anyString())).thenReturn(true);
     }
 
-    @Test
-    void enqueueFetchLandmarks_newCity_savesNewJob() {
-        when(jobRepo.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
-        BackgroundJob saved = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
-        when(jobRepo.save(any())).thenReturn(saved);
-
-        BackgroundJob job = coordinator.enqueueFetchLandmarks("Cork", 51.89, -8.49);
+    @AfterEach
+    void teardown() {
+        coordinator.stop();
+    }
 
-        verify(jobRepo).save(any());
-        assertEquals(BackgroundJob.Status.PENDING, job.getStatus());
+    private BackgroundJob claimed(String city) {
+        BackgroundJob job = BackgroundJob.fetchLandmarks(city, 51.89, -8.49);
+        job.setStatus(BackgroundJob.Status.IN_PROGRESS);
+        job.setAttemptCount(1);
+        job.setLeaseOwner(coordinator.getOwnerId());
+        return job;
     }
 
     @Test
-    void enqueueFetchLandmarks_sameCity_returnsExistingJob() {
+    void enqueueFetchLandmarks_upsertsByIdempotencyKey() {
         BackgroundJob existing = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        when(jobRepo.insertIfAbsent(any())).thenReturn(existing);
 
-        when(jobRepo.findByIdempotencyKey("fetch-landmarks-cork")).thenReturn(Optional.of(existing));
+        BackgroundJob job = coordinator.enqueueFetchLandmarks("Cork", 51.89, -8.49);
 
+        assertEquals(existing, job);
+        verify(jobRepo).insertIfAbsent(argThat(j -> "fetch-landmarks-cork".equals(j.getIdempotencyKey())));
         verify(jobRepo, never()).save(any());
     }
 
     @Test
     void enqueueFetchLandmarks_cityWithSpaces_normalisedKey() {
-        when(jobRepo.findByIdempotencyKey("fetch-landmarks-new-york")).thenReturn(Optional.empty());
+        coordinator.enqueueFetchLandmarks("New York", 40.71, -74.00);
 
-        when(jobRepo.save(any())).thenReturn(
-            BackgroundJob.fetchLandmarks("New York", 40.71, -74.00)
-        );
+        verify(jobRepo).insertIfAbsent(argThat(j -> "fetch-landmarks-new-york".equals(j.getIdempotencyKey())));
+    }
 
-        coordinator.enqueueFetchLandmarks("New York", 40.71, -74.00);
+    @Test
+    void enqueueFetchLandmarks_newJob_dispatchedWithoutWaitingForPoll() {
+        when(jobRepo.insertIfAbsent(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        coordinator.enqueueFetchLandmarks("Cork", 51.89, -8.49);
 
-        verify(jobRepo).findByIdempotencyKey("fetch-landmarks-new-york");
+        verify(jobRepo, timeout(1000)).claimNext(eq(coordinator.getOwnerId()), any(Instant.class), eq(3));
+        verify(jobRepo, never()).reapExpiredLeases(any());
     }
 
     @Test
-    void processPendingJobs_jobAtMaxAttempts_setsStatusFailed() {
-        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
-        job.setAttemptCount(3);
+    void enqueueFetchLandmarks_existingJob_doesNotWake() throws InterruptedException {
+        when(jobRepo.insertIfAbsent(any())).thenReturn(BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49));
+
+        coordinator.enqueueFetchLandmarks("Cork", 51.89, -8.49);
+        Thread.sleep(100);
 
-        when(jobRepo.findByStatus(BackgroundJob.Status.PENDING)).thenReturn(List.of(job));
+        verify(jobRepo, never()).claimNext(anyString(), any(Instant.class), anyInt());
+    }
+
+    @Test
+    void backoff_growsExponentiallyWithJitterUpToMax() {
+        for (int i = 0; i < 20; i++) {
+            Duration first = coordinator.backoff(1);
+            Duration third = coordinator.backoff(3);
+            Duration late = coordinator.backoff(30);
+            assertTrue(first.toMillis() >= 5_000 && first.toMillis() <= 10_000, "first retry: " + first);
+            assertTrue(third.toMillis() >= 20_000 && third.toMillis() <= 40_000, "third retry: " + third);
+            assertTrue(late.toMillis() >= 300_000 && late.toMillis() <= 600_000, "capped: " + late);
+        }
+    }
 
+    @Test
+    void processPendingJobs_reapsExpiredLeasesAndFailsExhaustedJobs() {
         coordinator.processPendingJobs();
 
-        assertEquals(BackgroundJob.Status.FAILED, job.getStatus());
-        verify(jobRepo).save(job);
+        verify(jobRepo).reapExpiredLeases(any(Instant.class));
+        verify(jobRepo).failExhausted(3);
+        verify(jobRepo).claimNext(eq(coordinator.getOwnerId()), any(Instant.class), eq(3));
         verifyNoInteractions(landmarkIngestionService);
     }
 
     @Test
-    void processPendingJobs_jobBelowMaxAttempts_callsProcessJob() {
-        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
-        job.setAttemptCount(0);
+    void processPendingJobs_exhaustedJobs_announcedAsFailed() {
+        BackgroundJob exhausted = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
+        exhausted.setStatus(BackgroundJob.Status.FAILED);
+        when(jobRepo.failExhausted(3)).thenReturn(List.of(exhausted));
 
-        when(jobRepo.findByStatus(BackgroundJob.Status.PENDING)).thenReturn(List.of(job));
+        coordinator.processPendingJobs();
+
+        verify(eventPublisher).publishEvent(new JobFinishedEvent(exhausted.getJobId(), "fetch-landmarks-cork", BackgroundJob.Status.FAILED));
+    }
+
+    @Test
+    void prepareQueue_indexFailsTwice_startsAnyway() {
+        when(jobRepo.ensureIdempotencyIndex()).thenThrow(new RuntimeException("E11000 duplicate key"));
+
+        coordinator.prepareQueue();
+
+        verify(jobRepo, times(2)).ensureIdempotencyIndex();
+    }
+
+    @Test
+    void processPendingJobs_claimedJob_completesWithLease() {
+        BackgroundJob job = claimed("Cork");
+        when(jobRepo.claimNext(anyString(), any(Instant.class), anyInt())).thenReturn(job, (BackgroundJob) null);
 
         coordinator.processPendingJobs();
 
-        assertEquals(BackgroundJob.Status.DONE, job.getStatus());
-        assertNotNull(job.getCompletedAt());
-        assertEquals(1, job.getAttemptCount());
-        // save() is called twice: once at start (IN_PROGRESS), once at end (DONE)
+        verify(jobRepo, timeout(1000)).complete(job.getJobId(), coordinator.getOwnerId());
         verify(landmarkIngestionService).fetchForLocation(51.89, -8.49);
-        verify(jobRepo, times(2)).save(job);
+        verify(eventPublisher).publishEvent(new JobFinishedEvent(job.getJobId(), "fetch-landmarks-cork", BackgroundJob.Status.DONE));
     }
 
     @Test
-    void processJob_serviceThrows_setStatusPendingForEntry() {
-        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
-        job.setAttemptCount(0);
-
-        when(jobRepo.findByStatus(BackgroundJob.Status.PENDING)).thenReturn(List.of(job));
+    void processJob_serviceThrows_releasesJobForRetry() {
+        BackgroundJob job = claimed("Cork");
+        when(jobRepo.claimNext(anyString(), any(Instant.class), anyInt())).thenReturn(job, (BackgroundJob) null);
         doThrow(new RuntimeException("network error"))
             .when(landmarkIngestionService).fetchForLocation(anyDouble(), anyDouble());
 
+        Instant before = Instant.now();
         coordinator.processPendingJobs();
 
-        assertEquals(BackgroundJob.Status.PENDING, job.getStatus());
-        assertEquals("network error", job.getLastError());
-        assertEquals(1, job.getAttemptCount());
+        verify(jobRepo, timeout(1000)).release(eq(job.getJobId()), eq(coordinator.getOwnerId()), eq("network error"),
+            argThat(retryAt -> !retryAt.isBefore(before.plusSeconds(5))));
+        verify(jobRepo, never()).complete(anyString(), anyString());
     }
 
     @Test
-    void processJob_serviceThrows_doesNotSetCompletedAt() {
-        BackgroundJob job = BackgroundJob.fetchLandmarks("Cork", 51.89, -8.49);
-        job.setAttemptCount(0);
-
-        when(jobRepo.findByStatus(BackgroundJob.Status.PENDING)).thenReturn(List.of(job));
-        doThrow(new RuntimeException("timeout"))
+    void processJob_lastAttemptFails_marksFailedAndAnnouncesIt() {
+        BackgroundJob job = claimed("Cork");
+        job.setAttemptCount(3);
+        when(jobRepo.claimNext(anyString(), any(Instant.class), anyInt())).thenReturn(job, (BackgroundJob) null);
+        when(jobRepo.fail(anyString(), anyString(), anyString())).thenReturn(true);
+        doThrow(new RuntimeException("network error"))
             .when(landmarkIngestionService).fetchForLocation(anyDouble(), anyDouble());
 
         coordinator.processPendingJobs();
 
-        assertNull(job.getCompletedAt(), "completedAt should not be set on failure");
+        verify(jobRepo, timeout(1000)).fail(job.getJobId(), coordinator.getOwnerId(), "network error");
+        verify(eventPublisher, timeout(1000))
+            .publishEvent(new JobFinishedEvent(job.getJobId(), "fetch-landmarks-cork", BackgroundJob.Status.FAILED));
+        verify(jobRepo, never()).release(anyString(), anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    void processPendingJobs_claimsOnlyWhileWorkersAreFree() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(landmarkIngestionService).fetchForLocation(anyDouble(), anyDouble());
+        when(jobRepo.claimNext(anyString(), any(Instant.class), anyInt()))
+            .thenReturn(claimed("Cork"), claimed("Dublin"), claimed("Galway"));
+
+        coordinator.processPendingJobs();
+        started.await(5, TimeUnit.SECONDS);
+
+        // both workers busy: the third job stays in the queue
+        verify(jobRepo, times(2)).claimNext(anyString(), any(Instant.class), anyInt());
+
+        // the next poll renews the leases of the running jobs
+        coordinator.processPendingJobs();
+        verify(jobRepo, times(2)).renewLease(anyString(), eq(coordinator.getOwnerId()), any(Instant.class));
+        release.countDown();
     }
 }
@@ -0,0 +1,101 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.model.Player;
+
+public class LandmarkGeometryCacheTest {
+
+    private LandmarkGeometryCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new LandmarkGeometryCache(2);
+    }
+
+    private static Landmark landmark(String id, double lat, double lng, double size) {
+        Landmark lm = new Landmark(id, "Landmark " + id, "Cork", lat, lng);
+        lm.setGeometry(new GeoJsonPolygon(
+            new Point(lng - size, lat - size),
+            new Point(lng + size, lat - size),
+            new Point(lng + size, lat + size),
+            new Point(lng - size, lat - size)
+        ));
+        return lm;
+    }
+
+    @Test
+    void prepared_sameGeometry_returnsCachedInstance() {
+        Landmark lm = landmark("id-glucksman", 51.8947, -8.4903, 0.0002);
+
+        PreparedGeometry first = cache.prepared(lm);
+        PreparedGeometry second = cache.prepared(landmark("id-glucksman", 51.8947, -8.4903, 0.0002));
+
+        assertSame(first, second, "Equal geometry for the same id should hit the cache");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void prepared_changedGeometry_rebuilds() {
+        Landmark original = landmark("id-glucksman", 51.8947, -8.4903, 0.0002);
+        original.setSourceVersion("v1");
+        Landmark reingested = landmark("id-glucksman", 51.8947, -8.4903, 0.0004);
+        reingested.setSourceVersion("v2");
+
+        PreparedGeometry before = cache.prepared(original);
+        PreparedGeometry after = cache.prepared(reingested);
+
+        assertNotSame(before, after, "A new geometry version must not reuse the old polygon");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void landmarksChanged_dropsCityEntries() {
+        Landmark lm = landmark("id-glucksman", 51.8947, -8.4903, 0.0002);
+        PreparedGeometry before = cache.prepared(lm);
+
+        cache.onLandmarksChanged(new LandmarksChangedEvent("Dublin"));
+        assertSame(before, cache.prepared(lm));
+
+        cache.onLandmarksChanged(new LandmarksChangedEvent("Cork"));
+        assertEquals(0, cache.size());
+        assertNotSame(before, cache.prepared(lm));
+    }
+
+    @Test
+    void prepared_isBounded() {
+        cache.prepared(landmark("a", 51.8947, -8.4903, 0.0002));
+        cache.prepared(landmark("b", 51.8950, -8.4903, 0.0002));
+        cache.prepared(landmark("c", 51.8953, -8.4903, 0.0002));
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void prepared_intersectsPlayerCone() {
+        Landmark lm = landmark("id-glucksman", 51.8947, -8.4903, 0.0002);
+        Player facing = new Player(51.8943, -8.4903, 0.0, "Cork");
+        Player away = new Player(51.8943, -8.4903, 180.0, "Cork");
+
+        assertTrue(cache.prepared(lm).intersects(facing.getPlayerCone()));
+        assertTrue(!cache.prepared(lm).intersects(away.getPlayerCone()));
+    }
+
+    @Test
+    void prepared_noGeometry_throws() {
+        Landmark lm = new Landmark("id-empty", "Empty", "Cork", 51.89, -8.49);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.prepared(lm));
+    }
+}
@@ -0,0 +1,213 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Envelope;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
+
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.model.Player;
+import com.scavengerhunt.repository.GameDataRepository;
+
+public class LandmarkIndexServiceTest {
+
+    @Mock private GameDataRepository mockGameDataRepo;
+
+    private LandmarkGeometryCache geometryCache;
+    private LandmarkIndexService index;
+
+    private Landmark glucksman = square("id-glucksman", "Glucksman Gallery", 51.8947, -8.4903);
+    private Landmark farAway = square("id-far", "Far Away", 51.9000, -8.4700);
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(mockGameDataRepo.findByCity("Cork")).thenReturn(List.of(glucksman, farAway));
+        geometryCache = new LandmarkGeometryCache(100);
+        index = new LandmarkIndexService(mockGameDataRepo, geometryCache, 10, "jts");
+    }
+
+    // ~20m square around (lat, lng)
+    private static Landmark square(String id, String name, double lat, double lng) {
+        Landmark lm = new Landmark(id, name, "Cork", lat, lng);
+        double d = 0.0002;
+        lm.setGeometry(new GeoJsonPolygon(
+            new Point(lng - d, lat - d),
+            new Point(lng + d, lat - d),
+            new Point(lng + d, lat + d),
+            new Point(lng - d, lat + d),
+            new Point(lng - d, lat - d)
+        ));
+        return lm;
+    }
+
+    @Test
+    void query_returnsOnlyLandmarksOverlappingEnvelope() {
+        List<Landmark> res = index.query("Cork", new Envelope(-8.4906, -8.4900, 51.8944, 51.8950));
+
+        assertEquals(1, res.size());
+        assertEquals("id-glucksman", res.get(0).getId());
+    }
+
+    @Test
+    void query_unknownCity_returnsEmpty() {
+        assertTrue(index.query("Dublin", new Envelope(-8.4906, -8.4900, 51.8944, 51.8950)).isEmpty());
+    }
+
+    @Test
+    void detect_facingLandmark_returnsIt() {
+        // ~45m south of the gallery, facing north
+        Player player = new Player(51.8943, -8.4903, 0.0, "Cork");
+
+        Landmark detected = index.detect("Cork", player);
+
+        assertNotNull(detected);
+        assertEquals("id-glucksman", detected.getId());
+    }
+
+    @Test
+    void detect_facingAway_returnsNull() {
+        Player player = new Player(51.8943, -8.4903, 180.0, "Cork");
+
+        assertNull(index.detect("Cork", player));
+    }
+
+    @Test
+    void index_isBuiltOncePerCity() {
+        Player player = new Player(51.8943, -8.4903, 0.0, "Cork");
+
+        index.detect("Cork", player);
+        index.detect("Cork", player);
+
+        verify(mockGameDataRepo, times(1)).findByCity("Cork");
+        assertEquals(2, index.indexedCount("Cork"));
+    }
+
+    @Test
+    void query_ingestedLandmarks_indexedByStoredBboxWithoutConversion() {
+        glucksman.setBbox(new double[] { -8.4905, 51.8945, -8.4901, 51.8949 });
+        farAway.setBbox(new double[] { -8.4702, 51.8998, -8.4698, 51.9002 });
+
+        List<Landmark> res = index.query("Cork", new Envelope(-8.4906, -8.4900, 51.8944, 51.8950));
+
+        assertEquals(List.of(glucksman), res);
+        assertEquals(0, geometryCache.size());
+    }
+
+    @Test
+    void landmarksChanged_sameCity_rebuildsIndex() {
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+
+        index.onLandmarksChanged(new LandmarksChangedEvent("Cork"));
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+
+        verify(mockGameDataRepo, times(2)).findByCity("Cork");
+    }
+
+    @Test
+    void landmarksChanged_otherCity_keepsIndex() {
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+
+        index.onLandmarksChanged(new LandmarksChangedEvent("Dublin"));
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+
+        verify(mockGameDataRepo, times(1)).findByCity("Cork");
+    }
+
+    @Test
+    void landmarksChanged_ingestedIds_patchesIndexWithoutReload() {
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+        Landmark boole = square("id-boole", "Boole Library", 51.89286, -8.49124);
+        when(mockGameDataRepo.findLandmarksByIds(Set.of("id-boole"))).thenReturn(List.of(boole));
+
+        index.onLandmarksChanged(LandmarksChangedEvent.landmarks("Cork", Set.of("id-boole")));
+
+        List<Landmark> res = index.query("Cork", new Envelope(-8.4915, -8.4910, 51.8926, 51.8931));
+        assertEquals(1, res.size());
+        assertEquals("id-boole", res.get(0).getId());
+        assertEquals(3, index.indexedCount("Cork"));
+        verify(mockGameDataRepo, times(1)).findByCity("Cork");
+    }
+
+    @Test
+    void landmarksChanged_ingestedIdsForUnbuiltCity_loadsNothing() {
+        index.onLandmarksChanged(LandmarksChangedEvent.landmarks("Dublin", Set.of("id-spire")));
+
+        verify(mockGameDataRepo, never()).findLandmarksByIds(any());
+        assertEquals(0, index.indexedCount("Dublin"));
+    }
+
+    @Test
+    void upsertLandmarks_patchesIndexWithoutReload() {
+        index.query("Cork", new Envelope(-8.5, -8.4, 51.8, 51.95));
+
+        Landmark boole = square("id-boole", "Boole Library", 51.89286, -8.49124);
+        index.upsertLandmarks("Cork", List.of(boole));
+
+        List<Landmark> res = index.query("Cork", new Envelope(-8.4915, -8.4910, 51.8926, 51.8931));
+        assertEquals(1, res.size());
+        assertEquals("id-boole", res.get(0).getId());
+        verify(mockGameDataRepo, times(1)).findByCity("Cork");
+    }
+
+    @Test
+    void detect_analyticKernel_matchesJts() {
+        LandmarkIndexService analytic = new LandmarkIndexService(mockGameDataRepo, new LandmarkGeometryCache(100), 10, "analytic");
+        Player facing = new Player(51.8943, -8.4903, 0.0, "Cork");
+        Player away = new Player(51.8943, -8.4903, 180.0, "Cork");
+
+        assertEquals(LandmarkIndexService.DetectionKernel.ANALYTIC, analytic.getKernel());
+        assertEquals("id-glucksman", analytic.detect("Cork", facing).getId());
+        assertNull(analytic.detect("Cork", away));
+    }
+
+    @Test
+    void detect_cityWithPack_servedFromPackWithoutMongo(@TempDir Path dir) {
+        CityPackStore packs = new CityPackStore(mockGameDataRepo, dir.toString());
+        packs.export("Cork");
+        LandmarkIndexService withPacks = new LandmarkIndexService(mockGameDataRepo, geometryCache, packs, 10, "jts");
+
+        Landmark detected = withPacks.detect("Cork", new Player(51.8943, -8.4903, 0.0, "Cork"));
+        List<Landmark> nearBy = withPacks.withinRadius("Cork", 51.8943, -8.4903, 500);
+
+        assertEquals("id-glucksman", detected.getId());
+        assertEquals(List.of("id-glucksman"), nearBy.stream().map(Landmark::getId).toList());
+        assertNull(withPacks.withinRadius("Dublin", 53.35, -6.26, 500)); // no pack: caller asks Mongo
+        verify(mockGameDataRepo, times(1)).findByCity("Cork"); // the export, never the index
+    }
+
+    @Test
+    void withinRadius_cityWithPack_ratingsReadFromMongo(@TempDir Path dir) {
+        CityPackStore packs = new CityPackStore(mockGameDataRepo, dir.toString());
+        packs.export("Cork");
+        LandmarkIndexService withPacks = new LandmarkIndexService(mockGameDataRepo, geometryCache, packs, 10, "jts");
+        Landmark current = new Landmark();
+        current.setId("id-glucksman");
+        current.setRating(0.9);
+        current.setMetaReady(true);
+        when(mockGameDataRepo.findLandmarkStates(List.of("id-glucksman"))).thenReturn(List.of(current));
+
+        Landmark nearBy = withPacks.withinRadius("Cork", 51.8943, -8.4903, 500).get(0);
+
+        assertEquals(0.9, nearBy.getRating());
+        assertTrue(nearBy.isMetaReady());
+    }
+}
@@ -0,0 +1,146 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.LandmarkRepository;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class LandmarkIngestionServiceTest {
+
+    @Mock private LandmarkRepository mockLandmarkRepo;
+    @Mock private ApplicationEventPublisher mockEventPublisher;
+
+    private MockWebServer mockServer;
+    private LandmarkIngestionService service;
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        mockServer = new MockWebServer();
+        service = new LandmarkIngestionService(
+            RestClient.builder().baseUrl(mockServer.url("/").toString()).build(),
+            mockLandmarkRepo, mockEventPublisher, new ObjectMapper(), 2, 1.0);
+
+        // the repository sees each batch while the service still owns the list, so record sizes on the way in
+        batchSizes = new ArrayList<>();
+        when(mockLandmarkRepo.upsertFromFeed(anyList())).thenAnswer(inv -> {
+            List<Landmark> batch = inv.getArgument(0);
+            batchSizes.add(batch.size());
+            return Map.of("Cork", batch.stream().map(lm -> "id-" + lm.getExternalId()).toList());
+        });
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        mockServer.shutdown();
+    }
+
+    private static String line(String externalId, String name) {
+        return "{\"externalId\":\"" + externalId + "\",\"name\":\"" + name + "\",\"city\":\"Cork\","
+            + "\"latitude\":51.8947,\"longitude\":-8.4903,"
+            + "\"geometry\":[[-8.4905,51.8945],[-8.4901,51.8945],[-8.4901,51.8949],[-8.4905,51.8945]],"
+            + "\"tags\":{\"building\":\"yes\"}}\n";
+    }
+
+    @Test
+    void fetchForLocation_streamsFeedInBatches() throws InterruptedException {
+        mockServer.enqueue(new MockResponse()
+            .setHeader("Content-Type", "application/x-ndjson")
+            .setBody(line("osm:way/1", "A") + line("osm:way/2", "B") + line("osm:way/3", "C")
+                + line("osm:way/4", "D") + line("osm:way/5", "E")));
+
+        service.fetchForLocation(51.89, -8.49);
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        RecordedRequest req = mockServer.takeRequest();
+        assertEquals("/landmark-feed", req.getPath());
+        assertTrue(req.getBody().readUtf8().contains("\"latitude\":51.89"));
+    }
+
+    @Test
+    void fetchForLocation_publishesChangedIdsPerCity() {
+        mockServer.enqueue(new MockResponse().setBody(line("osm:way/1", "A") + line("osm:way/2", "B") + line("osm:way/3", "C")));
+
+        service.fetchForLocation(51.89, -8.49);
+
+        verify(mockEventPublisher).publishEvent(
+            LandmarksChangedEvent.landmarks("Cork", Set.of("id-osm:way/1", "id-osm:way/2", "id-osm:way/3")));
+    }
+
+    @Test
+    void fetchForLocation_invalidLines_skipped() {
+        String noPolygon = "{\"externalId\":\"osm:way/9\",\"name\":\"Z\",\"city\":\"Cork\",\"latitude\":51.8,\"longitude\":-8.4,"
+            + "\"geometry\":[[-8.4,51.8]],\"tags\":{}}\n";
+        mockServer.enqueue(new MockResponse().setBody(line("osm:way/1", "A") + noPolygon));
+
+        service.fetchForLocation(51.89, -8.49);
+
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void fetchForLocation_storesRepairedOutlineWithBboxAndCentroid() {
+        List<Landmark> written = new ArrayList<>();
+        when(mockLandmarkRepo.upsertFromFeed(anyList())).thenAnswer(inv -> {
+            written.addAll(inv.getArgument(0));
+            return Map.of();
+        });
+        String openRing = "{\"externalId\":\"osm:way/7\",\"name\":\"Open\",\"city\":\"Cork\",\"latitude\":0,\"longitude\":0,"
+            + "\"geometry\":[[-8.4905,51.8945],[-8.4901,51.8945],[-8.4901,51.8949],[-8.4905,51.8949]],\"tags\":{}}\n";
+        mockServer.enqueue(new MockResponse().setBody(openRing));
+
+        service.fetchForLocation(51.89, -8.49);
+
+        Landmark lm = written.get(0);
+        assertEquals(5, lm.getGeometry().getCoordinates().get(0).getCoordinates().size());
+        assertEquals(lm.getSimplifiedGeometry(), lm.getDetectionGeometry());
+        assertEquals(51.8947, lm.getLatitude(), 1e-9); // centroid of the outline, not the feed's point
+        assertEquals(-8.4905, lm.getBbox()[0], 1e-9);
+        verify(mockEventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void fetchForLocation_emptyFeed_writesAndPublishesNothing() {
+        mockServer.enqueue(new MockResponse().setBody(""));
+
+        service.fetchForLocation(51.89, -8.49);
+
+        verify(mockLandmarkRepo, never()).upsertFromFeed(anyList());
+        verify(mockEventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void fetchForLocation_processorError_throwsForRetry() {
+        mockServer.enqueue(new MockResponse().setResponseCode(500).setBody("{\"code\":\"INTERNAL_ERROR\"}"));
+
+        assertThrows(RuntimeException.class, () -> service.fetchForLocation(51.89, -8.49));
+        verify(mockLandmarkRepo, never()).upsertFromFeed(anyList());
+    }
+}
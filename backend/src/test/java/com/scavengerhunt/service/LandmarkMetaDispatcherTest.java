@@ -0,0 +1,98 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.scavengerhunt.client.LandmarkProcessorClient;
+import com.scavengerhunt.model.Landmark;
+import com.scavengerhunt.repository.GameDataRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LandmarkMetaDispatcherTest {
+
+    @Mock private LandmarkProcessorClient mockLandmarkProcessorClient;
+    @Mock private GameDataRepository mockGameDataRepo;
+
+    private LandmarkMetaDispatcher dispatcher;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        // batches of up to 10, 150 ms for concurrent rounds to join
+        dispatcher = new LandmarkMetaDispatcher(mockLandmarkProcessorClient, mockGameDataRepo, new SimpleMeterRegistry(), 10, 150, 100, 10);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        dispatcher.stop();
+    }
+
+    private static Landmark landmark(String id, boolean metaReady) {
+        Landmark l = new Landmark(id, "Landmark " + id, "Cork", 51.89, -8.49);
+        l.setMetaReady(metaReady);
+        return l;
+    }
+
+    @Test
+    void request_concurrentRoundsMergedIntoOneBatch() {
+        when(mockLandmarkProcessorClient.generateLandmarkMeta(anyCollection())).thenReturn(Set.of("a", "b", "c"));
+
+        dispatcher.request(List.of(landmark("a", false), landmark("b", false)));
+        dispatcher.request(List.of(landmark("b", false), landmark("c", false)));
+
+        verify(mockLandmarkProcessorClient, timeout(2000)).generateLandmarkMeta(argThat(ids -> ids.size() == 3));
+        verify(mockGameDataRepo, timeout(2000)).markLandmarksMetaReady(Set.of("a", "b", "c"));
+        verify(mockLandmarkProcessorClient, after(300).times(1)).generateLandmarkMeta(anyCollection());
+    }
+
+    @Test
+    void request_flaggedLandmarksNeverSent() {
+        dispatcher.request(List.of(landmark("a", true), landmark("b", true)));
+
+        verify(mockLandmarkProcessorClient, after(400).never()).generateLandmarkMeta(anyCollection());
+        assertEquals(0, dispatcher.pendingCount());
+    }
+
+    @Test
+    void request_readyIdsNotSentAgain() {
+        when(mockLandmarkProcessorClient.generateLandmarkMeta(anyCollection())).thenReturn(Set.of("a"));
+        dispatcher.request(List.of(landmark("a", false)));
+        verify(mockGameDataRepo, timeout(2000)).markLandmarksMetaReady(Set.of("a"));
+
+        // a cached Landmark object may still carry the old flag
+        dispatcher.request(List.of(landmark("a", false)));
+
+        verify(mockLandmarkProcessorClient, after(400).times(1)).generateLandmarkMeta(anyCollection());
+    }
+
+    @Test
+    void request_failedBatchNotRetriedRightAway() {
+        when(mockLandmarkProcessorClient.generateLandmarkMeta(anyCollection())).thenReturn(null);
+        dispatcher.request(List.of(landmark("a", false)));
+        verify(mockLandmarkProcessorClient, timeout(2000)).generateLandmarkMeta(anyCollection());
+
+        dispatcher.request(List.of(landmark("a", false)));
+
+        verify(mockLandmarkProcessorClient, after(400).times(1)).generateLandmarkMeta(anyCollection());
+        verify(mockGameDataRepo, never()).markLandmarksMetaReady(any());
+    }
+}
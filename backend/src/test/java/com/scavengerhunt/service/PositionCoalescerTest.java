@@ -0,0 +1,142 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.scavengerhunt.game.GameLogicManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PositionCoalescerTest {
+
+    private static final String USER = "user-a";
+    private static final double LAT = 51.8940;
+    private static final double LNG = -8.4900;
+    private static final double ONE_METER_LAT = 1.0 / 111320.0;
+
+    @Mock private GameSessionService mockGameSessionService;
+    @Mock private GameSessionRegistry mockGameSessionRegistry;
+    @Mock private GameLogicManager mockGame;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mockGameSessionService.updatePlayerPosition(eq(USER), anyDouble(), anyDouble(), anyDouble())).thenReturn(true);
+    }
+
+    private PositionCoalescer coalescer(long flushIntervalMs) {
+        return new PositionCoalescer(mockGameSessionService, mockGameSessionRegistry, meterRegistry, 3, 10, flushIntervalMs, 10);
+    }
+
+    @Test
+    void submit_firstFixIsWrittenThrough() {
+        PositionCoalescer coalescer = coalescer(60_000);
+
+        assertTrue(coalescer.submit(USER, LAT, LNG, 0));
+
+        verify(mockGameSessionService).updatePlayerPosition(USER, LAT, LNG, 0);
+    }
+
+    @Test
+    void submit_noSession_returnsFalse() {
+        PositionCoalescer coalescer = coalescer(60_000);
+
+        assertFalse(coalescer.submit("nobody", LAT, LNG, 0));
+        assertNull(coalescer.latest("nobody"));
+    }
+
+    @Test
+    void submit_dropsJitterBelowBothThresholds() {
+        when(mockGameSessionRegistry.peek(USER)).thenReturn(mockGame);
+        PositionCoalescer coalescer = coalescer(0);
+        coalescer.submit(USER, LAT, LNG, 0);
+
+        assertTrue(coalescer.submit(USER, LAT + ONE_METER_LAT, LNG, 5));
+        assertTrue(coalescer.submit(USER, LAT, LNG, 355)); // heading wraps around north
+
+        verify(mockGameSessionService, times(1)).updatePlayerPosition(anyString(), anyDouble(), anyDouble(), anyDouble());
+        verify(mockGame, times(1)).movePlayer(anyDouble(), anyDouble(), anyDouble());
+        assertEquals(2.0, meterRegistry.counter("position.updates.dropped").count());
+    }
+
+    @Test
+    void submit_movementOrTurnIsAccepted() {
+        PositionCoalescer coalescer = coalescer(0);
+        coalescer.submit(USER, LAT, LNG, 0);
+
+        coalescer.submit(USER, LAT + 5 * ONE_METER_LAT, LNG, 0);
+        coalescer.submit(USER, LAT + 5 * ONE_METER_LAT, LNG, 45);
+
+        verify(mockGameSessionService).updatePlayerPosition(USER, LAT + 5 * ONE_METER_LAT, LNG, 0);
+        verify(mockGameSessionService).updatePlayerPosition(USER, LAT + 5 * ONE_METER_LAT, LNG, 45);
+    }
+
+    @Test
+    void submit_withinFlushInterval_buffersLatestAndUpdatesLiveGame() {
+        when(mockGameSessionRegistry.peek(USER)).thenReturn(mockGame);
+        PositionCoalescer coalescer = coalescer(60_000);
+        coalescer.submit(USER, LAT, LNG, 0);
+
+        for (int i = 1; i <= 5; i++) {
+            coalescer.submit(USER, LAT + 10 * i * ONE_METER_LAT, LNG, 90);
+        }
+
+        // one write-through, the rest only in memory
+        verify(mockGameSessionService, times(1)).updatePlayerPosition(anyString(), anyDouble(), anyDouble(), anyDouble());
+        verify(mockGame).movePlayer(LAT + 50 * ONE_METER_LAT, LNG, 90);
+        assertArrayEquals(new double[] { LAT + 50 * ONE_METER_LAT, LNG, 90 }, coalescer.latest(USER));
+
+        coalescer.flushPending();
+        verify(mockGameSessionService).updatePlayerPosition(USER, LAT + 50 * ONE_METER_LAT, LNG, 90);
+
+        // nothing new since
+        coalescer.flushPending();
+        verify(mockGameSessionService, times(2)).updatePlayerPosition(anyString(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void forget_dropsPendingFixWithoutWriting() {
+        PositionCoalescer coalescer = coalescer(60_000);
+        coalescer.submit(USER, LAT, LNG, 0);
+        coalescer.submit(USER, LAT + 10 * ONE_METER_LAT, LNG, 0);
+
+        coalescer.forget(USER);
+        coalescer.flushPending();
+
+        verify(mockGameSessionService, never()).updatePlayerPosition(USER, LAT + 10 * ONE_METER_LAT, LNG, 0);
+        assertNull(coalescer.latest(USER));
+    }
+
+    @Test
+    void flushPending_sessionGone_dropsTrack() {
+        PositionCoalescer coalescer = coalescer(60_000);
+        coalescer.submit(USER, LAT, LNG, 0);
+        coalescer.submit(USER, LAT + 10 * ONE_METER_LAT, LNG, 0);
+        when(mockGameSessionService.updatePlayerPosition(eq(USER), anyDouble(), anyDouble(), anyDouble())).thenReturn(false);
+
+        coalescer.flushPending();
+
+        assertNull(coalescer.latest(USER));
+        verify(mockGameSessionRegistry).evict(USER);
+        // the next fix is a first fix again and reports the missing session
+        assertFalse(coalescer.submit(USER, LAT, LNG, 0));
+    }
+}
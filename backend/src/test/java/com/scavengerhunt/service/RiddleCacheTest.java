@@ -0,0 +1,148 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.scavengerhunt.client.PuzzleAgentClient;
+import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.model.Riddle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+public class RiddleCacheTest {
+
+    private static final String LANDMARK = "riddle-cache-test-lm";
+
+    @Autowired private MongoTemplate mongoTemplate;
+
+    private RiddleCache cache;
+    private AtomicInteger agentCalls;
+    private Function<GenerateRiddleRequest, String> agent;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        // 10 buckets, 2 variants per key, each reused at most 3 times
+        cache = new RiddleCache(mongoTemplate, new SimpleMeterRegistry(), 100, 10, 2, 3);
+        agentCalls = new AtomicInteger();
+        agent = req -> "Riddle #" + agentCalls.incrementAndGet();
+    }
+
+    @AfterEach
+    void cleanup() {
+        mongoTemplate.remove(Query.query(Criteria.where("landmarkId").is(LANDMARK)), Riddle.class);
+    }
+
+    private static GenerateRiddleRequest request(double difficulty, String style) {
+        return new GenerateRiddleRequest("session-" + difficulty, LANDMARK, difficulty, "English", style, List.of(LANDMARK));
+    }
+
+    @Test
+    void get_collectsVariantsThenReuses() {
+        Set<String> served = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            served.add(cache.get(request(52.0, "Medieval"), agent));
+        }
+
+        // 2 generated, the next 3 served from them in turn (the first variant is now used up)
+        assertEquals(2, agentCalls.get());
+        assertEquals(Set.of("Riddle #1", "Riddle #2"), served);
+    }
+
+    @Test
+    void get_reuseLimitBringsFreshRiddles() {
+        for (int i = 0; i < 10; i++) {
+            cache.get(request(52.0, "Medieval"), agent);
+        }
+
+        // each variant serves 3 requests, so 10 requests cannot get by with 2 generations
+        assertTrue(agentCalls.get() > 2, "Exhausted variants should be replaced, calls: " + agentCalls.get());
+    }
+
+    @Test
+    void get_keyedByBucketAndStyle() {
+        cache.get(request(52.0, "Medieval"), agent);
+        cache.get(request(52.0, "Medieval"), agent);
+        cache.get(request(58.0, "Medieval"), agent);  // same bucket
+        cache.get(request(75.0, "Medieval"), agent);  // other bucket
+        cache.get(request(52.0, "Noir"), agent);      // other style
+
+        assertEquals(4, agentCalls.get());
+        assertEquals(5, cache.bucketOf(52.0));
+        assertEquals(9, cache.bucketOf(100.0));
+        assertEquals(0, cache.bucketOf(-1.0));
+    }
+
+    @Test
+    void get_survivesRestartThroughMongo() {
+        cache.get(request(52.0, "Medieval"), agent);
+        cache.get(request(52.0, "Medieval"), agent);
+
+        RiddleCache restarted = new RiddleCache(mongoTemplate, new SimpleMeterRegistry(), 100, 10, 2, 3);
+        String riddle = restarted.get(request(52.0, "Medieval"), agent);
+
+        assertEquals(2, agentCalls.get());
+        assertTrue(riddle.startsWith("Riddle #"));
+    }
+
+    @Test
+    void getAll_generatesOnlyMissesInOneCall() {
+        cache = new RiddleCache(mongoTemplate, new SimpleMeterRegistry(), 100, 10, 1, 3);
+        cache.get(request(52.0, "Medieval"), agent); // key full with one variant
+        AtomicInteger batchCalls = new AtomicInteger();
+        GenerateRiddleRequest other = new GenerateRiddleRequest("s", LANDMARK, 75.0, "English", "Medieval", List.of(LANDMARK));
+
+        Map<String, String> riddles = cache.getAll(List.of(request(52.0, "Medieval"), other), reqs -> {
+            batchCalls.incrementAndGet();
+            assertEquals(1, reqs.size());
+            return Map.of(LANDMARK, "Batch riddle");
+        });
+
+        assertEquals(1, batchCalls.get());
+        assertEquals("Batch riddle", riddles.get(LANDMARK));
+        assertEquals(2, mongoTemplate.count(Query.query(Criteria.where("landmarkId").is(LANDMARK)), Riddle.class));
+    }
+
+    @Test
+    void getAll_batchMissesLandmark_leftOut() {
+        Map<String, String> riddles = cache.getAll(List.of(request(52.0, "Medieval")), reqs -> Map.of());
+
+        assertTrue(riddles.isEmpty());
+    }
+
+    @Test
+    void get_agentDown_servesStoredVariant() {
+        String first = cache.get(request(52.0, "Medieval"), agent);
+
+        String duringOutage = cache.get(request(52.0, "Medieval"), req -> PuzzleAgentClient.FALLBACK_RIDDLE);
+
+        assertEquals(first, duringOutage);
+        assertNotEquals(PuzzleAgentClient.FALLBACK_RIDDLE, duringOutage);
+    }
+
+    @Test
+    void get_agentDownAndNothingCached_passesThrough() {
+        assertEquals(PuzzleAgentClient.FALLBACK_RIDDLE, cache.get(request(52.0, "Medieval"), req -> PuzzleAgentClient.FALLBACK_RIDDLE));
+        assertNull(cache.get(request(52.0, "Medieval"), req -> null));
+        assertEquals(0, mongoTemplate.count(Query.query(Criteria.where("landmarkId").is(LANDMARK)), Riddle.class));
+    }
+}
@@ -0,0 +1,142 @@
+package com.scavengerhunt.service;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.scavengerhunt.client.dto.GenerateRiddleRequest;
+import com.scavengerhunt.game.GameLogicManager;
+import com.scavengerhunt.game.PuzzleManager;
+import com.scavengerhunt.model.Landmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RiddleStreamerTest {
+
+    @Mock private GameSessionRegistry mockRegistry;
+    @Mock private GameLogicManager mockGame;
+    @Mock private PuzzleManager mockPuzzleManager;
+
+    private RiddleStreamer streamer;
+    private Landmark quad;
+    private GenerateRiddleRequest req;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        streamer = new RiddleStreamer(mockRegistry, new SimpleMeterRegistry(), 1, 10, 30);
+        quad = new Landmark("id-quad", "The Quad", "Cork", 51.8937, -8.4922);
+        req = new GenerateRiddleRequest("s1", "id-quad", 50.0, "English", "Medieval", List.of("id-quad"));
+        when(mockGame.getPuzzleManager()).thenReturn(mockPuzzleManager);
+        when(mockPuzzleManager.riddleRequestFor(eq("id-quad"), any())).thenReturn(req);
+    }
+
+    @AfterEach
+    void teardown() {
+        streamer.stop();
+    }
+
+    @Test
+    void stream_noTarget_returnsNull() {
+        assertNull(streamer.stream(mockGame));
+    }
+
+    @Test
+    void stream_riddleReady_sentWithoutGenerating() {
+        quad.setRiddle("Ready riddle");
+        when(mockGame.getCurrentTargetLandmark()).thenReturn(quad);
+
+        assertNotNull(streamer.stream(mockGame));
+
+        verify(mockPuzzleManager, never()).streamRiddle(any(), any());
+        verify(mockGame, never()).applyStreamedRiddle(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_generatesAndStoresRiddle() {
+        when(mockGame.getCurrentTargetLandmark()).thenReturn(quad);
+        when(mockPuzzleManager.streamRiddle(eq(req), any())).thenAnswer(inv -> {
+            Consumer<String> onChunk = inv.getArgument(1, Consumer.class);
+            onChunk.accept("Where stone ");
+            onChunk.accept("meets sky");
+            return "Where stone meets sky";
+        });
+        when(mockGame.applyStreamedRiddle("id-quad", "Where stone meets sky")).thenReturn(true);
+
+        assertNotNull(streamer.stream(mockGame));
+
+        verify(mockGame, timeout(2000)).applyStreamedRiddle("id-quad", "Where stone meets sky");
+        verify(mockRegistry, timeout(2000)).persist(mockGame);
+    }
+
+    @Test
+    void stream_runningPrefetch_awaitedInsteadOfNewCall() {
+        CompletableFuture<String> prefetch = CompletableFuture.completedFuture("Prefetched riddle");
+        when(mockGame.getCurrentTargetLandmark()).thenReturn(quad);
+        when(mockPuzzleManager.removePrefetch("id-quad")).thenReturn(prefetch);
+        when(mockPuzzleManager.awaitPrefetch(prefetch)).thenReturn("Prefetched riddle");
+
+        streamer.stream(mockGame);
+
+        verify(mockGame, timeout(2000)).applyStreamedRiddle("id-quad", "Prefetched riddle");
+        verify(mockPuzzleManager, never()).streamRiddle(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_reconnectWhileGenerating_joinsRunningGeneration() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockGame.getCurrentTargetLandmark()).thenReturn(quad);
+        when(mockPuzzleManager.streamRiddle(eq(req), any())).thenAnswer(inv -> {
+            inv.getArgument(1, Consumer.class).accept("Where stone ");
+            release.await(2, TimeUnit.SECONDS);
+            return "Where stone meets sky";
+        });
+        when(mockGame.applyStreamedRiddle("id-quad", "Where stone meets sky")).thenReturn(true);
+
+        streamer.stream(mockGame);
+        verify(mockPuzzleManager, timeout(2000)).streamRiddle(eq(req), any());
+        assertNotNull(streamer.stream(mockGame));
+        release.countDown();
+
+        verify(mockGame, timeout(2000)).applyStreamedRiddle("id-quad", "Where stone meets sky");
+        verify(mockPuzzleManager, times(1)).streamRiddle(any(), any());
+        verify(mockPuzzleManager, times(1)).riddleRequestFor(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_brokeOffAfterChunks_nothingStored() {
+        when(mockGame.getCurrentTargetLandmark()).thenReturn(quad);
+        when(mockPuzzleManager.streamRiddle(eq(req), any())).thenAnswer(inv -> {
+            inv.getArgument(1, Consumer.class).accept("Where stone ");
+            return null;
+        });
+
+        streamer.stream(mockGame);
+
+        verify(mockPuzzleManager, timeout(2000)).streamRiddle(eq(req), any());
+        verify(mockGame, after(300).never()).applyStreamedRiddle(any(), any());
+        verify(mockRegistry, never()).persist(any());
+    }
+}
@@ -53,8 +53,8 @@ public class EloCalculatorTest {
         EloCalculator calc = new EloCalculator("user-001", mockGameDataRepo, 30);
         calc.updateRating("lm-001", 10, true);
 
-        verify(mockGameDataRepo).updateUserRating(eq("user-001"), doubleThat(r -> r > 0.6));
-        verify(mockGameDataRepo).updateLandmarkRating(eq("lm-001"), doubleThat(r -> r < 0.5));
+        // user 0.6 -> above 0.6, landmark 0.5 -> below 0.5
+        verify(mockGameDataRepo).applyEloResult(eq("user-001"), doubleThat(d -> d > 0), eq("lm-001"), doubleThat(d -> d < 0));
     }
 
     @Test
@@ -62,8 +62,8 @@ public class EloCalculatorTest {
         EloCalculator calc = new EloCalculator("user-001", mockGameDataRepo, 30);
         calc.updateRating("lm-001", 10, false);
 
-        verify(mockGameDataRepo).updateUserRating(eq("user-001"), doubleThat(r -> r < 0.6));
-        verify(mockGameDataRepo).updateLandmarkRating(eq("lm-001"), doubleThat(r -> r > 0.6));
+        // user 0.6 -> below 0.6, landmark 0.5 -> above 0.6
+        verify(mockGameDataRepo).applyEloResult(eq("user-001"), doubleThat(d -> d < 0), eq("lm-001"), doubleThat(d -> d > 0.1));
     }
 
     @Test
@@ -73,7 +73,7 @@ public class EloCalculatorTest {
 
         EloCalculator calc = new EloCalculator("user-001", mockGameDataRepo, 30);
         assertDoesNotThrow(() -> calc.updateRating("lm-001", 10, true));
-        verify(mockGameDataRepo).updateUserRating(eq("user-001"), doubleThat(r -> !Double.isNaN(r)));
+        verify(mockGameDataRepo).applyEloResult(eq("user-001"), doubleThat(d -> !Double.isNaN(d)), eq("lm-001"), anyDouble());
     }
 
     @Test
@@ -92,8 +92,7 @@ public class EloCalculatorTest {
         EloCalculator calc = new EloCalculator("user-001", mockGameDataRepo, 30);
         calc.updateRating("lm-001", 10, true);
 
-        verify(mockGameDataRepo).updateUserRating(eq("user-001"), anyDouble());
-        verify(mockGameDataRepo).updateLandmarkRating(eq("lm-001"), anyDouble());
+        verify(mockGameDataRepo).applyEloResult(eq("user-001"), anyDouble(), eq("lm-001"), anyDouble());
     }
 
     @Test
@@ -110,6 +109,6 @@ public class EloCalculatorTest {
         EloCalculator calc = new EloCalculator("user-001", mockGameDataRepo, 30);
         calc.updateRating("lm-001", 10, true);
 
-        verify(mockGameDataRepo, times(2)).getUserById("user-001"); // once in constructor, once in updateRating
+        verify(mockGameDataRepo, times(1)).getUserById("user-001"); // only in updateRating, the constructor no longer reads
     }
 }
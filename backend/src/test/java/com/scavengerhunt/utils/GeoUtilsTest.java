@@ -1,9 +1,17 @@
 package com.scavengerhunt.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPolygon;
 
 public class GeoUtilsTest {
 
@@ -53,4 +61,48 @@ public class GeoUtilsTest {
         double d2 = GeoUtils.distanceInMeters(51.8940, -8.4900, 51.8930, -8.4920);
         assertEquals(d1, d2, 0.001, "Distance A→B should equal B→A");
     }
+
+    @Test
+    void geohash_knownValue() {
+        assertEquals("u4pruydqqvj", GeoUtils.geohash(57.64911, 10.40744, 11));
+        assertEquals("u4pruyd", GeoUtils.geohash(57.64911, 10.40744, 7));
+    }
+
+    @Test
+    void geohash_nearbyPositionsShareCell() {
+        assertEquals(GeoUtils.geohash(51.89430, -8.49220, 6), GeoUtils.geohash(51.89440, -8.49200, 6));
+    }
+
+    @Test
+    void calculateTargetAngle_compassHeadings() {
+        assertEquals(0.0, GeoUtils.calculateTargetAngle(51.0, -8.0, 51.1, -8.0), 1e-9);
+        assertEquals(90.0, GeoUtils.calculateTargetAngle(51.0, -8.0, 51.0, -7.9), 1e-9);
+        assertEquals(270.0, GeoUtils.calculateTargetAngle(51.0, -8.0, 51.0, -8.1), 1e-9);
+    }
+
+    @Test
+    void minimalAngleDiff_wrapsAroundNorth() {
+        assertEquals(20.0, GeoUtils.minimalAngleDiff(350.0, 10.0), 1e-9);
+        assertEquals(180.0, GeoUtils.minimalAngleDiff(0.0, 180.0), 1e-9);
+    }
+
+    @Test
+    void convertToJtsMultiPolygon_keepsHoles() {
+        GeoJsonPolygon withHole = new GeoJsonPolygon(
+                new Point(0, 0), new Point(10, 0), new Point(10, 10), new Point(0, 10), new Point(0, 0))
+            .withInnerRing(new Point(4, 4), new Point(6, 4), new Point(6, 6), new Point(4, 6), new Point(4, 4));
+        GeoJsonPolygon island = new GeoJsonPolygon(
+            new Point(20, 20), new Point(21, 20), new Point(21, 21), new Point(20, 20));
+
+        MultiPolygon area = GeoUtils.convertToJtsMultiPolygon(List.of(withHole, island));
+
+        assertEquals(2, area.getNumGeometries());
+        assertTrue(area.contains(point(2, 2)));
+        assertFalse(area.contains(point(5, 5)), "The hole is not part of the area");
+        assertTrue(area.contains(point(20.7, 20.2)));
+    }
+
+    private static org.locationtech.jts.geom.Point point(double x, double y) {
+        return new GeometryFactory().createPoint(new Coordinate(x, y));
+    }
 }
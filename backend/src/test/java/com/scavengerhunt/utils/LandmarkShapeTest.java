@@ -0,0 +1,75 @@
+package com.scavengerhunt.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Point;
+
+public class LandmarkShapeTest {
+
+    // ~20m square around Glucksman Gallery, [lng, lat], not closed
+    private static final List<List<Double>> OPEN_SQUARE = List.of(
+        List.of(-8.4905, 51.8945), List.of(-8.4901, 51.8945), List.of(-8.4901, 51.8949), List.of(-8.4905, 51.8949));
+
+    @Test
+    void of_openRing_isClosed() {
+        LandmarkShape shape = LandmarkShape.of(OPEN_SQUARE, 1.0);
+
+        List<Point> ring = shape.geometry().getCoordinates().get(0).getCoordinates();
+        assertEquals(5, ring.size());
+        assertEquals(ring.get(0), ring.get(4));
+        assertTrue(shape.polygon().isValid());
+    }
+
+    @Test
+    void of_bowTie_repairedToValidPolygon() {
+        // edges cross in the middle: invalid, intersects() would throw a TopologyException
+        LandmarkShape shape = LandmarkShape.of(List.of(
+            List.of(-8.4905, 51.8945), List.of(-8.4901, 51.8949), List.of(-8.4901, 51.8945), List.of(-8.4905, 51.8949),
+            List.of(-8.4905, 51.8945)), 1.0);
+
+        assertNotNull(shape);
+        assertTrue(shape.polygon().isValid());
+        assertTrue(shape.simplified().isValid());
+    }
+
+    @Test
+    void of_noArea_returnsNull() {
+        assertNull(LandmarkShape.of(List.of(
+            List.of(-8.4905, 51.8945), List.of(-8.4903, 51.8945), List.of(-8.4901, 51.8945)), 1.0));
+        assertNull(LandmarkShape.of(List.of(List.of(-8.4905, 51.8945), List.of(-8.4905, 51.8945)), 1.0));
+    }
+
+    @Test
+    void of_denseOutline_simplifiedWithinTolerance() {
+        // 360-point circle of ~30m radius: a 1m tolerance needs far fewer vertices
+        List<List<Double>> circle = new ArrayList<>();
+        for (int i = 0; i < 360; i++) {
+            double a = Math.toRadians(i);
+            circle.add(List.of(-8.4903 + 0.00045 * Math.cos(a), 51.8947 + 0.00027 * Math.sin(a)));
+        }
+
+        LandmarkShape shape = LandmarkShape.of(circle, 1.0);
+
+        assertTrue(shape.simplified().getNumPoints() < 100, "points: " + shape.simplified().getNumPoints());
+        assertTrue(shape.simplified().isValid());
+        // area stays within a few percent of the full outline
+        assertEquals(shape.polygon().getArea(), shape.simplified().getArea(), shape.polygon().getArea() * 0.05);
+    }
+
+    @Test
+    void bboxAndCentroid_fromRepairedPolygon() {
+        LandmarkShape shape = LandmarkShape.of(OPEN_SQUARE, 1.0);
+
+        assertArrayEquals(new double[] { -8.4905, 51.8945, -8.4901, 51.8949 }, shape.bbox(), 1e-9);
+        assertEquals(-8.4903, shape.centroid().getX(), 1e-9);
+        assertEquals(51.8947, shape.centroid().getY(), 1e-9);
+    }
+}
@@ -0,0 +1,69 @@
+package com.scavengerhunt.utils;
+
+import java.util.Random;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+import com.scavengerhunt.model.Player;
+
+/**
+ * Rough ns/op comparison of the two detection kernels for one position update against one candidate.
+ * Not a unit test (surefire skips it); run with
+ * mvn -q test-compile exec:java -Dexec.mainClass=com.scavengerhunt.utils.ViewConeKernelBenchmark -Dexec.classpathScope=test
+ */
+public class ViewConeKernelBenchmark {
+
+    private static final double LAT = 51.8943, LNG = -8.4903;
+    private static final int CASES = 1024;
+
+    public static void main(String[] args) {
+        Random rnd = new Random(7);
+        double mLng = 111320.0 * Math.cos(Math.toRadians(LAT));
+        GeometryFactory gf = new GeometryFactory();
+
+        double[] headings = new double[CASES];
+        PreparedGeometry[] prepared = new PreparedGeometry[CASES];
+        double[][] rings = new double[CASES][];
+        for (int i = 0; i < CASES; i++) {
+            headings[i] = rnd.nextDouble() * 360;
+            double cx = (rnd.nextDouble() - 0.5) * 120, cy = (rnd.nextDouble() - 0.5) * 120;
+            Coordinate[] coords = new Coordinate[9];
+            for (int k = 0; k < 8; k++) {
+                double a = Math.PI * k / 4;
+                coords[k] = new Coordinate(LNG + (cx + 10 * Math.sin(a)) / mLng, LAT + (cy + 10 * Math.cos(a)) / 111320.0);
+            }
+            coords[8] = coords[0];
+            Polygon poly = gf.createPolygon(coords);
+            prepared[i] = PreparedGeometryFactory.prepare(poly);
+            rings[i] = ViewConeKernel.flatten(poly);
+        }
+
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        for (int round = 0; round < 3; round++) { // first rounds are warm-up
+            long sink = 0;
+
+            long t0 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int c = i & (CASES - 1);
+                // what a position update costs on the JTS path: build the cone, then intersect
+                Polygon cone = new Player(LAT, LNG, headings[c], "Cork").getPlayerCone();
+                if (prepared[c].intersects(cone)) sink++;
+            }
+            long jtsNs = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int c = i & (CASES - 1);
+                if (ViewConeKernel.intersects(LAT, LNG, headings[c], 60, 50, rings[c])) sink--;
+            }
+            long analyticNs = System.nanoTime() - t0;
+
+            System.out.printf("round %d: jts %.1f ns/op, analytic %.1f ns/op (sink %d)%n",
+                round, (double) jtsNs / iterations, (double) analyticNs / iterations, sink);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.scavengerhunt.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import com.scavengerhunt.model.Player;
+
+public class ViewConeKernelTest {
+
+    private static final double LAT = 51.8943, LNG = -8.4903; // UCC quad
+    private static final GeometryFactory GF = new GeometryFactory();
+
+    // axis-aligned box given as metre offsets from the player
+    private static double[] box(double east0, double north0, double east1, double north1) {
+        double mLng = 111320.0 * Math.cos(Math.toRadians(LAT));
+        double x0 = LNG + east0 / mLng, x1 = LNG + east1 / mLng;
+        double y0 = LAT + north0 / 111320.0, y1 = LAT + north1 / 111320.0;
+        return new double[] { x0, y0, x1, y0, x1, y1, x0, y1, x0, y0 };
+    }
+
+    private static boolean hits(double heading, double[] ring) {
+        return ViewConeKernel.intersects(LAT, LNG, heading, 60, 50, ring);
+    }
+
+    @Test
+    void polygonAhead_intersects() {
+        assertTrue(hits(0, box(-5, 20, 5, 30)));
+    }
+
+    @Test
+    void polygonBehind_doesNotIntersect() {
+        assertFalse(hits(180, box(-5, 20, 5, 30)));
+    }
+
+    @Test
+    void polygonBeyondRadius_doesNotIntersect() {
+        assertFalse(hits(0, box(-5, 55, 5, 60)));
+    }
+
+    @Test
+    void playerInsidePolygon_intersects() {
+        assertTrue(hits(90, box(-100, -100, 100, 100)));
+    }
+
+    @Test
+    void polygonCrossingOnlyTheArc_intersects() {
+        // thin bar straddling the arc, no vertex inside the sector
+        assertTrue(hits(0, box(-2, 49, 2, 51.5)));
+        assertTrue(hits(0, box(-100, 49.5, 100, 49.9)));
+    }
+
+    @Test
+    void polygonCrossingOnlyARadialEdge_intersects() {
+        // long bar cutting through the cone at 20m, wider than the sector
+        assertTrue(hits(0, box(-100, 19, 100, 21)));
+    }
+
+    @Test
+    void polygonJustOutsideTheSpan_doesNotIntersect() {
+        // 45 degrees to the right of a north heading, span is only +/-30
+        assertFalse(hits(0, box(20, 20, 25, 25)));
+    }
+
+    @Test
+    void agreesWithJtsCone_onRandomCorpus() {
+        Random rnd = new Random(42);
+        double mLng = 111320.0 * Math.cos(Math.toRadians(LAT));
+        int hits = 0;
+
+        for (int i = 0; i < 5000; i++) {
+            double heading = rnd.nextDouble() * 360;
+            Player player = new Player(LAT, LNG, heading, "Cork");
+
+            // random convex-ish polygon within ~80m of the player
+            double cx = (rnd.nextDouble() - 0.5) * 160, cy = (rnd.nextDouble() - 0.5) * 160;
+            int sides = 3 + rnd.nextInt(6);
+            Coordinate[] coords = new Coordinate[sides + 1];
+            for (int k = 0; k < sides; k++) {
+                double a = 2 * Math.PI * k / sides;
+                double r = 2 + rnd.nextDouble() * 15;
+                coords[k] = new Coordinate(LNG + (cx + r * Math.sin(a)) / mLng, LAT + (cy + r * Math.cos(a)) / 111320.0);
+            }
+            coords[sides] = coords[0];
+            Polygon poly = GF.createPolygon(coords);
+
+            boolean expected = poly.intersects(player.getPlayerCone());
+            boolean actual = ViewConeKernel.intersects(LAT, LNG, heading, 60, 50, ViewConeKernel.flatten(poly));
+            if (expected) {
+                hits++;
+            }
+            if (expected != actual) {
+                // the JTS cone is a 50-chord polygon; only sub-centimetre contacts along the arc may differ
+                double gapDeg = player.getPlayerCone().getBoundary().distance(poly);
+                assertTrue(gapDeg < 1e-7, "Kernels disagree on case " + i + " (gap " + gapDeg + " deg)");
+            }
+        }
+        assertTrue(hits > 100, "Corpus should contain a fair number of hits, had " + hits);
+    }
+
+    @Test
+    void flatten_keepsLngLatOrder() {
+        Polygon poly = GF.createPolygon(new Coordinate[] {
+            new Coordinate(1, 2), new Coordinate(3, 2), new Coordinate(3, 4), new Coordinate(1, 2) });
+        double[] ring = ViewConeKernel.flatten(poly);
+
+        assertEquals(8, ring.length);
+        assertEquals(1, ring[0]);
+        assertEquals(2, ring[1]);
+    }
+}
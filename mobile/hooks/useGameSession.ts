@@ -7,8 +7,21 @@ type GameStatus = 'initializing' | 'initialized' | 'inRound' | 'finished' | 'err
 
 interface InitGameResponse {
   landmarks: LandmarkDTO[];
+  // 202: the city's landmarks are still being fetched
+  status?: 'PREPARING';
+  city?: string;
+  // content hash of the city's landmark list, also sent as the ETag
+  version?: string;
 }
 
+interface LandmarksReadyResponse {
+  status: 'DONE' | 'FAILED' | 'PREPARING';
+  ready: boolean;
+}
+
+// init-game calls after the city's landmarks were reported ready, before giving up
+const MAX_INIT_AFTER_READY = 2;
+
 interface TargetDTO {
   id: string;
   name: string;
@@ -69,6 +82,8 @@ export function useGameSession() {
   }, []);
 
   const timerRef = useRef<NodeJS.Timeout | null>(null);
+  // last landmark list from init-game with its ETag, sent back so an unchanged list costs a 304
+  const landmarksRef = useRef<{ etag: string; landmarks: LandmarkDTO[] } | null>(null);
 
   function updateState(patch: Partial<GameSessionState>) {
     setState(prev => ({ ...prev, ...patch }));
@@ -113,7 +128,7 @@ export function useGameSession() {
       errorMessage: undefined,
     });
     try {
-      const data = await apiClient.post<InitGameResponse>('/api/game/init-game', params);
+      const data = await initGameWhenReady(params);
       // console.log('[initGame] Full API response:', JSON.stringify(data, null, 2));
       // console.log('[initGame] data.landmarks type:', typeof data.landmarks);
       // console.log('[initGame] data.landmarks is array?', Array.isArray(data.landmarks));
@@ -129,6 +144,7 @@ export function useGameSession() {
     } catch (err) {
       updateState({
         status: 'error',
+        errorMessage: err instanceof Error ? err.message : String(err),
       });
       console.error(err);
     }
@@ -255,7 +271,7 @@ export function useGameSession() {
 
       // refetch roundLandmarks
       if (params && state.userId) {
-        const data = await apiClient.post<InitGameResponse>('/api/game/init-game', {
+        const data = await initGameWhenReady({
           userId: state.userId,
           ...params,
         });
@@ -274,6 +290,44 @@ export function useGameSession() {
   }
 
   // utils
+
+  // init-game, waiting on the landmarks-ready long-poll (one idle request) while the city is being prepared
+  async function initGameWhenReady(params: object): Promise<InitGameResponse> {
+    let data = await postInitGame(params);
+    let attempts = 0;
+    while (data.status === 'PREPARING' && data.city) {
+      if (attempts >= MAX_INIT_AFTER_READY) {
+        throw new Error(`Landmarks for ${data.city} are not available yet`);
+      }
+      const ready = await apiClient.get<LandmarksReadyResponse>(
+        `/api/game/landmarks-ready?city=${encodeURIComponent(data.city)}`
+      );
+      if (ready.status === 'FAILED') {
+        throw new Error(`Could not prepare landmarks for ${data.city}`);
+      }
+      if (ready.status === 'PREPARING') {
+        continue; // long-poll timed out, wait again
+      }
+      attempts++;
+      data = await postInitGame(params);
+    }
+    return data;
+  }
+
+  // init-game with the held landmark version; on a 304 the held list is reused
+  async function postInitGame(params: object): Promise<InitGameResponse> {
+    const held = landmarksRef.current;
+    const res = await apiClient.postIfNoneMatch<InitGameResponse>('/api/game/init-game', params, held?.etag);
+    if (res.notModified && held) {
+      return { landmarks: held.landmarks };
+    }
+    const data = res.data as InitGameResponse;
+    if (res.etag && Array.isArray(data.landmarks)) {
+      landmarksRef.current = { etag: res.etag, landmarks: data.landmarks };
+    }
+    return data;
+  }
+
   function setRole(newRole: Role) {
     updateState({ role: newRole });
     storageService.setRole(newRole);
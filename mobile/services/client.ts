@@ -64,6 +64,48 @@ class ApiClient {
     }
   }
 
+  // POST sending etag as If-None-Match; a 304 comes back as notModified (the caller's copy is current)
+  async postIfNoneMatch<T>(
+    endpoint: string,
+    body: any,
+    etag?: string | null
+  ): Promise<{ notModified: boolean; etag: string | null; data?: T }> {
+    const url = `${this.baseUrl}${endpoint}`;
+    console.log('[ApiClient] POST request to:', url);
+
+    const headers: Record<string, string> = {
+      'Content-Type': 'application/json',
+      'ngrok-skip-browser-warning': 'true',
+    };
+    if (etag) {
+      headers['If-None-Match'] = etag;
+    }
+    try {
+      const response = await fetch(url, {
+        method: 'POST',
+        headers,
+        body: JSON.stringify(body),
+      });
+      if (response.status === 304) {
+        return { notModified: true, etag: response.headers.get('ETag') ?? etag ?? null };
+      }
+      if (!response.ok) {
+        const errorText = await response.text();
+        throw new Error(`API Error: ${response.status} - ${errorText}`);
+      }
+      return { notModified: false, etag: response.headers.get('ETag'), data: await response.json() };
+    } catch (error) {
+      console.error('[ApiClient] POST error - URL:', url);
+      console.error('[ApiClient] POST error - Error message:', error instanceof Error ? error.message : String(error));
+      if (error instanceof TypeError && error.message.includes('fetch')) {
+        throw new Error(
+          `Network request failed: Cannot connect to ${this.baseUrl}. Please check if the backend server is running.`
+        );
+      }
+      throw error;
+    }
+  }
+
   async get<T>(endpoint: string): Promise<T> {
 
     // logs
@@ -1,10 +1,11 @@
-from flask import Flask, request, jsonify
+from flask import Flask, Response, request, jsonify, stream_with_context
 from landmark_preprocessor import LandmarkPreprocessor
 from landmark_meta_generator import LandmarkMetaGenerator
 from geopy.geocoders import Nominatim
 from pymongo import MongoClient
 from dotenv import load_dotenv
 
+import json
 import logging
 import uuid
 
@@ -32,6 +33,21 @@ MONGO_URL = os.getenv("MONGO_URL", "mongodb://localhost:27017")
 DB_NAME   = os.getenv("MONGO_DB",  "scavengerhunt")
 OPENAI_API_KEY = os.getenv("OPENAI_API_KEY", "")
 
+def landmark_query(city: str) -> str:
+    return f"""
+    [out:json];
+    area["name"="{city}"]["boundary"="administrative"]->.searchArea;
+
+    (
+        way["amenity"]["name"]["amenity"!="parking"]["amenity"!="parking_space"]["amenity"!="bicycle_parking"]["amenity"!="waste_disposal"](area.searchArea);
+        way["tourism"]["name"]["tourism"!="guest_house"](area.searchArea);
+        way["historic"]["name"](area.searchArea);
+        way["leisure"]["name"]["leisure"!="pitch"](area.searchArea);
+        way["building"]["name"](area.searchArea);
+    );
+    out geom;
+    """
+
 @app.route("/health", methods=["GET"])
 def health():
     return jsonify({"status": "ok"}), 200
@@ -65,6 +81,46 @@ def resolve_city():
         logger.error("resolve-city failed: %s", e)
         return error_response("INTERNAL_ERROR", str(e), status=500)
 
+# the address levels resolve-city reads the city from
+CITY_PLACE_TYPES = ("city", "town", "village")
+
+@app.route("/city-boundary", methods=["POST"])
+def city_boundary():
+    """
+    Administrative boundary of a resolved city as GeoJSON (Polygon or MultiPolygon).
+    The backend keeps it in a local index so later positions inside the city resolve without a call here.
+    Of the places named like the city, the first city, town or village whose bounding box holds the given
+    point wins; a county or district of the same name would claim its towns for the city.
+    """
+    data = request.get_json(force=True) or {}
+    city = data.get("city")
+    lat = data.get("latitude")
+    lng = data.get("longitude")
+
+    if not city or lat is None or lng is None:
+        return error_response("MISSING_PARAMETERS", "Missing city or latitude/longitude", status=400)
+
+    geolocator = Nominatim(user_agent="scavenger-agent")
+    try:
+        candidates = geolocator.geocode(city, exactly_one=False, limit=5, geometry="geojson", language="en") or []
+        for candidate in candidates:
+            place = candidate.raw.get("addresstype") or candidate.raw.get("type")
+            if place not in CITY_PLACE_TYPES:
+                continue
+            geometry = candidate.raw.get("geojson") or {}
+            if geometry.get("type") not in ("Polygon", "MultiPolygon"):
+                continue
+            south, north, west, east = (float(v) for v in candidate.raw.get("boundingbox", [0, 0, 0, 0]))
+            if south <= float(lat) <= north and west <= float(lng) <= east:
+                logger.info("Boundary for %s: %s", city, geometry.get("type"))
+                return jsonify({"status": "ok", "city": city, "boundary": geometry}), 200
+
+        return error_response("BOUNDARY_NOT_FOUND", f"No boundary polygon for {city}", status=404)
+
+    except Exception as e:
+        logger.error("city-boundary failed: %s", e)
+        return error_response("INTERNAL_ERROR", str(e), status=500, retryable=True)
+
 @app.route("/fetch-landmark", methods=["POST"])
 def fetch_landmark():
     data = request.get_json()
@@ -98,19 +154,7 @@ def fetch_landmark():
     existing_count = collection.count_documents({"city": city})
     logger.info("Landmark data for %s has %d existing entries, proceeding with fetch...", city, existing_count)
 
-    query = f"""
-    [out:json];
-    area["name"="{city}"]["boundary"="administrative"]->.searchArea;
-
-    (
-        way["amenity"]["name"]["amenity"!="parking"]["amenity"!="parking_space"]["amenity"!="bicycle_parking"]["amenity"!="waste_disposal"](area.searchArea);
-        way["tourism"]["name"]["tourism"!="guest_house"](area.searchArea);
-        way["historic"]["name"](area.searchArea);
-        way["leisure"]["name"]["leisure"!="pitch"](area.searchArea);
-        way["building"]["name"](area.searchArea);
-    );
-    out geom;
-    """
+    query = landmark_query(city)
 
     try:
         LandmarkPreprocessor(query, city=city)\
@@ -126,6 +170,45 @@ def fetch_landmark():
         logger.error("Landmark processing failed: %s", e)
         return error_response("INTERNAL_ERROR", str(e), status=500)
 
+@app.route("/landmark-feed", methods=["POST"])
+def landmark_feed():
+    """
+    Landmarks of the city at latitude/longitude as NDJSON, one landmark per line, without writing to MongoDB.
+    The backend streams this into batched upserts keyed on externalId (LandmarkIngestionService), so it
+    knows which landmarks changed. Failures before the first line are the usual JSON error responses.
+    """
+    data = request.get_json(force=True) or {}
+    lat = data.get("latitude")
+    lng = data.get("longitude")
+    if lat is None or lng is None:
+        return error_response("MISSING_COORDINATES", "Missing latitude/longitude", status=400)
+
+    with app.test_request_context('/resolve-city', method='POST', json={"latitude": lat, "longitude": lng}):
+        resolve_response, status_code = resolve_city()
+
+    if status_code != 200:
+        return error_response("RESOLVE_CITY_ERROR",  "Failed to resolve city", status=400)
+
+    city = resolve_response.get_json()["city"]
+
+    # same CI escape hatch as /fetch-landmark: an empty feed
+    if os.getenv("SKIP_LIVE_LANDMARK_FETCH", "false").lower() == "true":
+        logger.info("SKIP_LIVE_LANDMARK_FETCH is set — empty landmark feed for %s.", city)
+        return Response("", mimetype="application/x-ndjson")
+
+    try:
+        pre = LandmarkPreprocessor(landmark_query(city), city=city).fetchRaw().findRawLandmarks()
+        items = pre.processRawLandmark().feedItems() if pre.rawLandmarks else iter(())
+    except Exception as e:
+        logger.error("Landmark feed failed: %s", e)
+        return error_response("INTERNAL_ERROR", str(e), status=500, retryable=True)
+
+    def lines():
+        for item in items:
+            yield json.dumps(item, sort_keys=True, ensure_ascii=False) + "\n"
+
+    return Response(stream_with_context(lines()), mimetype="application/x-ndjson")
+
 @app.route("/generate-landmark-meta", methods=["POST"])
 def generate_landmark_meta():
 
@@ -139,6 +222,7 @@ def generate_landmark_meta():
     client = MongoClient(MONGO_URL)
     db = client[DB_NAME]
 
+    existing_ids = set()
     if not override:
         existing_ids = db["landmark_metadata"].find(
             {"landmarkId": {"$in": landmark_ids}},
@@ -147,12 +231,14 @@ def generate_landmark_meta():
         existing_ids = {doc["landmarkId"] for doc in existing_ids}
         landmark_ids = [lmid for lmid in landmark_ids if lmid not in existing_ids]
 
+    # ready_ids: requested ids that have metadata after this call, so callers can stop asking for them
     if not landmark_ids:
         return jsonify({
             "status": "ok",
             "generated": 0,
             "skipped": "all exist" if not override else 0,
-            "failed": 0
+            "failed": 0,
+            "ready_ids": sorted(existing_ids)
         })
 
     try:
@@ -163,7 +249,8 @@ def generate_landmark_meta():
             "status": "ok",
             "generated": len(generator.landmarks),
             "skipped": len(data.get("landmark_ids", [])) - len(generator.landmarks),
-            "failed": 0
+            "failed": 0,
+            "ready_ids": sorted(existing_ids | set(generator.metaInfo.keys()))
         })
     except Exception as e:
         logger.error("Meta generation failed: %s", e)
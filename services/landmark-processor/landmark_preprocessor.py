@@ -89,6 +89,10 @@ class LandmarkPreprocessor:
 
             package["geometry"] = geometry_points
 
+            # OSM element id, stable across fetches (names are not unique)
+            if "id" in info:
+                package["osmId"] = f"{info.get('type', 'way')}/{info['id']}"
+
             info["tags"].pop("name", None)
             package["tags"] = info["tags"]
             res[name] = package
@@ -96,6 +100,31 @@ class LandmarkPreprocessor:
         self.processedLandmarks = res
         return self
 
+    def feedItems(self):
+        """
+        Processed landmarks as flat records for the backend's streaming ingestion (/landmark-feed).
+        externalId is the OSM element ("osm:way/123"); the geometry is a closed ring of [lon, lat].
+        """
+        if self.processedLandmarks is None:
+            raise ValueError("No processed landmarks. Run processRawLandmark() first")
+
+        for name, data in self.processedLandmarks.items():
+            if "osmId" not in data:
+                continue
+            ring = [[pt["lon"], pt["lat"]] for pt in data["geometry"]]
+            if ring and ring[0] != ring[-1]:
+                ring.append(ring[0])
+            lon, lat = data["location"]["coordinates"]
+            yield {
+                "externalId": f"osm:{data['osmId']}",
+                "name": name,
+                "city": self.city,
+                "latitude": lat,
+                "longitude": lon,
+                "geometry": ring,
+                "tags": data.get("tags", {}),
+            }
+
     def storeToDB(self, overwrite=False, mongo_url="mongodb://localhost:27017", db_name="scavengerhunt"):
         if not self.processedLandmarks:
             raise ValueError("No processed landmaks. Run processRawLandmark() first")
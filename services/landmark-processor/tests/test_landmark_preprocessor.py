@@ -112,3 +112,21 @@ def test_store_to_db_skips_existing_landmark():
         p.storeToDB(mongo_url="mongodb://fake:27017", db_name="testdb", overwrite=False)
 
     mock_collection.insert_one.assert_not_called()
+
+
+def test_feed_items_keyed_on_osm_id_with_closed_ring():
+    p = make_preprocessor()
+    p.findRawLandmarks()
+    p.processRawLandmark()
+
+    items = list(p.feedItems())
+
+    assert len(items) == 1
+    item = items[0]
+    assert item["externalId"] == "osm:way/1"
+    assert item["name"] == "Test Hall"
+    assert item["city"] == "TestCity"
+    assert abs(item["latitude"] - 51.8945) < 0.001
+    assert len(item["geometry"]) == 5
+    assert item["geometry"][0] == item["geometry"][-1] == [-8.485, 51.895]  # [lon, lat]
+    assert "name" not in item["tags"]
@@ -1,4 +1,4 @@
-from flask import Flask, request, jsonify
+from flask import Flask, request, jsonify, Response, stream_with_context
 # from riddle_generator import RiddleGenerator
 from datetime import datetime
 from story_weaver import StoryWeaver
@@ -6,6 +6,7 @@ import logging
 import os
 from dotenv import load_dotenv
 
+import json
 import uuid
 
 from typing import Tuple
@@ -73,6 +74,117 @@ def generate_riddle():
         "riddle": riddle["riddle"]
     })
 
+def sse_event(event: str, payload: dict) -> str:
+    return f"event: {event}\ndata: {json.dumps(payload)}\n\n"
+
+@app.route("/generate-riddle/stream", methods=["POST"])
+def generate_riddle_stream():
+    """Same input as /generate-riddle; answers with server-sent events: "chunk" events carrying the riddle
+    text as it is generated, then "done" with the whole riddle, or "error"."""
+    data = request.get_json()
+
+    session_id = data.get("session_id")
+    landmark_id = data.get("landmark_id")
+    language = data.get("language", "English")
+    style = data.get("style", "Medieval")
+    difficulty = data.get("difficulty")
+    puzzle_pool = data.get("puzzle_pool", [])
+
+    if not session_id:
+        return error_response("MISSING_SESSION_ID", "missing session id", status=400)
+
+    if not landmark_id:
+        return error_response("MISSING_LANDMARK_ID", "missing landmark id", status=400)
+
+    try:
+        story_weaver.start_episode(
+            puzzle_pool=puzzle_pool,
+            session_id=session_id
+        )
+    except ValueError as e:
+        return error_response("START_EPISODE_ERROR", str(e), status=400)
+
+    def events():
+        parts = []
+        try:
+            for chunk in story_weaver.stream_riddle(
+                language=language,
+                style=style,
+                difficulty=difficulty,
+                landmark_id=landmark_id,
+                session_id=session_id
+            ):
+                parts.append(chunk)
+                yield sse_event("chunk", {"text": chunk})
+        except Exception as e:
+            logger.warning("generate-riddle/stream failed for landmark %s: %s", landmark_id, e)
+            yield sse_event("error", {"code": "RIDDLE_GENERATION_ERROR", "message": str(e)})
+            return
+
+        yield sse_event("done", {
+            "session_id": session_id,
+            "landmark_id": landmark_id,
+            "riddle": "".join(parts).strip()
+        })
+
+    return Response(stream_with_context(events()), mimetype="text/event-stream",
+                    headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"})
+
+@app.route("/generate-riddles", methods=["POST"])
+def generate_riddles():
+    """Riddles for several targets of a round in one call, generated in the given order.
+    A failing target is reported under "errors" and does not fail the others."""
+    data = request.get_json()
+
+    session_id = data.get("session_id")
+    language = data.get("language", "English")
+    style = data.get("style", "Medieval")
+    puzzle_pool = data.get("puzzle_pool", [])
+    targets = data.get("targets") or []
+
+    if not session_id:
+        return error_response("MISSING_SESSION_ID", "missing session id", status=400)
+
+    if not targets or any(not t.get("landmark_id") for t in targets):
+        return error_response("MISSING_LANDMARK_ID", "every target needs a landmark id", status=400)
+
+    try:
+        story_weaver.start_episode(
+            puzzle_pool=puzzle_pool,
+            session_id=session_id
+        )
+    except ValueError as e:
+        return error_response("START_EPISODE_ERROR", str(e), status=400)
+
+    riddles = {}
+    errors = {}
+    for target in targets:
+        landmark_id = target["landmark_id"]
+        try:
+            riddle = story_weaver.serve_riddle(
+                language=language,
+                style=style,
+                difficulty=target.get("difficulty"),
+                landmark_id=landmark_id,
+                session_id=session_id
+            )
+        except Exception as e:
+            logger.warning("generate-riddles failed for landmark %s: %s", landmark_id, e)
+            errors[landmark_id] = str(e)
+            continue
+
+        if "error" in riddle:
+            errors[landmark_id] = riddle["error"]
+        else:
+            riddles[landmark_id] = riddle["riddle"]
+
+    return jsonify({
+        "status": "ok" if not errors else "partial",
+        "session_id": session_id,
+        "riddles": riddles,
+        "errors": errors
+    })
+
 @app.route("/reset-session", methods=["POST"])
 def reset_session():
     data = request.get_json(force=True)
@@ -37,6 +37,69 @@ class RiddleGenerator:
         return self
 
     def generateRiddle(self, language="English", style="medieval", difficulty=50, story_context=None):
+        system_prompt, user_prompt = self._buildPrompts(language, style, difficulty, story_context)
+
+        # ========== response based on model selection ==========   
+        
+        if self.mode == "local":
+            result = self.model.respond(self._localPrompt(system_prompt, user_prompt))
+            if hasattr(result, 'text'):
+                self.riddle = result.text
+            else:
+                self.riddle = str(result)  # fallback to string conversion
+            logger.debug("Generated riddle (local): %s", self.riddle)
+            return self
+        elif self.mode == "chatgpt":
+            # chatGPT
+            response = self.model.chat.completions.create(
+                model="gpt-4-turbo",
+                messages=[
+                    {"role": "system", "content": system_prompt},
+                    {"role": "user", "content": user_prompt}
+                ],
+                temperature=0.5,
+                max_tokens=500
+            )
+            self.riddle = response.choices[0].message.content.strip()
+            logger.debug("Generated riddle (chatgpt): %s", self.riddle)
+            return self
+        else:
+            raise ValueError(f"Unsupported mode: {self.mode}. Please choose either 'local' or 'chatgpt'.")
+
+    def streamRiddle(self, language="English", style="medieval", difficulty=50, story_context=None):
+        """Yields the riddle in chunks as the model produces them; self.riddle holds the full text afterwards."""
+        system_prompt, user_prompt = self._buildPrompts(language, style, difficulty, story_context)
+        parts = []
+
+        if self.mode == "local":
+            for fragment in self.model.respond_stream(self._localPrompt(system_prompt, user_prompt)):
+                text = getattr(fragment, "content", None) or ""
+                if text:
+                    parts.append(text)
+                    yield text
+        elif self.mode == "chatgpt":
+            stream = self.model.chat.completions.create(
+                model="gpt-4-turbo",
+                messages=[
+                    {"role": "system", "content": system_prompt},
+                    {"role": "user", "content": user_prompt}
+                ],
+                temperature=0.5,
+                max_tokens=500,
+                stream=True
+            )
+            for event in stream:
+                text = event.choices[0].delta.content if event.choices else None
+                if text:
+                    parts.append(text)
+                    yield text
+        else:
+            raise ValueError(f"Unsupported mode: {self.mode}. Please choose either 'local' or 'chatgpt'.")
+
+        self.riddle = "".join(parts).strip()
+        logger.debug("Streamed riddle (%s): %s", self.mode, self.riddle)
+
+    def _buildPrompts(self, language, style, difficulty, story_context):
 
         # ========== basic info collection ==========   
         meta = self.meta.get("meta", {})
@@ -73,46 +136,20 @@ class RiddleGenerator:
         # ========== prompt based on difficulty ==========   
         user_prompt = "\n".join(filter(None, [history_str, architecture_str, significance_str, reference, basic_info]))
         system_prompt = self._generateSystemPrompt(language, style, difficulty, story_context) 
-        
-        # ========== response based on model selection ==========   
-        
-        if self.mode == "local":
-            # LMSTUDIO GUI STYLE
-            ## Prompt format: https://www.llama.com/docs/model-cards-and-prompt-formats/meta-llama-3/
-            template = r"""
-            <|begin_of_text|><|start_header_id|>system<|end_header_id|>
-            {system}
-            <|eot_id|><|start_header_id|>user<|end_header_id|>
-            {user}
-            <|eot_id|><|start_header_id|>assistant<|end_header_id|>
-            """
+        return system_prompt, user_prompt
+
+    def _localPrompt(self, system_prompt, user_prompt):
+        # LMSTUDIO GUI STYLE
+        ## Prompt format: https://www.llama.com/docs/model-cards-and-prompt-formats/meta-llama-3/
+        template = r"""
+        <|begin_of_text|><|start_header_id|>system<|end_header_id|>
+        {system}
+        <|eot_id|><|start_header_id|>user<|end_header_id|>
+        {user}
+        <|eot_id|><|start_header_id|>assistant<|end_header_id|>
+        """
+        return template.format(system=system_prompt, user=user_prompt)
 
-            final_prompt = template.format(system=system_prompt, user=user_prompt)
-
-            result = self.model.respond(final_prompt)
-            if hasattr(result, 'text'):
-                self.riddle = result.text
-            else:
-                self.riddle = str(result)  # fallback to string conversion
-            logger.debug("Generated riddle (local): %s", self.riddle)
-            return self
-        elif self.mode == "chatgpt":
-            # chatGPT
-            response = self.model.chat.completions.create(
-                model="gpt-4-turbo",
-                messages=[
-                    {"role": "system", "content": system_prompt},
-                    {"role": "user", "content": user_prompt}
-                ],
-                temperature=0.5,
-                max_tokens=500
-            )
-            self.riddle = response.choices[0].message.content.strip()
-            logger.debug("Generated riddle (chatgpt): %s", self.riddle)
-            return self
-        else:
-            raise ValueError(f"Unsupported mode: {self.mode}. Please choose either 'local' or 'chatgpt'.")
-    
     def _generateSystemPrompt(self, language="English", style="Medieval", difficulty=50, story_context=None):
         
         # if isinstance(story_context, str) and story_context.strip():
@@ -54,9 +54,49 @@ class StoryWeaver:
 
         beat_tag = state["beat_plan"][slot_index]
 
+        riddle_generator = RiddleGenerator(model="chatgpt")
+        riddle_generator.loadMetaFromDB(landmark_id).generateRiddle(
+            language=language,
+            style=style,
+            difficulty=difficulty, #placeholder
+            story_context=self._story_context(state, beat_tag)
+        )
+
+        riddle = riddle_generator.riddle
+        self._record_riddle(state, riddle, beat_tag)
+
+        return {
+            "session_id": session_id,
+            "slot_index": slot_index,
+            "total_slots": state["total_slots"],
+            "beat_tag": beat_tag,
+            "riddle": riddle
+        }
+
+    def stream_riddle(self, language, style, difficulty, landmark_id, session_id=None):
+        """Like serve_riddle, but yields the riddle in chunks as it is generated.
+        The story slot is only used up once the whole riddle has been produced."""
+
+        state = self.sessions[session_id]
+        slot_index = state["slot_index"]
+        if slot_index >= len(state["puzzle_pool"]):
+            raise ValueError("No more riddles available in this session.")
+
+        beat_tag = state["beat_plan"][slot_index]
 
+        riddle_generator = RiddleGenerator(model="chatgpt")
+        riddle_generator.loadMetaFromDB(landmark_id)
+        yield from riddle_generator.streamRiddle(
+            language=language,
+            style=style,
+            difficulty=difficulty,
+            story_context=self._story_context(state, beat_tag)
+        )
+
+        self._record_riddle(state, riddle_generator.riddle, beat_tag)
+
+    def _story_context(self, state, beat_tag):
         prev_summary = self._format_previous_riddles(state["riddle_history"])
-        # story_context = f"Current story beat: {beat_tag}\nPrevious riddles: \n{prev_summary}"
 
         beat_instructions = {
             "opening": "Introduce the main quest, protagonist, and first clue.",
@@ -64,7 +104,7 @@ class StoryWeaver:
             "ending": "Resolve the quest by revealing the final truth or location."
         }
 
-        story_context = (
+        return (
             f"This is the {beat_tag} of a connected {len(state['puzzle_pool'])}-part story. "
             f"The overarching quest: {state['story_seed']} "
             f"{beat_instructions.get(beat_tag, '')} "
@@ -72,16 +112,7 @@ class StoryWeaver:
             f"Previous riddles (in order):\n{prev_summary}"
         )
 
-        riddle_generator = RiddleGenerator(model="chatgpt")
-        riddle_generator.loadMetaFromDB(landmark_id).generateRiddle(
-            language=language,
-            style=style,
-            difficulty=difficulty, #placeholder
-            story_context=story_context
-        )
-
-        riddle = riddle_generator.riddle
-
+    def _record_riddle(self, state, riddle, beat_tag):
         #save to riddle_history
         state["riddle_history"].append({
             "text":riddle,
@@ -90,14 +121,6 @@ class StoryWeaver:
 
         state["slot_index"] += 1
 
-        return {
-            "session_id": session_id,
-            "slot_index": slot_index,
-            "total_slots": state["total_slots"],
-            "beat_tag": beat_tag,
-            "riddle": riddle
-        }
-
     def _generate_beat_plan(self, total_slots):
         if total_slots == 1:
             return["opening"]
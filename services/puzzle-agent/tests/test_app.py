@@ -32,3 +32,50 @@ def test_generate_riddle_missing_landmark_id_returns_400(client):
 def test_reset_session_unknown_session_returns_404(client):
     resp = client.post("/reset-session", json = {"session_id": "nonexistent"})
     assert resp.status_code == 404
+
+def test_generate_riddles_missing_targets_returns_400(client):
+    resp = client.post("/generate-riddles", json = {
+        "session_id": "s1",
+        "puzzle_pool": ["lm1"]
+    })
+    assert resp.status_code == 400
+    assert "MISSING_LANDMARK_ID" == resp.get_json().get("code")
+
+def test_generate_riddles_partial_failure_keeps_other_riddles(client, monkeypatch):
+    import app as app_module
+
+    def fake_serve(language, style, difficulty, landmark_id, session_id=None):
+        if landmark_id == "bad":
+            raise RuntimeError("no metadata")
+        return {"riddle": f"riddle for {landmark_id}"}
+
+    monkeypatch.setattr(app_module.story_weaver, "serve_riddle", fake_serve)
+    resp = client.post("/generate-riddles", json = {
+        "session_id": "batch-s1",
+        "puzzle_pool": ["lm1", "bad"],
+        "targets": [{"landmark_id": "lm1", "difficulty": 50}, {"landmark_id": "bad", "difficulty": 50}]
+    })
+    assert resp.status_code == 200
+    data = resp.get_json()
+    assert data["status"] == "partial"
+    assert data["riddles"] == {"lm1": "riddle for lm1"}
+    assert "bad" in data["errors"]
+
+def test_generate_riddle_stream_emits_chunks_then_done(client, monkeypatch):
+    import app as app_module
+
+    def fake_stream(language, style, difficulty, landmark_id, session_id=None):
+        yield "Where stone "
+        yield "meets sky"
+
+    monkeypatch.setattr(app_module.story_weaver, "stream_riddle", fake_stream)
+    resp = client.post("/generate-riddle/stream", json = {
+        "session_id": "stream-s1",
+        "landmark_id": "lm1",
+        "puzzle_pool": ["lm1"]
+    })
+    assert resp.status_code == 200
+    assert resp.mimetype == "text/event-stream"
+    body = resp.get_data(as_text=True)
+    assert body.count("event: chunk") == 2
+    assert '"riddle": "Where stone meets sky"' in body